@@ -15,10 +15,12 @@
  */
 package org.onosproject.codec;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -40,6 +42,25 @@ public abstract class JsonCodec<T> {
         throw new UnsupportedOperationException("encode() not supported");
     }
 
+    /**
+     * Encodes the specified entity as JSON straight to the given generator.
+     * <p>
+     * Codecs may override this method to write the entity without building
+     * its JSON tree first; by default, the entity is encoded with
+     * {@link #encode(Object, CodecContext)} and the resulting tree written.
+     * </p>
+     *
+     * @param entity    entity to encode
+     * @param context   encoding context
+     * @param generator JSON generator to write to
+     * @throws IOException if the JSON could not be written
+     * @throws java.lang.UnsupportedOperationException if the codec does not
+     *                                                 support encode operations
+     */
+    public void encode(T entity, CodecContext context, JsonGenerator generator) throws IOException {
+        context.mapper().writeTree(generator, encode(entity, context));
+    }
+
     /**
      * Decodes the specified entity from JSON.
      *
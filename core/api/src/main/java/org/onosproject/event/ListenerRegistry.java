@@ -17,8 +17,10 @@ package org.onosproject.event;
 
 import org.slf4j.Logger;
 
+import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.ObjLongConsumer;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -34,8 +36,10 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
 
     private final Logger log = getLogger(getClass());
 
-    private long lastStart;
-    private L lastListener;
+    private volatile long lastStart;
+    private volatile L lastListener;
+
+    private volatile ObjLongConsumer<? super L> listenerTimer;
 
     /**
      * Set of listeners that have registered.
@@ -56,15 +60,33 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
         }
     }
 
+    /**
+     * Sets the consumer of the time, in nanoseconds, that each listener
+     * takes to process an event.
+     *
+     * @param listenerTimer listener timing consumer; null to stop timing
+     */
+    public void setListenerTimer(ObjLongConsumer<? super L> listenerTimer) {
+        this.listenerTimer = listenerTimer;
+    }
+
+    /**
+     * Returns the registered listeners.
+     *
+     * @return unmodifiable view of the listeners
+     */
+    public Set<L> getListeners() {
+        return Collections.unmodifiableSet(listeners);
+    }
+
     @Override
     public void process(E event) {
+        ObjLongConsumer<? super L> timer = listenerTimer;
         for (L listener : listeners) {
             try {
                 lastListener = listener;
                 lastStart = System.currentTimeMillis();
-                if (listener.isRelevant(event)) {
-                    listener.event(event);
-                }
+                deliver(event, listener, timer);
                 lastStart = 0;
             } catch (Exception error) {
                 reportProblem(event, error);
@@ -72,6 +94,38 @@ public class ListenerRegistry<E extends Event, L extends EventListener<E>>
         }
     }
 
+    /**
+     * Processes an event on behalf of a single listener, provided it is still
+     * registered. Meant for dispatchers that spread the listeners over
+     * several threads; the listener is therefore not tracked for
+     * {@link #onProcessLimit()}, and the dispatcher watches it instead.
+     *
+     * @param event    event to process
+     * @param listener listener to deliver the event to
+     */
+    public void process(E event, L listener) {
+        if (!listeners.contains(listener)) {
+            return;
+        }
+        try {
+            deliver(event, listener, listenerTimer);
+        } catch (Exception error) {
+            reportProblem(event, error);
+        }
+    }
+
+    private void deliver(E event, L listener, ObjLongConsumer<? super L> timer) {
+        if (listener.isRelevant(event)) {
+            if (timer == null) {
+                listener.event(event);
+            } else {
+                long start = System.nanoTime();
+                listener.event(event);
+                timer.accept(listener, System.nanoTime() - start);
+            }
+        }
+    }
+
     @Override
     public void onProcessLimit() {
         if (lastStart > 0) {
@@ -51,6 +51,22 @@ public interface FlowRuleProviderService extends ProviderService<FlowRuleProvide
      */
     void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries);
 
+    /**
+     * Pushes one part of the flow entries currently applied on the given
+     * device, as collected by a polling round split in several parts. Flow
+     * entries missing from the device are detected once the last part of
+     * the round has been pushed.
+     *
+     * @param deviceId device identifier
+     * @param flowEntries collection of flow rules
+     * @param first true if this is the first part of the round
+     * @param last true if this is the last part of the round
+     */
+    default void pushFlowMetricsPart(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
+                                     boolean first, boolean last) {
+        pushFlowMetricsWithoutFlowMissing(deviceId, flowEntries);
+    }
+
     /**
      * Pushes the collection of table statistics entries currently extracted
      * from the given device.
@@ -17,6 +17,7 @@ package org.onosproject.net.flow;
 
 import java.util.List;
 
+import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
 import org.onosproject.store.Store;
 
@@ -48,6 +49,25 @@ public interface FlowRuleStore extends Store<FlowRuleBatchEvent, FlowRuleStoreDe
      */
     Iterable<FlowEntry> getFlowEntries(DeviceId deviceId);
 
+    /**
+     * Returns the flow entries submitted by the given application,
+     * across all devices.
+     *
+     * @param appId the application ID
+     * @return the flow entries
+     */
+    Iterable<FlowEntry> getFlowEntriesByAppId(ApplicationId appId);
+
+    /**
+     * Returns the flow entries submitted by the given application under
+     * the given group, across all devices.
+     *
+     * @param appId   the application ID
+     * @param groupId the group ID
+     * @return the flow entries
+     */
+    Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId);
+
     /**
      * // TODO: Better description of method behavior.
      * Stores a new flow rule without generating events.
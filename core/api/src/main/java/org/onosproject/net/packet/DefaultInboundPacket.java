@@ -17,6 +17,7 @@ package org.onosproject.net.packet;
 
 import org.onosproject.net.ConnectPoint;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.EthernetView;
 
 import java.nio.ByteBuffer;
 import java.util.Objects;
@@ -31,6 +32,7 @@ public final class DefaultInboundPacket implements InboundPacket {
 
     private final ConnectPoint receivedFrom;
     private final Ethernet parsed;
+    private final EthernetView view;
     private final ByteBuffer unparsed;
     private final Optional<Long> cookie;
 
@@ -58,10 +60,28 @@ public final class DefaultInboundPacket implements InboundPacket {
             ByteBuffer unparsed, Optional<Long> cookie) {
         this.receivedFrom = receivedFrom;
         this.parsed = parsed;
+        this.view = null;
         this.unparsed = unparsed;
         this.cookie = cookie;
     }
 
+    /**
+     * Creates an immutable inbound packet that is parsed on demand, sharing
+     * the bytes backing the given view.
+     *
+     * @param receivedFrom connection point where received
+     * @param view         lazily decoded packet view
+     * @param cookie       cookie
+     */
+    public DefaultInboundPacket(ConnectPoint receivedFrom, EthernetView view,
+                                Optional<Long> cookie) {
+        this.receivedFrom = receivedFrom;
+        this.parsed = null;
+        this.view = view;
+        this.unparsed = view.buffer();
+        this.cookie = cookie;
+    }
+
     @Override
     public ConnectPoint receivedFrom() {
         return receivedFrom;
@@ -69,7 +89,12 @@ public final class DefaultInboundPacket implements InboundPacket {
 
     @Override
     public Ethernet parsed() {
-        return parsed;
+        return view != null ? view.ethernet() : parsed;
+    }
+
+    @Override
+    public EthernetView view() {
+        return view != null ? view : InboundPacket.super.view();
     }
 
     @Override
@@ -85,7 +110,7 @@ public final class DefaultInboundPacket implements InboundPacket {
 
     @Override
     public int hashCode() {
-        return Objects.hash(receivedFrom, parsed, unparsed);
+        return Objects.hash(receivedFrom, parsed(), unparsed);
     }
 
     @Override
@@ -96,7 +121,7 @@ public final class DefaultInboundPacket implements InboundPacket {
         if (obj instanceof InboundPacket) {
             final DefaultInboundPacket other = (DefaultInboundPacket) obj;
             return Objects.equals(this.receivedFrom, other.receivedFrom) &&
-                    Objects.equals(this.parsed, other.parsed) &&
+                    Objects.equals(this.parsed(), other.parsed()) &&
                     Objects.equals(this.unparsed, other.unparsed);
         }
         return false;
@@ -106,7 +131,7 @@ public final class DefaultInboundPacket implements InboundPacket {
     public String toString() {
         return toStringHelper(this)
                 .add("receivedFrom", receivedFrom)
-                .add("parsed", parsed)
+                .add("parsed", parsed())
                 .toString();
     }
 }
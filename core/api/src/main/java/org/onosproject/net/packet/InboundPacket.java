@@ -17,6 +17,7 @@ package org.onosproject.net.packet;
 
 import org.onosproject.net.ConnectPoint;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.EthernetView;
 
 import java.nio.ByteBuffer;
 import java.util.Optional;
@@ -48,6 +49,18 @@ public interface InboundPacket {
      */
     ByteBuffer unparsed();
 
+    /**
+     * Returns a view of the packet that decodes its headers on demand,
+     * without parsing the whole packet.
+     *
+     * @return lazily decoded packet view; null if the packet is not an
+     * Ethernet frame
+     */
+    default EthernetView view() {
+        Ethernet parsed = parsed();
+        return parsed == null ? null : EthernetView.of(parsed);
+    }
+
     /**
      * Returns the cookie in the packet in message.
      *
@@ -21,6 +21,7 @@ import org.onosproject.net.flow.TrafficSelector;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service for intercepting data plane packets and for emitting synthetic
@@ -42,7 +43,23 @@ public interface PacketService {
      */
     void addProcessor(PacketProcessor processor, int priority);
 
-    // TODO allow processors to register for particular types of packets
+    /**
+     * Adds the specified processor to the list of packet processors, to be
+     * handed only the packets matching at least one of the given selectors.
+     * Only the Ethernet type, IP protocol and TCP/UDP port criteria of the
+     * selectors are used to filter packets; other criteria are left for the
+     * processor to check. An empty set of selectors lets all packets through.
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param filters   selectors of the packets the processor is interested in
+     * @throws java.lang.IllegalArgumentException if a processor with the
+     *                                            given priority already exists
+     */
+    default void addProcessor(PacketProcessor processor, int priority,
+                              Set<TrafficSelector> filters) {
+        addProcessor(processor, priority);
+    }
 
     /**
      * Removes the specified processor from the processing pipeline.
@@ -17,10 +17,12 @@ package org.onosproject.net.resource;
 
 import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.onosproject.event.ListenerService;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -81,6 +83,25 @@ public interface ResourceService extends ResourceQueryService, ListenerService<R
         return allocate(consumer, Arrays.asList(resources));
     }
 
+    /**
+     * Allocates resources to several consumers at once. The resources of each
+     * consumer are allocated transactionally as by
+     * {@link #allocate(ResourceConsumer, List)}, but the allocation for one
+     * consumer may succeed while that for another fails.
+     *
+     * @param requests resources to be allocated, keyed by the consumer they are allocated to
+     * @return allocation information for each consumer; empty list for the consumers
+     * whose allocation failed
+     */
+    default Map<ResourceConsumer, List<ResourceAllocation>> allocate(
+            Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests) {
+        checkNotNull(requests);
+
+        ImmutableMap.Builder<ResourceConsumer, List<ResourceAllocation>> results = ImmutableMap.builder();
+        requests.forEach((consumer, resources) -> results.put(consumer, allocate(consumer, resources)));
+        return results.build();
+    }
+
     /**
      * Releases the specified resource allocation.
      *
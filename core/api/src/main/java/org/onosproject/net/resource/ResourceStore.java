@@ -16,10 +16,12 @@
 package org.onosproject.net.resource;
 
 import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableMap;
 import org.onosproject.store.Store;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -62,6 +64,23 @@ public interface ResourceStore extends Store<ResourceEvent, ResourceStoreDelegat
      */
     boolean allocate(List<? extends Resource> resources, ResourceConsumer consumer);
 
+    /**
+     * Allocates resources to several consumers in as few transactions as
+     * possible. The resources of each consumer are allocated as by
+     * {@link #allocate(List, ResourceConsumer)}: all of them or none. A
+     * consumer whose resources can't be allocated doesn't fail the allocation
+     * for the others.
+     *
+     * @param requests resources to be allocated, keyed by the consumer they are allocated to
+     * @return whether the allocation succeeded, for each consumer
+     */
+    default Map<ResourceConsumer, Boolean> allocate(
+            Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests) {
+        ImmutableMap.Builder<ResourceConsumer, Boolean> results = ImmutableMap.builder();
+        requests.forEach((consumer, resources) -> results.put(consumer, allocate(resources, consumer)));
+        return results.build();
+    }
+
     /**
      * Releases the specified allocated resources in transactional way.
      * The state after completion of this method is all the resources
@@ -30,6 +30,8 @@ public class DefaultTopologyEdge implements TopologyEdge {
     private final Link link;
     private final TopologyVertex src;
     private final TopologyVertex dst;
+    // edges are hashed repeatedly while building graphs
+    private final int hash;
 
     /**
      * Creates a new topology edge.
@@ -42,6 +44,7 @@ public class DefaultTopologyEdge implements TopologyEdge {
         this.src = src;
         this.dst = dst;
         this.link = checkNotNull(link);
+        this.hash = link.hashCode();
     }
 
     @Override
@@ -61,7 +64,7 @@ public class DefaultTopologyEdge implements TopologyEdge {
 
     @Override
     public int hashCode() {
-        return link.hashCode();
+        return hash;
     }
 
     @Override
@@ -15,19 +15,37 @@
  */
 package org.onosproject.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import org.onlab.rest.BaseResource;
 import org.onosproject.codec.CodecContext;
 import org.onosproject.codec.CodecService;
 import org.onosproject.codec.JsonCodec;
 
+import javax.ws.rs.core.StreamingOutput;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Abstract REST resource.
  */
 public class AbstractWebResource extends BaseResource implements CodecContext {
 
+    private static final String NEXT_CURSOR = "nextCursor";
+    private static final String INVALID_CURSOR = "Invalid cursor";
+    private static final String INVALID_LIMIT = "Limit must not be negative";
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     @Override
@@ -63,6 +81,107 @@ public class AbstractWebResource extends BaseResource implements CodecContext {
         return result;
     }
 
+    /**
+     * Returns a streaming output writing a JSON object that wraps the array
+     * encoding of the specified collection of items. The items are encoded
+     * and written one at a time, so that the encoding of the whole collection
+     * is never held in memory.
+     *
+     * @param codecClass codec item class
+     * @param field      field holding the array
+     * @param items      collection of items to be encoded into array
+     * @param <T>        item type
+     * @return streaming output of the JSON object
+     */
+    protected <T> StreamingOutput encodeArrayStream(Class<T> codecClass, String field,
+                                                    Iterable<T> items) {
+        return encodeArrayStream(codecClass, field, StreamSupport.stream(items.spliterator(), false),
+                                 null, null, 0, null);
+    }
+
+    /**
+     * Returns a streaming output writing a JSON object that wraps the array
+     * encoding of a page of the specified items, as
+     * {@link #encodeArrayStream(Class, String, Iterable)} does.
+     * <p>
+     * The page holds the items following the given cursor, up to the given
+     * limit. If more items follow the page, the object also holds the cursor
+     * to request the next page with in its {@code nextCursor} field. Each
+     * item may be projected on some of its fields.
+     * </p>
+     *
+     * @param codecClass codec item class
+     * @param field      field holding the array
+     * @param items      items to be encoded into array, ordered by their keys
+     * @param keyOf      function returning the unique key of an item; used
+     *                   only when paging
+     * @param cursor     cursor returned with the previous page; null for the
+     *                   first page
+     * @param limit      maximum number of items in the page; 0 for no limit
+     * @param fields     comma-separated names of the fields of each item to
+     *                   write; null or empty to write all fields
+     * @param <T>        item type
+     * @return streaming output of the JSON object
+     * @throws IllegalArgumentException if the cursor or limit is invalid
+     */
+    protected <T> StreamingOutput encodeArrayStream(Class<T> codecClass, String field,
+                                                    Stream<T> items, Function<T, String> keyOf,
+                                                    String cursor, int limit, String fields) {
+        checkArgument(limit >= 0, INVALID_LIMIT);
+        String after = decodeCursor(cursor);
+        Set<String> projection = fields == null ? ImmutableSet.of() :
+                ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(fields));
+        JsonCodec<T> codec = codec(codecClass);
+        Iterator<T> page = (after == null ? items : items.filter(x -> keyOf.apply(x).compareTo(after) > 0))
+                .iterator();
+
+        return output -> {
+            JsonGenerator generator = mapper.getFactory().createGenerator(output);
+            // leave the response stream to the container
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(field);
+            T last = null;
+            for (int count = 0; page.hasNext() && (limit == 0 || count < limit); count++) {
+                last = page.next();
+                if (projection.isEmpty()) {
+                    codec.encode(last, this, generator);
+                } else {
+                    mapper.writeTree(generator, codec.encode(last, this).retain(projection));
+                }
+            }
+            generator.writeEndArray();
+            if (limit > 0 && page.hasNext()) {
+                generator.writeStringField(NEXT_CURSOR, encodeCursor(keyOf.apply(last)));
+            }
+            generator.writeEndObject();
+            generator.close();
+        };
+    }
+
+    /**
+     * Returns the key of the last item of a page, given the cursor returned
+     * with that page.
+     *
+     * @param cursor cursor; may be null
+     * @return key of the last item of the page; null if the cursor is null
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    protected static String decodeCursor(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR, e);
+        }
+    }
+
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Override
     public <T> T getService(Class<T> serviceClass) {
         return get(serviceClass);
@@ -154,7 +154,7 @@ public final class ConsistentMapBackedJavaMap<K, V> implements Map<K, V> {
         // Map like output
         StringBuilder sb = new StringBuilder();
         sb.append('{');
-        Iterator<Entry<K, Versioned<V>>> it = backingMap.entrySet().iterator();
+        Iterator<Entry<K, Versioned<V>>> it = backingMap.iterator();
         while (it.hasNext()) {
             Entry<K, Versioned<V>> entry = it.next();
             sb.append(entry.getKey()).append('=').append(entry.getValue().value());
@@ -252,6 +252,22 @@ public interface AsyncConsistentMap<K, V> extends DistributedPrimitive, Transact
      */
     CompletableFuture<Set<Entry<K, Versioned<V>>>> entrySet();
 
+    /**
+     * Returns an iterator over the entries of this map.
+     * Unlike {@link #entrySet()}, the entries are fetched lazily in bounded pages,
+     * so that iterating over a large map does not materialize it at once. The
+     * iterator is weakly consistent: each page returns the entries present when
+     * it is fetched, so entries updated while iterating may or may not be
+     * returned, but no entry is returned twice. The pages resume after the
+     * last key read, so an iterator holds nothing on the map and may be
+     * abandoned without being exhausted.
+     *
+     * @return a future for an iterator over the entries of this map
+     */
+    default CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        return entrySet().thenApply(entries -> AsyncIterator.of(entries.iterator()));
+    }
+
     /**
      * If the specified key is not already associated with a value associates
      * it with the given value and returns null, else behaves as a get
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous iterator over the elements of a distributed primitive.
+ * <p>
+ * Elements are fetched from the primitive lazily, typically one page at a
+ * time. Iterators are not thread safe; a call must only be made once the
+ * future returned by the previous call has completed.
+ *
+ * @param <T> element type
+ */
+public interface AsyncIterator<T> {
+
+    /**
+     * Returns whether the iterator has more elements.
+     *
+     * @return future that will be completed with true if there are more elements
+     */
+    CompletableFuture<Boolean> hasNext();
+
+    /**
+     * Returns the next element of the iterator.
+     *
+     * @return future that will be completed with the next element, or
+     * completed exceptionally with {@link NoSuchElementException} if the
+     * iterator has no more elements
+     */
+    CompletableFuture<T> next();
+
+    /**
+     * Releases the resources held for the iterator before it is exhausted.
+     *
+     * @return future that will be completed when the iterator is closed
+     */
+    default CompletableFuture<Void> close() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Returns an asynchronous iterator over the elements of a local iterator.
+     *
+     * @param iterator local iterator
+     * @param <T> element type
+     * @return asynchronous iterator
+     */
+    static <T> AsyncIterator<T> of(Iterator<T> iterator) {
+        return new AsyncIterator<T>() {
+            @Override
+            public CompletableFuture<Boolean> hasNext() {
+                return CompletableFuture.completedFuture(iterator.hasNext());
+            }
+
+            @Override
+            public CompletableFuture<T> next() {
+                CompletableFuture<T> future = new CompletableFuture<>();
+                try {
+                    future.complete(iterator.next());
+                } catch (NoSuchElementException e) {
+                    future.completeExceptionally(e);
+                }
+                return future;
+            }
+        };
+    }
+}
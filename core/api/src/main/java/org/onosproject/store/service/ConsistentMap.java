@@ -17,6 +17,7 @@
 package org.onosproject.store.service;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -219,6 +220,20 @@ public interface ConsistentMap<K, V> extends DistributedPrimitive {
      */
     Set<Entry<K, Versioned<V>>> entrySet();
 
+    /**
+     * Returns an iterator over the entries of this map.
+     * Unlike {@link #entrySet()}, the entries are fetched lazily in bounded pages,
+     * so that iterating over a large map does not materialize it at once. The
+     * iterator is weakly consistent and does not support removal. Unlike the
+     * views of {@link #asJavaMap()}, which are snapshots, it is meant for
+     * walking a large map once.
+     *
+     * @return an iterator over the entries of this map
+     */
+    default Iterator<Entry<K, Versioned<V>>> iterator() {
+        return entrySet().iterator();
+    }
+
     /**
      * If the specified key is not already associated with a value
      * associates it with the given value and returns null, else returns the current value.
@@ -15,8 +15,14 @@
  */
 package org.onosproject.store.service;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntBiFunction;
+
 import org.onosproject.store.primitives.DistributedPrimitiveBuilder;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Builder for {@link ConsistentMap} instances.
  *
@@ -27,6 +33,10 @@ public abstract class ConsistentMapBuilder<K, V>
     extends DistributedPrimitiveBuilder<ConsistentMapBuilder<K, V>, ConsistentMap<K, V>> {
 
     private boolean purgeOnUninstall = false;
+    private boolean nearCache = false;
+    private long nearCacheTimeToLiveMillis = 0;
+    private long nearCacheMaxWeight = 0;
+    private ToIntBiFunction<? super K, ? super V> nearCacheWeigher = (key, value) -> 1;
 
     public ConsistentMapBuilder() {
         super(DistributedPrimitive.Type.CONSISTENT_MAP);
@@ -50,6 +60,79 @@ public abstract class ConsistentMapBuilder<K, V>
         return purgeOnUninstall;
     }
 
+    /**
+     * Serves reads from a local near-cache of the map.
+     * <p>
+     * Cached entries are kept in sync by the map events and are never
+     * replaced by an older version of the entry. Each entry weighs one unless
+     * a weigher is supplied with {@link #withNearCacheWeigher}.
+     * <p>
+     * As with {@link #withRelaxedReadConsistency()}, only gets of single keys
+     * are served from the cache: {@code keySet}, {@code values},
+     * {@code entrySet} and all other calls go to the map itself, and their
+     * results are not cached.
+     *
+     * @param timeToLive time after which cached entries expire; zero for no expiry
+     * @param unit time to live unit
+     * @param maxWeight maximum total weight of the cached entries
+     * @return this builder
+     */
+    public ConsistentMapBuilder<K, V> withNearCache(long timeToLive, TimeUnit unit, long maxWeight) {
+        checkArgument(timeToLive >= 0, "timeToLive must not be negative");
+        checkArgument(maxWeight > 0, "maxWeight must be positive");
+        nearCache = true;
+        nearCacheTimeToLiveMillis = unit.toMillis(timeToLive);
+        nearCacheMaxWeight = maxWeight;
+        return this;
+    }
+
+    /**
+     * Sets the function used to weigh the entries of the near-cache.
+     *
+     * @param weigher function returning the weight of an entry
+     * @return this builder
+     */
+    public ConsistentMapBuilder<K, V> withNearCacheWeigher(ToIntBiFunction<? super K, ? super V> weigher) {
+        nearCacheWeigher = checkNotNull(weigher);
+        return this;
+    }
+
+    /**
+     * Returns if reads are to be served from a near-cache.
+     *
+     * @return {@code true} if yes; {@code false} otherwise
+     */
+    public boolean nearCache() {
+        return nearCache;
+    }
+
+    /**
+     * Returns the time to live of the near-cache entries.
+     *
+     * @return time to live in milliseconds; zero for no expiry
+     */
+    public long nearCacheTimeToLiveMillis() {
+        return nearCacheTimeToLiveMillis;
+    }
+
+    /**
+     * Returns the maximum total weight of the near-cache entries.
+     *
+     * @return maximum weight
+     */
+    public long nearCacheMaxWeight() {
+        return nearCacheMaxWeight;
+    }
+
+    /**
+     * Returns the function used to weigh the near-cache entries.
+     *
+     * @return weigher
+     */
+    public ToIntBiFunction<? super K, ? super V> nearCacheWeigher() {
+        return nearCacheWeigher;
+    }
+
     /**
      * Builds an async consistent map based on the configuration options
      * supplied to this builder.
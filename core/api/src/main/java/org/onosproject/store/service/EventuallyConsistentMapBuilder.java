@@ -180,6 +180,19 @@ public interface EventuallyConsistentMapBuilder<K, V> {
      */
     EventuallyConsistentMapBuilder<K, V> withFasterConvergence();
 
+    /**
+     * Configure anti-entropy to first compare hash trees of the map contents
+     * and then exchange digests only for the keys in the differing parts of
+     * the map. Suited to large maps that are mostly in sync, where sending
+     * the digest of every entry each cycle is wasteful.
+     * <p>
+     * The default behavior is to send the digest of every entry.
+     * </p>
+     *
+     * @return this EventuallyConsistentMapBuilder
+     */
+    EventuallyConsistentMapBuilder<K, V> withHashTreeAntiEntropy();
+
     /**
      * Configure the map to persist data to disk.
      * <p>
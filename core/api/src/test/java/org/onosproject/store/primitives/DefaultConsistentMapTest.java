@@ -18,6 +18,8 @@ package org.onosproject.store.primitives;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -284,9 +286,15 @@ public class DefaultConsistentMapTest {
         assertThat(newMap.computeIfAbsent(KEY4, this::computeFunction).value(), is(VALUE4));
         assertThat(computeFunctionCalls, is(1));
 
+        Iterator<Map.Entry<String, Versioned<String>>> iterator = newMap.iterator();
+        Set<String> iteratedKeys = new HashSet<>();
+        iterator.forEachRemaining(e -> iteratedKeys.add(e.getKey()));
+        assertThat(iteratedKeys, is(newMap.keySet()));
+
         Map javaMap = newMap.asJavaMap();
         assertThat(javaMap.size(), is(newMap.size()));
         assertThat(javaMap.get(KEY1), is(VALUE1));
+        assertThat(javaMap.entrySet().size(), is(4));
 
         assertThat(newMap.toString(), containsString(KEY4 + "=" + VALUE4));
 
@@ -16,11 +16,11 @@
 package org.onosproject.store.service;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -44,8 +44,8 @@ public final class TestConsistentMap<K, V> extends ConsistentMapAdapter<K, V> {
     private final AtomicLong counter = new AtomicLong(0);
 
     private TestConsistentMap(String mapName) {
-        map = new HashMap<>();
-        listeners = new LinkedList<>();
+        map = new ConcurrentHashMap<>();
+        listeners = new CopyOnWriteArrayList<>();
         this.mapName = mapName;
     }
 
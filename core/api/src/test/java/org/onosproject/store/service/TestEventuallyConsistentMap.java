@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -121,7 +122,15 @@ public final class TestEventuallyConsistentMap<K, V> extends EventuallyConsisten
 
     @Override
     public V compute(K key, BiFunction<K, V, V> recomputeFunction) {
-        return map.compute(key, recomputeFunction);
+        V previous = map.get(key);
+        V result = map.compute(key, recomputeFunction);
+        if (!Objects.equals(previous, result)) {
+            EventuallyConsistentMapEvent<K, V> event = result == null
+                    ? new EventuallyConsistentMapEvent<>(mapName, REMOVE, key, previous)
+                    : new EventuallyConsistentMapEvent<>(mapName, PUT, key, result);
+            notifyListeners(event);
+        }
+        return result;
     }
 
     @Override
@@ -226,6 +235,11 @@ public final class TestEventuallyConsistentMap<K, V> extends EventuallyConsisten
             return this;
         }
 
+        @Override
+        public EventuallyConsistentMapBuilder<K, V> withHashTreeAntiEntropy() {
+            return this;
+        }
+
         @Override
         public EventuallyConsistentMapBuilder<K, V> withPersistence() {
             return this;
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.onlab.junit.NullScheduledExecutor;
+import org.onlab.packet.IpAddress;
+import org.onlab.util.Tools;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
+import org.onosproject.store.persistence.PersistenceServiceAdapter;
+import org.onosproject.store.primitives.impl.EventuallyConsistentMapBuilderImpl;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Measures the anti-entropy rounds between two replicas of an eventually
+ * consistent map, with and without hash trees. The replicas are connected by
+ * an in-memory loopback that runs every exchange on the calling thread, so an
+ * invocation is one complete round, and the bytes sent by the last round of
+ * each iteration, in both directions, are reported as an auxiliary counter.
+ * <p>
+ * Updates are counted but not delivered, so the replicas keep differing in
+ * the same entries from one round to the next.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AntiEntropyBenchmark {
+
+    private static final NodeId LOCAL = new NodeId("local");
+    private static final NodeId PEER = new NodeId("peer");
+    private static final long HIGH_LOAD_SECONDS = 3;
+
+    @Param({"10000", "100000"})
+    public int keys;
+
+    @Param({"0", "1", "100"})
+    public int differingKeys;
+
+    @Param({"false", "true"})
+    public boolean hashTree;
+
+    private final Map<NodeId, LoopbackCommunicator> communicators = Maps.newConcurrentMap();
+    private long clock;
+    private long bytesSent;
+    private RoundScheduler localScheduler;
+    private EventuallyConsistentMap<String, String> localMap;
+    private EventuallyConsistentMap<String, String> peerMap;
+
+    /**
+     * Bytes sent by an anti-entropy round.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundBytes {
+        public long bytesPerRound;
+    }
+
+    /**
+     * Creates both replicas with the same entries, then updates the differing
+     * entries on the local replica only.
+     */
+    @Setup
+    public void setUp() {
+        localScheduler = new RoundScheduler();
+        localMap = map(LOCAL, localScheduler);
+        peerMap = map(PEER, new RoundScheduler());
+
+        clock = 1;
+        for (int i = 0; i < keys; i++) {
+            localMap.put("key" + i, "value" + i);
+            peerMap.put("key" + i, "value" + i);
+        }
+        clock = 2;
+        for (int i = 0; i < differingKeys; i++) {
+            localMap.put("key" + i, "updated" + i);
+        }
+        // the puts above put both replicas under high load, in which they skip anti-entropy
+        Uninterruptibles.sleepUninterruptibly(HIGH_LOAD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private EventuallyConsistentMap<String, String> map(NodeId nodeId, RoundScheduler scheduler) {
+        EventuallyConsistentMapBuilderImpl<String, String> builder =
+                new EventuallyConsistentMapBuilderImpl<>(new PeerClusterService(nodeId),
+                                                         new LoopbackCommunicator(nodeId),
+                                                         new PersistenceServiceAdapter());
+        builder.withName("benchmark")
+                .withSerializer(KryoNamespaces.API)
+                .withTimestampProvider((k, v) -> new LogicalTimestamp(clock))
+                .withPeerUpdateFunction((k, v) -> ImmutableList.of())
+                .withBackgroundExecutor(scheduler);
+        if (hashTree) {
+            builder.withHashTreeAntiEntropy();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Destroys both replicas.
+     */
+    @TearDown
+    public void tearDown() {
+        localMap.destroy();
+        peerMap.destroy();
+    }
+
+    /**
+     * Runs an anti-entropy round from the local replica to its peer.
+     *
+     * @param roundBytes bytes sent by the round
+     */
+    @Benchmark
+    public void round(RoundBytes roundBytes) {
+        bytesSent = 0;
+        localScheduler.antiEntropyTask.run();
+        roundBytes.bytesPerRound = bytesSent;
+    }
+
+    /**
+     * Cluster service of two active nodes.
+     */
+    private static class PeerClusterService extends ClusterServiceAdapter {
+        private final ControllerNode localNode;
+
+        PeerClusterService(NodeId nodeId) {
+            localNode = new DefaultControllerNode(nodeId, IpAddress.valueOf("127.0.0.1"));
+        }
+
+        @Override
+        public ControllerNode getLocalNode() {
+            return localNode;
+        }
+
+        @Override
+        public Set<ControllerNode> getNodes() {
+            return ImmutableSet.of(new DefaultControllerNode(LOCAL, IpAddress.valueOf("127.0.0.1")),
+                                   new DefaultControllerNode(PEER, IpAddress.valueOf("127.0.0.1")));
+        }
+
+        @Override
+        public ControllerNode.State getState(NodeId nodeId) {
+            return ControllerNode.State.ACTIVE;
+        }
+    }
+
+    /**
+     * Scheduler that keeps the periodic anti-entropy task so the benchmark
+     * can run it on demand, and runs nothing else.
+     */
+    private static class RoundScheduler extends NullScheduledExecutor {
+        private Runnable antiEntropyTask;
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay,
+                                                      long period, TimeUnit unit) {
+            antiEntropyTask = command;
+            return null;
+        }
+    }
+
+    /**
+     * Communication service that hands the requests of one replica to the
+     * handlers of the other on the calling thread, counting the bytes of the
+     * requests and of their replies.
+     */
+    private class LoopbackCommunicator extends ClusterCommunicationServiceAdapter {
+        private final Map<MessageSubject, Function<byte[], CompletableFuture<byte[]>>> handlers =
+                Maps.newConcurrentMap();
+
+        LoopbackCommunicator(NodeId nodeId) {
+            communicators.put(nodeId, this);
+        }
+
+        @Override
+        public <M> CompletableFuture<Void> unicast(M message, MessageSubject subject,
+                                                   Function<M, byte[]> encoder, NodeId toNodeId) {
+            bytesSent += encoder.apply(message).length;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder,
+                                                          Function<byte[], R> decoder, NodeId toNodeId) {
+            byte[] request = encoder.apply(message);
+            bytesSent += request.length;
+            LoopbackCommunicator peer = communicators.get(toNodeId);
+            Function<byte[], CompletableFuture<byte[]>> handler = peer == null ? null : peer.handlers.get(subject);
+            if (handler == null) {
+                return Tools.exceptionalFuture(new MessagingException.NoRemoteHandler());
+            }
+            return handler.apply(request).thenApply(reply -> {
+                bytesSent += reply.length;
+                return decoder.apply(reply);
+            });
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                         Function<M, R> handler, Function<R, byte[]> encoder,
+                                         Executor executor) {
+            handlers.put(subject, bytes -> CompletableFuture.completedFuture(
+                    encoder.apply(handler.apply(decoder.apply(bytes)))));
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                         Function<M, CompletableFuture<R>> handler,
+                                         Function<R, byte[]> encoder) {
+            handlers.put(subject, bytes -> handler.apply(decoder.apply(bytes)).thenApply(encoder));
+        }
+
+        @Override
+        public <M> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                      Consumer<M> handler, Executor executor) {
+            handlers.put(subject, bytes -> {
+                handler.accept(decoder.apply(bytes));
+                return CompletableFuture.completedFuture(new byte[0]);
+            });
+        }
+
+        @Override
+        public void removeSubscriber(MessageSubject subject) {
+            handlers.remove(subject);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import io.atomix.copycat.Operation;
+import io.atomix.copycat.server.Commit;
+import io.atomix.copycat.server.session.ServerSession;
+import io.atomix.copycat.server.storage.Storage;
+import io.atomix.copycat.server.storage.StorageLevel;
+import io.atomix.copycat.server.storage.snapshot.Snapshot;
+import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
+import io.atomix.copycat.server.storage.snapshot.SnapshotStore;
+import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
+import org.onlab.util.Match;
+import org.onosproject.store.primitives.impl.CatalystSerializers;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAndGet;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the recovery of a consistent map state machine by replaying a
+ * synthetic log of updates against installing a snapshot of the same state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConsistentMapRecoveryBenchmark {
+
+    private static final int VALUE_SIZE = 128;
+
+    @Param({"1000", "10000"})
+    public int keys;
+
+    @Param({"100000"})
+    public int logSize;
+
+    private Method updateAndGet;
+    private Commit<UpdateAndGet>[] log;
+    private SnapshotStore snapshots;
+
+    /**
+     * Creates the synthetic log and a snapshot of the state it leads to.
+     *
+     * @throws Exception if the state machine cannot be driven
+     */
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        updateAndGet = AtomixConsistentMapState.class.getDeclaredMethod("updateAndGet", Commit.class);
+        updateAndGet.setAccessible(true);
+
+        log = new Commit[logSize];
+        for (int i = 0; i < logSize; i++) {
+            UpdateAndGet update = new UpdateAndGet("key" + (i % keys), new byte[VALUE_SIZE],
+                                                   Match.any(), Match.any());
+            log[i] = new LogCommit<>(i + 1, update);
+        }
+
+        snapshots = new SnapshotStore("benchmark", new Storage(StorageLevel.MEMORY),
+                                      CatalystSerializers.getSerializer());
+        Snapshot snapshot = snapshots.createSnapshot(logSize);
+        try (SnapshotWriter writer = snapshot.writer()) {
+            replay().snapshot(writer);
+        }
+        snapshot.complete();
+    }
+
+    /**
+     * Closes the snapshot store.
+     */
+    @TearDown
+    public void tearDown() {
+        snapshots.close();
+    }
+
+    /**
+     * Rebuilds the state machine by applying every entry of the log.
+     *
+     * @return recovered state machine
+     * @throws Exception if the state machine cannot be driven
+     */
+    @Benchmark
+    public AtomixConsistentMapState replay() throws Exception {
+        AtomixConsistentMapState state = new AtomixConsistentMapState(new Properties());
+        for (Commit<UpdateAndGet> commit : log) {
+            updateAndGet.invoke(state, commit);
+        }
+        return state;
+    }
+
+    /**
+     * Rebuilds the state machine from the snapshot.
+     *
+     * @return recovered state machine
+     */
+    @Benchmark
+    public AtomixConsistentMapState install() {
+        AtomixConsistentMapState state = new AtomixConsistentMapState(new Properties());
+        try (SnapshotReader reader = snapshots.currentSnapshot().reader()) {
+            state.install(reader);
+        }
+        return state;
+    }
+
+    // Log entry applied directly to the state machine; never released.
+    private static final class LogCommit<T extends Operation> implements Commit<T> {
+        private final long index;
+        private final T operation;
+
+        private LogCommit(long index, T operation) {
+            this.index = index;
+            this.operation = operation;
+        }
+
+        @Override
+        public long index() {
+            return index;
+        }
+
+        @Override
+        public ServerSession session() {
+            return null;
+        }
+
+        @Override
+        public Instant time() {
+            return Instant.EPOCH;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<T> type() {
+            return (Class<T>) operation.getClass();
+        }
+
+        @Override
+        public T operation() {
+            return operation;
+        }
+
+        @Override
+        public Commit<T> acquire() {
+            return this;
+        }
+
+        @Override
+        public boolean release() {
+            return false;
+        }
+
+        @Override
+        public int references() {
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
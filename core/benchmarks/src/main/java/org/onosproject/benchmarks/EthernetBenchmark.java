@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.onlab.packet.ARP;
+import org.onlab.packet.Data;
+import org.onlab.packet.DeserializationException;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.EthernetView;
+import org.onlab.packet.IPacket;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TCP;
+import org.onlab.packet.UDP;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks parsing of Ethernet frames with {@link Ethernet#deserializer()},
+ * and reading their demultiplexing headers with and without a full parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EthernetBenchmark {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final Ip4Address SRC_IP = Ip4Address.valueOf("10.0.0.1");
+    private static final Ip4Address DST_IP = Ip4Address.valueOf("10.0.0.2");
+
+    @Param({"ARP", "UDP", "TCP"})
+    public String protocol;
+
+    private byte[] frame;
+
+    /**
+     * Creates the serialized frame to parse.
+     */
+    @Setup
+    public void setUp() {
+        Ethernet eth = new Ethernet()
+                .setSourceMACAddress(SRC_MAC)
+                .setDestinationMACAddress(DST_MAC);
+        switch (protocol) {
+            case "ARP":
+                eth.setEtherType(Ethernet.TYPE_ARP)
+                        .setPayload(new ARP()
+                                            .setHardwareType(ARP.HW_TYPE_ETHERNET)
+                                            .setProtocolType(ARP.PROTO_TYPE_IP)
+                                            .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                                            .setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH)
+                                            .setOpCode(ARP.OP_REQUEST)
+                                            .setSenderHardwareAddress(SRC_MAC.toBytes())
+                                            .setSenderProtocolAddress(SRC_IP.toOctets())
+                                            .setTargetHardwareAddress(MacAddress.ZERO.toBytes())
+                                            .setTargetProtocolAddress(DST_IP.toOctets()));
+                break;
+            case "UDP":
+                eth.setEtherType(Ethernet.TYPE_IPV4)
+                        .setPayload(ipv4(IPv4.PROTOCOL_UDP,
+                                         new UDP()
+                                                 .setSourcePort(5000)
+                                                 .setDestinationPort(6000)
+                                                 .setPayload(new Data(new byte[64]))));
+                break;
+            case "TCP":
+                eth.setEtherType(Ethernet.TYPE_IPV4)
+                        .setPayload(ipv4(IPv4.PROTOCOL_TCP,
+                                         new TCP()
+                                                 .setSourcePort(5000)
+                                                 .setDestinationPort(80)
+                                                 .setPayload(new Data(new byte[64]))));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown protocol " + protocol);
+        }
+        frame = eth.serialize();
+    }
+
+    private static IPv4 ipv4(byte protocol, IPacket payload) {
+        IPv4 ip = new IPv4()
+                .setSourceAddress(SRC_IP.toInt())
+                .setDestinationAddress(DST_IP.toInt())
+                .setTtl((byte) 64)
+                .setProtocol(protocol);
+        ip.setPayload(payload);
+        return ip;
+    }
+
+    /**
+     * Parses the frame.
+     *
+     * @return parsed frame
+     * @throws DeserializationException if the frame is malformed
+     */
+    @Benchmark
+    public Ethernet deserialize() throws DeserializationException {
+        return Ethernet.deserializer().deserialize(frame, 0, frame.length);
+    }
+
+    /**
+     * Reads the headers packet processors are demultiplexed on from a fully
+     * parsed frame.
+     *
+     * @return hash of the headers
+     * @throws DeserializationException if the frame is malformed
+     */
+    @Benchmark
+    public int deserializeHeaders() throws DeserializationException {
+        Ethernet eth = Ethernet.deserializer().deserialize(frame, 0, frame.length);
+        int hash = eth.getEtherType();
+        if (eth.getPayload() instanceof IPv4) {
+            IPv4 ip = (IPv4) eth.getPayload();
+            hash = 31 * hash + ip.getProtocol();
+            if (ip.getPayload() instanceof TCP) {
+                hash = 31 * hash + ((TCP) ip.getPayload()).getDestinationPort();
+            } else if (ip.getPayload() instanceof UDP) {
+                hash = 31 * hash + ((UDP) ip.getPayload()).getDestinationPort();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Reads the headers packet processors are demultiplexed on through a
+     * view of the frame bytes.
+     *
+     * @return hash of the headers
+     */
+    @Benchmark
+    public int viewHeaders() {
+        EthernetView view = EthernetView.of(frame);
+        int hash = (short) view.etherType();
+        int protocol = view.ipProtocol();
+        if (protocol != EthernetView.NONE) {
+            hash = 31 * hash + protocol;
+            int port = view.destinationPort();
+            if (port != EthernetView.NONE) {
+                hash = 31 * hash + port;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.persistence.PersistenceServiceAdapter;
+import org.onosproject.store.primitives.impl.EventuallyConsistentMapBuilderImpl;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.WallClockTimestamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks puts and gets of an eventually consistent map on a single node,
+ * with in-memory stand-ins for the cluster services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventuallyConsistentMapBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keys;
+
+    @Param({"false", "true"})
+    public boolean hashTree;
+
+    private EventuallyConsistentMap<String, String> map;
+    private String[] keyNames;
+
+    /**
+     * Creates the map and fills it with the benchmarked number of keys.
+     */
+    @Setup
+    public void setUp() {
+        EventuallyConsistentMapBuilderImpl<String, String> builder =
+                new EventuallyConsistentMapBuilderImpl<>(new ClusterServiceAdapter(),
+                                                         new ClusterCommunicationServiceAdapter(),
+                                                         new PersistenceServiceAdapter());
+        builder.withName("benchmark")
+                .withSerializer(KryoNamespaces.API)
+                .withTimestampProvider((k, v) -> new WallClockTimestamp());
+        if (hashTree) {
+            builder.withHashTreeAntiEntropy();
+        }
+        map = builder.build();
+
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "key" + i;
+            map.put(keyNames[i], "value" + i);
+        }
+    }
+
+    /**
+     * Destroys the map.
+     */
+    @TearDown
+    public void tearDown() {
+        map.destroy();
+    }
+
+    private String randomKey() {
+        return keyNames[ThreadLocalRandom.current().nextInt(keys)];
+    }
+
+    /**
+     * Updates a random key.
+     */
+    @Benchmark
+    public void put() {
+        map.put(randomKey(), "updated");
+    }
+
+    /**
+     * Reads a random key.
+     *
+     * @return value of the key
+     */
+    @Benchmark
+    public String get() {
+        return map.get(randomKey());
+    }
+}
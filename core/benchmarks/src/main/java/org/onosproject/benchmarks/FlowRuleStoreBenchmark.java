@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.onlab.packet.IpPrefix;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.MastershipRole;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleBatchEntry;
+import org.onosproject.net.flow.FlowRuleBatchOperation;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.flow.impl.DistributedFlowRuleStore;
+import org.onosproject.store.flow.impl.ReplicaInfoManager;
+import org.onosproject.store.persistence.PersistenceServiceAdapter;
+import org.onosproject.store.service.TestStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.onlab.junit.TestUtils.setField;
+
+/**
+ * Benchmarks batch operations of the distributed flow rule store on a single
+ * node, with in-memory stand-ins for the cluster and storage services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FlowRuleStoreBenchmark {
+
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("of:0000000000000001");
+    private static final DeviceId INSTALLED_DEVICE_ID = DeviceId.deviceId("of:0000000000000002");
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.benchmarks");
+
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean offHeapFlowTables;
+
+    private DistributedFlowRuleStore store;
+    private List<FlowRule> rules;
+    private FlowRuleBatchOperation addBatch;
+    private List<FlowEntry> entries;
+
+    /**
+     * Activates the store and installs a flow table of the benchmarked size.
+     */
+    @Setup
+    public void setUp() {
+        store = activateStore(offHeapFlowTables);
+
+        rules = rules(DEVICE_ID, batchSize);
+        addBatch = batch(rules);
+        entries = rules.stream().map(DefaultFlowEntry::new).collect(Collectors.toList());
+
+        store.storeBatch(batch(rules(INSTALLED_DEVICE_ID, batchSize)));
+    }
+
+    /**
+     * Deactivates the store.
+     */
+    @TearDown
+    public void tearDown() {
+        store.deactivate(null);
+    }
+
+    /**
+     * Creates and activates a flow rule store mastering all devices.
+     *
+     * @param offHeapFlowTables whether the flow tables are kept off-heap
+     * @return flow rule store
+     */
+    static DistributedFlowRuleStore activateStore(boolean offHeapFlowTables) {
+        ClusterServiceAdapter clusterService = new ClusterServiceAdapter();
+        NodeId localNodeId = clusterService.getLocalNode().id();
+
+        DistributedFlowRuleStore store = new DistributedFlowRuleStore();
+        setField(store, "storageService", new TestStorageService());
+        setField(store, "replicaInfoManager", new ReplicaInfoManager());
+        setField(store, "clusterService", clusterService);
+        setField(store, "clusterCommunicator", new ClusterCommunicationServiceAdapter());
+        setField(store, "mastershipService", new MastershipServiceAdapter() {
+            @Override
+            public MastershipRole getLocalRole(DeviceId deviceId) {
+                return MastershipRole.MASTER;
+            }
+
+            @Override
+            public NodeId getMasterFor(DeviceId deviceId) {
+                return localNodeId;
+            }
+        });
+        setField(store, "deviceService", new DeviceServiceAdapter());
+        setField(store, "coreService", new CoreServiceAdapter());
+        setField(store, "configService", new ComponentConfigAdapter());
+        setField(store, "persistenceService", new PersistenceServiceAdapter());
+        setField(store, "offHeapFlowTables", offHeapFlowTables);
+        store.activate(null);
+        return store;
+    }
+
+    /**
+     * Creates distinct flow rules for a device.
+     *
+     * @param deviceId device identifier
+     * @param count    number of rules
+     * @return flow rules
+     */
+    static List<FlowRule> rules(DeviceId deviceId, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> DefaultFlowRule.builder()
+                        .forDevice(deviceId)
+                        .withSelector(DefaultTrafficSelector.builder()
+                                              .matchEthType((short) 0x0800)
+                                              .matchIPDst(IpPrefix.valueOf(i << 8, 24))
+                                              .build())
+                        .withTreatment(DefaultTrafficTreatment.builder()
+                                               .setOutput(PortNumber.portNumber(1))
+                                               .build())
+                        .withPriority(40000)
+                        .fromApp(APP_ID)
+                        .makePermanent()
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a batch adding the given flow rules of a single device.
+     *
+     * @param batchRules flow rules
+     * @return batch operation
+     */
+    static FlowRuleBatchOperation batch(List<FlowRule> batchRules) {
+        List<FlowRuleBatchEntry> batchEntries = batchRules.stream()
+                .map(rule -> new FlowRuleBatchEntry(FlowRuleBatchEntry.FlowRuleOperation.ADD, rule))
+                .collect(Collectors.toList());
+        return new FlowRuleBatchOperation(batchEntries, batchRules.get(0).deviceId(), 1);
+    }
+
+    /**
+     * Stores a batch of flow rule additions and then removes the rules.
+     */
+    @Benchmark
+    public void storeAndRemoveBatch() {
+        store.storeBatch(addBatch);
+        entries.forEach(store::removeFlowRule);
+    }
+
+    /**
+     * Reads the flow table of a device.
+     *
+     * @return number of flow entries read
+     */
+    @Benchmark
+    public int getFlowEntries() {
+        int count = 0;
+        for (FlowEntry entry : store.getFlowEntries(INSTALLED_DEVICE_ID)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the flow entries of the benchmark application.
+     *
+     * @return number of flow entries read
+     */
+    @Benchmark
+    public int getFlowEntriesByAppId() {
+        int count = 0;
+        for (FlowEntry entry : store.getFlowEntriesByAppId(APP_ID)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.store.flow.impl.DistributedFlowRuleStore;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the memory retained by the flow tables of the distributed flow
+ * rule store, on and off the Java heap, once populated with a given number
+ * of flow rules. The bytes retained after the last invocation of each
+ * iteration are reported as auxiliary counters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class FlowTableFootprintBenchmark {
+
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("of:0000000000000001");
+
+    @Param({"100000"})
+    public int flowCount;
+
+    @Param({"false", "true"})
+    public boolean offHeapFlowTables;
+
+    private List<FlowRule> rules;
+    private DistributedFlowRuleStore store;
+    private long baseHeapBytes;
+    private long baseDirectBytes;
+
+    /**
+     * Memory retained by the flow tables.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long heapBytes;
+        public long directBytes;
+    }
+
+    /**
+     * Creates the flow rules to store.
+     */
+    @Setup
+    public void setUp() {
+        rules = FlowRuleStoreBenchmark.rules(DEVICE_ID, flowCount);
+    }
+
+    /**
+     * Activates an empty store and records the memory in use.
+     */
+    @Setup(Level.Iteration)
+    public void activate() {
+        store = FlowRuleStoreBenchmark.activateStore(offHeapFlowTables);
+        baseHeapBytes = usedHeapBytes();
+        baseDirectBytes = usedDirectBytes();
+    }
+
+    /**
+     * Deactivates the store.
+     */
+    @TearDown(Level.Iteration)
+    public void deactivate() {
+        store.deactivate(null);
+        store = null;
+    }
+
+    /**
+     * Stores the flow rules and measures the memory they retain.
+     *
+     * @param footprint retained memory
+     */
+    @Benchmark
+    public void populate(Footprint footprint) {
+        store.storeBatch(FlowRuleStoreBenchmark.batch(rules));
+        footprint.heapBytes = usedHeapBytes() - baseHeapBytes;
+        footprint.directBytes = usedDirectBytes() - baseDirectBytes;
+    }
+
+    private static long usedHeapBytes() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirectBytes() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.onlab.packet.IpPrefix;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks serialization of common types with the API Kryo namespace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KryoNamespaceBenchmark {
+
+    private static final KryoNamespace SERIALIZER = KryoNamespaces.API;
+    private static final ProviderId PID = new ProviderId("of", "org.onosproject.benchmarks");
+    private static final DeviceId DID1 = DeviceId.deviceId("of:0000000000000001");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:0000000000000002");
+    private static final ConnectPoint CP1 = new ConnectPoint(DID1, PortNumber.portNumber(1));
+    private static final ConnectPoint CP2 = new ConnectPoint(DID2, PortNumber.portNumber(2));
+
+    @Param({"FlowRule", "DefaultLink", "DeviceId", "ConnectPoint"})
+    public String type;
+
+    private Object object;
+    private byte[] bytes;
+
+    /**
+     * Creates the object to serialize and its serialized form.
+     */
+    @Setup
+    public void setUp() {
+        switch (type) {
+            case "FlowRule":
+                object = DefaultFlowRule.builder()
+                        .forDevice(DID1)
+                        .withSelector(DefaultTrafficSelector.builder()
+                                              .matchInPort(PortNumber.portNumber(1))
+                                              .matchEthType((short) 0x0800)
+                                              .matchIPDst(IpPrefix.valueOf("10.0.0.0/24"))
+                                              .build())
+                        .withTreatment(DefaultTrafficTreatment.builder()
+                                               .setOutput(PortNumber.portNumber(2))
+                                               .build())
+                        .withPriority(40000)
+                        .fromApp(new DefaultApplicationId(1, "org.onosproject.benchmarks"))
+                        .makePermanent()
+                        .build();
+                break;
+            case "DefaultLink":
+                object = DefaultLink.builder()
+                        .providerId(PID)
+                        .src(CP1)
+                        .dst(CP2)
+                        .type(Link.Type.DIRECT)
+                        .build();
+                break;
+            case "DeviceId":
+                object = DID1;
+                break;
+            case "ConnectPoint":
+                object = CP1;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+        bytes = SERIALIZER.serialize(object);
+    }
+
+    /**
+     * Serializes the object.
+     *
+     * @return serialized object
+     */
+    @Benchmark
+    public byte[] serialize() {
+        return SERIALIZER.serialize(object);
+    }
+
+    /**
+     * Deserializes the object.
+     *
+     * @return deserialized object
+     */
+    @Benchmark
+    public Object deserialize() {
+        return SERIALIZER.deserialize(bytes);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.LinkKey;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.config.NetworkConfigRegistryAdapter;
+import org.onosproject.net.device.DeviceClockServiceAdapter;
+import org.onosproject.net.link.DefaultLinkDescription;
+import org.onosproject.net.link.LinkDescription;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.link.impl.ECLinkStore;
+import org.onosproject.store.link.impl.Provided;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.onosproject.store.service.TestStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.onlab.junit.TestUtils.getField;
+import static org.onlab.junit.TestUtils.setField;
+import static org.onosproject.net.Link.Type.DIRECT;
+
+/**
+ * Benchmarks the adjacency lookups of the link store against a scan of all
+ * links, over a fabric in which every device has the same number of links to
+ * its successors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LinkStoreBenchmark {
+
+    private static final ProviderId PID = new ProviderId("of", "org.onosproject.benchmarks");
+    private static final int DEGREE = 16;
+
+    @Param({"2000", "20000"})
+    public int linkCount;
+
+    private ECLinkStore store;
+    private DeviceId[] devices;
+    private int next;
+
+    /**
+     * Activates the link store and populates it with the fabric links.
+     */
+    @Setup
+    public void setUp() {
+        ClusterServiceAdapter clusterService = new ClusterServiceAdapter();
+        NodeId localNodeId = clusterService.getLocalNode().id();
+
+        store = new ECLinkStore();
+        setField(store, "storageService", new TestStorageService());
+        setField(store, "mastershipService", new MastershipServiceAdapter() {
+            @Override
+            public NodeId getMasterFor(DeviceId deviceId) {
+                return localNodeId;
+            }
+        });
+        setField(store, "deviceClockService", new DeviceClockServiceAdapter());
+        setField(store, "clusterCommunicator", new ClusterCommunicationServiceAdapter());
+        setField(store, "clusterService", clusterService);
+        setField(store, "netCfgService", new NetworkConfigRegistryAdapter());
+        setField(store, "coreService", new CoreServiceAdapter());
+        store.activate();
+
+        devices = new DeviceId[linkCount / DEGREE];
+        for (int i = 0; i < devices.length; i++) {
+            devices[i] = DeviceId.deviceId(String.format("of:%016x", i + 1));
+        }
+
+        // feed the descriptions through the map so that the store tracks them
+        EventuallyConsistentMap<Provided<LinkKey>, LinkDescription> descriptions =
+                getField(store, "linkDescriptions");
+        for (int i = 0; i < devices.length; i++) {
+            for (int port = 1; port <= DEGREE; port++) {
+                ConnectPoint src = new ConnectPoint(devices[i], PortNumber.portNumber(port));
+                ConnectPoint dst = new ConnectPoint(devices[(i + port) % devices.length],
+                                                    PortNumber.portNumber(DEGREE + port));
+                descriptions.put(new Provided<>(LinkKey.linkKey(src, dst), PID),
+                                 new DefaultLinkDescription(src, dst, DIRECT));
+            }
+        }
+        if (store.getLinkCount() != devices.length * DEGREE) {
+            throw new IllegalStateException("Links not stored: " + store.getLinkCount());
+        }
+    }
+
+    /**
+     * Deactivates the link store.
+     */
+    @TearDown
+    public void tearDown() {
+        store.deactivate();
+    }
+
+    private DeviceId nextDevice() {
+        next = (next + 1) % devices.length;
+        return devices[next];
+    }
+
+    /**
+     * Looks up the egress links of a device through the store.
+     *
+     * @return egress links
+     */
+    @Benchmark
+    public Set<Link> getDeviceEgressLinks() {
+        return store.getDeviceEgressLinks(nextDevice());
+    }
+
+    /**
+     * Looks up the egress links of a device by scanning all links.
+     *
+     * @return egress links
+     */
+    @Benchmark
+    public Set<Link> scanDeviceEgressLinks() {
+        DeviceId deviceId = nextDevice();
+        return StreamSupport.stream(store.getLinks().spliterator(), false)
+                .filter(link -> deviceId.equals(link.src().deviceId()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Looks up the ingress links of a connect point through the store.
+     *
+     * @return ingress links
+     */
+    @Benchmark
+    public Set<Link> getIngressLinks() {
+        return store.getIngressLinks(new ConnectPoint(nextDevice(), PortNumber.portNumber(DEGREE + 1)));
+    }
+
+    /**
+     * Looks up the ingress links of a connect point by scanning all links.
+     *
+     * @return ingress links
+     */
+    @Benchmark
+    public Set<Link> scanIngressLinks() {
+        ConnectPoint dst = new ConnectPoint(nextDevice(), PortNumber.portNumber(DEGREE + 1));
+        return StreamSupport.stream(store.getLinks().spliterator(), false)
+                .filter(link -> dst.equals(link.dst()))
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.onosproject.common.DefaultTopology;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.Path;
+import org.onosproject.net.topology.ClusterId;
+import org.onosproject.net.topology.DefaultGraphDescription;
+import org.onosproject.net.topology.GraphDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import static org.onosproject.net.NetTestTools.PID;
+import static org.onosproject.net.NetTestTools.did;
+import static org.onosproject.net.NetTestTools.device;
+import static org.onosproject.net.NetTestTools.link;
+
+/**
+ * Benchmarks topology construction and path computation over a square grid
+ * of devices with bidirectional links between neighbours.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopologyBenchmark {
+
+    @Param({"5", "10", "20"})
+    public int side;
+
+    private GraphDescription description;
+    private GraphDescription linkDown;
+    private DefaultTopology topology;
+    private DeviceId first;
+    private DeviceId last;
+
+    /**
+     * Creates the grid and a topology built from it.
+     */
+    @Setup
+    public void setUp() {
+        ImmutableSet.Builder<Device> devices = ImmutableSet.builder();
+        ImmutableSet.Builder<Link> links = ImmutableSet.builder();
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                String id = name(row, col);
+                devices.add(device(id));
+                if (col + 1 < side) {
+                    links.add(link(id, 1, name(row, col + 1), 2));
+                    links.add(link(name(row, col + 1), 2, id, 1));
+                }
+                if (row + 1 < side) {
+                    links.add(link(id, 3, name(row + 1, col), 4));
+                    links.add(link(name(row + 1, col), 4, id, 3));
+                }
+            }
+        }
+        long now = System.nanoTime();
+        Set<Link> allLinks = links.build();
+        description = new DefaultGraphDescription(now, System.currentTimeMillis(),
+                                                  devices.build(), allLinks);
+        topology = new DefaultTopology(PID, description);
+        broadcastSetSizes(topology);
+
+        // take down a link off the broadcast tree, as most links are
+        Set<ConnectPoint> tree = topology.broadcastPoints(ClusterId.clusterId(0));
+        Link down = allLinks.stream()
+                .filter(link -> !tree.contains(link.src()) && !tree.contains(link.dst()))
+                .findFirst().get();
+        linkDown = new DefaultGraphDescription(now, System.currentTimeMillis(), devices.build(),
+                                               Sets.difference(allLinks, ImmutableSet.of(down)));
+        first = did(name(0, 0));
+        last = did(name(side - 1, side - 1));
+    }
+
+    private static String name(int row, int col) {
+        return String.format("%04x%04x", row, col);
+    }
+
+    /**
+     * Builds a topology and computes its clusters and their broadcast sets.
+     *
+     * @return total size of the broadcast sets
+     */
+    @Benchmark
+    public int construct() {
+        return broadcastSetSizes(new DefaultTopology(PID, description));
+    }
+
+    /**
+     * Derives a topology from the current one after a link went down, and
+     * computes its clusters and their broadcast sets.
+     *
+     * @return total size of the broadcast sets
+     */
+    @Benchmark
+    public int deriveAfterLinkDown() {
+        return broadcastSetSizes(new DefaultTopology(PID, linkDown, null, topology));
+    }
+
+    private static int broadcastSetSizes(DefaultTopology topology) {
+        return topology.getClusters().stream()
+                .mapToInt(cluster -> topology.broadcastSetSize(cluster.id()))
+                .sum();
+    }
+
+    /**
+     * Returns the shortest paths between opposite corners of the grid.
+     *
+     * @return shortest paths
+     */
+    @Benchmark
+    public Set<Path> shortestPaths() {
+        return topology.getPaths(first, last);
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * JMH micro-benchmarks of core data paths, run against synthetic data and
+ * in-memory stand-ins for the cluster services.
+ * <p>
+ * Build with {@code mvn install} in this module, or with
+ * {@code mvn install -Pbenchmarks} from the core project, and run with
+ * {@code java -jar target/benchmarks.jar [regexp]}; pass {@code -h} for the
+ * JMH options.
+ * </p>
+ */
+package org.onosproject.benchmarks;
@@ -21,7 +21,9 @@ import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.ImmutableSetMultimap.Builder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onlab.graph.DefaultEdgeWeigher;
 import org.onlab.graph.DijkstraGraphSearch;
 import org.onlab.graph.DisjointPathPair;
@@ -59,9 +61,12 @@ import org.onosproject.net.topology.TopologyVertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -95,6 +100,9 @@ public class DefaultTopology extends AbstractModel implements Topology {
             new LazyKShortestPathsSearch<>();
 
 
+    // bound on the number of source/destination pairs with cached paths
+    private static final int MAX_CACHED_PATHS = 10_000;
+
     private static LinkWeigher defaultLinkWeigher = null;
     private static GraphPathSearch<TopologyVertex, TopologyEdge> defaultGraphPathSearch = null;
 
@@ -105,13 +113,15 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private final LinkWeigher hopCountWeigher;
 
-    private final Supplier<SccResult<TopologyVertex, TopologyEdge>> clusterResults;
+    private final Supplier<ClusterSets> clusterResults;
     private final Supplier<ImmutableMap<ClusterId, TopologyCluster>> clusters;
     private final Supplier<ImmutableSet<ConnectPoint>> infrastructurePoints;
-    private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
+    private final Map<ClusterId, Set<ConnectPoint>> broadcastSets = Maps.newConcurrentMap();
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
 
+    private volatile PathCache pathCache;
+
     /**
      * Sets the default link-weight to be used when computing paths. If null is
      * specified, the builtin default link-weight measuring hop-counts will be
@@ -146,6 +156,25 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * deriving what it can from the given previous topology. Only the
+     * clusters affected by the changes since the previous topology are
+     * searched again; the broadcast sets which the changes leave valid and
+     * the cached shortest paths that do not cross removed links are carried
+     * over.
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null to compute afresh
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -155,14 +184,22 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                 description.edges());
 
-        this.clusterResults = Suppliers.memoize(this::searchForClusters);
+        GraphDelta delta = previous != null ? new GraphDelta(previous.graph, graph) : null;
+        ClusterSets derived = delta != null ? deriveClusters(previous, delta) : null;
+        this.clusterResults = derived != null ?
+                Suppliers.ofInstance(derived) : Suppliers.memoize(this::searchForClusters);
         this.clusters = Suppliers.memoize(this::buildTopologyClusters);
 
         this.clusterIndexes = Suppliers.memoize(this::buildIndexes);
 
         this.hopCountWeigher = adapt(new HopCountLinkWeight(graph.getVertexes().size()));
-        this.broadcastSets = Suppliers.memoize(this::buildBroadcastSets);
         this.infrastructurePoints = Suppliers.memoize(this::findInfrastructurePoints);
+        if (derived != null) {
+            carryOverBroadcastSets(previous, derived, delta);
+        }
+        if (delta != null) {
+            carryOverPaths(previous, delta);
+        }
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
 
@@ -309,7 +346,7 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
         // If the broadcast set is null or empty, or if the point explicitly
         // belongs to it, return true.
-        Set<ConnectPoint> points = broadcastSets.get().get(cluster.id());
+        Set<ConnectPoint> points = broadcastSet(cluster.id());
         return isNullOrEmpty(points) || points.contains(connectPoint);
     }
 
@@ -320,7 +357,7 @@ public class DefaultTopology extends AbstractModel implements Topology {
      * @return size of the cluster broadcast set
      */
     public int broadcastSetSize(ClusterId clusterId) {
-        return broadcastSets.get().get(clusterId).size();
+        return broadcastSet(clusterId).size();
     }
 
     /**
@@ -330,7 +367,7 @@ public class DefaultTopology extends AbstractModel implements Topology {
      * @return set of cluster broadcast points
      */
     public Set<ConnectPoint> broadcastPoints(ClusterId clusterId) {
-        return broadcastSets.get().get(clusterId);
+        return broadcastSet(clusterId);
     }
 
     /**
@@ -342,7 +379,16 @@ public class DefaultTopology extends AbstractModel implements Topology {
      * @return set of shortest paths
      */
     public Set<Path> getPaths(DeviceId src, DeviceId dst) {
-        return getPaths(src, dst, linkWeight(), ALL_PATHS);
+        PathCache cache = pathCache();
+        PathKey key = new PathKey(src, dst);
+        Set<Path> paths = cache.paths.get(key);
+        if (paths == null) {
+            paths = getPaths(src, dst, linkWeight(), ALL_PATHS);
+            if (cache.paths.size() < MAX_CACHED_PATHS) {
+                cache.paths.put(key, paths);
+            }
+        }
+        return paths;
     }
 
     /**
@@ -630,23 +676,202 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     // Searches for SCC clusters in the network topology graph using Tarjan
     // algorithm.
-    private SccResult<TopologyVertex, TopologyEdge> searchForClusters() {
-        return TARJAN.search(graph, new NoIndirectLinksWeigher());
+    private ClusterSets searchForClusters() {
+        SccResult<TopologyVertex, TopologyEdge> result =
+                TARJAN.search(graph, new NoIndirectLinksWeigher());
+        return new ClusterSets(result.clusterVertexes(), result.clusterEdges(), null);
+    }
+
+    // Derives the clusters from those of the previous topology, searching
+    // again only the clusters which the delta may have split. Returns null
+    // if the delta may have merged clusters, which takes a full search.
+    private ClusterSets deriveClusters(DefaultTopology previous, GraphDelta delta) {
+        ClusterSets before = previous.clusterResults.get();
+        Map<DeviceId, TopologyCluster> clusterOf = previous.clustersByDevice();
+
+        // Viable edges between clusters, or to new vertexes, may merge clusters.
+        for (TopologyEdge edge : delta.addedEdges) {
+            TopologyCluster src = clusterOf.get(edge.src().deviceId());
+            TopologyCluster dst = clusterOf.get(edge.dst().deviceId());
+            if (isViable(edge) && (src == null || !src.equals(dst))) {
+                return null;
+            }
+        }
+
+        // Clusters whose edges changed, and clusters which may have split.
+        Set<Integer> touched = Sets.newHashSet();
+        Set<Integer> dirty = Sets.newHashSet();
+        for (TopologyVertex vertex : delta.removedVertexes) {
+            dirty.add(clusterOf.get(vertex.deviceId()).id().index());
+        }
+        for (TopologyEdge edge : delta.addedEdges) {
+            TopologyCluster cluster = clusterOf.get(edge.src().deviceId());
+            if (cluster != null) {
+                touched.add(cluster.id().index());
+            }
+        }
+        for (TopologyEdge edge : delta.removedEdges) {
+            int src = clusterOf.get(edge.src().deviceId()).id().index();
+            int dst = clusterOf.get(edge.dst().deviceId()).id().index();
+            touched.add(src);
+            touched.add(dst);
+            // A cluster stays strongly connected as long as the source of each
+            // removed edge still reaches its destination within the cluster.
+            if (src == dst && isViable(edge) && !dirty.contains(src) &&
+                    !reaches(edge.src(), edge.dst(), before.vertexes.get(src))) {
+                dirty.add(src);
+            }
+        }
+
+        List<Set<TopologyVertex>> vertexes = Lists.newArrayList();
+        List<Set<TopologyEdge>> edges = Lists.newArrayList();
+        List<Integer> previousIndexes = Lists.newArrayList();
+        Set<TopologyVertex> searched = Sets.newHashSet();
+        for (int i = 0; i < before.vertexes.size(); i++) {
+            Set<TopologyVertex> clusterVertexes = before.vertexes.get(i);
+            if (dirty.contains(i)) {
+                clusterVertexes.stream()
+                        .filter(v -> !delta.removedVertexes.contains(v))
+                        .forEach(searched::add);
+            } else {
+                vertexes.add(clusterVertexes);
+                edges.add(touched.contains(i) ? edgesWithin(clusterVertexes) : before.edges.get(i));
+                previousIndexes.add(i);
+            }
+        }
+
+        // Search again the vertexes of the clusters which may have split.
+        if (!searched.isEmpty()) {
+            Set<TopologyEdge> searchedEdges = edgesWithin(searched);
+            SccResult<TopologyVertex, TopologyEdge> result =
+                    TARJAN.search(new DefaultTopologyGraph(searched, searchedEdges),
+                                  new NoIndirectLinksWeigher());
+            for (int i = 0; i < result.clusterCount(); i++) {
+                vertexes.add(result.clusterVertexes().get(i));
+                edges.add(result.clusterEdges().get(i));
+                previousIndexes.add(-1);
+            }
+        }
+
+        // New vertexes have no viable edges to others, so each is a cluster.
+        for (TopologyVertex vertex : delta.addedVertexes) {
+            Set<TopologyVertex> singleton = ImmutableSet.of(vertex);
+            vertexes.add(singleton);
+            edges.add(edgesWithin(singleton));
+            previousIndexes.add(-1);
+        }
+        return new ClusterSets(vertexes, edges,
+                               previousIndexes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // Indicates whether the destination can be reached from the source over
+    // viable edges between the given vertexes.
+    private boolean reaches(TopologyVertex src, TopologyVertex dst, Set<TopologyVertex> within) {
+        Set<TopologyVertex> seen = Sets.newHashSet(src);
+        Deque<TopologyVertex> queue = new ArrayDeque<>();
+        queue.add(src);
+        while (!queue.isEmpty()) {
+            for (TopologyEdge edge : graph.getEdgesFrom(queue.poll())) {
+                TopologyVertex next = edge.dst();
+                if (!isViable(edge) || !within.contains(next) || !seen.add(next)) {
+                    continue;
+                }
+                if (next.equals(dst)) {
+                    return true;
+                }
+                queue.add(next);
+            }
+        }
+        return false;
+    }
+
+    // Returns the edges of the graph between the given vertexes.
+    private Set<TopologyEdge> edgesWithin(Set<TopologyVertex> vertexes) {
+        Set<TopologyEdge> edges = Sets.newHashSet();
+        for (TopologyVertex vertex : vertexes) {
+            for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                if (vertexes.contains(edge.dst())) {
+                    edges.add(edge);
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static boolean isViable(TopologyEdge edge) {
+        return edge.link().state() != INACTIVE && edge.link().type() != INDIRECT;
+    }
+
+    // Carries over the broadcast sets computed for clusters that kept their
+    // vertexes. The shortest paths from the root of a cluster to its other
+    // vertexes stay within the cluster, so its broadcast tree remains valid
+    // unless one of its edges was removed or a viable edge was added to it.
+    private void carryOverBroadcastSets(DefaultTopology previous, ClusterSets derived,
+                                        GraphDelta delta) {
+        for (int i = 0; i < derived.previousIndexes.length; i++) {
+            int index = derived.previousIndexes[i];
+            Set<ConnectPoint> points = index < 0 ? null :
+                    previous.broadcastSets.get(ClusterId.clusterId(index));
+            if (points == null) {
+                continue;
+            }
+            Set<TopologyVertex> vertexes = derived.vertexes.get(i);
+            boolean treeChanged = delta.addedEdges.stream()
+                    .anyMatch(edge -> isViable(edge) && vertexes.contains(edge.src())) ||
+                    delta.removedEdges.stream()
+                            .anyMatch(edge -> points.contains(edge.link().src()) ||
+                                    points.contains(edge.link().dst()));
+            if (!treeChanged) {
+                broadcastSets.put(ClusterId.clusterId(i), points);
+            }
+        }
+    }
+
+    // Carries over the cached shortest paths which remain valid. Removing
+    // links cannot shorten any path, so only the paths crossing a removed
+    // link are dropped; any other change leaves the cache behind.
+    private void carryOverPaths(DefaultTopology previous, GraphDelta delta) {
+        PathCache cache = previous.pathCache;
+        if (cache == null || !cache.isCurrent() || !delta.addedEdges.isEmpty() ||
+                !delta.addedVertexes.isEmpty() || !delta.removedVertexes.isEmpty()) {
+            return;
+        }
+        Set<Link> removedLinks = delta.removedEdges.stream()
+                .map(TopologyEdge::link)
+                .collect(Collectors.toSet());
+        PathCache carried = new PathCache();
+        cache.paths.forEach((key, paths) -> {
+            if (paths.stream().noneMatch(path -> path.links().stream().anyMatch(removedLinks::contains))) {
+                carried.paths.put(key, paths);
+            }
+        });
+        pathCache = carried;
+    }
+
+    // Returns the path cache for the current default link weigher and
+    // path search algorithm.
+    private PathCache pathCache() {
+        PathCache cache = pathCache;
+        if (cache == null || !cache.isCurrent()) {
+            cache = new PathCache();
+            pathCache = cache;
+        }
+        return cache;
     }
 
     // Builds the topology clusters and returns the id-cluster bindings.
     private ImmutableMap<ClusterId, TopologyCluster> buildTopologyClusters() {
         ImmutableMap.Builder<ClusterId, TopologyCluster> clusterBuilder =
                 ImmutableMap.builder();
-        SccResult<TopologyVertex, TopologyEdge> results = clusterResults.get();
+        ClusterSets results = clusterResults.get();
 
         // Extract both vertexes and edges from the results; the lists form
         // pairs along the same index.
-        List<Set<TopologyVertex>> clusterVertexes = results.clusterVertexes();
-        List<Set<TopologyEdge>> clusterEdges = results.clusterEdges();
+        List<Set<TopologyVertex>> clusterVertexes = results.vertexes;
+        List<Set<TopologyEdge>> clusterEdges = results.edges;
 
         // Scan over the lists and create a cluster from the results.
-        for (int i = 0, n = results.clusterCount(); i < n; i++) {
+        for (int i = 0, n = clusterVertexes.size(); i < n; i++) {
             Set<TopologyVertex> vertexSet = clusterVertexes.get(i);
             Set<TopologyEdge> edgeSet = clusterEdges.get(i);
 
@@ -673,20 +898,20 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return minVertex;
     }
 
-    // Processes a map of broadcast sets for each cluster.
-    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets() {
-        Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap.builder();
-        for (TopologyCluster cluster : clusters.get().values()) {
-            addClusterBroadcastSet(cluster, builder);
+    // Returns the broadcast set of the given cluster, computing it on first use.
+    private Set<ConnectPoint> broadcastSet(ClusterId clusterId) {
+        TopologyCluster cluster = clusters.get().get(clusterId);
+        if (cluster == null) {
+            return ImmutableSet.of();
         }
-        return builder.build();
+        return broadcastSets.computeIfAbsent(clusterId, id -> buildClusterBroadcastSet(cluster));
     }
 
     // Finds all broadcast points for the cluster. These are those connection
     // points which lie along the shortest paths between the cluster root and
     // all other devices within the cluster.
-    private void addClusterBroadcastSet(TopologyCluster cluster,
-                                        Builder<ClusterId, ConnectPoint> builder) {
+    private Set<ConnectPoint> buildClusterBroadcastSet(TopologyCluster cluster) {
+        ImmutableSet.Builder<ConnectPoint> builder = ImmutableSet.builder();
         // Use the graph root search results to build the broadcast set.
         Result<TopologyVertex, TopologyEdge> result =
                 DIJKSTRA.search(graph, cluster.root(), null, hopCountWeigher, 1);
@@ -708,9 +933,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
             // Use the first back-link source and destinations to add to the
             // broadcast set.
             Link link = parents.iterator().next().link();
-            builder.put(cluster.id(), link.src());
-            builder.put(cluster.id(), link.dst());
+            builder.add(link.src());
+            builder.add(link.dst());
         }
+        return builder.build();
     }
 
     // Collects and returns an set of all infrastructure link end-points.
@@ -744,13 +970,13 @@ public class DefaultTopology extends AbstractModel implements Topology {
             int i = cluster.id().index();
 
             // Scan through all the cluster vertexes.
-            for (TopologyVertex vertex : clusterResults.get().clusterVertexes().get(i)) {
+            for (TopologyVertex vertex : clusterResults.get().vertexes.get(i)) {
                 devicesBuilder.put(cluster, vertex.deviceId());
                 clusterBuilder.put(vertex.deviceId(), cluster);
             }
 
             // Scan through all the cluster edges.
-            for (TopologyEdge edge : clusterResults.get().clusterEdges().get(i)) {
+            for (TopologyEdge edge : clusterResults.get().edges.get(i)) {
                 linksBuilder.put(cluster, edge.link());
             }
         }
@@ -781,6 +1007,89 @@ public class DefaultTopology extends AbstractModel implements Topology {
         }
     }
 
+    // Strongly connected vertex and edge sets, forming pairs along the same index.
+    private static final class ClusterSets {
+        final List<Set<TopologyVertex>> vertexes;
+        final List<Set<TopologyEdge>> edges;
+        // indexes of the clusters with the same vertexes in the previous
+        // topology, -1 for others; null if not derived from a previous topology
+        final int[] previousIndexes;
+
+        ClusterSets(List<Set<TopologyVertex>> vertexes, List<Set<TopologyEdge>> edges,
+                    int[] previousIndexes) {
+            this.vertexes = vertexes;
+            this.edges = edges;
+            this.previousIndexes = previousIndexes;
+        }
+    }
+
+    // Vertexes and edges added to and removed from a graph; the edges whose
+    // link state or annotations changed count as both removed and added.
+    private static final class GraphDelta {
+        final Set<TopologyVertex> addedVertexes;
+        final Set<TopologyVertex> removedVertexes;
+        final Set<TopologyEdge> addedEdges = Sets.newHashSet();
+        final Set<TopologyEdge> removedEdges = Sets.newHashSet();
+
+        GraphDelta(TopologyGraph before, TopologyGraph after) {
+            addedVertexes = ImmutableSet.copyOf(Sets.difference(after.getVertexes(), before.getVertexes()));
+            removedVertexes = ImmutableSet.copyOf(Sets.difference(before.getVertexes(), after.getVertexes()));
+
+            Map<TopologyEdge, TopologyEdge> previousEdges = Maps.newHashMap();
+            before.getEdges().forEach(edge -> previousEdges.put(edge, edge));
+            for (TopologyEdge edge : after.getEdges()) {
+                TopologyEdge previous = previousEdges.remove(edge);
+                if (previous == null) {
+                    addedEdges.add(edge);
+                } else if (previous.link().state() != edge.link().state() ||
+                        !Objects.equals(previous.link().annotations(), edge.link().annotations())) {
+                    addedEdges.add(edge);
+                    removedEdges.add(previous);
+                }
+            }
+            removedEdges.addAll(previousEdges.values());
+        }
+    }
+
+    // Cached shortest paths, valid as long as the default link weigher and
+    // path search algorithm remain those the paths were computed with.
+    private static final class PathCache {
+        final LinkWeigher weigher = defaultLinkWeigher;
+        final GraphPathSearch<TopologyVertex, TopologyEdge> search = defaultGraphPathSearch;
+        final Map<PathKey, Set<Path>> paths = Maps.newConcurrentMap();
+
+        boolean isCurrent() {
+            return weigher == defaultLinkWeigher && search == defaultGraphPathSearch;
+        }
+    }
+
+    private static final class PathKey {
+        final DeviceId src;
+        final DeviceId dst;
+
+        PathKey(DeviceId src, DeviceId dst) {
+            this.src = src;
+            this.dst = dst;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(src, dst);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof PathKey) {
+                PathKey other = (PathKey) obj;
+                return Objects.equals(src, other.src) && Objects.equals(dst, other.dst);
+            }
+            return false;
+        }
+    }
+
     static final class ClusterIndexes {
         final ImmutableMap<DeviceId, TopologyCluster> clustersByDevice;
         final ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster;
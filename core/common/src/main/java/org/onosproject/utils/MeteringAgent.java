@@ -40,6 +40,8 @@ public class MeteringAgent {
     private MetricsFeature metricsFeature;
     private final Map<String, Timer> perObjOpTimers = Maps.newConcurrentMap();
     private final Map<String, Timer> perOpTimers = Maps.newConcurrentMap();
+    private final Map<String, Counter> perObjCounters = Maps.newConcurrentMap();
+    private final Map<String, Counter> perCounters = Maps.newConcurrentMap();
     private Timer perPrimitiveTimer;
     private Timer perObjTimer;
     private MetricsFeature wildcard;
@@ -89,6 +91,21 @@ public class MeteringAgent {
         return new Context(currTimer.time(), op);
     }
 
+    /**
+     * Increments the counter of a given event.
+     *
+     * @param event Specific event being counted
+     */
+    public void incrementCounter(String event) {
+        if (!activated) {
+            return;
+        }
+        perObjCounters.computeIfAbsent(event, counter ->
+                metricsService.createCounter(metricsComponent, metricsFeature, event)).inc();
+        perCounters.computeIfAbsent(event, counter ->
+                metricsService.createCounter(metricsComponent, wildcard, event)).inc();
+    }
+
     /**
      * Timer.Context with a specific operation.
      */
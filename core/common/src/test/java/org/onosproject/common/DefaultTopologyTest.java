@@ -40,6 +40,10 @@ import org.onosproject.net.topology.TopologyEdge;
 import org.onosproject.net.topology.TopologyVertex;
 
 import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Sets;
+
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.*;
 import static org.onosproject.net.DeviceId.deviceId;
@@ -79,6 +83,8 @@ public class DefaultTopologyTest {
 
 
     private DefaultTopology dt;
+    private Set<Device> devices;
+    private Set<Link> links;
 
     public static final ClusterId C0 = ClusterId.clusterId(0);
     public static final ClusterId C1 = ClusterId.clusterId(1);
@@ -86,13 +92,13 @@ public class DefaultTopologyTest {
     @Before
     public void setUp() {
         long now = System.currentTimeMillis();
-        Set<Device> devices = of(device("1"), device("2"),
-                                 device("3"), device("4"),
-                                 device("5"));
-        Set<Link> links = of(link("1", 1, "2", 1), link("2", 1, "1", 1),
-                             link("3", 2, "2", 2), link("2", 2, "3", 2),
-                             link("1", 3, "4", 3), link("4", 3, "1", 3),
-                             link("3", 4, "4", 4), link("4", 4, "3", 4));
+        devices = of(device("1"), device("2"),
+                     device("3"), device("4"),
+                     device("5"));
+        links = of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                   link("3", 2, "2", 2), link("2", 2, "3", 2),
+                   link("1", 3, "4", 3), link("4", 3, "1", 3),
+                   link("3", 4, "4", 4), link("4", 4, "3", 4));
         GraphDescription graphDescription =
                 new DefaultGraphDescription(now, System.currentTimeMillis(), devices, links);
 
@@ -148,6 +154,93 @@ public class DefaultTopologyTest {
         assertFalse("cluster should not contain D5", devs.contains(D5));
     }
 
+    @Test
+    public void incrementalLinkRemoval() {
+        Set<Path> paths = dt.getPaths(D1, D2);
+        assertEquals("incorrect path count", 1, paths.size());
+        assertSame("paths should be cached", paths, dt.getPaths(D1, D2));
+        Set<Path> otherPaths = dt.getPaths(D3, D4);
+
+        DefaultTopology next = derive(devices, Sets.difference(links, of(link("1", 1, "2", 1))));
+        assertSameClusters(next);
+        assertEquals("incorrect broadcast set size", 6, next.broadcastSetSize(C0));
+
+        paths = next.getPaths(D1, D2);
+        assertEquals("incorrect path count", 1, paths.size());
+        assertEquals("incorrect path length", 3, paths.iterator().next().links().size());
+        assertSame("paths should be carried over", otherPaths, next.getPaths(D3, D4));
+    }
+
+    @Test
+    public void incrementalBroadcastSet() {
+        Set<ConnectPoint> points = dt.broadcastPoints(C0);
+        // remove a link off the broadcast tree of the cluster rooted at D1
+        Link unused = points.contains(new ConnectPoint(D3, P2)) ?
+                link("4", 4, "3", 4) : link("2", 2, "3", 2);
+        DefaultTopology next = derive(devices, Sets.difference(links, of(unused)));
+        assertSame("broadcast set should be carried over", points,
+                   next.broadcastPoints(next.getCluster(D1).id()));
+    }
+
+    @Test
+    public void incrementalClusterSplit() {
+        DefaultTopology next = derive(devices, Sets.difference(links, of(link("1", 3, "4", 3),
+                                                                         link("2", 2, "3", 2))));
+        assertEquals("incorrect cluster count", 3, next.clusterCount());
+        assertSameClusters(next);
+        assertTrue("no paths expected", next.getPaths(D1, D3).isEmpty());
+    }
+
+    @Test
+    public void incrementalClusterMerge() {
+        DefaultTopology next = derive(devices, Sets.union(links, of(link("4", 5, "5", 5),
+                                                                    link("5", 5, "4", 5))));
+        assertEquals("incorrect cluster count", 1, next.clusterCount());
+        assertSameClusters(next);
+    }
+
+    @Test
+    public void incrementalDeviceChanges() {
+        DefaultTopology next = derive(Sets.union(Sets.difference(devices, of(device("5"))),
+                                                 of(device("6"))), links);
+        assertEquals("incorrect cluster count", 2, next.clusterCount());
+        assertSameClusters(next);
+        assertNull("no cluster expected", next.getCluster(D5));
+        assertEquals("incorrect cluster device count", 1,
+                     next.getClusterDevices(next.getCluster(did("6"))).size());
+    }
+
+    // Derives a topology with the given devices and links from the current one.
+    private DefaultTopology derive(Set<Device> newDevices, Set<Link> newLinks) {
+        GraphDescription description =
+                new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(),
+                                            newDevices, newLinks);
+        return new DefaultTopology(PID, description, null, dt);
+    }
+
+    // Asserts that the clusters of the given derived topology match those
+    // of a topology computed afresh.
+    private void assertSameClusters(DefaultTopology derived) {
+        GraphDescription description =
+                new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(),
+                                            derived.getGraph().getVertexes().stream()
+                                                    .map(v -> device(v.deviceId().toString().substring(3)))
+                                                    .collect(Collectors.toSet()),
+                                            derived.getGraph().getEdges().stream()
+                                                    .map(TopologyEdge::link)
+                                                    .collect(Collectors.toSet()));
+        DefaultTopology fresh = new DefaultTopology(PID, description);
+        assertEquals("incorrect cluster count", fresh.clusterCount(), derived.clusterCount());
+        for (TopologyCluster cluster : fresh.getClusters()) {
+            Set<DeviceId> clusterDevices = fresh.getClusterDevices(cluster);
+            TopologyCluster other = derived.getCluster(clusterDevices.iterator().next());
+            assertEquals("incorrect cluster devices", clusterDevices, derived.getClusterDevices(other));
+            assertEquals("incorrect cluster links", fresh.getClusterLinks(cluster),
+                         derived.getClusterLinks(other));
+            assertEquals("incorrect root node", cluster.root(), other.root());
+        }
+    }
+
     // Short-hand for creating a link.
     public static Link link(String src, int sp, String dst, int dp) {
         return DefaultLink.builder().providerId(PID)
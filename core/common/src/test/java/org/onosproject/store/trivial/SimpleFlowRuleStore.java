@@ -31,6 +31,7 @@ import org.apache.felix.scr.annotations.Modified;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.util.Tools;
+import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
@@ -207,6 +208,25 @@ public class SimpleFlowRuleStore
                 .transformAndConcat(Collections::unmodifiableList);
     }
 
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByAppId(ApplicationId appId) {
+        return FluentIterable.from(flowEntries.values())
+                .transformAndConcat(ConcurrentMap::values)
+                .transformAndConcat(Collections::unmodifiableList)
+                .filter(entry -> entry.appId() == appId.id())
+                .transform(FlowEntry.class::cast);
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId) {
+        long toLookUp = ((long) appId.id() << 16) | groupId;
+        return FluentIterable.from(flowEntries.values())
+                .transformAndConcat(ConcurrentMap::values)
+                .transformAndConcat(Collections::unmodifiableList)
+                .filter(entry -> (entry.id().value() >>> 32) == toLookUp)
+                .transform(FlowEntry.class::cast);
+    }
+
     @Override
     public void storeFlowRule(FlowRule rule) {
         storeFlowRuleInternal(rule);
@@ -61,9 +61,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.onlab.util.Tools.groupedThreads;
 import static org.onlab.metrics.MetricsUtil.startTimer;
 import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onosproject.net.MastershipRole.MASTER;
@@ -84,6 +87,8 @@ public class MastershipManager
     private static final String NODE_ID_NULL = "Node ID cannot be null";
     private static final String DEVICE_ID_NULL = "Device ID cannot be null";
     private static final String ROLE_NULL = "Mastership role cannot be null";
+    private static final int BALANCE_THREADS = 8;
+    private static final int BALANCE_BATCH_SIZE = 100;
 
     private final Logger log = getLogger(getClass());
 
@@ -106,6 +111,7 @@ public class MastershipManager
 
     private NodeId localNodeId;
     private Timer requestRoleTimer;
+    private ExecutorService balanceExecutor;
 
     static final boolean DEFAULT_USE_REGION_FOR_BALANCE_ROLES = false;
     @Property(name = "useRegionForBalanceRoles", boolValue = DEFAULT_USE_REGION_FOR_BALANCE_ROLES,
@@ -119,6 +125,8 @@ public class MastershipManager
 
         requestRoleTimer = createTimer("Mastership", "requestRole", "responseTime");
         localNodeId = clusterService.getLocalNode().id();
+        balanceExecutor = newFixedThreadPool(BALANCE_THREADS,
+                                             groupedThreads("onos/mastership", "balancer-%d", log));
         eventDispatcher.addSink(MastershipEvent.class, listenerRegistry);
         store.setDelegate(delegate);
         log.info("Started");
@@ -138,6 +146,7 @@ public class MastershipManager
     public void deactivate() {
         eventDispatcher.removeSink(MastershipEvent.class);
         store.unsetDelegate(delegate);
+        balanceExecutor.shutdown();
         log.info("Stopped");
         cfgService.unregisterProperties(getClass(), false);
     }
@@ -251,12 +260,31 @@ public class MastershipManager
         }
 
         // Now re-balance the buckets until they are roughly even.
-        List<CompletableFuture<Void>> balanceBucketsFutures = balanceControllerNodes(controllerDevices, deviceCount);
+        Map<DeviceId, NodeId> moves = balanceControllerNodes(controllerDevices, deviceCount);
 
-        CompletableFuture<Void> balanceRolesFuture = CompletableFuture.allOf(
-                balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
+        Futures.getUnchecked(applyMoves(moves));
+    }
 
-        Futures.getUnchecked(balanceRolesFuture);
+    /**
+     * Applies planned mastership moves in batches that run in parallel.
+     *
+     * @param moves new master of each moved device
+     * @return future completed once all devices have been moved
+     */
+    private CompletableFuture<Void> applyMoves(Map<DeviceId, NodeId> moves) {
+        List<CompletableFuture<Void>> batchFutures = Lists.newArrayList();
+        for (List<Map.Entry<DeviceId, NodeId>> batch : Lists.partition(newArrayList(moves.entrySet()),
+                                                                         BALANCE_BATCH_SIZE)) {
+            batchFutures.add(CompletableFuture.supplyAsync(() -> {
+                List<CompletableFuture<Void>> setRoleFutures = Lists.newArrayListWithCapacity(batch.size());
+                for (Map.Entry<DeviceId, NodeId> move : batch) {
+                    log.info("Setting {} as the master for {}", move.getValue(), move.getKey());
+                    setRoleFutures.add(setRole(move.getValue(), move.getKey(), MASTER));
+                }
+                return CompletableFuture.allOf(setRoleFutures.toArray(new CompletableFuture[setRoleFutures.size()]));
+            }, balanceExecutor).thenCompose(f -> f));
+        }
+        return CompletableFuture.allOf(batchFutures.toArray(new CompletableFuture[batchFutures.size()]));
     }
 
     /**
@@ -264,20 +292,20 @@ public class MastershipManager
      *
      * @param controllerDevices controller nodes to devices map
      * @param deviceCount number of devices mastered by controller nodes
-     * @return list of setRole futures for "moved" devices
+     * @return new master of each "moved" device
      */
-    private List<CompletableFuture<Void>> balanceControllerNodes(
+    private Map<DeviceId, NodeId> balanceControllerNodes(
             Map<ControllerNode, Set<DeviceId>> controllerDevices, int deviceCount) {
         // Now re-balance the buckets until they are roughly even.
-        List<CompletableFuture<Void>> balanceBucketsFutures = Lists.newLinkedList();
+        Map<DeviceId, NodeId> moves = new HashMap<>();
         int rounds = controllerDevices.keySet().size();
         for (int i = 0; i < rounds; i++) {
             // Iterate over the buckets and find the smallest and the largest.
             ControllerNode smallest = findBucket(true, controllerDevices);
             ControllerNode largest = findBucket(false, controllerDevices);
-            balanceBucketsFutures.add(balanceBuckets(smallest, largest, controllerDevices, deviceCount));
+            balanceBuckets(smallest, largest, controllerDevices, deviceCount, moves);
         }
-        return balanceBucketsFutures;
+        return moves;
     }
 
     /**
@@ -308,11 +336,11 @@ public class MastershipManager
      * @param largest node that is master of the largest number of devices
      * @param controllerDevices controller nodes to devices map
      * @param deviceCount number of devices mastered by controller nodes
-     * @return list of setRole futures for "moved" devices
+     * @param moves map to which the new master of each "moved" device is added
      */
-    private CompletableFuture<Void> balanceBuckets(ControllerNode smallest, ControllerNode largest,
+    private void balanceBuckets(ControllerNode smallest, ControllerNode largest,
                                 Map<ControllerNode, Set<DeviceId>>  controllerDevices,
-                                int deviceCount) {
+                                int deviceCount, Map<DeviceId, NodeId> moves) {
         Collection<DeviceId> minBucket = controllerDevices.get(smallest);
         Collection<DeviceId> maxBucket = controllerDevices.get(largest);
         int bucketCount = controllerDevices.keySet().size();
@@ -320,8 +348,6 @@ public class MastershipManager
         int delta = (maxBucket.size() - minBucket.size()) / 2;
         delta = Math.min(deviceCount / bucketCount, delta);
 
-        List<CompletableFuture<Void>> setRoleFutures = Lists.newLinkedList();
-
         if (delta > 0) {
             log.info("Attempting to move {} nodes from {} to {}...", delta,
                      largest.id(), smallest.id());
@@ -330,15 +356,12 @@ public class MastershipManager
             Iterator<DeviceId> it = maxBucket.iterator();
             while (it.hasNext() && i < delta) {
                 DeviceId deviceId = it.next();
-                log.info("Setting {} as the master for {}", smallest.id(), deviceId);
-                setRoleFutures.add(setRole(smallest.id(), deviceId, MASTER));
+                moves.put(deviceId, smallest.id());
                 controllerDevices.get(smallest).add(deviceId);
                 it.remove();
                 i++;
             }
         }
-
-        return CompletableFuture.allOf(setRoleFutures.toArray(new CompletableFuture[setRoleFutures.size()]));
     }
 
     /**
@@ -371,13 +394,9 @@ public class MastershipManager
                 deviceCount += allControllerDevices.get(controllerNode).size();
             }
             // Now re-balance the buckets until they are roughly even.
-            List<CompletableFuture<Void>> balanceBucketsFutures =
-                    balanceControllerNodes(controllerDevicesNotInRegions, deviceCount);
+            Map<DeviceId, NodeId> moves = balanceControllerNodes(controllerDevicesNotInRegions, deviceCount);
 
-            CompletableFuture<Void> balanceRolesFuture = CompletableFuture.allOf(
-                    balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
-
-            Futures.getUnchecked(balanceRolesFuture);
+            Futures.getUnchecked(applyMoves(moves));
         }
         return true; // balancing was done using regions.
     }
@@ -412,8 +431,7 @@ public class MastershipManager
                 getRegionsPreferredMasters(region, devicesInMasters, allControllerDevices);
 
         // Now re-balance the buckets until they are roughly even.
-        List<CompletableFuture<Void>> balanceBucketsFutures =
-                balanceControllerNodes(regionalControllerDevices, devicesInMasters.size());
+        Map<DeviceId, NodeId> moves = balanceControllerNodes(regionalControllerDevices, devicesInMasters.size());
 
         // handle devices that are not currently mastered by the master node set
         Set<DeviceId> devicesNotMasteredWithControllers = Sets.difference(devicesInRegion, devicesInMasters);
@@ -427,16 +445,13 @@ public class MastershipManager
             int deviceIndex = 0;
             for (DeviceId deviceId : devicesNotMasteredWithControllers) {
                 ControllerNode cnode = sorted.get(deviceIndex % sorted.size());
-                balanceBucketsFutures.add(setRole(cnode.id(), deviceId, MASTER));
+                moves.put(deviceId, cnode.id());
                 regionalControllerDevices.get(cnode).add(deviceId);
                 deviceIndex++;
             }
         }
 
-        CompletableFuture<Void> balanceRolesFuture = CompletableFuture.allOf(
-                balanceBucketsFutures.toArray(new CompletableFuture[balanceBucketsFutures.size()]));
-
-        Futures.getUnchecked(balanceRolesFuture);
+        Futures.getUnchecked(applyMoves(moves));
 
         // update the map before returning
         regionalControllerDevices.forEach((controllerNode, deviceIds) -> {
@@ -15,6 +15,8 @@
  */
 package org.onosproject.event.impl;
 
+import java.util.Dictionary;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
@@ -27,34 +29,59 @@ import java.util.concurrent.TimeUnit;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
+import org.onlab.util.Tools;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
 import org.onosproject.event.Event;
 import org.onosproject.event.EventDeliveryService;
+import org.onosproject.event.EventListener;
 import org.onosproject.event.EventSink;
+import org.onosproject.event.ListenerRegistry;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.host.HostEvent;
 import org.onosproject.net.intent.IntentEvent;
 import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.topology.TopologyEvent;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import com.codahale.metrics.Histogram;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.EVENT_READ;
 import static org.onosproject.security.AppPermission.Type.EVENT_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
+
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * By default, events are dispatched through a few loops, each serving a
+ * fixed group of event classes. When sharded dispatch is configured, the
+ * listeners of the listener registries are instead spread over a pool of
+ * loops, each listener being served by a single loop. Every listener thus
+ * keeps receiving all of its events in order on a single thread, while
+ * different listeners process events in parallel. Sinks that are not
+ * listener registries are served whole by a single loop. In this mode the
+ * watchdog only reports listeners exceeding the time limit, since the other
+ * listeners of their sink are running on other loops.
+ * </p>
  */
 @Component(immediate = true)
 @Service
@@ -63,6 +90,21 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     private final Logger log = getLogger(getClass());
 
+    private static final int DEFAULT_DISPATCH_SHARDS = 0;
+    @Property(name = "dispatchShards", intValue = DEFAULT_DISPATCH_SHARDS,
+            label = "Number of dispatch loops over which event listeners are " +
+                    "sharded; 0 dispatches by event class. Applies on activation")
+    private int dispatchShards = DEFAULT_DISPATCH_SHARDS;
+
+    private static final String METRICS_COMPONENT = "EventDispatcher";
+    private static final String LATENCY_METRIC = "latencyMicros";
+
+    // listener latencies are not recorded without a metrics service
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
+    private MetricsComponent metricsComponent;
+    private final Map<Class<?>, Histogram> listenerLatencies = Maps.newConcurrentMap();
 
     private DispatchLoop topologyDispatcher = new DispatchLoop("topology");
     private DispatchLoop programmingDispatcher = new DispatchLoop("programming");
@@ -84,6 +126,9 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                 .add(defaultDispatcher)
                 .build();
 
+    // Dispatch loops indexed by listener shard; empty unless sharding is on
+    private List<DispatchLoop> shardDispatchers = ImmutableList.of();
+
     // Default number of millis a sink can take to process an event.
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
@@ -102,31 +147,130 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return dispatcher;
     }
 
+    // Returns the loop that serves the given listener or sink
+    private static DispatchLoop getShard(List<DispatchLoop> shards, Object listener) {
+        int hash = System.identityHashCode(listener);
+        return shards.get(Math.floorMod(hash ^ (hash >>> 16), shards.size()));
+    }
+
     @Override
     public void post(Event event) {
+        List<DispatchLoop> shards = shardDispatchers;
+        if (!shards.isEmpty()) {
+            postToShards(event, shards);
+        } else if (!getDispatcher(event).add(event, null)) {
+            log.error("Unable to post event {}", event);
+        }
+    }
 
-        if (!getDispatcher(event).add(event)) {
+    // Queues the event on the loop of each listener of its sink
+    private void postToShards(Event event, List<DispatchLoop> shards) {
+        EventSink<?> sink = getSink(event.getClass());
+        if (sink instanceof ListenerRegistry) {
+            for (EventListener<?> listener : ((ListenerRegistry<?, ?>) sink).getListeners()) {
+                if (!getShard(shards, listener).add(event, listener)) {
+                    log.error("Unable to post event {} to {}", event, listener);
+                }
+            }
+        } else if (!getShard(shards, sink != null ? sink : event.getClass()).add(event, null)) {
             log.error("Unable to post event {}", event);
         }
     }
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        readComponentConfiguration(context);
+
+        if (dispatchShards > 0) {
+            ImmutableList.Builder<DispatchLoop> shards = ImmutableList.builder();
+            for (int i = 0; i < dispatchShards; i++) {
+                shards.add(new DispatchLoop("shard-" + i, true));
+            }
+            shardDispatchers = shards.build();
+            dispatchers = ImmutableSet.<DispatchLoop>builder()
+                    .addAll(dispatchers)
+                    .addAll(shardDispatchers)
+                    .build();
+        }
+
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(METRICS_COMPONENT);
+            getSinks().forEach(eventClass -> setListenerTimer(getSink(eventClass), true));
+        }
 
         if (maxProcessMillis != 0) {
             dispatchers.forEach(DispatchLoop::startWatchdog);
         }
 
-        log.info("Started");
+        log.info("Started with {} dispatch shards", dispatchShards);
     }
 
     @Deactivate
     public void deactivate() {
         dispatchers.forEach(DispatchLoop::stop);
+        getSinks().forEach(eventClass -> setListenerTimer(getSink(eventClass), false));
 
         log.info("Stopped");
     }
 
+    private void readComponentConfiguration(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        String s = Tools.get(properties, "dispatchShards");
+        if (!isNullOrEmpty(s)) {
+            try {
+                int shards = Integer.parseInt(s.trim());
+                if (shards >= 0) {
+                    dispatchShards = shards;
+                } else {
+                    log.warn("Ignoring negative number of dispatch shards {}", shards);
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Malformed number of dispatch shards {}", s);
+            }
+        }
+    }
+
+    @Override
+    public <E extends Event> void addSink(Class<E> eventClass, EventSink<E> sink) {
+        super.addSink(eventClass, sink);
+        if (metricsComponent != null) {
+            setListenerTimer(sink, true);
+        }
+    }
+
+    @Override
+    public <E extends Event> void removeSink(Class<E> eventClass) {
+        setListenerTimer(getSink(eventClass), false);
+        super.removeSink(eventClass);
+    }
+
+    // Records the processing time of each listener of a listener registry
+    private void setListenerTimer(EventSink<?> sink, boolean enabled) {
+        if (sink instanceof ListenerRegistry) {
+            ((ListenerRegistry<?, ?>) sink).setListenerTimer(
+                    enabled ? this::recordListenerLatency : null);
+        }
+    }
+
+    private void recordListenerLatency(EventListener<?> listener, long nanos) {
+        listenerLatency(listener.getClass()).update(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Returns the histogram of the time, in microseconds, that listeners of
+     * the given class take to process an event.
+     *
+     * @param listenerClass listener class
+     * @return latency histogram
+     */
+    Histogram listenerLatency(Class<?> listenerClass) {
+        return listenerLatencies.computeIfAbsent(listenerClass, c -> metricsService.createHistogram(
+                metricsComponent, metricsComponent.registerFeature(c.getName()), LATENCY_METRIC));
+    }
+
     @Override
     public void setDispatchTimeLimit(long millis) {
         checkPermission(EVENT_WRITE);
@@ -148,20 +292,40 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
+    // Event queued for dispatch, along with the single listener to deliver
+    // it to when dispatching to the listeners of a registry separately
+    private static final class Delivery {
+        private final Event event;
+        private final EventListener<?> listener;
+
+        private Delivery(Event event, EventListener<?> listener) {
+            this.event = event;
+            this.listener = listener;
+        }
+    }
+
     // Auxiliary event dispatching loop that feeds off the events queue.
     private class DispatchLoop implements Runnable {
         private final String name;
+        private final boolean shard;
         private volatile boolean stopped;
+        // Written by this loop only, and read by its watchdog
         private volatile EventSink lastSink;
+        private volatile EventListener<?> lastListener;
         // Means to detect long-running sinks
         private final Stopwatch stopwatch = Stopwatch.createUnstarted();
         private TimerTask watchdog;
         private volatile Future<?> dispatchFuture;
-        private final BlockingQueue<Event> eventsQueue;
+        private final BlockingQueue<Delivery> eventsQueue;
         private final ExecutorService executor;
 
         DispatchLoop(String name) {
+            this(name, false);
+        }
+
+        DispatchLoop(String name, boolean shard) {
             this.name = name;
+            this.shard = shard;
             executor = newSingleThreadExecutor(
                     groupedThreads("onos/event",
                     "dispatch-" + name + "%d", log));
@@ -169,8 +333,8 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             dispatchFuture = executor.submit(this);
         }
 
-        public boolean add(Event event) {
-            return eventsQueue.add(event);
+        public boolean add(Event event, EventListener<?> listener) {
+            return eventsQueue.add(new Delivery(event, listener));
         }
 
         @Override
@@ -180,11 +344,11 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             while (!stopped) {
                 try {
                     // Fetch the next event and if it is the kill-pill, bail
-                    Event event = eventsQueue.take();
-                    if (event == KILL_PILL) {
+                    Delivery delivery = eventsQueue.take();
+                    if (delivery.event == KILL_PILL) {
                         break;
                     }
-                    process(event);
+                    process(delivery.event, delivery.listener);
                 } catch (InterruptedException e) {
                     log.warn("Dispatch loop interrupted");
                 } catch (Exception | Error e) {
@@ -194,14 +358,24 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             log.info("Dispatch loop terminated");
         }
 
-        // Locate the sink for the event class and use it to process the event
+        // Locate the sink for the event class and use it to process the event,
+        // on behalf of the given listener only if there is one
         @SuppressWarnings("unchecked")
-        private void process(Event event) {
+        private void process(Event event, EventListener<?> listener) {
             EventSink sink = getSink(event.getClass());
+            if (listener != null && !(sink instanceof ListenerRegistry)) {
+                // the registry was replaced since the event was posted
+                return;
+            }
             if (sink != null) {
                 lastSink = sink;
+                lastListener = listener;
                 stopwatch.start();
-                sink.process(event);
+                if (listener == null) {
+                    sink.process(event);
+                } else {
+                    ((ListenerRegistry) sink).process(event, listener);
+                }
                 stopwatch.reset();
             } else {
                 log.warn("No sink registered for event class {}",
@@ -212,7 +386,7 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         void stop() {
             stopped = true;
             stopWatchdog();
-            add(KILL_PILL);
+            add(KILL_PILL, null);
         }
 
         // Monitors event sinks to make sure none take too long to execute.
@@ -220,7 +394,14 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             @Override
             public void run() {
                 long elapsedTimeMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
-                if (elapsedTimeMillis > maxProcessMillis) {
+                if (elapsedTimeMillis > maxProcessMillis && shard) {
+                    stopwatch.reset();
+                    EventListener<?> listener = lastListener;
+                    log.warn("Event {} {} exceeded execution time limit: {} ms",
+                             listener != null ? "listener" : "sink",
+                             (listener != null ? listener : lastSink).getClass().getName(),
+                             elapsedTimeMillis);
+                } else if (elapsedTimeMillis > maxProcessMillis) {
                     stopwatch.reset();
                     log.warn("Event sink {} exceeded execution time limit: {} ms; " +
                              "spawning new dispatch loop",
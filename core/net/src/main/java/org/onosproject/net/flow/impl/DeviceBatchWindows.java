@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.flow.impl;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleBatchEntry;
+import org.onosproject.net.flow.FlowRuleBatchOperation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Dispatches flow rule batch operations to devices through per-device
+ * windows of in-flight batches.
+ * <p>
+ * At most a given number of batches are in flight to each device at a time,
+ * and the number of flow rule operations sent to each device per second can
+ * be limited. A batch operating on a flow rule that an earlier batch still
+ * queued or in flight to the same device operates on is held back until
+ * that batch completes; batches operating on distinct flow rules are not
+ * ordered. Batches are handed to the installer outside of the window locks.
+ * </p>
+ */
+class DeviceBatchWindows {
+
+    private final Consumer<FlowRuleBatchOperation> installer;
+    private final ScheduledExecutorService timer;
+    private final Map<DeviceId, Window> windows = Maps.newConcurrentMap();
+
+    private volatile int windowSize;
+    private volatile int maxOpsPerSecond;
+
+    /**
+     * Creates new device batch windows.
+     *
+     * @param installer       installs a batch operation; must not block
+     * @param timer           executor scheduling the batches held back by the rate limit
+     * @param windowSize      maximum number of batches in flight per device
+     * @param maxOpsPerSecond maximum number of flow rule operations sent per
+     *                        second to each device; 0 for no limit
+     */
+    DeviceBatchWindows(Consumer<FlowRuleBatchOperation> installer,
+                       ScheduledExecutorService timer,
+                       int windowSize, int maxOpsPerSecond) {
+        this.installer = checkNotNull(installer);
+        this.timer = checkNotNull(timer);
+        setLimits(windowSize, maxOpsPerSecond);
+    }
+
+    /**
+     * Changes the window size and rate limit; applies from the next dispatch.
+     *
+     * @param windowSize      maximum number of batches in flight per device
+     * @param maxOpsPerSecond maximum number of flow rule operations sent per
+     *                        second to each device; 0 for no limit
+     */
+    void setLimits(int windowSize, int maxOpsPerSecond) {
+        this.windowSize = Math.max(1, windowSize);
+        this.maxOpsPerSecond = Math.max(0, maxOpsPerSecond);
+    }
+
+    /**
+     * Submits a batch operation for dispatch to its device.
+     *
+     * @param batch batch operation
+     */
+    void submit(FlowRuleBatchOperation batch) {
+        install(windows.computeIfAbsent(batch.deviceId(), id -> new Window()).submit(batch));
+    }
+
+    /**
+     * Records the completion of a batch operation, letting the batches
+     * waiting for it through.
+     *
+     * @param deviceId device identifier
+     * @param batchId  batch operation identifier
+     */
+    void completed(DeviceId deviceId, long batchId) {
+        Window window = windows.get(deviceId);
+        if (window != null) {
+            install(window.completed(batchId));
+        }
+    }
+
+    /**
+     * Drops the window of a device that went away. Its queued batches are
+     * handed to the installer at once, to be failed there, and the
+     * completions of its batches in flight are ignored.
+     *
+     * @param deviceId device identifier
+     */
+    void remove(DeviceId deviceId) {
+        Window window = windows.remove(deviceId);
+        if (window != null) {
+            install(window.drain());
+        }
+    }
+
+    /**
+     * Returns the number of batches in flight to the given device.
+     *
+     * @param deviceId device identifier
+     * @return number of batches in flight
+     */
+    int inFlight(DeviceId deviceId) {
+        Window window = windows.get(deviceId);
+        return window == null ? 0 : window.inFlightCount();
+    }
+
+    private void install(List<FlowRuleBatchOperation> batches) {
+        batches.forEach(installer);
+    }
+
+    private static Set<FlowId> flowIds(FlowRuleBatchOperation batch) {
+        return batch.getOperations().stream()
+                .map(FlowRuleBatchEntry::target)
+                .map(FlowRule::id)
+                .collect(Collectors.toSet());
+    }
+
+    // Batches queued and in flight to a device.
+    private final class Window {
+        private final Deque<FlowRuleBatchOperation> queued = new ArrayDeque<>();
+        private final Map<Long, Set<FlowId>> inFlight = Maps.newHashMap();
+        private final Multiset<FlowId> inFlightRules = HashMultiset.create();
+
+        private double tokens = Double.NaN;
+        private long lastRefill;
+        private boolean retryScheduled;
+
+        synchronized List<FlowRuleBatchOperation> submit(FlowRuleBatchOperation batch) {
+            queued.add(batch);
+            return dispatch();
+        }
+
+        synchronized List<FlowRuleBatchOperation> completed(long batchId) {
+            Set<FlowId> ids = inFlight.remove(batchId);
+            if (ids == null) {
+                return ImmutableList.of();
+            }
+            ids.forEach(inFlightRules::remove);
+            return dispatch();
+        }
+
+        synchronized List<FlowRuleBatchOperation> drain() {
+            List<FlowRuleBatchOperation> batches = ImmutableList.copyOf(queued);
+            queued.clear();
+            inFlight.clear();
+            inFlightRules.clear();
+            return batches;
+        }
+
+        synchronized int inFlightCount() {
+            return inFlight.size();
+        }
+
+        private void retry() {
+            List<FlowRuleBatchOperation> batches;
+            synchronized (this) {
+                retryScheduled = false;
+                batches = dispatch();
+            }
+            install(batches);
+        }
+
+        // Takes the queued batches the window, dependencies and rate allow.
+        private List<FlowRuleBatchOperation> dispatch() {
+            List<FlowRuleBatchOperation> batches = Lists.newArrayList();
+            Set<FlowId> heldBack = Sets.newHashSet();
+            Iterator<FlowRuleBatchOperation> it = queued.iterator();
+            while (it.hasNext() && inFlight.size() < windowSize) {
+                FlowRuleBatchOperation batch = it.next();
+                Set<FlowId> ids = flowIds(batch);
+                if (ids.stream().anyMatch(id -> inFlightRules.contains(id) || heldBack.contains(id))) {
+                    // keep later batches on the same rules behind this one
+                    heldBack.addAll(ids);
+                    continue;
+                }
+                if (!acquire(batch.size())) {
+                    break;
+                }
+                it.remove();
+                inFlight.put(batch.id(), ids);
+                inFlightRules.addAll(ids);
+                batches.add(batch);
+            }
+            return batches;
+        }
+
+        // Takes the given number of operations from the token bucket; a batch
+        // larger than the rate waits for a full bucket and leaves it in debt.
+        private boolean acquire(int ops) {
+            int rate = maxOpsPerSecond;
+            if (rate == 0) {
+                return true;
+            }
+            long now = System.nanoTime();
+            tokens = Double.isNaN(tokens) ? rate :
+                    Math.min(rate, tokens + (now - lastRefill) * rate / 1e9);
+            lastRefill = now;
+            int needed = Math.min(ops, rate);
+            if (tokens >= needed) {
+                tokens -= ops;
+                return true;
+            }
+            if (!retryScheduled) {
+                retryScheduled = true;
+                long delayMillis = (long) Math.ceil((needed - tokens) * 1000 / rate) + 1;
+                timer.schedule(this::retry, delayMillis, TimeUnit.MILLISECONDS);
+            }
+            return false;
+        }
+    }
+}
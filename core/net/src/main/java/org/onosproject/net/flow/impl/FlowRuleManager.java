@@ -16,10 +16,13 @@
 package org.onosproject.net.flow.impl;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -29,13 +32,13 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.util.SharedScheduledExecutors;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.mastership.MastershipService;
-import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
@@ -68,7 +71,6 @@ import org.slf4j.Logger;
 
 import java.util.Collections;
 import java.util.Dictionary;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -118,6 +120,23 @@ public class FlowRuleManager
             label = "Frequency (in seconds) for polling flow statistics via fallback provider")
     private int fallbackFlowPollFrequency = DEFAULT_POLL_FREQUENCY;
 
+    private static final boolean DEFAULT_PIPELINED_INSTALL = false;
+    @Property(name = "pipelinedInstall", boolValue = DEFAULT_PIPELINED_INSTALL,
+            label = "Start each stage of flow rule operations once the devices it touches " +
+                    "have completed the earlier stages, rather than once all devices have")
+    private boolean pipelinedInstall = DEFAULT_PIPELINED_INSTALL;
+
+    private static final int DEFAULT_MAX_OUTSTANDING_BATCHES = 4;
+    @Property(name = "maxOutstandingBatches", intValue = DEFAULT_MAX_OUTSTANDING_BATCHES,
+            label = "Maximum number of flow rule batches in flight per device with pipelined install")
+    private int maxOutstandingBatches = DEFAULT_MAX_OUTSTANDING_BATCHES;
+
+    private static final int DEFAULT_MAX_FLOW_OPS_PER_SECOND = 0;
+    @Property(name = "maxFlowOpsPerSecond", intValue = DEFAULT_MAX_FLOW_OPS_PER_SECOND,
+            label = "Maximum number of flow rule operations sent per second to each device " +
+                    "with pipelined install; 0 for no limit")
+    private int maxFlowOpsPerSecond = DEFAULT_MAX_FLOW_OPS_PER_SECOND;
+
     private final FlowRuleStoreDelegate delegate = new InternalStoreDelegate();
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
@@ -148,6 +167,11 @@ public class FlowRuleManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ComponentConfigService cfgService;
 
+    private final DeviceBatchWindows batchWindows =
+            new DeviceBatchWindows(b -> deviceInstallers.execute(() -> store.storeBatch(b)),
+                                   SharedScheduledExecutors.getSingleThreadExecutor(),
+                                   DEFAULT_MAX_OUTSTANDING_BATCHES, DEFAULT_MAX_FLOW_OPS_PER_SECOND);
+
     @Activate
     public void activate(ComponentContext context) {
         modified(context);
@@ -219,6 +243,30 @@ public class FlowRuleManager
         } catch (NumberFormatException e) {
             fallbackFlowPollFrequency = DEFAULT_POLL_FREQUENCY;
         }
+
+        flag = Tools.isPropertyEnabled(properties, "pipelinedInstall");
+        if (flag != null) {
+            pipelinedInstall = flag;
+        }
+
+        s = get(properties, "maxOutstandingBatches");
+        try {
+            maxOutstandingBatches = isNullOrEmpty(s) ?
+                    DEFAULT_MAX_OUTSTANDING_BATCHES : Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            maxOutstandingBatches = DEFAULT_MAX_OUTSTANDING_BATCHES;
+        }
+
+        s = get(properties, "maxFlowOpsPerSecond");
+        try {
+            maxFlowOpsPerSecond = isNullOrEmpty(s) ?
+                    DEFAULT_MAX_FLOW_OPS_PER_SECOND : Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            maxFlowOpsPerSecond = DEFAULT_MAX_FLOW_OPS_PER_SECOND;
+        }
+        batchWindows.setLimits(maxOutstandingBatches, maxFlowOpsPerSecond);
+        log.info("Configured. PipelinedInstall is {}, maxOutstandingBatches={}, maxFlowOpsPerSecond={}",
+                 pipelinedInstall ? "enabled" : "disabled", maxOutstandingBatches, maxFlowOpsPerSecond);
     }
 
     @Override
@@ -271,53 +319,25 @@ public class FlowRuleManager
     @Override
     public Iterable<FlowRule> getFlowRulesById(ApplicationId id) {
         checkPermission(FLOWRULE_READ);
-
-        Set<FlowRule> flowEntries = Sets.newHashSet();
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if (flowEntry.appId() == id.id()) {
-                    flowEntries.add(flowEntry);
-                }
-            }
-        }
-        return flowEntries;
+        return ImmutableSet.copyOf(store.getFlowEntriesByAppId(id));
     }
 
     @Override
     public Iterable<FlowEntry> getFlowEntriesById(ApplicationId id) {
         checkPermission(FLOWRULE_READ);
-
-        Set<FlowEntry> flowEntries = Sets.newHashSet();
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if (flowEntry.appId() == id.id()) {
-                    flowEntries.add(flowEntry);
-                }
-            }
-        }
-        return flowEntries;
+        return ImmutableSet.copyOf(store.getFlowEntriesByAppId(id));
     }
 
     @Override
     public Iterable<FlowRule> getFlowRulesByGroupId(ApplicationId appId, short groupId) {
         checkPermission(FLOWRULE_READ);
-
-        Set<FlowRule> matches = Sets.newHashSet();
-        long toLookUp = ((long) appId.id() << 16) | groupId;
-        for (Device d : deviceService.getDevices()) {
-            for (FlowEntry flowEntry : store.getFlowEntries(d.id())) {
-                if ((flowEntry.id().value() >>> 32) == toLookUp) {
-                    matches.add(flowEntry);
-                }
-            }
-        }
-        return matches;
+        return ImmutableSet.copyOf(store.getFlowEntriesByGroupId(appId, groupId));
     }
 
     @Override
     public void apply(FlowRuleOperations ops) {
         checkPermission(FLOWRULE_WRITE);
-        operationsService.execute(new FlowOperationsProcessor(ops));
+        operationsService.execute(new FlowOperationsProcessor(ops, pipelinedInstall));
     }
 
     @Override
@@ -352,7 +372,8 @@ public class FlowRuleManager
 
         final Map<FlowEntry, Long> firstSeen = Maps.newConcurrentMap();
         final Map<FlowEntry, Long> lastSeen = Maps.newConcurrentMap();
-
+        // flow entries reported so far by the polling round of each device
+        final Map<DeviceId, Set<FlowEntry>> roundSeen = Maps.newConcurrentMap();
 
         protected InternalFlowRuleProviderService(FlowRuleProvider provider) {
             super(provider);
@@ -511,27 +532,7 @@ public class FlowRuleManager
             store.getFlowEntries(deviceId).forEach(f -> storedRules.put(f, f));
 
             for (FlowEntry rule : flowEntries) {
-                try {
-                    FlowEntry storedRule = storedRules.remove(rule);
-                    if (storedRule != null) {
-                        if (storedRule.exactMatch(rule)) {
-                            // we both have the rule, let's update some info then.
-                            flowAdded(rule);
-                        } else {
-                            // the two rules are not an exact match - remove the
-                            // switch's rule and install our rule
-                            extraneousFlow(rule);
-                            flowMissing(storedRule);
-                        }
-                    } else {
-                        // the device has a rule the store does not have
-                        if (!allowExtraneousRules) {
-                            extraneousFlow(rule);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("Can't process added or extra rule {}", e);
-                }
+                reconcileFlow(rule, storedRules.remove(rule));
             }
 
             // DO NOT reinstall
@@ -548,6 +549,59 @@ public class FlowRuleManager
             }
         }
 
+        @Override
+        public void pushFlowMetricsPart(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
+                                        boolean first, boolean last) {
+            Set<FlowEntry> seen = first ? Sets.newConcurrentHashSet() :
+                    roundSeen.computeIfAbsent(deviceId, id -> Sets.newConcurrentHashSet());
+            if (first) {
+                roundSeen.put(deviceId, seen);
+            }
+            for (FlowEntry rule : flowEntries) {
+                seen.add(rule);
+                reconcileFlow(rule, store.getFlowEntry(rule));
+            }
+
+            if (last) {
+                roundSeen.remove(deviceId);
+                for (FlowEntry rule : store.getFlowEntries(deviceId)) {
+                    if (!seen.contains(rule)) {
+                        try {
+                            // there are rules in the store that aren't on the switch
+                            log.debug("Adding rule in store, but not on switch {}", rule);
+                            flowMissing(rule);
+                        } catch (Exception e) {
+                            log.warn("Can't add missing flow rule:", e);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Reconciles a flow entry reported by the device with the stored one
+        private void reconcileFlow(FlowEntry rule, FlowEntry storedRule) {
+            try {
+                if (storedRule != null) {
+                    if (storedRule.exactMatch(rule)) {
+                        // we both have the rule, let's update some info then.
+                        flowAdded(rule);
+                    } else {
+                        // the two rules are not an exact match - remove the
+                        // switch's rule and install our rule
+                        extraneousFlow(rule);
+                        flowMissing(storedRule);
+                    }
+                } else {
+                    // the device has a rule the store does not have
+                    if (!allowExtraneousRules) {
+                        extraneousFlow(rule);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Can't process added or extra rule {}", e);
+            }
+        }
+
         @Override
         public void batchOperationCompleted(long batchId, CompletedBatchOperation operation) {
             store.batchOperationComplete(FlowRuleBatchEvent.completed(
@@ -607,6 +661,9 @@ public class FlowRuleManager
 
                 FlowOperationsProcessor fops = pendingFlowOperations.remove(
                         event.subject().batchId());
+                if (fops != null && fops.pipelined) {
+                    batchWindows.completed(event.deviceId(), event.subject().batchId());
+                }
                 if (event.result().isSuccess()) {
                     if (fops != null) {
                         fops.satisfy(event.deviceId());
@@ -639,26 +696,40 @@ public class FlowRuleManager
     private class FlowOperationsProcessor implements Runnable {
         // Immutable
         private final FlowRuleOperations fops;
+        private final boolean pipelined;
 
         // Mutable
         private final List<Set<FlowRuleOperation>> stages;
-        private final Set<DeviceId> pendingDevices = new HashSet<>();
+        private final Multiset<DeviceId> pendingDevices = HashMultiset.create();
         private boolean hasFailed = false;
+        private boolean done = false;
 
-        FlowOperationsProcessor(FlowRuleOperations ops) {
+        FlowOperationsProcessor(FlowRuleOperations ops, boolean pipelined) {
             this.stages = Lists.newArrayList(ops.stages());
             this.fops = ops;
+            this.pipelined = pipelined;
         }
 
         @Override
         public synchronized void run() {
-            if (!stages.isEmpty()) {
+            // Pipelined processors start a stage as soon as the devices it
+            // touches are done with the earlier stages, rather than all of them.
+            while (!stages.isEmpty() && (pipelined ? !touchesPendingDevice(stages.get(0))
+                    : pendingDevices.isEmpty())) {
                 process(stages.remove(0));
-            } else if (!hasFailed) {
-                fops.callback().onSuccess(fops);
+            }
+            if (stages.isEmpty() && pendingDevices.isEmpty() && !done) {
+                done = true;
+                if (!hasFailed) {
+                    fops.callback().onSuccess(fops);
+                }
             }
         }
 
+        private boolean touchesPendingDevice(Set<FlowRuleOperation> ops) {
+            return ops.stream().anyMatch(op -> pendingDevices.contains(op.rule().deviceId()));
+        }
+
         private void process(Set<FlowRuleOperation> ops) {
             Multimap<DeviceId, FlowRuleBatchEntry> perDeviceBatches = ArrayListMultimap.create();
 
@@ -673,29 +744,34 @@ public class FlowRuleManager
                 final FlowRuleBatchOperation b = new FlowRuleBatchOperation(perDeviceBatches.get(deviceId),
                                                deviceId, id);
                 pendingFlowOperations.put(id, this);
-                deviceInstallers.execute(() -> store.storeBatch(b));
+                if (pipelined) {
+                    batchWindows.submit(b);
+                } else {
+                    deviceInstallers.execute(() -> store.storeBatch(b));
+                }
             }
         }
 
         synchronized void satisfy(DeviceId devId) {
-            pendingDevices.remove(devId);
-            if (pendingDevices.isEmpty()) {
-                operationsService.execute(this);
-            }
+            completed(devId);
         }
 
         synchronized void fail(DeviceId devId, Set<? extends FlowRule> failures) {
             hasFailed = true;
-            pendingDevices.remove(devId);
-            if (pendingDevices.isEmpty()) {
-                operationsService.execute(this);
-            }
+            completed(devId);
 
             FlowRuleOperations.Builder failedOpsBuilder = FlowRuleOperations.builder();
             failures.forEach(failedOpsBuilder::add);
 
             fops.callback().onError(failedOpsBuilder.build());
         }
+
+        private void completed(DeviceId devId) {
+            pendingDevices.remove(devId);
+            if (pendingDevices.isEmpty() || (pipelined && !pendingDevices.contains(devId))) {
+                operationsService.execute(this);
+            }
+        }
     }
 
     @Override
@@ -712,6 +788,7 @@ public class FlowRuleManager
                 case DEVICE_AVAILABILITY_CHANGED:
                     DeviceId deviceId = event.subject().id();
                     if (!deviceService.isAvailable(deviceId)) {
+                        batchWindows.remove(deviceId);
                         if (purgeOnDisconnection) {
                             store.purgeFlowRule(deviceId);
                         }
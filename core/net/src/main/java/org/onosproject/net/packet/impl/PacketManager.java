@@ -18,6 +18,9 @@ package org.onosproject.net.packet.impl;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.onlab.packet.EthernetView;
+import org.onlab.packet.IPv4;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -36,6 +39,11 @@ import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.TrafficSelector;
 import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.net.flow.criteria.UdpPortCriterion;
 import org.onosproject.net.flowobjective.DefaultForwardingObjective;
 import org.onosproject.net.flowobjective.FlowObjectiveService;
 import org.onosproject.net.flowobjective.ForwardingObjective;
@@ -61,6 +69,7 @@ import org.onosproject.net.provider.AbstractProviderService;
 import org.slf4j.Logger;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -87,6 +96,7 @@ public class PacketManager
 
     private static final String ERROR_NULL_PROCESSOR = "Processor cannot be null";
     private static final String ERROR_NULL_SELECTOR = "Selector cannot be null";
+    private static final String ERROR_NULL_FILTERS = "Filters cannot be null";
     private static final String ERROR_NULL_APP_ID = "Application ID cannot be null";
     private static final String ERROR_NULL_DEVICE_ID = "Device ID cannot be null";
 
@@ -113,6 +123,9 @@ public class PacketManager
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
 
+    // Processors to hand packets to, by Ethernet type; rebuilt on every change of the processors
+    private volatile ProcessorIndex processorIndex = new ProcessorIndex(ImmutableList.of());
+
     private final  PacketDriverProvider defaultProvider = new PacketDriverProvider();
 
     private ApplicationId appId;
@@ -146,18 +159,28 @@ public class PacketManager
 
     @Override
     public void addProcessor(PacketProcessor processor, int priority) {
+        addProcessor(processor, priority, ImmutableSet.of());
+    }
+
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority,
+                             Set<TrafficSelector> filters) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
-
-        // Insert the new processor according to its priority.
-        int i = 0;
-        for (; i < processors.size(); i++) {
-            if (priority < processors.get(i).priority()) {
-                break;
+        checkNotNull(filters, ERROR_NULL_FILTERS);
+        ProcessorEntry entry = new ProcessorEntry(processor, priority, filters);
+
+        synchronized (processors) {
+            // Insert the new processor according to its priority.
+            int i = 0;
+            for (; i < processors.size(); i++) {
+                if (priority < processors.get(i).priority()) {
+                    break;
+                }
             }
+            processors.add(i, entry);
+            processorIndex = new ProcessorIndex(processors);
         }
-        processors.add(i, entry);
     }
 
     @Override
@@ -165,12 +188,15 @@ public class PacketManager
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
 
-        // Remove the processor entry.
-        for (int i = 0; i < processors.size(); i++) {
-            if (processors.get(i).processor() == processor) {
-                processors.remove(i);
-                break;
+        synchronized (processors) {
+            // Remove the processor entry.
+            for (int i = 0; i < processors.size(); i++) {
+                if (processors.get(i).processor() == processor) {
+                    processors.remove(i);
+                    break;
+                }
             }
+            processorIndex = new ProcessorIndex(processors);
         }
     }
 
@@ -382,8 +408,12 @@ public class PacketManager
 
         @Override
         public void processPacket(PacketContext context) {
-            // TODO filter packets sent to processors based on registrations
-            for (ProcessorEntry entry : processors) {
+            ProcessorIndex index = processorIndex;
+            EthernetView packet = index.filtered ? context.inPacket().view() : null;
+            for (ProcessorEntry entry : index.processors(packet)) {
+                if (!entry.accepts(packet)) {
+                    continue;
+                }
                 try {
                     long start = System.nanoTime();
                     entry.processor().process(context);
@@ -455,18 +485,120 @@ public class PacketManager
         }
     }
 
+    /**
+     * Filter on the Ethernet type, IP protocol and TCP/UDP ports of packets,
+     * derived from a traffic selector; -1 matches any value. Packets are
+     * matched through their views, so that filtering does not parse them;
+     * the IP protocol of IPv6 packets is the one past their extension headers.
+     */
+    private static final class PacketFilter {
+        private int ethType = -1;
+        private int ipProto = -1;
+        private int srcPort = -1;
+        private int dstPort = -1;
+
+        PacketFilter(TrafficSelector selector) {
+            for (Criterion criterion : selector.criteria()) {
+                switch (criterion.type()) {
+                    case ETH_TYPE:
+                        ethType = ((EthTypeCriterion) criterion).ethType().toShort() & 0xffff;
+                        break;
+                    case IP_PROTO:
+                        ipProto = ((IPProtocolCriterion) criterion).protocol();
+                        break;
+                    case TCP_SRC:
+                        ipProto = IPv4.PROTOCOL_TCP;
+                        srcPort = ((TcpPortCriterion) criterion).tcpPort().toInt();
+                        break;
+                    case TCP_DST:
+                        ipProto = IPv4.PROTOCOL_TCP;
+                        dstPort = ((TcpPortCriterion) criterion).tcpPort().toInt();
+                        break;
+                    case UDP_SRC:
+                        ipProto = IPv4.PROTOCOL_UDP;
+                        srcPort = ((UdpPortCriterion) criterion).udpPort().toInt();
+                        break;
+                    case UDP_DST:
+                        ipProto = IPv4.PROTOCOL_UDP;
+                        dstPort = ((UdpPortCriterion) criterion).udpPort().toInt();
+                        break;
+                    default:
+                        // other criteria are left to the processor
+                        break;
+                }
+            }
+        }
+
+        boolean matches(EthernetView packet) {
+            if (packet == null) {
+                return false;
+            }
+            return matches(ethType, packet.etherType()) && matches(ipProto, packet.ipProtocol()) &&
+                    matches(srcPort, packet.sourcePort()) && matches(dstPort, packet.destinationPort());
+        }
+
+        private static boolean matches(int expected, int actual) {
+            return expected == -1 || expected == actual;
+        }
+    }
+
+    /**
+     * Immutable index of the packet processors, in priority order, by the
+     * Ethernet types their filters accept.
+     */
+    private static final class ProcessorIndex {
+        private final boolean filtered;
+        private final List<ProcessorEntry> all;
+        private final List<ProcessorEntry> anyEthType;
+        private final Map<Integer, List<ProcessorEntry>> byEthType = Maps.newHashMap();
+
+        ProcessorIndex(List<ProcessorEntry> processors) {
+            all = ImmutableList.copyOf(processors);
+            filtered = all.stream().anyMatch(entry -> !entry.filters.isEmpty());
+            anyEthType = all.stream()
+                    .filter(entry -> entry.filters.isEmpty() ||
+                            entry.filters.stream().anyMatch(filter -> filter.ethType == -1))
+                    .collect(ImmutableList.toImmutableList());
+            all.stream()
+                    .flatMap(entry -> entry.filters.stream())
+                    .map(filter -> filter.ethType)
+                    .filter(ethType -> ethType != -1)
+                    .distinct()
+                    .forEach(ethType -> byEthType.put(ethType, all.stream()
+                            .filter(entry -> anyEthType.contains(entry) ||
+                                    entry.filters.stream().anyMatch(filter -> filter.ethType == ethType))
+                            .collect(ImmutableList.toImmutableList())));
+        }
+
+        // Returns the processors that may accept the given packet
+        List<ProcessorEntry> processors(EthernetView packet) {
+            if (!filtered) {
+                return all;
+            }
+            return packet == null ? anyEthType : byEthType.getOrDefault(packet.etherType(), anyEthType);
+        }
+    }
+
     /**
      * Entity for tracking stats for a packet processor.
      */
     private class ProcessorEntry implements PacketProcessorEntry {
         private final PacketProcessor processor;
         private final int priority;
+        private final List<PacketFilter> filters;
         private long invocations = 0;
         private long nanos = 0;
 
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        public ProcessorEntry(PacketProcessor processor, int priority,
+                              Set<TrafficSelector> filters) {
             this.processor = processor;
             this.priority = priority;
+            this.filters = filters.stream().map(PacketFilter::new).collect(ImmutableList.toImmutableList());
+        }
+
+        // Returns true if the processor is interested in the given packet
+        boolean accepts(EthernetView packet) {
+            return filters.isEmpty() || filters.stream().anyMatch(filter -> filter.matches(packet));
         }
 
         @Override
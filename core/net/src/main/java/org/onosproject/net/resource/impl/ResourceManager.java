@@ -17,6 +17,7 @@ package org.onosproject.net.resource.impl;
 
 import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -40,6 +41,7 @@ import org.slf4j.Logger;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -98,6 +100,27 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Map<ResourceConsumer, List<ResourceAllocation>> allocate(
+            Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests) {
+        checkPermission(RESOURCE_WRITE);
+        checkNotNull(requests);
+
+        Map<ResourceConsumer, Boolean> succeeded = store.allocate(requests);
+
+        ImmutableMap.Builder<ResourceConsumer, List<ResourceAllocation>> results = ImmutableMap.builder();
+        requests.forEach((consumer, resources) -> {
+            if (succeeded.getOrDefault(consumer, false)) {
+                results.put(consumer, resources.stream()
+                        .map(x -> new ResourceAllocation(x, consumer))
+                        .collect(Collectors.toList()));
+            } else {
+                results.put(consumer, ImmutableList.of());
+            }
+        });
+        return results.build();
+    }
+
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         checkPermission(RESOURCE_WRITE);
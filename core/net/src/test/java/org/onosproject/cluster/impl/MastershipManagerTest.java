@@ -17,6 +17,7 @@ package org.onosproject.cluster.impl;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import com.google.common.collect.ImmutableList;
@@ -33,6 +34,7 @@ import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.DefaultControllerNode;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.common.event.impl.TestEventDispatcher;
+import org.onosproject.mastership.MastershipEvent;
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.mastership.MastershipStore;
 import org.onosproject.mastership.MastershipTermService;
@@ -319,6 +321,30 @@ public class MastershipManagerTest {
         checkDeviceMasters(deviceIds, expectedMasters);
     }
 
+    @Test
+    public void balanceInBatches() {
+        testClusterService.put(testClusterService.local, ControllerNode.State.ACTIVE);
+        testClusterService.put(CNODE1, ControllerNode.State.ACTIVE);
+        testClusterService.put(CNODE2, ControllerNode.State.ACTIVE);
+        testClusterService.put(CNODE3, ControllerNode.State.ACTIVE);
+
+        Set<DeviceId> deviceIds = Sets.newHashSet();
+        for (int i = 0; i < 300; i++) {
+            DeviceId deviceId = DeviceId.deviceId("of:" + Integer.toHexString(0x100 + i));
+            deviceIds.add(deviceId);
+            mgr.setRole(NID_LOCAL, deviceId, MASTER);
+        }
+        checkDeviceMasters(deviceIds, Sets.newHashSet(NID_LOCAL));
+
+        // 225 devices move, in batches of 100 run by their own threads
+        TestSimpleMastershipStore store = (TestSimpleMastershipStore) mgr.store;
+        store.masterSetters.clear();
+        mgr.balanceRoles();
+        checkDeviceMasters(deviceIds, Sets.newHashSet(NID_LOCAL, NID1, NID2, NID3));
+        assertEquals("wrong devices left:", 75, mgr.getDevicesOf(NID_LOCAL).size());
+        assertEquals("wrong batch count:", 3, store.masterSetters.size());
+    }
+
     private void checkDeviceMasters(Set<DeviceId> deviceIds, Set<NodeId> expectedMasters) {
         checkDeviceMasters(deviceIds, expectedMasters, null);
     }
@@ -367,9 +393,18 @@ public class MastershipManagerTest {
     private final class TestSimpleMastershipStore extends SimpleMastershipStore
             implements MastershipStore {
 
+        // threads that set masters
+        private final Set<Thread> masterSetters = Sets.newConcurrentHashSet();
+
         public TestSimpleMastershipStore(ClusterService clusterService) {
             super.clusterService = clusterService;
         }
+
+        @Override
+        public CompletableFuture<MastershipEvent> setMaster(NodeId nodeId, DeviceId deviceId) {
+            masterSetters.add(Thread.currentThread());
+            return super.setMaster(nodeId, deviceId);
+        }
     }
 
     private class TestRegionManager extends RegionManager {
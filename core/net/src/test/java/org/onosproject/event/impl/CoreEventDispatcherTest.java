@@ -18,16 +18,27 @@ package org.onosproject.event.impl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.EventSink;
+import org.onosproject.event.ListenerRegistry;
+import org.onosproject.net.Device;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestTools.assertAfter;
+import static org.onlab.junit.TestUtils.setField;
+import static org.onosproject.net.NetTestTools.device;
 
 /**
  * Test of the event dispatcher mechanism.
@@ -40,7 +51,7 @@ public class CoreEventDispatcherTest {
 
     @Before
     public void setUp() {
-        dispatcher.activate();
+        dispatcher.activate(null);
         dispatcher.addSink(Prickle.class, prickleSink);
         dispatcher.addSink(Goo.class, gooSink);
     }
@@ -88,6 +99,71 @@ public class CoreEventDispatcherTest {
         assertTrue(takesTooLong.interrupted);
     }
 
+    @Test
+    public void postShardedEvents() throws Exception {
+        CoreEventDispatcher sharded = new CoreEventDispatcher();
+        setField(sharded, "dispatchShards", 4);
+        sharded.metricsService = new MetricsManager();
+        sharded.activate(null);
+
+        int devices = 8;
+        int eventsPerDevice = 50;
+        CountDownLatch latch = new CountDownLatch(2 * devices * eventsPerDevice);
+        SerialListener first = new SerialListener(latch);
+        SerialListener second = new SerialListener(latch);
+        ListenerRegistry<DeviceEvent, DeviceListener> registry = new ListenerRegistry<>();
+        registry.addListener(first);
+        registry.addListener(second);
+        sharded.addSink(DeviceEvent.class, registry);
+
+        List<DeviceEvent> posted = new ArrayList<>();
+        for (int i = 0; i < eventsPerDevice; i++) {
+            for (int d = 0; d < devices; d++) {
+                Device device = device("of:" + d);
+                DeviceEvent event = new DeviceEvent(DeviceEvent.Type.DEVICE_UPDATED, device);
+                posted.add(event);
+                sharded.post(event);
+            }
+        }
+
+        try {
+            assertTrue("events not dispatched", latch.await(5, TimeUnit.SECONDS));
+            assertEquals("events out of order", posted, first.received);
+            assertEquals("events out of order", posted, second.received);
+            assertFalse("listener invoked concurrently", first.overlapped || second.overlapped);
+            // the latency of an event is recorded once its listener returns
+            assertAfter(1000, () -> assertEquals("incorrect listener latency count",
+                                                 2 * devices * eventsPerDevice,
+                                                 sharded.listenerLatency(SerialListener.class).getCount()));
+        } finally {
+            sharded.removeSink(DeviceEvent.class);
+            sharded.deactivate();
+        }
+    }
+
+    // Listener recording its events and whether it was ever invoked concurrently
+    private static class SerialListener implements DeviceListener {
+        private final List<DeviceEvent> received = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private final CountDownLatch latch;
+        private volatile boolean overlapped;
+
+        SerialListener(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void event(DeviceEvent event) {
+            if (!busy.compareAndSet(false, true)) {
+                overlapped = true;
+            }
+            received.add(event);
+            Thread.yield();
+            busy.set(false);
+            latch.countDown();
+        }
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleBatchEntry;
+import org.onosproject.net.flow.FlowRuleBatchOperation;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.onlab.junit.TestTools.assertAfter;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the device batch windows.
+ */
+public class DeviceBatchWindowsTest {
+
+    private static final DeviceId DID = did("device1");
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final List<Long> installed = Lists.newCopyOnWriteArrayList();
+
+    @After
+    public void tearDown() {
+        timer.shutdownNow();
+    }
+
+    private DeviceBatchWindows windows(int windowSize, int maxOpsPerSecond) {
+        return new DeviceBatchWindows(batch -> installed.add(batch.id()), timer,
+                                      windowSize, maxOpsPerSecond);
+    }
+
+    private static FlowRule rule(int port) {
+        return DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(PortNumber.portNumber(port))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(10)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build();
+    }
+
+    private static FlowRuleBatchOperation batch(long id, int... ports) {
+        List<FlowRuleBatchEntry> entries = IntStream.of(ports)
+                .mapToObj(port -> new FlowRuleBatchEntry(FlowRuleBatchEntry.FlowRuleOperation.ADD,
+                                                         rule(port)))
+                .collect(Collectors.toList());
+        return new FlowRuleBatchOperation(entries, DID, id);
+    }
+
+    @Test
+    public void windowSize() {
+        DeviceBatchWindows windows = windows(2, 0);
+        windows.submit(batch(1, 1));
+        windows.submit(batch(2, 2));
+        windows.submit(batch(3, 3));
+        assertEquals(ImmutableList.of(1L, 2L), installed);
+        assertEquals(2, windows.inFlight(DID));
+
+        windows.completed(DID, 2);
+        assertEquals(ImmutableList.of(1L, 2L, 3L), installed);
+
+        windows.completed(DID, 1);
+        windows.completed(DID, 3);
+        assertEquals(0, windows.inFlight(DID));
+    }
+
+    @Test
+    public void dependentBatches() {
+        DeviceBatchWindows windows = windows(4, 0);
+        windows.submit(batch(1, 1, 2));
+        windows.submit(batch(2, 2));
+        windows.submit(batch(3, 3));
+        windows.submit(batch(4, 2, 4));
+        assertEquals(ImmutableList.of(1L, 3L), installed);
+
+        windows.completed(DID, 1);
+        assertEquals(ImmutableList.of(1L, 3L, 2L), installed);
+
+        windows.completed(DID, 2);
+        assertEquals(ImmutableList.of(1L, 3L, 2L, 4L), installed);
+    }
+
+    @Test
+    public void removedDevice() {
+        DeviceBatchWindows windows = windows(1, 0);
+        windows.submit(batch(1, 1));
+        windows.submit(batch(2, 2));
+        assertEquals(ImmutableList.of(1L), installed);
+
+        // queued batches go to the installer, to be failed there
+        windows.remove(DID);
+        assertEquals(ImmutableList.of(1L, 2L), installed);
+        assertEquals(0, windows.inFlight(DID));
+
+        windows.completed(DID, 1);
+        windows.submit(batch(3, 3));
+        assertEquals(ImmutableList.of(1L, 2L, 3L), installed);
+    }
+
+    @Test
+    public void installOutsideLock() {
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        List<Integer> seenInFlight = Lists.newCopyOnWriteArrayList();
+        DeviceBatchWindows[] windows = new DeviceBatchWindows[1];
+        windows[0] = new DeviceBatchWindows(batch -> {
+            // times out if the window is locked while installing
+            try {
+                seenInFlight.add(other.submit(() -> windows[0].inFlight(DID)).get(1, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                throw new AssertionError("window locked while installing", e);
+            }
+            installed.add(batch.id());
+        }, timer, 2, 0);
+        windows[0].submit(batch(1, 1));
+        windows[0].submit(batch(2, 2));
+        other.shutdownNow();
+        assertEquals(ImmutableList.of(1L, 2L), installed);
+        assertEquals(ImmutableList.of(1, 2), seenInFlight);
+    }
+
+    @Test
+    public void rateLimit() {
+        DeviceBatchWindows windows = windows(4, 10);
+        windows.submit(batch(1, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        windows.submit(batch(2, 11));
+        assertEquals(ImmutableList.of(1L), installed);
+
+        assertAfter(2000, () -> assertEquals(ImmutableList.of(1L, 2L), installed));
+    }
+}
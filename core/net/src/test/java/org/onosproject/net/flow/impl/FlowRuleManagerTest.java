@@ -25,6 +25,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onlab.junit.TestTools;
+import org.onlab.junit.TestUtils;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.ApplicationId;
@@ -39,6 +40,7 @@ import org.onosproject.net.Device;
 import org.onosproject.net.Device.Type;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.MastershipRole;
+import org.onosproject.net.PortNumber;
 import org.onosproject.net.device.DeviceServiceAdapter;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
 import org.onosproject.net.driver.DefaultDriver;
@@ -48,12 +50,14 @@ import org.onosproject.net.driver.impl.DriverRegistryManager;
 import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.FlowEntry.FlowEntryState;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleBatchOperation;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.flow.FlowRuleListener;
+import org.onosproject.net.flow.FlowRuleOperations;
 import org.onosproject.net.flow.FlowRuleProgrammable;
 import org.onosproject.net.flow.FlowRuleProvider;
 import org.onosproject.net.flow.FlowRuleProviderRegistry;
@@ -178,6 +182,19 @@ public class FlowRuleManagerTest {
                 .build();
     }
 
+    private FlowRule inPortRule(int port) {
+        return DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(PortNumber.portNumber(port))
+                                      .build())
+                .withTreatment(new TestTreatment(port))
+                .withPriority(10)
+                .fromApp(appId)
+                .makeTemporary(TIMEOUT)
+                .build();
+    }
+
     private FlowRule addFlowRule(int hval) {
         FlowRule rule = flowRule(hval, hval);
         service.applyFlowRules(rule);
@@ -410,6 +427,66 @@ public class FlowRuleManagerTest {
 
     }
 
+    /*
+     * Tests that pipelined install does not wait for the other operations,
+     * but that a stage waits for the earlier stages on the same device.
+     */
+    @Test
+    public void pipelinedInstall() throws TestUtils.TestUtilsException {
+        TestUtils.setField(mgr, "pipelinedInstall", true);
+        // rules with distinct flow identifiers
+        FlowRule f1 = inPortRule(1);
+        FlowRule f2 = inPortRule(2);
+        FlowRule f3 = inPortRule(3);
+
+        mgr.apply(FlowRuleOperations.builder()
+                          .add(f1)
+                          .newStage()
+                          .add(f2)
+                          .build());
+        mgr.apply(FlowRuleOperations.builder()
+                          .add(f3)
+                          .build());
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED);
+        assertEquals("wrong batches sent", 2, provider.batches.size());
+
+        // the test store does not carry the batch identifiers over to the provider
+        Map<Long, ?> pending = TestUtils.getField(mgr, "pendingFlowOperations");
+        providerService.batchOperationCompleted(Collections.min(pending.keySet()),
+                new CompletedBatchOperation(true, Collections.emptySet(), DID));
+        validateEvents(RULE_ADD_REQUESTED);
+        assertEquals("wrong rule sent", f2, provider.batches.get(2).getOperations().get(0).target());
+    }
+
+    /*
+     * Tests that flow entries pushed in parts are only detected as missing
+     * once the last part of the polling round has been pushed.
+     */
+    @Test
+    public void flowMetricsParts() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        FlowRule f3 = flowRule(3, 3);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+        mgr.applyFlowRules(f1, f2, f3);
+
+        mgr.removeFlowRules(f3);
+
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe1), true, false);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_REMOVE_REQUESTED, RULE_ADDED);
+
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe2), false, true);
+        validateEvents(RULE_ADDED, RULE_REMOVED);
+
+        assertTrue("Entries should be added.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.ADDED)));
+    }
+
     @Test
     public void getByAppId() {
         FlowRule f1 = flowRule(1, 1);
@@ -514,6 +591,9 @@ public class FlowRuleManagerTest {
 
     private class TestProvider extends AbstractProvider implements FlowRuleProvider {
 
+        // batches to execute, in order
+        private final List<FlowRuleBatchOperation> batches = Lists.newArrayList();
+
         protected TestProvider(ProviderId id) {
             super(PID);
         }
@@ -533,6 +613,7 @@ public class FlowRuleManagerTest {
         @Override
         public void executeBatch(FlowRuleBatchOperation batch) {
             // TODO: need to call batchOperationComplete
+            batches.add(batch);
         }
 
         private class TestInstallationFuture
@@ -18,14 +18,20 @@ package org.onosproject.net.packet.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.TpPort;
+import org.onlab.packet.UDP;
 import org.onosproject.cluster.ClusterServiceAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.CoreServiceAdapter;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.TestListener;
 import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.DefaultDevice;
 import org.onosproject.net.Device;
@@ -36,17 +42,28 @@ import org.onosproject.net.driver.DefaultDriver;
 import org.onosproject.net.driver.DriverRegistry;
 import org.onosproject.net.driver.impl.DriverManager;
 import org.onosproject.net.driver.impl.DriverRegistryManager;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.packet.DefaultInboundPacket;
 import org.onosproject.net.packet.DefaultOutboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
 import org.onosproject.net.packet.OutboundPacket;
+import org.onosproject.net.packet.PacketContext;
+import org.onosproject.net.packet.PacketProcessor;
+import org.onosproject.net.packet.PacketProcessorEntry;
 import org.onosproject.net.packet.PacketProgrammable;
+import org.onosproject.net.packet.PacketProvider;
 import org.onosproject.net.packet.PacketProviderRegistry;
+import org.onosproject.net.packet.PacketProviderService;
+import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.net.provider.TestProvider;
 import org.onosproject.store.trivial.SimplePacketStore;
 
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.onosproject.net.NetTestTools.injectEventDispatcher;
@@ -106,6 +123,83 @@ public class PacketManagerTest {
         assertEquals("Packet not emitted correctly", packet, emittedPacket);
     }
 
+    /**
+     * Tests that packets are only handed to the processors whose filters
+     * accept them, and to the processors without filters.
+     */
+    @Test
+    public void filteredProcessors() {
+        CountingProcessor all = new CountingProcessor();
+        CountingProcessor lldp = new CountingProcessor();
+        CountingProcessor dhcp = new CountingProcessor();
+        mgr.addProcessor(all, PacketProcessor.director(0));
+        mgr.addProcessor(lldp, PacketProcessor.advisor(0),
+                         ImmutableSet.of(DefaultTrafficSelector.builder()
+                                                 .matchEthType(Ethernet.TYPE_LLDP).build()));
+        mgr.addProcessor(dhcp, PacketProcessor.director(1),
+                         ImmutableSet.of(DefaultTrafficSelector.builder()
+                                                 .matchEthType(Ethernet.TYPE_IPV4)
+                                                 .matchIPProtocol(IPv4.PROTOCOL_UDP)
+                                                 .matchUdpDst(TpPort.tpPort(UDP.DHCP_SERVER_PORT))
+                                                 .build()));
+
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+        providerService.processPacket(context(new Ethernet().setEtherType(Ethernet.TYPE_ARP)));
+        providerService.processPacket(context(new Ethernet().setEtherType(Ethernet.TYPE_LLDP)));
+        providerService.processPacket(context(udp(UDP.DHCP_SERVER_PORT)));
+        providerService.processPacket(context(udp(UDP.DHCP_CLIENT_PORT)));
+
+        assertEquals("wrong unfiltered invocations", 4, all.count);
+        assertEquals("wrong LLDP invocations", 1, lldp.count);
+        assertEquals("wrong DHCP invocations", 1, dhcp.count);
+        assertEquals("wrong recorded invocations", ImmutableList.of(1L, 4L, 1L),
+                     mgr.getProcessors().stream()
+                             .map(PacketProcessorEntry::invocations)
+                             .collect(Collectors.toList()));
+
+        mgr.removeProcessor(lldp);
+        providerService.processPacket(context(new Ethernet().setEtherType(Ethernet.TYPE_LLDP)));
+        assertEquals("wrong unfiltered invocations", 5, all.count);
+        assertEquals("wrong LLDP invocations", 1, lldp.count);
+    }
+
+    private static Ethernet udp(int dstPort) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_IPV4);
+        eth.setPayload(new IPv4().setProtocol(IPv4.PROTOCOL_UDP)
+                               .setPayload(new UDP().setDestinationPort(dstPort)));
+        return eth;
+    }
+
+    private static PacketContext context(Ethernet eth) {
+        return new DefaultPacketContext(0, new DefaultInboundPacket(new ConnectPoint(FOO_DID, PortNumber.P0),
+                                                                    eth, ByteBuffer.allocate(0)),
+                                        null, false) {
+            @Override
+            public void send() {
+            }
+        };
+    }
+
+    private static class CountingProcessor implements PacketProcessor {
+        private int count;
+
+        @Override
+        public void process(PacketContext context) {
+            count++;
+        }
+    }
+
+    private static class TestPacketProvider extends AbstractProvider implements PacketProvider {
+        TestPacketProvider() {
+            super(new ProviderId("of", "foo"));
+        }
+
+        @Override
+        public void emit(OutboundPacket packet) {
+        }
+    }
+
     private static class TestDeviceService extends DeviceServiceAdapter {
         @Override
         public int getDeviceCount() {
@@ -16,6 +16,7 @@
 package org.onosproject.store.cluster.messaging.impl;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Utf8;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
@@ -38,6 +39,9 @@ public class MessageEncoder extends MessageToByteEncoder<Object> {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    // preamble, time, id, address version, port, type length, status, payload length
+    private static final int FIXED_HEADER_LENGTH = 4 + 8 + 8 + 8 + 1 + 4 + 4 + 4 + 4;
+
     private final int preamble;
 
     public MessageEncoder(int preamble) {
@@ -46,6 +50,28 @@ public class MessageEncoder extends MessageToByteEncoder<Object> {
     }
 
 
+    /**
+     * Returns the number of bytes the given message takes once encoded.
+     *
+     * @param message message
+     * @return encoded length in bytes
+     */
+    static int encodedLength(InternalMessage message) {
+        int ipLength = message.sender().host().version() == Version.INET
+                ? IpAddress.INET_BYTE_LENGTH : IpAddress.INET6_BYTE_LENGTH;
+        return FIXED_HEADER_LENGTH + ipLength
+                + Utf8.encodedLength(message.type())
+                + message.payload().length;
+    }
+
+    // Encode into a pooled direct buffer sized to fit the message, so that
+    // the buffer is never resized and copied while encoding
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext context, Object rawMessage,
+                                     boolean preferDirect) throws Exception {
+        return context.alloc().ioBuffer(encodedLength((InternalMessage) rawMessage));
+    }
+
     @Override
     protected void encode(
             ChannelHandlerContext context,
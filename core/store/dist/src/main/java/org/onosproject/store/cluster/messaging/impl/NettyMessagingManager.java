@@ -15,6 +15,9 @@
  */
 package org.onosproject.store.cluster.messaging.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.UniformReservoir;
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -27,6 +30,7 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
@@ -47,9 +51,14 @@ import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onosproject.cluster.ClusterMetadataService;
 import org.onosproject.cluster.ControllerNode;
@@ -58,6 +67,7 @@ import org.onosproject.store.cluster.messaging.Endpoint;
 import org.onosproject.store.cluster.messaging.MessagingException;
 import org.onosproject.store.cluster.messaging.MessagingService;
 import org.onosproject.store.cluster.messaging.impl.InternalMessage.Status;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +79,7 @@ import javax.net.ssl.TrustManagerFactory;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.security.KeyStore;
+import java.util.Dictionary;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -78,11 +89,14 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.CLUSTER_WRITE;
@@ -101,9 +115,36 @@ public class NettyMessagingManager implements MessagingService {
 
     private static final String REPLY_MESSAGE_TYPE = "NETTY_MESSAGING_REQUEST_REPLY";
 
+    private static final boolean DEFAULT_WRITE_BATCHING_ENABLED = false;
+    private static final int DEFAULT_WRITE_BATCH_WINDOW_MICROS = 200;
+    private static final int DEFAULT_WRITE_BATCH_MAX_BYTES = 64 * 1024;
+
+    private static final String METRICS_COMPONENT = "NettyMessaging";
+    private static final String MESSAGES_PER_FLUSH = "messagesPerFlush";
+    private static final String QUEUE_DEPTH = "queueDepth";
+
+    @Property(name = "writeBatchingEnabled", boolValue = DEFAULT_WRITE_BATCHING_ENABLED,
+            label = "Coalesce outbound messages on each connection and flush them together")
+    private volatile boolean writeBatchingEnabled = DEFAULT_WRITE_BATCHING_ENABLED;
+
+    @Property(name = "writeBatchWindowMicros", intValue = DEFAULT_WRITE_BATCH_WINDOW_MICROS,
+            label = "Max time in microseconds an outbound message waits for a flush when batching")
+    private volatile int writeBatchWindowMicros = DEFAULT_WRITE_BATCH_WINDOW_MICROS;
+
+    @Property(name = "writeBatchMaxBytes", intValue = DEFAULT_WRITE_BATCH_MAX_BYTES,
+            label = "Number of pending outbound bytes that triggers an immediate flush when batching")
+    private volatile int writeBatchMaxBytes = DEFAULT_WRITE_BATCH_MAX_BYTES;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected HybridLogicalClockService clockService;
 
+    // the outbound writes are only measured when a metrics service is available
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
+    private MetricsComponent metricsComponent;
+    private final Map<Endpoint, OutboundMetrics> outboundMetrics = new ConcurrentHashMap<>();
+
     private Endpoint localEp;
     private int preamble;
     private final AtomicBoolean started = new AtomicBoolean(false);
@@ -141,9 +182,10 @@ public class NettyMessagingManager implements MessagingService {
     protected ClusterMetadataService clusterMetadataService;
 
     @Activate
-    public void activate() throws Exception {
+    public void activate(ComponentContext context) throws Exception {
         ControllerNode localNode = clusterMetadataService.getLocalNode();
         getTlsParameters();
+        modified(context);
 
         if (started.get()) {
             log.warn("Already running at local endpoint: {}", localEp);
@@ -156,6 +198,9 @@ public class NettyMessagingManager implements MessagingService {
         channels.setTestOnReturn(true);
         channels.setMinEvictableIdleTimeMillis(60_000L);
         channels.setTimeBetweenEvictionRunsMillis(30_000L);
+        if (metricsService != null) {
+            metricsComponent = metricsService.registerComponent(METRICS_COMPONENT);
+        }
         initEventLoopGroup();
         startAcceptingConnections();
         started.set(true);
@@ -171,9 +216,35 @@ public class NettyMessagingManager implements MessagingService {
             clientGroup.shutdownGracefully();
             started.set(false);
         }
+        outboundMetrics.values().forEach(OutboundMetrics::remove);
+        outboundMetrics.clear();
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        try {
+            String s = get(properties, "writeBatchingEnabled");
+            writeBatchingEnabled = isNullOrEmpty(s) ? writeBatchingEnabled : Boolean.parseBoolean(s.trim());
+
+            s = get(properties, "writeBatchWindowMicros");
+            writeBatchWindowMicros = isNullOrEmpty(s) ? writeBatchWindowMicros : Integer.parseInt(s.trim());
+
+            s = get(properties, "writeBatchMaxBytes");
+            writeBatchMaxBytes = isNullOrEmpty(s) ? writeBatchMaxBytes : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            writeBatchingEnabled = DEFAULT_WRITE_BATCHING_ENABLED;
+            writeBatchWindowMicros = DEFAULT_WRITE_BATCH_WINDOW_MICROS;
+            writeBatchMaxBytes = DEFAULT_WRITE_BATCH_MAX_BYTES;
+        }
+        log.info("Settings: writeBatchingEnabled={}, writeBatchWindowMicros={}, writeBatchMaxBytes={}",
+                 writeBatchingEnabled, writeBatchWindowMicros, writeBatchMaxBytes);
+    }
+
     private void getTlsParameters() {
         String tempString = System.getProperty("enableNettyTLS");
         enableNettyTls = Strings.isNullOrEmpty(tempString) ? TLS_DISABLED : Boolean.parseBoolean(tempString);
@@ -366,6 +437,7 @@ public class NettyMessagingManager implements MessagingService {
             log.debug("Closing connection {} to {}", connection, ep);
             //Is this the right way to destroy?
             connection.destroy();
+            releaseOutboundMetrics(ep);
         }
 
         @Override
@@ -398,7 +470,7 @@ public class NettyMessagingManager implements MessagingService {
                 }
             });
             log.debug("Established a new connection to {}", ep);
-            return new Connection(retFuture);
+            return new Connection(retFuture, acquireOutboundMetrics(ep));
         }
 
         @Override
@@ -602,11 +674,93 @@ public class NettyMessagingManager implements MessagingService {
             executor.execute(() -> future.completeExceptionally(error));
         }
     }
+    // Returns the metrics of an endpoint for a new connection to it
+    private OutboundMetrics acquireOutboundMetrics(Endpoint ep) {
+        return outboundMetrics.compute(ep, (k, metrics) -> {
+            OutboundMetrics acquired = metrics == null ? new OutboundMetrics(ep) : metrics;
+            acquired.connections++;
+            return acquired;
+        });
+    }
+
+    // Removes the metrics of an endpoint once its last connection is closed
+    private void releaseOutboundMetrics(Endpoint ep) {
+        outboundMetrics.computeIfPresent(ep, (k, metrics) -> {
+            if (--metrics.connections > 0) {
+                return metrics;
+            }
+            metrics.remove();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of messages written in each flush to the given
+     * endpoint while write batching is enabled.
+     *
+     * @param ep endpoint
+     * @return histogram of messages per flush, or null if not connected
+     */
+    Histogram messagesPerFlush(Endpoint ep) {
+        OutboundMetrics metrics = outboundMetrics.get(ep);
+        return metrics == null ? null : metrics.messagesPerFlush;
+    }
+
+    /**
+     * Returns the number of messages to the given endpoint that are queued
+     * and not yet flushed.
+     *
+     * @param ep endpoint
+     * @return outbound queue depth
+     */
+    int queueDepth(Endpoint ep) {
+        OutboundMetrics metrics = outboundMetrics.get(ep);
+        return metrics == null ? 0 : metrics.queueDepth.get();
+    }
+
+    /**
+     * Outbound write metrics of a single endpoint, shared by all of its
+     * connections and registered while it has any.
+     */
+    private final class OutboundMetrics {
+        private final MetricsFeature feature;
+        private final Histogram messagesPerFlush;
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        // guarded by the entry of the endpoint in outboundMetrics
+        private int connections;
+
+        private OutboundMetrics(Endpoint ep) {
+            if (metricsComponent != null) {
+                feature = metricsComponent.registerFeature(ep.toString());
+                messagesPerFlush = metricsService.createHistogram(metricsComponent, feature, MESSAGES_PER_FLUSH);
+                metricsService.registerMetric(metricsComponent, feature, QUEUE_DEPTH,
+                                              (Gauge<Integer>) queueDepth::get);
+            } else {
+                feature = null;
+                messagesPerFlush = new Histogram(new UniformReservoir());
+            }
+        }
+
+        private void remove() {
+            if (feature != null) {
+                metricsService.removeMetric(metricsComponent, feature, MESSAGES_PER_FLUSH);
+                metricsService.removeMetric(metricsComponent, feature, QUEUE_DEPTH);
+            }
+        }
+    }
+
     private final class Connection {
         private final CompletableFuture<Channel> internalFuture;
+        private final OutboundMetrics metrics;
+
+        // write batching state; only accessed from the channel's event loop
+        private int pendingMessages;
+        private int pendingBytes;
+        private boolean flushScheduled;
 
-        public Connection(CompletableFuture<Channel> internalFuture) {
+        public Connection(CompletableFuture<Channel> internalFuture, OutboundMetrics metrics) {
             this.internalFuture = internalFuture;
+            this.metrics = metrics;
         }
 
         /**
@@ -616,22 +770,60 @@ public class NettyMessagingManager implements MessagingService {
          * @param future a future that is completed normally or exceptionally if
          *               message sending succeeds or fails respectively
          */
-        public void send(Object message, CompletableFuture<Void> future) {
+        public void send(InternalMessage message, CompletableFuture<Void> future) {
             internalFuture.whenComplete((channel, throwable) -> {
                 if (throwable == null) {
-                    channel.writeAndFlush(message).addListener(channelFuture -> {
+                    ChannelFutureListener listener = channelFuture -> {
                         if (!channelFuture.isSuccess()) {
                             future.completeExceptionally(channelFuture.cause());
                         } else {
                             future.complete(null);
                         }
-                    });
+                    };
+                    if (writeBatchingEnabled) {
+                        write(channel, message, listener);
+                    } else {
+                        channel.writeAndFlush(message).addListener(listener);
+                    }
                 } else {
                     future.completeExceptionally(throwable);
                 }
             });
         }
 
+        /**
+         * Writes a message without flushing it. The channel is flushed once
+         * the pending messages exceed the byte budget or the batch window
+         * expires, whichever comes first.
+         */
+        private void write(Channel channel, InternalMessage message, ChannelFutureListener listener) {
+            metrics.queueDepth.incrementAndGet();
+            channel.eventLoop().execute(() -> {
+                channel.write(message).addListener(listener);
+                pendingMessages++;
+                pendingBytes += MessageEncoder.encodedLength(message);
+                if (pendingBytes >= writeBatchMaxBytes) {
+                    flush(channel);
+                } else if (!flushScheduled) {
+                    flushScheduled = true;
+                    channel.eventLoop().schedule(() -> flush(channel),
+                                                 writeBatchWindowMicros, TimeUnit.MICROSECONDS);
+                }
+            });
+        }
+
+        private void flush(Channel channel) {
+            flushScheduled = false;
+            if (pendingMessages == 0) {
+                return;
+            }
+            metrics.messagesPerFlush.update(pendingMessages);
+            metrics.queueDepth.addAndGet(-pendingMessages);
+            pendingMessages = 0;
+            pendingBytes = 0;
+            channel.flush();
+        }
+
         /**
          * Destroys a channel by closing its channel (if it exists) and
          * cancelling its future.
@@ -58,6 +58,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.onosproject.net.config.NetworkConfigEvent.Type.CONFIG_ADDED;
@@ -77,6 +78,9 @@ public class DistributedNetworkConfigStore
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private static final long CONFIG_CACHE_TTL_MINUTES = 10;
+    private static final long CONFIG_CACHE_SIZE = 10000;
+
     private static final String INVALID_CONFIG_JSON =
             "JSON node does not contain valid configuration";
     private static final String INVALID_JSON_LIST =
@@ -107,7 +111,7 @@ public class DistributedNetworkConfigStore
         configs = storageService.<ConfigKey, JsonNode>consistentMapBuilder()
                 .withSerializer(Serializer.using(kryoBuilder.build()))
                 .withName("onos-network-configs")
-                .withRelaxedReadConsistency()
+                .withNearCache(CONFIG_CACHE_TTL_MINUTES, TimeUnit.MINUTES, CONFIG_CACHE_SIZE)
                 .build();
         configs.addListener(listener);
         log.info("Started");
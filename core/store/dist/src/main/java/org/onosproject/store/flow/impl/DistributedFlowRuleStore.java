@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.flow.impl;
 
+ import java.util.Collection;
  import java.util.Collections;
  import java.util.Dictionary;
  import java.util.HashSet;
@@ -22,13 +23,17 @@ package org.onosproject.store.flow.impl;
  import java.util.Map;
  import java.util.Objects;
  import java.util.Set;
+ import java.util.concurrent.CompletableFuture;
  import java.util.concurrent.ExecutorService;
  import java.util.concurrent.Executors;
  import java.util.concurrent.ScheduledExecutorService;
  import java.util.concurrent.ScheduledFuture;
  import java.util.concurrent.TimeUnit;
  import java.util.concurrent.atomic.AtomicInteger;
+ import java.util.concurrent.atomic.AtomicLong;
  import java.util.concurrent.atomic.AtomicReference;
+ import java.util.function.Function;
+ import java.util.function.Predicate;
  import java.util.stream.Collectors;
 
  import org.apache.felix.scr.annotations.Activate;
@@ -43,7 +48,9 @@ package org.onosproject.store.flow.impl;
  import org.onlab.util.Tools;
  import org.onosproject.cfg.ComponentConfigService;
  import org.onosproject.cluster.ClusterService;
+ import org.onosproject.cluster.ControllerNode;
  import org.onosproject.cluster.NodeId;
+ import org.onosproject.core.ApplicationId;
  import org.onosproject.core.CoreService;
  import org.onosproject.core.IdGenerator;
  import org.onosproject.mastership.MastershipService;
@@ -72,6 +79,7 @@ package org.onosproject.store.flow.impl;
  import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
  import org.onosproject.store.cluster.messaging.ClusterMessage;
  import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
+ import org.onosproject.store.cluster.messaging.MessageSubject;
  import org.onosproject.store.flow.ReplicaInfoEvent;
  import org.onosproject.store.flow.ReplicaInfoEventListener;
  import org.onosproject.store.flow.ReplicaInfoService;
@@ -88,6 +96,7 @@ package org.onosproject.store.flow.impl;
 
  import com.google.common.collect.ImmutableList;
  import com.google.common.collect.Iterables;
+ import com.google.common.collect.Lists;
  import com.google.common.collect.Maps;
  import com.google.common.collect.Sets;
  import com.google.common.util.concurrent.Futures;
@@ -99,8 +108,10 @@ package org.onosproject.store.flow.impl;
  import static org.onosproject.store.flow.ReplicaInfoEvent.Type.MASTER_CHANGED;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.APPLY_BATCH_FLOWS;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.FLOW_TABLE_BACKUP;
+ import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_APP_FLOW_ENTRIES;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_DEVICE_FLOW_ENTRIES;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_FLOW_ENTRY;
+ import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.GET_GROUP_FLOW_ENTRIES;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.REMOTE_APPLY_COMPLETED;
  import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.REMOVE_FLOW_ENTRY;
  import static org.slf4j.LoggerFactory.getLogger;
@@ -123,6 +134,8 @@ public class DistributedFlowRuleStore
     private static final long FLOW_RULE_STORE_TIMEOUT_MILLIS = 5000;
     // number of devices whose flow entries will be backed up in one communication round
     private static final int FLOW_TABLE_BACKUP_BATCH_SIZE = 1;
+    // number of devices whose flow table deltas will be backed up in one communication round
+    private static final int FLOW_TABLE_DELTA_BACKUP_BATCH_SIZE = 64;
 
     @Property(name = "msgHandlerPoolSize", intValue = MESSAGE_HANDLER_THREAD_POOL_SIZE,
             label = "Number of threads in the message handler pool")
@@ -139,6 +152,11 @@ public class DistributedFlowRuleStore
             label = "Max number of backup copies for each device")
     private volatile int backupCount = DEFAULT_MAX_BACKUP_COUNT;
 
+    @Property(name = "offHeapFlowTables", boolValue = false,
+            label = "Indicates whether flow tables created from now on keep their " +
+                    "entries serialized outside of the Java heap")
+    private volatile boolean offHeapFlowTables = false;
+
     private InternalFlowTable flowTable = new InternalFlowTable();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -180,7 +198,10 @@ public class DistributedFlowRuleStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected StorageService storageService;
 
-    protected final Serializer serializer = Serializer.using(KryoNamespaces.API);
+    protected final Serializer serializer = Serializer.using(KryoNamespaces.API, FlowTableBackup.class);
+
+    private final AtomicLong fullBackupBytes = new AtomicLong();
+    private final AtomicLong deltaBackupBytes = new AtomicLong();
 
     protected final KryoNamespace.Builder serializerBuilder = KryoNamespace.newBuilder()
             .register(KryoNamespaces.API)
@@ -250,6 +271,7 @@ public class DistributedFlowRuleStore
         int newPoolSize;
         int newBackupPeriod;
         int newBackupCount;
+        boolean newOffHeapFlowTables;
         try {
             String s = get(properties, "msgHandlerPoolSize");
             newPoolSize = isNullOrEmpty(s) ? msgHandlerPoolSize : Integer.parseInt(s.trim());
@@ -259,10 +281,14 @@ public class DistributedFlowRuleStore
 
             s = get(properties, "backupCount");
             newBackupCount = isNullOrEmpty(s) ? backupCount : Integer.parseInt(s.trim());
+
+            s = get(properties, "offHeapFlowTables");
+            newOffHeapFlowTables = isNullOrEmpty(s) ? offHeapFlowTables : Boolean.parseBoolean(s.trim());
         } catch (NumberFormatException | ClassCastException e) {
             newPoolSize = MESSAGE_HANDLER_THREAD_POOL_SIZE;
             newBackupPeriod = DEFAULT_BACKUP_PERIOD_MILLIS;
             newBackupCount = DEFAULT_MAX_BACKUP_COUNT;
+            newOffHeapFlowTables = false;
         }
 
         boolean restartBackupTask = false;
@@ -295,6 +321,7 @@ public class DistributedFlowRuleStore
         if (backupCount != newBackupCount) {
             backupCount = newBackupCount;
         }
+        offHeapFlowTables = newOffHeapFlowTables;
         logConfig("Reconfigured");
     }
 
@@ -307,6 +334,12 @@ public class DistributedFlowRuleStore
                 GET_FLOW_ENTRY, serializer::decode, flowTable::getFlowEntry, serializer::encode, executor);
         clusterCommunicator.addSubscriber(
                 GET_DEVICE_FLOW_ENTRIES, serializer::decode, flowTable::getFlowEntries, serializer::encode, executor);
+        clusterCommunicator.addSubscriber(
+                GET_APP_FLOW_ENTRIES, serializer::decode, flowTable::getLocalFlowEntriesByAppId,
+                serializer::encode, executor);
+        clusterCommunicator.addSubscriber(
+                GET_GROUP_FLOW_ENTRIES, serializer::decode, flowTable::getLocalFlowEntriesByGroupKey,
+                serializer::encode, executor);
         clusterCommunicator.addSubscriber(
                 REMOVE_FLOW_ENTRY, serializer::decode, this::removeFlowRuleInternal, serializer::encode, executor);
         clusterCommunicator.addSubscriber(
@@ -317,14 +350,35 @@ public class DistributedFlowRuleStore
         clusterCommunicator.removeSubscriber(REMOVE_FLOW_ENTRY);
         clusterCommunicator.removeSubscriber(GET_DEVICE_FLOW_ENTRIES);
         clusterCommunicator.removeSubscriber(GET_FLOW_ENTRY);
+        clusterCommunicator.removeSubscriber(GET_APP_FLOW_ENTRIES);
+        clusterCommunicator.removeSubscriber(GET_GROUP_FLOW_ENTRIES);
         clusterCommunicator.removeSubscriber(APPLY_BATCH_FLOWS);
         clusterCommunicator.removeSubscriber(REMOTE_APPLY_COMPLETED);
         clusterCommunicator.removeSubscriber(FLOW_TABLE_BACKUP);
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with msgHandlerPoolSize = {}; backupPeriod = {}, backupCount = {}",
-                 prefix, msgHandlerPoolSize, backupPeriod, backupCount);
+        log.info("{} with msgHandlerPoolSize = {}; backupPeriod = {}, backupCount = {}, " +
+                         "offHeapFlowTables = {}",
+                 prefix, msgHandlerPoolSize, backupPeriod, backupCount, offHeapFlowTables);
+    }
+
+    /**
+     * Returns the number of bytes sent so far in full flow table backups.
+     *
+     * @return number of bytes
+     */
+    long fullBackupBytes() {
+        return fullBackupBytes.get();
+    }
+
+    /**
+     * Returns the number of bytes sent so far in delta flow table backups.
+     *
+     * @return number of bytes
+     */
+    long deltaBackupBytes() {
+        return deltaBackupBytes.get();
     }
 
     // This is not a efficient operation on a distributed sharded
@@ -389,6 +443,46 @@ public class DistributedFlowRuleStore
                                Collections.emptyList());
     }
 
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByAppId(ApplicationId appId) {
+        return getFlowEntriesFromAllNodes(appId.id(),
+                                          GET_APP_FLOW_ENTRIES,
+                                          flowTable::getLocalFlowEntriesByAppId);
+    }
+
+    @Override
+    public Iterable<FlowEntry> getFlowEntriesByGroupId(ApplicationId appId, short groupId) {
+        long groupKey = ((long) appId.id() << 16) | groupId;
+        return getFlowEntriesFromAllNodes(groupKey,
+                                          GET_GROUP_FLOW_ENTRIES,
+                                          flowTable::getLocalFlowEntriesByGroupKey);
+    }
+
+    /**
+     * Collects the indexed flow entries for the given key from the devices
+     * mastered by each active node, including the local one.
+     */
+    private <K> Set<FlowEntry> getFlowEntriesFromAllNodes(K key, MessageSubject subject,
+                                                          Function<K, Set<FlowEntry>> localLookup) {
+        List<CompletableFuture<Set<FlowEntry>>> futures = clusterService.getNodes().stream()
+                .map(ControllerNode::id)
+                .filter(nodeId -> !Objects.equals(local, nodeId))
+                .filter(nodeId -> clusterService.getState(nodeId).isActive())
+                .map(nodeId -> clusterCommunicator.<K, Set<FlowEntry>>sendAndReceive(key,
+                                                                                    subject,
+                                                                                    serializer::encode,
+                                                                                    serializer::decode,
+                                                                                    nodeId))
+                .collect(Collectors.toList());
+
+        Set<FlowEntry> entries = Sets.newHashSet(localLookup.apply(key));
+        futures.forEach(future -> entries.addAll(Tools.futureGetOrElse(future,
+                                                                      FLOW_RULE_STORE_TIMEOUT_MILLIS,
+                                                                      TimeUnit.MILLISECONDS,
+                                                                      Collections.emptySet())));
+        return entries;
+    }
+
     @Override
     public void storeFlowRule(FlowRule rule) {
         storeBatch(new FlowRuleBatchOperation(
@@ -482,6 +576,7 @@ public class DistributedFlowRuleStore
                             if (entry != null) {
                                 //FIXME modification of "stored" flow entry outside of flow table
                                 entry.setState(FlowEntryState.PENDING_REMOVE);
+                                flowTable.writeBack(entry);
                                 log.debug("Setting state of rule to pending remove: {}", entry);
                                 return op;
                             }
@@ -514,6 +609,7 @@ public class DistributedFlowRuleStore
             if (stored != null &&
                     stored.state() != FlowEntryState.PENDING_ADD) {
                 stored.setState(FlowEntryState.PENDING_ADD);
+                flowTable.writeBack(stored);
                 return new FlowRuleEvent(Type.RULE_UPDATED, rule);
             }
         }
@@ -544,8 +640,10 @@ public class DistributedFlowRuleStore
             stored.setLastSeen();
             if (stored.state() == FlowEntryState.PENDING_ADD) {
                 stored.setState(FlowEntryState.ADDED);
+                flowTable.writeBack(stored);
                 return new FlowRuleEvent(Type.RULE_ADDED, rule);
             }
+            flowTable.writeBack(stored);
             return new FlowRuleEvent(Type.RULE_UPDATED, rule);
         }
 
@@ -673,8 +771,17 @@ public class DistributedFlowRuleStore
         private final Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>
                 flowEntries = Maps.newConcurrentMap();
 
-        private final Map<BackupOperation, Long> lastBackupTimes = Maps.newConcurrentMap();
-        private final Map<DeviceId, Long> lastUpdateTimes = Maps.newConcurrentMap();
+        // change logs of the flow tables mastered by this node
+        private final Map<DeviceId, FlowTableChangeLog> changeLogs = Maps.newConcurrentMap();
+        // flow table versions acknowledged by each backup node
+        private final Map<BackupOperation, Long> lastBackupVersions = Maps.newConcurrentMap();
+        // backups sent but not yet acknowledged
+        private final Set<BackupOperation> pendingBackups = Sets.newConcurrentHashSet();
+        // flow buckets indexed by application and by application group
+        private final FlowTableIndex<Short> appIndex = new FlowTableIndex<>();
+        private final FlowTableIndex<Long> groupIndex = new FlowTableIndex<>();
+        // flow table versions received by this node as a backup
+        private final Map<DeviceId, BackupVersion> backupVersions = Maps.newConcurrentMap();
 
         @Override
         public void event(ReplicaInfoEvent event) {
@@ -687,45 +794,61 @@ public class DistributedFlowRuleStore
                 return;
             }
             if (event.type() == MASTER_CHANGED) {
-                lastUpdateTimes.put(deviceId, System.currentTimeMillis());
+                // backup nodes may hold tables from another master; force a full resync
+                lastBackupVersions.keySet().removeIf(op -> op.deviceId.equals(deviceId));
+                getChangeLog(deviceId);
             }
             backupSenderExecutor.schedule(this::backup, 0, TimeUnit.SECONDS);
         }
 
-        private void sendBackups(NodeId nodeId, Set<DeviceId> deviceIds) {
+        private void sendBackups(NodeId nodeId, List<FlowTableBackup> backups) {
             // split up the devices into smaller batches and send them separately.
-            Iterables.partition(deviceIds, FLOW_TABLE_BACKUP_BATCH_SIZE)
-                     .forEach(ids -> backupFlowEntries(nodeId, Sets.newHashSet(ids)));
+            List<FlowTableBackup> fullBackups = backups.stream()
+                    .filter(FlowTableBackup::isFull)
+                    .collect(Collectors.toList());
+            List<FlowTableBackup> deltaBackups = backups.stream()
+                    .filter(backup -> !backup.isFull())
+                    .collect(Collectors.toList());
+            Lists.partition(fullBackups, FLOW_TABLE_BACKUP_BATCH_SIZE)
+                 .forEach(batch -> backupFlowEntries(nodeId, batch, fullBackupBytes));
+            Lists.partition(deltaBackups, FLOW_TABLE_DELTA_BACKUP_BATCH_SIZE)
+                 .forEach(batch -> backupFlowEntries(nodeId, batch, deltaBackupBytes));
         }
 
-        private void backupFlowEntries(NodeId nodeId, Set<DeviceId> deviceIds) {
-            if (deviceIds.isEmpty()) {
+        private void backupFlowEntries(NodeId nodeId, List<FlowTableBackup> backups, AtomicLong sentBytes) {
+            if (backups.isEmpty()) {
                 return;
             }
-            log.debug("Sending flowEntries for devices {} to {} for backup.", deviceIds, nodeId);
-            Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>
-                    deviceFlowEntries = Maps.newConcurrentMap();
-            deviceIds.forEach(id -> deviceFlowEntries.put(id, getFlowTableCopy(id)));
-            clusterCommunicator.<Map<DeviceId,
-                                 Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>,
-                                 Set<DeviceId>>
-                    sendAndReceive(deviceFlowEntries,
-                                   FLOW_TABLE_BACKUP,
-                                   serializer::encode,
-                                   serializer::decode,
-                                   nodeId)
+            log.debug("Sending flow table backups {} to {}.", backups, nodeId);
+            byte[] payload = serializer.encode(Lists.newArrayList(backups));
+            sentBytes.addAndGet(payload.length);
+            Set<DeviceId> deviceIds = backups.stream()
+                    .map(FlowTableBackup::deviceId)
+                    .collect(Collectors.toSet());
+            clusterCommunicator.<byte[], Set<DeviceId>>sendAndReceive(payload,
+                                                                     FLOW_TABLE_BACKUP,
+                                                                     Function.identity(),
+                                                                     serializer::decode,
+                                                                     nodeId)
                     .whenComplete((backedupDevices, error) -> {
+                        deviceIds.forEach(id -> pendingBackups.remove(new BackupOperation(nodeId, id)));
                         Set<DeviceId> devicesNotBackedup = error != null ?
-                            deviceFlowEntries.keySet() :
-                            Sets.difference(deviceFlowEntries.keySet(), backedupDevices);
+                            deviceIds :
+                            Sets.difference(deviceIds, backedupDevices);
                         if (devicesNotBackedup.size() > 0) {
                             log.warn("Failed to backup devices: {}. Reason: {}, Node: {}",
                                      devicesNotBackedup, error != null ? error.getMessage() : "none",
                                      nodeId);
                         }
                         if (backedupDevices != null) {
-                            backedupDevices.forEach(id -> {
-                                lastBackupTimes.put(new BackupOperation(nodeId, id), System.currentTimeMillis());
+                            backups.forEach(backup -> {
+                                BackupOperation op = new BackupOperation(nodeId, backup.deviceId());
+                                if (backedupDevices.contains(backup.deviceId())) {
+                                    lastBackupVersions.put(op, backup.version());
+                                } else {
+                                    // rejected, e.g. due to a version gap; resync on the next round
+                                    lastBackupVersions.remove(op);
+                                }
                             });
                         }
                     });
@@ -739,21 +862,28 @@ public class DistributedFlowRuleStore
          */
         private Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowTable(DeviceId deviceId) {
             if (persistenceEnabled) {
-                return flowEntries.computeIfAbsent(deviceId, id -> persistenceService
-                        .<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>persistentMapBuilder()
-                        .withName("FlowTable:" + deviceId.toString())
-                        .withSerializer(new Serializer() {
-                            @Override
-                            public <T> byte[] encode(T object) {
-                                return serializer.encode(object);
-                            }
-
-                            @Override
-                            public <T> T decode(byte[] bytes) {
-                                return serializer.decode(bytes);
-                            }
-                        })
-                        .build());
+                return flowEntries.computeIfAbsent(deviceId, id -> {
+                    Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> table = persistenceService
+                            .<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>persistentMapBuilder()
+                            .withName("FlowTable:" + deviceId.toString())
+                            .withSerializer(new Serializer() {
+                                @Override
+                                public <T> byte[] encode(T object) {
+                                    return serializer.encode(object);
+                                }
+
+                                @Override
+                                public <T> T decode(byte[] bytes) {
+                                    return serializer.decode(bytes);
+                                }
+                            })
+                            .build();
+                    // entries restored from disk must be indexed too
+                    table.values().forEach(bucket -> bucket.keySet().forEach(entry -> index(deviceId, entry)));
+                    return table;
+                });
+            } else if (offHeapFlowTables) {
+                return flowEntries.computeIfAbsent(deviceId, id -> new OffHeapFlowTable(serializer));
             } else {
                 return flowEntries.computeIfAbsent(deviceId, id -> Maps.newConcurrentMap());
             }
@@ -761,28 +891,94 @@ public class DistributedFlowRuleStore
 
         private Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowTableCopy(DeviceId deviceId) {
             Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> copy = Maps.newHashMap();
-            if (persistenceEnabled) {
-                return flowEntries.computeIfAbsent(deviceId, id -> persistenceService
-                        .<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>persistentMapBuilder()
-                        .withName("FlowTable:" + deviceId.toString())
-                        .withSerializer(new Serializer() {
-                            @Override
-                            public <T> byte[] encode(T object) {
-                                return serializer.encode(object);
-                            }
-
-                            @Override
-                            public <T> T decode(byte[] bytes) {
-                                return serializer.decode(bytes);
-                            }
-                        })
-                        .build());
-            } else {
-                flowEntries.computeIfAbsent(deviceId, id -> Maps.newConcurrentMap()).forEach((k, v) -> {
+            getFlowTable(deviceId).forEach((k, v) -> {
+                if (!v.isEmpty()) {
                     copy.put(k, Maps.newHashMap(v));
-                });
-                return copy;
-            }
+                }
+            });
+            return copy;
+        }
+
+        private Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowTableDelta(DeviceId deviceId,
+                                                                                     Set<FlowId> flowIds) {
+            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> table = getFlowTable(deviceId);
+            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> delta = Maps.newHashMap();
+            flowIds.forEach(flowId -> {
+                Map<StoredFlowEntry, StoredFlowEntry> bucket = table.get(flowId);
+                delta.put(flowId, bucket == null ? Maps.newHashMap() : Maps.newHashMap(bucket));
+            });
+            return delta;
+        }
+
+        private Map<StoredFlowEntry, StoredFlowEntry> getBucket(DeviceId deviceId, FlowId flowId) {
+            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> table = flowEntries.get(deviceId);
+            Map<StoredFlowEntry, StoredFlowEntry> bucket = table == null ? null : table.get(flowId);
+            return bucket == null ? Collections.emptyMap() : bucket;
+        }
+
+        private long groupKey(FlowId flowId) {
+            return flowId.value() >>> 32;
+        }
+
+        private void index(DeviceId deviceId, FlowEntry entry) {
+            appIndex.add(entry.appId(), deviceId, entry.id());
+            groupIndex.add(groupKey(entry.id()), deviceId, entry.id());
+        }
+
+        /**
+         * Drops the index entries of a flow bucket that no longer hold,
+         * given the entries previously held by the bucket.
+         */
+        private void unindex(DeviceId deviceId, FlowId flowId, Collection<? extends FlowEntry> previous) {
+            previous.stream().map(FlowEntry::appId).distinct().forEach(appId ->
+                    appIndex.remove(appId, deviceId, flowId, () -> getBucket(deviceId, flowId).keySet()
+                            .stream().noneMatch(entry -> entry.appId() == appId)));
+            groupIndex.remove(groupKey(flowId), deviceId, flowId, () -> getBucket(deviceId, flowId).isEmpty());
+        }
+
+        private <K> Set<FlowEntry> getLocalFlowEntries(FlowTableIndex<K> index, K key,
+                                                       Predicate<FlowEntry> filter) {
+            Set<FlowEntry> entries = Sets.newHashSet();
+            index.get(key).forEach((deviceId, flowIds) -> {
+                // backup copies are reported by the master of the device
+                if (Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
+                    flowIds.forEach(flowId -> getBucket(deviceId, flowId).values().stream()
+                            .filter(filter)
+                            .forEach(entries::add));
+                }
+            });
+            return entries;
+        }
+
+        /**
+         * Returns the flow entries of the given application on the devices
+         * mastered by the local node.
+         *
+         * @param appId application identifier
+         * @return flow entries
+         */
+        public Set<FlowEntry> getLocalFlowEntriesByAppId(short appId) {
+            return getLocalFlowEntries(appIndex, appId, entry -> entry.appId() == appId);
+        }
+
+        /**
+         * Returns the flow entries of the given application group on the
+         * devices mastered by the local node.
+         *
+         * @param groupKey application identifier and group identifier, as
+         *                 held by the upper half of the flow identifiers
+         * @return flow entries
+         */
+        public Set<FlowEntry> getLocalFlowEntriesByGroupKey(long groupKey) {
+            return getLocalFlowEntries(groupIndex, groupKey, entry -> true);
+        }
+
+        private FlowTableChangeLog getChangeLog(DeviceId deviceId) {
+            return changeLogs.computeIfAbsent(deviceId, id -> new FlowTableChangeLog());
+        }
+
+        private void recordChange(DeviceId deviceId, FlowId flowId) {
+            getChangeLog(deviceId).record(flowId);
         }
 
         private Map<StoredFlowEntry, StoredFlowEntry> getFlowEntriesInternal(DeviceId deviceId, FlowId flowId) {
@@ -807,6 +1003,22 @@ public class DistributedFlowRuleStore
             return getFlowEntriesInternal(deviceId);
         }
 
+        /**
+         * Writes back a flow entry read from the table and changed in place,
+         * for tables that hand out copies of their entries, and records the
+         * change for the next delta backup.
+         *
+         * @param entry changed flow entry
+         */
+        public void writeBack(StoredFlowEntry entry) {
+            if (flowEntries.get(entry.deviceId()) instanceof OffHeapFlowTable) {
+                // only replace the entry if it was not removed meanwhile
+                getFlowEntriesInternal(entry.deviceId(), entry.id())
+                        .computeIfPresent(entry, (k, stored) -> entry);
+            }
+            recordChange(entry.deviceId(), entry.id());
+        }
+
         public void add(FlowEntry rule) {
             getFlowEntriesInternal(rule.deviceId(), rule.id())
                     .compute((StoredFlowEntry) rule, (k, stored) -> {
@@ -814,7 +1026,8 @@ public class DistributedFlowRuleStore
                         //TODO the key is not updated
                         return (StoredFlowEntry) rule;
                     });
-            lastUpdateTimes.put(rule.deviceId(), System.currentTimeMillis());
+            index(rule.deviceId(), rule);
+            recordChange(rule.deviceId(), rule.id());
         }
 
         public FlowEntry remove(DeviceId deviceId, FlowEntry rule) {
@@ -838,7 +1051,8 @@ public class DistributedFlowRuleStore
                 });
 
             if (removedRule.get() != null) {
-                lastUpdateTimes.put(deviceId, System.currentTimeMillis());
+                unindex(deviceId, rule.id(), ImmutableList.of(removedRule.get()));
+                recordChange(deviceId, rule.id());
                 return removedRule.get();
             } else {
                 return null;
@@ -847,10 +1061,22 @@ public class DistributedFlowRuleStore
 
         public void purgeFlowRule(DeviceId deviceId) {
             flowEntries.remove(deviceId);
+            changeLogs.remove(deviceId);
+            backupVersions.remove(deviceId);
+            lastBackupVersions.keySet().removeIf(op -> op.deviceId.equals(deviceId));
+            pendingBackups.removeIf(op -> op.deviceId.equals(deviceId));
+            appIndex.removeDevice(deviceId);
+            groupIndex.removeDevice(deviceId);
         }
 
         public void purgeFlowRules() {
             flowEntries.clear();
+            changeLogs.clear();
+            backupVersions.clear();
+            lastBackupVersions.clear();
+            pendingBackups.clear();
+            appIndex.clear();
+            groupIndex.clear();
         }
 
         private List<NodeId> getBackupNodes(DeviceId deviceId) {
@@ -862,37 +1088,85 @@ public class DistributedFlowRuleStore
 
         private void backup() {
             try {
-                // compute a mapping from node to the set of devices whose flow entries it should backup
-                Map<NodeId, Set<DeviceId>> devicesToBackupByNode = Maps.newHashMap();
-                flowEntries.keySet().forEach(deviceId -> {
+                // compute a mapping from node to the backups it should receive
+                Map<NodeId, List<FlowTableBackup>> backupsByNode = Maps.newHashMap();
+                changeLogs.forEach((deviceId, changeLog) -> {
+                    if (!mastershipService.isLocalMaster(deviceId)) {
+                        return;
+                    }
                     List<NodeId> backupNodes = getBackupNodes(deviceId);
+                    compactChangeLog(deviceId, changeLog, backupNodes);
                     backupNodes.forEach(backupNode -> {
-                            if (lastBackupTimes.getOrDefault(new BackupOperation(backupNode, deviceId), 0L)
-                                    < lastUpdateTimes.getOrDefault(deviceId, 0L)) {
-                                devicesToBackupByNode.computeIfAbsent(backupNode,
-                                                                      nodeId -> Sets.newHashSet()).add(deviceId);
-                            }
+                        BackupOperation op = new BackupOperation(backupNode, deviceId);
+                        if (!pendingBackups.add(op)) {
+                            // wait for the previous backup to be acknowledged
+                            return;
+                        }
+                        FlowTableBackup backup = createBackup(backupNode, deviceId, changeLog);
+                        if (backup != null) {
+                            backupsByNode.computeIfAbsent(backupNode, nodeId -> Lists.newArrayList())
+                                         .add(backup);
+                        } else {
+                            pendingBackups.remove(op);
+                        }
                     });
                 });
-                // send the device flow entries to their respective backup nodes
-                devicesToBackupByNode.forEach(this::sendBackups);
+                // send the device flow table backups to their respective backup nodes
+                backupsByNode.forEach(this::sendBackups);
+                log.debug("Flow table backups sent so far: {} bytes full, {} bytes delta",
+                          fullBackupBytes.get(), deltaBackupBytes.get());
             } catch (Exception e) {
                 log.error("Backup failed.", e);
+                // let the next round start over for the backups that never went out
+                pendingBackups.clear();
+            }
+        }
+
+        /**
+         * Creates the backup a node needs to catch up with the local flow table.
+         * A delta is sent when the node acknowledged a version still covered by
+         * the change log; otherwise the whole table is sent.
+         */
+        private FlowTableBackup createBackup(NodeId nodeId, DeviceId deviceId, FlowTableChangeLog changeLog) {
+            // read the version before the table, so that no change is skipped
+            long version = changeLog.version();
+            Long acked = lastBackupVersions.get(new BackupOperation(nodeId, deviceId));
+            if (acked != null && acked == version) {
+                return null;
+            }
+            Set<FlowId> changed = acked == null ? null : changeLog.changedSince(acked);
+            if (changed != null && changed.size() < getFlowTable(deviceId).size()) {
+                return FlowTableBackup.delta(local, deviceId, acked, version,
+                                             getFlowTableDelta(deviceId, changed));
+            }
+            return FlowTableBackup.full(local, deviceId, version, getFlowTableCopy(deviceId));
+        }
+
+        /**
+         * Drops the changes every backup node has already acknowledged.
+         */
+        private void compactChangeLog(DeviceId deviceId, FlowTableChangeLog changeLog, List<NodeId> backupNodes) {
+            long minAcked = Long.MAX_VALUE;
+            for (NodeId backupNode : backupNodes) {
+                Long acked = lastBackupVersions.get(new BackupOperation(backupNode, deviceId));
+                if (acked == null) {
+                    // the node needs a full backup anyway
+                    continue;
+                }
+                minAcked = Math.min(minAcked, acked);
             }
+            changeLog.compact(minAcked == Long.MAX_VALUE ? changeLog.version() : minAcked);
         }
 
-        private Set<DeviceId> onBackupReceipt(Map<DeviceId,
-                Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> flowTables) {
-            log.debug("Received flowEntries for {} to backup", flowTables.keySet());
+        private Set<DeviceId> onBackupReceipt(List<FlowTableBackup> backups) {
+            log.debug("Received flow table backups {}", backups);
             Set<DeviceId> backedupDevices = Sets.newHashSet();
             try {
-                flowTables.forEach((deviceId, deviceFlowTable) -> {
+                backups.forEach(backup -> {
+                    DeviceId deviceId = backup.deviceId();
                     // Only process those devices are that not managed by the local node.
-                    if (!Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
-                        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> backupFlowTable =
-                                getFlowTable(deviceId);
-                        backupFlowTable.clear();
-                        backupFlowTable.putAll(deviceFlowTable);
+                    if (!Objects.equals(local, mastershipService.getMasterFor(deviceId))
+                            && applyBackup(backup)) {
                         backedupDevices.add(deviceId);
                     }
                 });
@@ -901,6 +1175,59 @@ public class DistributedFlowRuleStore
             }
             return backedupDevices;
         }
+
+        private boolean applyBackup(FlowTableBackup backup) {
+            DeviceId deviceId = backup.deviceId();
+            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> backupFlowTable = getFlowTable(deviceId);
+            if (backup.isFull()) {
+                appIndex.removeDevice(deviceId);
+                groupIndex.removeDevice(deviceId);
+                backupFlowTable.clear();
+                backupFlowTable.putAll(backup.flowBuckets());
+                backup.flowBuckets().values()
+                        .forEach(bucket -> bucket.keySet().forEach(entry -> index(deviceId, entry)));
+            } else {
+                BackupVersion current = backupVersions.get(deviceId);
+                if (current == null || !current.isBase(backup)) {
+                    log.debug("Rejecting flow table delta {}; held version is {}", backup, current);
+                    return false;
+                }
+                backup.flowBuckets().forEach((flowId, bucket) -> {
+                    Map<StoredFlowEntry, StoredFlowEntry> previous = bucket.isEmpty() ?
+                            backupFlowTable.remove(flowId) : backupFlowTable.put(flowId, bucket);
+                    if (previous != null) {
+                        unindex(deviceId, flowId, previous.keySet());
+                    }
+                    bucket.keySet().forEach(entry -> index(deviceId, entry));
+                });
+            }
+            backupVersions.put(deviceId, new BackupVersion(backup.master(), backup.version()));
+            // changes made while this node was the master are no longer relevant
+            changeLogs.remove(deviceId);
+            return true;
+        }
+    }
+
+    /**
+     * Version of a backed up flow table, along with the master that produced it.
+     */
+    private static final class BackupVersion {
+        private final NodeId master;
+        private final long version;
+
+        private BackupVersion(NodeId master, long version) {
+            this.master = master;
+            this.version = version;
+        }
+
+        private boolean isBase(FlowTableBackup delta) {
+            return master.equals(delta.master()) && version == delta.baseVersion();
+        }
+
+        @Override
+        public String toString() {
+            return master + "@" + version;
+        }
     }
 
     @Override
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Map;
+
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Flow table backup of a single device sent from the master to a backup node.
+ * <p>
+ * A full backup carries the whole flow table. A delta backup carries only the
+ * flow buckets changed since {@code baseVersion}; an empty bucket means that
+ * all entries of that flow ID were removed. A delta applies only on top of
+ * the table version the receiver last got from the same master.
+ */
+final class FlowTableBackup {
+
+    private final NodeId master;
+    private final DeviceId deviceId;
+    private final boolean full;
+    private final long baseVersion;
+    private final long version;
+    private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBuckets;
+
+    private FlowTableBackup(NodeId master, DeviceId deviceId, boolean full,
+                            long baseVersion, long version,
+                            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBuckets) {
+        this.master = master;
+        this.deviceId = deviceId;
+        this.full = full;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.flowBuckets = flowBuckets;
+    }
+
+    /**
+     * Creates a backup holding the whole flow table of a device.
+     *
+     * @param master   node sending the backup
+     * @param deviceId device identifier
+     * @param version  flow table version
+     * @param table    flow table of the device
+     * @return full backup
+     */
+    static FlowTableBackup full(NodeId master, DeviceId deviceId, long version,
+                                Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> table) {
+        return new FlowTableBackup(master, deviceId, true, 0, version, table);
+    }
+
+    /**
+     * Creates a backup holding the flow buckets changed since a given version.
+     *
+     * @param master      node sending the backup
+     * @param deviceId    device identifier
+     * @param baseVersion version the receiver must hold for the delta to apply
+     * @param version     flow table version after the delta is applied
+     * @param changes     changed flow buckets
+     * @return delta backup
+     */
+    static FlowTableBackup delta(NodeId master, DeviceId deviceId, long baseVersion, long version,
+                                 Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> changes) {
+        return new FlowTableBackup(master, deviceId, false, baseVersion, version, changes);
+    }
+
+    NodeId master() {
+        return master;
+    }
+
+    DeviceId deviceId() {
+        return deviceId;
+    }
+
+    boolean isFull() {
+        return full;
+    }
+
+    long baseVersion() {
+        return baseVersion;
+    }
+
+    long version() {
+        return version;
+    }
+
+    Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBuckets() {
+        return flowBuckets;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("master", master)
+                .add("deviceId", deviceId)
+                .add("full", full)
+                .add("baseVersion", baseVersion)
+                .add("version", version)
+                .add("buckets", flowBuckets.size())
+                .toString();
+    }
+}
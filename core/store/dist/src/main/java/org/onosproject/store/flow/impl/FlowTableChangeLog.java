@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+
+import org.onosproject.net.flow.FlowId;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Versioned log of the flow IDs changed in the flow table of a single device.
+ * <p>
+ * Every change bumps the table version. The log keeps only the most recent
+ * version at which each flow ID changed, so its size is bounded by the number
+ * of distinct flow IDs changed since the last compaction.
+ */
+final class FlowTableChangeLog {
+
+    private long version = 0;
+    private long floor = 0;
+    private final NavigableMap<Long, FlowId> changes = Maps.newTreeMap();
+    private final Map<FlowId, Long> latest = Maps.newHashMap();
+
+    /**
+     * Records a change to the flow bucket with the given ID.
+     *
+     * @param flowId identifier of the changed flow bucket
+     * @return the new table version
+     */
+    synchronized long record(FlowId flowId) {
+        version++;
+        Long previous = latest.put(flowId, version);
+        if (previous != null) {
+            changes.remove(previous);
+        }
+        changes.put(version, flowId);
+        return version;
+    }
+
+    /**
+     * Returns the current table version.
+     *
+     * @return table version
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Returns the IDs of the flow buckets changed after the given version.
+     *
+     * @param base version already known to the reader
+     * @return changed flow IDs, or null if the log can no longer produce
+     * a delta from the given version
+     */
+    synchronized Set<FlowId> changedSince(long base) {
+        if (base < floor || base > version) {
+            return null;
+        }
+        return ImmutableSet.copyOf(changes.tailMap(base, false).values());
+    }
+
+    /**
+     * Discards the changes made at or before the given version.
+     * Deltas can no longer be produced from versions below it.
+     *
+     * @param upTo highest version to discard
+     */
+    synchronized void compact(long upTo) {
+        long bound = Math.min(upTo, version);
+        if (bound <= floor) {
+            return;
+        }
+        Map<Long, FlowId> discarded = changes.headMap(bound, true);
+        discarded.values().forEach(latest::remove);
+        discarded.clear();
+        floor = bound;
+    }
+
+    /**
+     * Returns the number of flow IDs held in the log.
+     *
+     * @return log size
+     */
+    synchronized int size() {
+        return changes.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return toStringHelper(this)
+                .add("version", version)
+                .add("floor", floor)
+                .add("size", changes.size())
+                .toString();
+    }
+}
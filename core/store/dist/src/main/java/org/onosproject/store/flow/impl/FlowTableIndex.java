@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowId;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Secondary index of the flow tables, mapping a key to the flow buckets of
+ * each device that hold entries for that key.
+ * <p>
+ * All updates of a key are serialized, so conditions passed to
+ * {@link #remove(Object, DeviceId, FlowId, BooleanSupplier)} are evaluated
+ * atomically with respect to concurrent additions of the same key.
+ *
+ * @param <K> index key type
+ */
+final class FlowTableIndex<K> {
+
+    private final Map<K, Map<DeviceId, Set<FlowId>>> index = Maps.newConcurrentMap();
+
+    /**
+     * Adds the given flow bucket under the given key.
+     *
+     * @param key      index key
+     * @param deviceId device identifier
+     * @param flowId   flow bucket identifier
+     */
+    void add(K key, DeviceId deviceId, FlowId flowId) {
+        index.compute(key, (k, devices) -> {
+            Map<DeviceId, Set<FlowId>> indexed = devices == null ? Maps.newConcurrentMap() : devices;
+            indexed.computeIfAbsent(deviceId, id -> Sets.newConcurrentHashSet()).add(flowId);
+            return indexed;
+        });
+    }
+
+    /**
+     * Removes the given flow bucket from under the given key if the
+     * condition holds.
+     *
+     * @param key       index key
+     * @param deviceId  device identifier
+     * @param flowId    flow bucket identifier
+     * @param condition checks that the bucket no longer holds entries for the key
+     */
+    void remove(K key, DeviceId deviceId, FlowId flowId, BooleanSupplier condition) {
+        index.computeIfPresent(key, (k, devices) -> {
+            if (condition.getAsBoolean()) {
+                devices.computeIfPresent(deviceId, (id, flowIds) -> {
+                    flowIds.remove(flowId);
+                    return flowIds.isEmpty() ? null : flowIds;
+                });
+            }
+            return devices.isEmpty() ? null : devices;
+        });
+    }
+
+    /**
+     * Removes all flow buckets of the given device.
+     *
+     * @param deviceId device identifier
+     */
+    void removeDevice(DeviceId deviceId) {
+        index.keySet().forEach(key -> index.computeIfPresent(key, (k, devices) -> {
+            devices.remove(deviceId);
+            return devices.isEmpty() ? null : devices;
+        }));
+    }
+
+    /**
+     * Returns the flow buckets held under the given key, per device.
+     *
+     * @param key index key
+     * @return flow bucket identifiers by device
+     */
+    Map<DeviceId, Set<FlowId>> get(K key) {
+        return index.getOrDefault(key, Collections.emptyMap());
+    }
+
+    /**
+     * Removes all keys from the index.
+     */
+    void clear() {
+        index.clear();
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.service.Serializer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Flow table of a single device that keeps its flow buckets serialized in
+ * direct memory, outside of the Java heap.
+ * <p>
+ * Buckets are located through an open-addressing index keyed on the primitive
+ * flow ID, and are decoded only when read. The buckets returned by this map
+ * are views: reading them decodes the bucket again, and modifying them
+ * encodes the bucket back into direct memory. Since decoded flow entries are
+ * copies, in-place changes to an entry are visible only once the entry is
+ * written back through its bucket.
+ * </p>
+ * <p>
+ * Serialized buckets are appended to large direct memory chunks; the space
+ * of replaced buckets is reclaimed by compacting the chunks once most of it
+ * is garbage. All operations are serialized on the table.
+ * </p>
+ */
+final class OffHeapFlowTable extends AbstractMap<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> {
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Serializer serializer;
+
+    // open-addressing index from flow ID to the serialized bucket; a zero
+    // length marks a free slot
+    private long[] flowIds = new long[INITIAL_CAPACITY];
+    private long[] locations = new long[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private List<ByteBuffer> chunks = Lists.newArrayList();
+    private int chunkOffset;
+    private long allocatedBytes;
+    private long liveBytes;
+
+    /**
+     * Creates a new off-heap flow table.
+     *
+     * @param serializer serializer of the flow entries
+     */
+    OffHeapFlowTable(Serializer serializer) {
+        this.serializer = checkNotNull(serializer);
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return key instanceof FlowId && slotOf(((FlowId) key).value()) >= 0;
+    }
+
+    @Override
+    public synchronized Map<StoredFlowEntry, StoredFlowEntry> get(Object key) {
+        return containsKey(key) ? new Bucket(((FlowId) key).value()) : null;
+    }
+
+    /**
+     * Returns a view of the bucket of the given flow ID, which is added to
+     * the table when the first entry is put into it. The mapping function
+     * is not used.
+     */
+    @Override
+    public Map<StoredFlowEntry, StoredFlowEntry> computeIfAbsent(
+            FlowId key, Function<? super FlowId, ? extends Map<StoredFlowEntry, StoredFlowEntry>> function) {
+        return new Bucket(key.value());
+    }
+
+    /**
+     * Replaces the bucket of the given flow ID; an empty bucket removes it.
+     *
+     * @return a copy of the previous bucket, or null if there was none
+     */
+    @Override
+    public synchronized Map<StoredFlowEntry, StoredFlowEntry> put(FlowId key,
+                                                                  Map<StoredFlowEntry, StoredFlowEntry> bucket) {
+        Map<StoredFlowEntry, StoredFlowEntry> previous = read(key.value());
+        write(key.value(), bucket);
+        return previous;
+    }
+
+    @Override
+    public synchronized void putAll(Map<? extends FlowId, ? extends Map<StoredFlowEntry, StoredFlowEntry>> buckets) {
+        buckets.forEach((flowId, bucket) -> write(flowId.value(), bucket));
+    }
+
+    /**
+     * Removes the bucket of the given flow ID.
+     *
+     * @return a copy of the removed bucket, or null if there was none
+     */
+    @Override
+    public synchronized Map<StoredFlowEntry, StoredFlowEntry> remove(Object key) {
+        if (!(key instanceof FlowId)) {
+            return null;
+        }
+        long flowId = ((FlowId) key).value();
+        Map<StoredFlowEntry, StoredFlowEntry> previous = read(flowId);
+        write(flowId, Collections.emptyMap());
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(lengths, 0);
+        size = 0;
+        chunks = Lists.newArrayList();
+        chunkOffset = 0;
+        allocatedBytes = 0;
+        liveBytes = 0;
+    }
+
+    /**
+     * Returns a snapshot of the flow IDs of the table, each mapped to a view
+     * of its bucket.
+     */
+    @Override
+    public Set<Entry<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> entrySet() {
+        List<Entry<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> entries;
+        synchronized (this) {
+            entries = Lists.newArrayListWithCapacity(size);
+            for (int slot = 0; slot < lengths.length; slot++) {
+                if (lengths[slot] != 0) {
+                    entries.add(new SimpleImmutableEntry<>(FlowId.valueOf(flowIds[slot]),
+                                                           new Bucket(flowIds[slot])));
+                }
+            }
+        }
+        return new AbstractSet<Entry<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>() {
+            @Override
+            public Iterator<Entry<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> iterator() {
+                return Collections.unmodifiableList(entries).iterator();
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    /**
+     * Returns the number of bytes of direct memory held by the table.
+     *
+     * @return allocated direct memory in bytes
+     */
+    synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory holding live buckets.
+     *
+     * @return live serialized bucket bytes
+     */
+    synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+    // Decodes the bucket of the given flow ID; null if there is none
+    private Map<StoredFlowEntry, StoredFlowEntry> read(long flowId) {
+        int slot = slotOf(flowId);
+        if (slot < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[lengths[slot]];
+        ByteBuffer chunk = chunks.get((int) (locations[slot] >>> 32)).duplicate();
+        chunk.position((int) locations[slot]);
+        chunk.get(bytes);
+        List<StoredFlowEntry> entries = serializer.decode(bytes);
+        Map<StoredFlowEntry, StoredFlowEntry> bucket = Maps.newHashMapWithExpectedSize(entries.size());
+        entries.forEach(entry -> bucket.put(entry, entry));
+        return bucket;
+    }
+
+    // Encodes the given bucket for the given flow ID; an empty bucket is removed
+    private void write(long flowId, Map<StoredFlowEntry, StoredFlowEntry> bucket) {
+        int slot = slotOf(flowId);
+        if (slot >= 0) {
+            liveBytes -= lengths[slot];
+        }
+        if (bucket.isEmpty()) {
+            if (slot >= 0) {
+                delete(slot);
+            }
+        } else {
+            byte[] bytes = serializer.encode(Lists.newArrayList(bucket.values()));
+            if (slot < 0) {
+                slot = insert(flowId);
+            }
+            locations[slot] = append(bytes);
+            lengths[slot] = bytes.length;
+            liveBytes += bytes.length;
+        }
+        if (allocatedBytes > CHUNK_SIZE && liveBytes < allocatedBytes / 2) {
+            compact();
+        }
+    }
+
+    // Appends the given bytes to the current chunk and returns their location
+    private long append(byte[] bytes) {
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.capacity() - chunkOffset < bytes.length) {
+            chunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, bytes.length));
+            chunks.add(chunk);
+            chunkOffset = 0;
+            allocatedBytes += chunk.capacity();
+        }
+        ByteBuffer target = chunk.duplicate();
+        target.position(chunkOffset);
+        target.put(bytes);
+        long location = ((long) (chunks.size() - 1) << 32) | chunkOffset;
+        chunkOffset += bytes.length;
+        return location;
+    }
+
+    // Copies the live buckets into fresh chunks, releasing the old ones
+    private void compact() {
+        List<ByteBuffer> oldChunks = chunks;
+        chunks = Lists.newArrayList();
+        chunkOffset = 0;
+        allocatedBytes = 0;
+        for (int slot = 0; slot < lengths.length; slot++) {
+            if (lengths[slot] != 0) {
+                byte[] bytes = new byte[lengths[slot]];
+                ByteBuffer chunk = oldChunks.get((int) (locations[slot] >>> 32)).duplicate();
+                chunk.position((int) locations[slot]);
+                chunk.get(bytes);
+                locations[slot] = append(bytes);
+            }
+        }
+    }
+
+    private static int hash(long flowId) {
+        long h = flowId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Returns the slot of the given flow ID, or -1 if it is not in the table
+    private int slotOf(long flowId) {
+        int mask = lengths.length - 1;
+        for (int slot = hash(flowId) & mask; lengths[slot] != 0; slot = (slot + 1) & mask) {
+            if (flowIds[slot] == flowId) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Claims a free slot for a flow ID known not to be in the table
+    private int insert(long flowId) {
+        if (2 * (size + 1) > lengths.length) {
+            resize(2 * lengths.length);
+        }
+        int mask = lengths.length - 1;
+        int slot = hash(flowId) & mask;
+        while (lengths[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        flowIds[slot] = flowId;
+        size++;
+        return slot;
+    }
+
+    // Frees a slot, shifting back the entries that probed past it
+    private void delete(int slot) {
+        int mask = lengths.length - 1;
+        int free = slot;
+        lengths[free] = 0;
+        for (int next = (free + 1) & mask; lengths[next] != 0; next = (next + 1) & mask) {
+            int home = hash(flowIds[next]) & mask;
+            // move the entry unless its home lies cyclically in (free, next]
+            boolean movable = free <= next ? (home <= free || home > next) : (home <= free && home > next);
+            if (movable) {
+                flowIds[free] = flowIds[next];
+                locations[free] = locations[next];
+                lengths[free] = lengths[next];
+                lengths[next] = 0;
+                free = next;
+            }
+        }
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldFlowIds = flowIds;
+        long[] oldLocations = locations;
+        int[] oldLengths = lengths;
+        flowIds = new long[capacity];
+        locations = new long[capacity];
+        lengths = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldLengths.length; i++) {
+            if (oldLengths[i] != 0) {
+                int slot = hash(oldFlowIds[i]) & mask;
+                while (lengths[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                flowIds[slot] = oldFlowIds[i];
+                locations[slot] = oldLocations[i];
+                lengths[slot] = oldLengths[i];
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return toStringHelper(this)
+                .add("size", size)
+                .add("liveBytes", liveBytes)
+                .add("allocatedBytes", allocatedBytes)
+                .toString();
+    }
+
+    /**
+     * View of the bucket of a single flow ID, which decodes the bucket on
+     * every read and encodes it back on every change.
+     */
+    private final class Bucket extends AbstractMap<StoredFlowEntry, StoredFlowEntry> {
+
+        private final long flowId;
+
+        private Bucket(long flowId) {
+            this.flowId = flowId;
+        }
+
+        private Map<StoredFlowEntry, StoredFlowEntry> decode() {
+            synchronized (OffHeapFlowTable.this) {
+                Map<StoredFlowEntry, StoredFlowEntry> bucket = read(flowId);
+                return bucket == null ? Collections.emptyMap() : bucket;
+            }
+        }
+
+        private <R> R update(Function<Map<StoredFlowEntry, StoredFlowEntry>, R> function) {
+            synchronized (OffHeapFlowTable.this) {
+                Map<StoredFlowEntry, StoredFlowEntry> bucket = read(flowId);
+                if (bucket == null) {
+                    bucket = Maps.newHashMap();
+                }
+                R result = function.apply(bucket);
+                write(flowId, bucket);
+                return result;
+            }
+        }
+
+        @Override
+        public Set<Entry<StoredFlowEntry, StoredFlowEntry>> entrySet() {
+            return Collections.unmodifiableMap(decode()).entrySet();
+        }
+
+        @Override
+        public int size() {
+            return decode().size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return decode().isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return decode().containsKey(key);
+        }
+
+        @Override
+        public StoredFlowEntry get(Object key) {
+            return decode().get(key);
+        }
+
+        @Override
+        public StoredFlowEntry put(StoredFlowEntry key, StoredFlowEntry value) {
+            return update(bucket -> bucket.put(key, value));
+        }
+
+        @Override
+        public StoredFlowEntry remove(Object key) {
+            return update(bucket -> bucket.remove(key));
+        }
+
+        @Override
+        public StoredFlowEntry compute(StoredFlowEntry key,
+                                       BiFunction<? super StoredFlowEntry, ? super StoredFlowEntry,
+                                               ? extends StoredFlowEntry> function) {
+            return update(bucket -> bucket.compute(key, function));
+        }
+
+        @Override
+        public StoredFlowEntry computeIfPresent(StoredFlowEntry key,
+                                                BiFunction<? super StoredFlowEntry, ? super StoredFlowEntry,
+                                                        ? extends StoredFlowEntry> function) {
+            return update(bucket -> bucket.computeIfPresent(key, function));
+        }
+
+        @Override
+        public void clear() {
+            update(bucket -> {
+                bucket.clear();
+                return null;
+            });
+        }
+    }
+}
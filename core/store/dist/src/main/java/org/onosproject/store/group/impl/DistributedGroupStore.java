@@ -16,8 +16,10 @@
 package org.onosproject.store.group.impl;
 
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -71,7 +73,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -88,7 +89,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
@@ -140,13 +140,22 @@ public class DistributedGroupStore
             groupEntriesById = new ConcurrentHashMap<>();
     private ConsistentMap<GroupStoreKeyMapKey,
             StoredGroupEntry> auditPendingReqQueue = null;
+    // Keys of the pending group requests of each device, maintained from
+    // the events of the pending request table
+    private final ConcurrentMap<DeviceId, Set<GroupStoreKeyMapKey>>
+            pendingGroupKeysByDevice = new ConcurrentHashMap<>();
     private MapEventListener<GroupStoreKeyMapKey, StoredGroupEntry>
             mapListener = new GroupStoreKeyMapListener();
+    private MapEventListener<GroupStoreKeyMapKey, StoredGroupEntry>
+            pendingMapListener = new PendingGroupKeyMapListener();
     private final ConcurrentMap<DeviceId, ConcurrentMap<GroupId, Group>>
             extraneousGroupEntriesById = new ConcurrentHashMap<>();
     private ExecutorService messageHandlingExecutor;
     private static final int MESSAGE_HANDLER_THREAD_POOL_SIZE = 1;
-    private final HashMap<DeviceId, Boolean> deviceAuditStatus = new HashMap<>();
+    // audit status and audit completion locks of each device; audits of
+    // distinct devices complete concurrently
+    private final ConcurrentMap<DeviceId, Boolean> deviceAuditStatus = new ConcurrentHashMap<>();
+    private final ConcurrentMap<DeviceId, Object> deviceAuditLocks = new ConcurrentHashMap<>();
 
     private final AtomicInteger groupIdGen = new AtomicInteger();
 
@@ -230,6 +239,13 @@ public class DistributedGroupStore
                 .withName("onos-pending-group-keymap")
                 .withSerializer(serializer)
                 .build();
+        auditPendingReqQueue.addListener(pendingMapListener);
+        loadPendingGroupKeys();
+        auditPendingReqQueue.addStatusChangeListener(status -> {
+            if (status == Status.ACTIVE) {
+                executor.execute(this::loadPendingGroupKeys);
+            }
+        });
         log.debug("Current size of pendinggroupkeymap:{}",
                   auditPendingReqQueue.size());
 
@@ -242,6 +258,7 @@ public class DistributedGroupStore
     @Deactivate
     public void deactivate() {
         groupStoreEntriesByKey.removeListener(mapListener);
+        auditPendingReqQueue.removeListener(pendingMapListener);
         cfgService.unregisterProperties(getClass(), false);
         clusterCommunicator.removeSubscriber(GroupStoreMessageSubjects.REMOTE_GROUP_OP_REQUEST);
         log.info("Stopped");
@@ -279,22 +296,21 @@ public class DistributedGroupStore
      * Updating values of groupEntriesById.
      */
     private void matchGroupEntries() {
-        for (Entry<GroupStoreKeyMapKey, StoredGroupEntry> entry : groupStoreEntriesByKey.asJavaMap().entrySet()) {
-            StoredGroupEntry group = entry.getValue();
+        // page through the map rather than fetching all its entries at once
+        groupStoreEntriesByKey.iterator().forEachRemaining(entry -> {
+            StoredGroupEntry group = entry.getValue().value();
             getGroupIdTable(entry.getKey().deviceId()).put(group.id(), group);
-        }
+        });
     }
 
 
     private void synchronizeGroupStoreEntries() {
-        Map<GroupStoreKeyMapKey, StoredGroupEntry> groupEntryMap = groupStoreEntriesByKey.asJavaMap();
-        for (Entry<GroupStoreKeyMapKey, StoredGroupEntry> entry : groupEntryMap.entrySet()) {
-            GroupStoreKeyMapKey key = entry.getKey();
-            StoredGroupEntry value = entry.getValue();
+        groupStoreEntriesByKey.iterator().forEachRemaining(entry -> {
+            StoredGroupEntry value = entry.getValue().value();
 
             ConcurrentMap<GroupId, StoredGroupEntry> groupIdTable = getGroupIdTable(value.deviceId());
             groupIdTable.put(value.id(), value);
-        }
+        });
     }
 
     /**
@@ -368,11 +384,8 @@ public class DistributedGroupStore
             return Collections.emptySet();
         }
 
-        Set<StoredGroupEntry> storedGroups = getGroupStoreKeyMap().values()
-                .stream()
-                .filter(input -> input.deviceId().equals(deviceId))
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(storedGroups);
+        // the group id table of the device mirrors its entries of the key map
+        return ImmutableSet.copyOf(getGroupIdTable(deviceId).values());
     }
 
     /**
@@ -523,9 +536,15 @@ public class DistributedGroupStore
             group.setState(GroupState.WAITING_AUDIT_COMPLETE);
             Map<GroupStoreKeyMapKey, StoredGroupEntry> pendingKeyTable =
                     getPendingGroupKeyTable();
-            pendingKeyTable.put(new GroupStoreKeyMapKey(groupDesc.deviceId(),
-                                                        groupDesc.appCookie()),
-                                group);
+            GroupStoreKeyMapKey pendingKey = new GroupStoreKeyMapKey(groupDesc.deviceId(),
+                                                                     groupDesc.appCookie());
+            pendingKeyTable.put(pendingKey, group);
+            // index it right away, as the map event may come later
+            addPendingGroupKey(pendingKey);
+            if (deviceInitialAuditStatus(groupDesc.deviceId())) {
+                // the audit completed while queuing the request
+                processPendingGroupRequests(groupDesc.deviceId());
+            }
             return;
         }
 
@@ -987,68 +1006,101 @@ public class DistributedGroupStore
         });
     }
 
+    private void purgeGroupEntries(Iterator<Entry<GroupStoreKeyMapKey, Versioned<StoredGroupEntry>>> entries) {
+        entries.forEachRemaining(entry -> groupStoreEntriesByKey.remove(entry.getKey()));
+    }
+
     @Override
     public void purgeGroupEntry(DeviceId deviceId) {
         Set<Entry<GroupStoreKeyMapKey, StoredGroupEntry>> entriesPendingRemove =
                 new HashSet<>();
 
-        getGroupStoreKeyMap().entrySet().stream()
-                .filter(entry -> entry.getKey().deviceId().equals(deviceId))
-                .forEach(entriesPendingRemove::add);
+        getGroupIdTable(deviceId).values()
+                .forEach(group -> entriesPendingRemove.add(
+                        Maps.immutableEntry(new GroupStoreKeyMapKey(deviceId, group.appCookie()), group)));
 
         purgeGroupEntries(entriesPendingRemove);
     }
 
     @Override
     public void purgeGroupEntries() {
-        purgeGroupEntries(getGroupStoreKeyMap().entrySet());
+        purgeGroupEntries(groupStoreEntriesByKey.iterator());
     }
 
     @Override
     public void deviceInitialAuditCompleted(DeviceId deviceId,
                                             boolean completed) {
-        synchronized (deviceAuditStatus) {
-            if (completed) {
-                log.debug("AUDIT completed for device {}",
-                          deviceId);
-                deviceAuditStatus.put(deviceId, true);
-                // Execute all pending group requests
-                List<StoredGroupEntry> pendingGroupRequests =
-                        getPendingGroupKeyTable().values()
-                                .stream()
-                                .filter(g -> g.deviceId().equals(deviceId))
-                                .collect(Collectors.toList());
-                log.debug("processing pending group add requests for device {} and number of pending requests {}",
-                          deviceId,
-                          pendingGroupRequests.size());
-                for (Group group : pendingGroupRequests) {
-                    GroupDescription tmp = new DefaultGroupDescription(
-                            group.deviceId(),
-                            group.type(),
-                            group.buckets(),
-                            group.appCookie(),
-                            group.givenGroupId(),
-                            group.appId());
-                    storeGroupDescriptionInternal(tmp);
-                    getPendingGroupKeyTable().
-                            remove(new GroupStoreKeyMapKey(deviceId, group.appCookie()));
-                }
-            } else {
-                Boolean audited = deviceAuditStatus.get(deviceId);
-                if (audited != null && audited) {
-                    log.debug("Clearing AUDIT status for device {}", deviceId);
-                    deviceAuditStatus.put(deviceId, false);
+        if (completed) {
+            log.debug("AUDIT completed for device {}",
+                      deviceId);
+            deviceAuditStatus.put(deviceId, true);
+            // Execute all pending group requests
+            processPendingGroupRequests(deviceId);
+        } else if (deviceAuditStatus.replace(deviceId, true, false)) {
+            log.debug("Clearing AUDIT status for device {}", deviceId);
+        }
+    }
+
+    /**
+     * Processes the group requests of a device queued until the completion
+     * of its audit. Requests of distinct devices are processed concurrently.
+     *
+     * @param deviceId identifier of the device
+     */
+    private void processPendingGroupRequests(DeviceId deviceId) {
+        synchronized (deviceAuditLocks.computeIfAbsent(deviceId, k -> new Object())) {
+            Set<GroupStoreKeyMapKey> pendingKeys = pendingGroupKeysByDevice.get(deviceId);
+            if (pendingKeys == null || pendingKeys.isEmpty()) {
+                return;
+            }
+            List<StoredGroupEntry> pendingGroupRequests = new ArrayList<>();
+            for (GroupStoreKeyMapKey key : ImmutableList.copyOf(pendingKeys)) {
+                StoredGroupEntry pending = Versioned.valueOrNull(auditPendingReqQueue.get(key));
+                if (pending != null) {
+                    pendingGroupRequests.add(pending);
+                } else {
+                    removePendingGroupKey(key);
                 }
             }
+            log.debug("processing pending group add requests for device {} and number of pending requests {}",
+                      deviceId,
+                      pendingGroupRequests.size());
+            for (Group group : pendingGroupRequests) {
+                GroupDescription tmp = new DefaultGroupDescription(
+                        group.deviceId(),
+                        group.type(),
+                        group.buckets(),
+                        group.appCookie(),
+                        group.givenGroupId(),
+                        group.appId());
+                storeGroupDescriptionInternal(tmp);
+                GroupStoreKeyMapKey pendingKey = new GroupStoreKeyMapKey(deviceId, group.appCookie());
+                getPendingGroupKeyTable().remove(pendingKey);
+                removePendingGroupKey(pendingKey);
+            }
         }
     }
 
+    private void loadPendingGroupKeys() {
+        Set<GroupStoreKeyMapKey> keys = auditPendingReqQueue.keySet();
+        keys.forEach(this::addPendingGroupKey);
+        pendingGroupKeysByDevice.values().forEach(deviceKeys -> deviceKeys.retainAll(keys));
+    }
+
+    private void addPendingGroupKey(GroupStoreKeyMapKey key) {
+        pendingGroupKeysByDevice.computeIfAbsent(key.deviceId(), k -> Sets.newConcurrentHashSet()).add(key);
+    }
+
+    private void removePendingGroupKey(GroupStoreKeyMapKey key) {
+        pendingGroupKeysByDevice.computeIfPresent(key.deviceId(), (k, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
     @Override
     public boolean deviceInitialAuditStatus(DeviceId deviceId) {
-        synchronized (deviceAuditStatus) {
-            Boolean audited = deviceAuditStatus.get(deviceId);
-            return audited != null && audited;
-        }
+        return deviceAuditStatus.getOrDefault(deviceId, false);
     }
 
     @Override
@@ -1140,6 +1192,22 @@ public class DistributedGroupStore
                 getExtraneousGroupIdTable(deviceId).values());
     }
 
+    /**
+     * Map handler keeping the index of the pending group requests by device.
+     */
+    private class PendingGroupKeyMapListener implements
+            MapEventListener<GroupStoreKeyMapKey, StoredGroupEntry> {
+
+        @Override
+        public void event(MapEvent<GroupStoreKeyMapKey, StoredGroupEntry> mapEvent) {
+            if (mapEvent.type() == MapEvent.Type.REMOVE) {
+                removePendingGroupKey(mapEvent.key());
+            } else {
+                addPendingGroupKey(mapEvent.key());
+            }
+        }
+    }
+
     /**
      * Map handler to receive any events when the group key map is updated.
      */
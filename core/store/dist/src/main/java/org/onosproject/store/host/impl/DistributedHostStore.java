@@ -16,6 +16,7 @@
 package org.onosproject.store.host.impl;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import org.apache.felix.scr.annotations.Activate;
@@ -48,10 +49,10 @@ import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
+import org.onosproject.store.service.Versioned;
 import org.onosproject.store.service.DistributedPrimitive.Status;
 import org.slf4j.Logger;
 
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -59,9 +60,8 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -85,10 +85,23 @@ public class DistributedHostStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected StorageService storageService;
 
+    private static final long HOST_CACHE_TTL_MINUTES = 10;
+    private static final long HOST_CACHE_SIZE = 100000;
+    private static final long TOMBSTONE_TTL_SECONDS = 60;
+
     private ConsistentMap<HostId, DefaultHost> hostsConsistentMap;
     private Map<HostId, DefaultHost> hosts;
     private Map<IpAddress, Set<Host>> hostsByIp;
 
+    // Secondary indexes, maintained from the events of the hosts map; the
+    // version of each indexed host keeps late events from undoing newer ones,
+    // and removed hosts leave a tombstone, with a null value, for a while
+    private final Map<HostId, Versioned<DefaultHost>> indexedHosts = Maps.newConcurrentMap();
+    private final Map<MacAddress, Map<HostId, Host>> hostsByMac = Maps.newConcurrentMap();
+    private final Map<VlanId, Map<HostId, Host>> hostsByVlan = Maps.newConcurrentMap();
+    private final Map<ConnectPoint, Map<HostId, Host>> hostsByLocation = Maps.newConcurrentMap();
+    private final Map<DeviceId, Map<HostId, Host>> hostsByDevice = Maps.newConcurrentMap();
+
     private MapEventListener<HostId, DefaultHost> hostLocationTracker =
             new HostLocationTracker();
 
@@ -103,7 +116,7 @@ public class DistributedHostStore
 
         hostsConsistentMap = storageService.<HostId, DefaultHost>consistentMapBuilder()
                 .withName("onos-hosts")
-                .withRelaxedReadConsistency()
+                .withNearCache(HOST_CACHE_TTL_MINUTES, TimeUnit.MINUTES, HOST_CACHE_SIZE)
                 .withSerializer(Serializer.using(hostSerializer.build()))
                 .build();
 
@@ -116,16 +129,22 @@ public class DistributedHostStore
         statusChangeListener = status -> {
             if (status == Status.ACTIVE) {
                 executor.execute(this::loadHostsByIp);
+                executor.execute(this::loadHostIndexes);
             }
         };
         hostsConsistentMap.addStatusChangeListener(statusChangeListener);
         loadHostsByIp();
+        loadHostIndexes();
+        executor.scheduleWithFixedDelay(this::purgeTombstones, TOMBSTONE_TTL_SECONDS,
+                                        TOMBSTONE_TTL_SECONDS, TimeUnit.SECONDS);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
         hostsConsistentMap.removeListener(hostLocationTracker);
+        hostsConsistentMap.removeStatusChangeListener(statusChangeListener);
+        executor.shutdownNow();
 
         log.info("Stopped");
     }
@@ -144,6 +163,32 @@ public class DistributedHostStore
         });
     }
 
+    private void loadHostIndexes() {
+        // hosts missing from the snapshot were removed only if no event
+        // updated their index while the snapshot was taken
+        Map<HostId, Long> versions = Maps.newHashMap();
+        indexedHosts.forEach((hostId, indexed) -> versions.put(hostId, indexed.version()));
+        Set<HostId> hostIds = Sets.newHashSet();
+        hostsConsistentMap.entrySet().forEach(entry -> {
+            hostIds.add(entry.getKey());
+            updateHostIndexes(entry.getKey(), entry.getValue());
+        });
+        versions.forEach((hostId, version) -> {
+            Versioned<DefaultHost> indexed = indexedHosts.get(hostId);
+            if (!hostIds.contains(hostId) && indexed != null && indexed.value() != null &&
+                    indexed.version() == version) {
+                removeHostIndexes(hostId, indexed);
+            }
+        });
+    }
+
+    // Drops the tombstones old enough for no late event to be expected
+    private void purgeTombstones() {
+        long expired = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(TOMBSTONE_TTL_SECONDS);
+        indexedHosts.entrySet().removeIf(entry -> entry.getValue().value() == null &&
+                entry.getValue().creationTime() < expired);
+    }
+
     private boolean shouldUpdate(DefaultHost existingHost,
                                  ProviderId providerId,
                                  HostDescription hostDescription,
@@ -282,12 +327,12 @@ public class DistributedHostStore
 
     @Override
     public Set<Host> getHosts(VlanId vlanId) {
-        return filter(hosts.values(), host -> Objects.equals(host.vlan(), vlanId));
+        return lookup(hostsByVlan, vlanId);
     }
 
     @Override
     public Set<Host> getHosts(MacAddress mac) {
-        return filter(hosts.values(), host -> Objects.equals(host.mac(), mac));
+        return lookup(hostsByMac, mac);
     }
 
     @Override
@@ -298,24 +343,80 @@ public class DistributedHostStore
 
     @Override
     public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().location().equals(connectPoint))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return lookup(hostsByLocation, locationKey(connectPoint));
     }
 
     @Override
     public Set<Host> getConnectedHosts(DeviceId deviceId) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().location().deviceId().equals(deviceId))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return lookup(hostsByDevice, deviceId);
     }
 
-    private Set<Host> filter(Collection<DefaultHost> collection, Predicate<DefaultHost> predicate) {
-        return collection.stream().filter(predicate).collect(Collectors.toSet());
+    private <K> Set<Host> lookup(Map<K, Map<HostId, Host>> index, K key) {
+        Map<HostId, Host> indexed = index.get(key);
+        return indexed != null ? ImmutableSet.copyOf(indexed.values()) : ImmutableSet.of();
+    }
+
+    // Strips the host location down to its connect point
+    private static ConnectPoint locationKey(ConnectPoint location) {
+        return new ConnectPoint(location.elementId(), location.port());
+    }
+
+    private void updateHostIndexes(HostId hostId, Versioned<DefaultHost> host) {
+        indexedHosts.compute(hostId, (id, indexed) -> {
+            if (indexed != null) {
+                if (indexed.version() >= host.version()) {
+                    return indexed;
+                }
+                if (indexed.value() != null) {
+                    unindexHost(indexed.value());
+                }
+            }
+            indexHost(host.value());
+            return host;
+        });
+    }
+
+    private void removeHostIndexes(HostId hostId, Versioned<DefaultHost> removed) {
+        indexedHosts.compute(hostId, (id, indexed) -> {
+            if (indexed != null) {
+                if (indexed.version() > removed.version()) {
+                    return indexed;
+                }
+                if (indexed.value() != null) {
+                    unindexHost(indexed.value());
+                }
+            }
+            return new Versioned<>(null, removed.version());
+        });
+    }
+
+    private void indexHost(Host host) {
+        index(hostsByMac, host.mac(), host);
+        index(hostsByVlan, host.vlan(), host);
+        index(hostsByLocation, locationKey(host.location()), host);
+        index(hostsByDevice, host.location().deviceId(), host);
+    }
+
+    private void unindexHost(Host host) {
+        unindex(hostsByMac, host.mac(), host);
+        unindex(hostsByVlan, host.vlan(), host);
+        unindex(hostsByLocation, locationKey(host.location()), host);
+        unindex(hostsByDevice, host.location().deviceId(), host);
+    }
+
+    private static <K> void index(Map<K, Map<HostId, Host>> index, K key, Host host) {
+        index.compute(key, (k, indexed) -> {
+            Map<HostId, Host> hosts = indexed == null ? Maps.newConcurrentMap() : indexed;
+            hosts.put(host.id(), host);
+            return hosts;
+        });
+    }
+
+    private static <K> void unindex(Map<K, Map<HostId, Host>> index, K key, Host host) {
+        index.computeIfPresent(key, (k, indexed) -> {
+            indexed.remove(host.id());
+            return indexed.isEmpty() ? null : indexed;
+        });
     }
 
     private Set<Host> addHosts(Host host) {
@@ -377,10 +478,12 @@ public class DistributedHostStore
             switch (event.type()) {
                 case INSERT:
                     updateHostsByIp(host);
+                    updateHostIndexes(event.key(), event.newValue());
                     notifyDelegate(new HostEvent(HOST_ADDED, host));
                     break;
                 case UPDATE:
                     updateHostsByIp(host);
+                    updateHostIndexes(event.key(), event.newValue());
                     DefaultHost prevHost = checkNotNull(event.oldValue().value());
                     if (!Objects.equals(prevHost.location(), host.location())) {
                         notifyDelegate(new HostEvent(HOST_MOVED, host, prevHost));
@@ -390,6 +493,7 @@ public class DistributedHostStore
                     break;
                 case REMOVE:
                     removeHostsByIp(host);
+                    removeHostIndexes(event.key(), event.oldValue());
                     notifyDelegate(new HostEvent(HOST_REMOVED, host));
                     break;
                 default:
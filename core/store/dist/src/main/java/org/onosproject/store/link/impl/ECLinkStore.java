@@ -15,12 +15,10 @@
  */
 package org.onosproject.store.link.impl;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.apache.felix.scr.annotations.Activate;
@@ -118,6 +116,12 @@ public class ECLinkStore
 
     private final Map<LinkKey, Link> links = Maps.newConcurrentMap();
     private final Map<LinkKey, Set<ProviderId>> linkProviders = Maps.newConcurrentMap();
+
+    // Adjacency indexes of the links cache; updated atomically with it
+    private final Map<DeviceId, Set<LinkKey>> deviceEgressLinks = Maps.newConcurrentMap();
+    private final Map<DeviceId, Set<LinkKey>> deviceIngressLinks = Maps.newConcurrentMap();
+    private final Map<ConnectPoint, Set<LinkKey>> egressLinks = Maps.newConcurrentMap();
+    private final Map<ConnectPoint, Set<LinkKey>> ingressLinks = Maps.newConcurrentMap();
     private EventuallyConsistentMap<Provided<LinkKey>, LinkDescription> linkDescriptions;
 
 
@@ -201,7 +205,7 @@ public class ECLinkStore
         linkDescriptions.removeListener(linkTracker);
         linkDescriptions.destroy();
         linkProviders.clear();
-        links.clear();
+        clearLinkCache();
         clusterCommunicator.removeSubscriber(LINK_INJECT_MESSAGE);
         netCfgService.removeListener(cfgListener);
         netCfgService.unregisterConfigFactory(factory);
@@ -221,12 +225,12 @@ public class ECLinkStore
 
     @Override
     public Set<Link> getDeviceEgressLinks(DeviceId deviceId) {
-        return filter(links.values(), link -> deviceId.equals(link.src().deviceId()));
+        return lookup(deviceEgressLinks, deviceId);
     }
 
     @Override
     public Set<Link> getDeviceIngressLinks(DeviceId deviceId) {
-        return filter(links.values(), link -> deviceId.equals(link.dst().deviceId()));
+        return lookup(deviceIngressLinks, deviceId);
     }
 
     @Override
@@ -236,12 +240,12 @@ public class ECLinkStore
 
     @Override
     public Set<Link> getEgressLinks(ConnectPoint src) {
-        return filter(links.values(), link -> src.equals(link.src()));
+        return lookup(egressLinks, src);
     }
 
     @Override
     public Set<Link> getIngressLinks(ConnectPoint dst) {
-        return filter(links.values(), link -> dst.equals(link.dst()));
+        return lookup(ingressLinks, dst);
     }
 
     @Override
@@ -323,9 +327,13 @@ public class ECLinkStore
         Link link = links.compute(linkKey, (key, existingLink) -> {
             Link newLink = composeLink(linkKey);
             if (newLink == null) {
+                if (existingLink != null) {
+                    unindex(key);
+                }
                 return null;
             }
             if (existingLink == null) {
+                index(key);
                 eventType.set(LINK_ADDED);
                 return newLink;
             } else if (existingLink.state() != newLink.state() ||
@@ -418,7 +426,12 @@ public class ECLinkStore
                 (oldLink.type() == INDIRECT && newLink.type() == DIRECT) ||
                 !AnnotationsUtil.isEqual(oldLink.annotations(), newLink.annotations())) {
 
-            links.put(key, newLink);
+            links.compute(key, (k, existingLink) -> {
+                if (existingLink == null) {
+                    index(k);
+                }
+                return newLink;
+            });
             return new LinkEvent(LINK_UPDATED, newLink);
         }
         return null;
@@ -465,7 +478,13 @@ public class ECLinkStore
     }
 
     private LinkEvent purgeLinkCache(LinkKey linkKey) {
-        Link removedLink = links.remove(linkKey);
+        AtomicReference<Link> removed = new AtomicReference<>();
+        links.computeIfPresent(linkKey, (key, existingLink) -> {
+            unindex(key);
+            removed.set(existingLink);
+            return null;
+        });
+        Link removedLink = removed.get();
         if (removedLink != null) {
             getAllProviders(linkKey).forEach(p -> linkDescriptions.remove(new Provided<>(linkKey, p)));
             linkProviders.remove(linkKey);
@@ -474,8 +493,54 @@ public class ECLinkStore
         return null;
     }
 
-    private Set<Link> filter(Collection<Link> links, Predicate<Link> predicate) {
-        return links.stream().filter(predicate).collect(Collectors.toSet());
+    private void clearLinkCache() {
+        links.clear();
+        deviceEgressLinks.clear();
+        deviceIngressLinks.clear();
+        egressLinks.clear();
+        ingressLinks.clear();
+    }
+
+    // Adds a link to the adjacency indexes; guarded by the links cache entry
+    private void index(LinkKey linkKey) {
+        index(deviceEgressLinks, linkKey.src().deviceId(), linkKey);
+        index(deviceIngressLinks, linkKey.dst().deviceId(), linkKey);
+        index(egressLinks, linkKey.src(), linkKey);
+        index(ingressLinks, linkKey.dst(), linkKey);
+    }
+
+    // Removes a link from the adjacency indexes; guarded by the links cache entry
+    private void unindex(LinkKey linkKey) {
+        unindex(deviceEgressLinks, linkKey.src().deviceId(), linkKey);
+        unindex(deviceIngressLinks, linkKey.dst().deviceId(), linkKey);
+        unindex(egressLinks, linkKey.src(), linkKey);
+        unindex(ingressLinks, linkKey.dst(), linkKey);
+    }
+
+    private static <K> void index(Map<K, Set<LinkKey>> index, K key, LinkKey linkKey) {
+        index.compute(key, (k, linkKeys) -> {
+            Set<LinkKey> keys = linkKeys == null ? Sets.newConcurrentHashSet() : linkKeys;
+            keys.add(linkKey);
+            return keys;
+        });
+    }
+
+    private static <K> void unindex(Map<K, Set<LinkKey>> index, K key, LinkKey linkKey) {
+        index.computeIfPresent(key, (k, linkKeys) -> {
+            linkKeys.remove(linkKey);
+            return linkKeys.isEmpty() ? null : linkKeys;
+        });
+    }
+
+    private <K> Set<Link> lookup(Map<K, Set<LinkKey>> index, K key) {
+        Set<LinkKey> linkKeys = index.get(key);
+        if (linkKeys == null) {
+            return Sets.newHashSet();
+        }
+        return linkKeys.stream()
+                .map(links::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
     }
 
     private LinkEvent injectLink(Provided<LinkDescription> linkInjectRequest) {
@@ -522,7 +587,7 @@ public class ECLinkStore
                     linkDescriptions.clear();
                 }
                 if (links != null) {
-                    links.clear();
+                    clearLinkCache();
                 }
             }
             log.debug("config set link discovery mode to {}",
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -64,6 +65,7 @@ import org.slf4j.Logger;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -104,6 +106,10 @@ public class ConsistentDeviceMastershipStore
     private final LeadershipEventListener leadershipEventListener =
             new InternalDeviceMastershipEventListener();
 
+    // Index of the devices mastered by each node, maintained from the leadership events
+    private final Map<DeviceId, NodeId> masters = Maps.newConcurrentMap();
+    private final Map<NodeId, Set<DeviceId>> mastersDevices = Maps.newConcurrentMap();
+
     private static final String NODE_ID_NULL = "Node ID cannot be null";
     private static final String DEVICE_ID_NULL = "Device ID cannot be null";
     private static final int WAIT_BEFORE_MASTERSHIP_HANDOFF_MILLIS = 3000;
@@ -135,6 +141,7 @@ public class ConsistentDeviceMastershipStore
                 messageHandlingExecutor);
         localNodeId = clusterService.getLocalNode().id();
         leadershipService.addListener(leadershipEventListener);
+        loadMasters();
 
         log.info("Started");
     }
@@ -210,16 +217,41 @@ public class ConsistentDeviceMastershipStore
     public Set<DeviceId> getDevices(NodeId nodeId) {
         checkArgument(nodeId != null, NODE_ID_NULL);
 
-        // FIXME This result contains REMOVED device.
-        // MastershipService cannot listen to DeviceEvent to GC removed topic,
-        // since DeviceManager depend on it.
-        // Reference count, etc. at LeadershipService layer?
-        return leadershipService
-                .ownedTopics(nodeId)
-                .stream()
-                .filter(this::isDeviceMastershipTopic)
-                .map(this::extractDeviceIdFromTopic)
-                .collect(Collectors.toSet());
+        // Devices drop out of the index once their leadership has no leader,
+        // i.e. when every node has relinquished its role for a removed device.
+        Set<DeviceId> devices = mastersDevices.get(nodeId);
+        return devices == null ? ImmutableSet.of() : ImmutableSet.copyOf(devices);
+    }
+
+    /**
+     * Updates the index of mastered devices with the current master of a device.
+     *
+     * @param deviceId device identifier
+     * @param master current master; {@code null} if the device has none
+     */
+    private synchronized void updateMaster(DeviceId deviceId, NodeId master) {
+        NodeId previous = master == null ? masters.remove(deviceId) : masters.put(deviceId, master);
+        if (previous != null && !previous.equals(master)) {
+            Set<DeviceId> devices = mastersDevices.get(previous);
+            if (devices != null) {
+                devices.remove(deviceId);
+            }
+        }
+        if (master != null) {
+            mastersDevices.computeIfAbsent(master, k -> ConcurrentHashMap.newKeySet()).add(deviceId);
+        }
+    }
+
+    /**
+     * Indexes the mastered devices of the current leader board.
+     */
+    private synchronized void loadMasters() {
+        // events indexed once the lock is released are newer than this board
+        leadershipService.getLeaderBoard().forEach((topic, leadership) -> {
+            if (isDeviceMastershipTopic(topic) && leadership.leaderNodeId() != null) {
+                updateMaster(extractDeviceIdFromTopic(topic), leadership.leaderNodeId());
+            }
+        });
     }
 
     @Override
@@ -318,6 +350,12 @@ public class ConsistentDeviceMastershipStore
 
         @Override
         public void event(LeadershipEvent event) {
+            // the leadership of every topic is restored with its own event,
+            // which carries the leader changes made during the disruption
+            if (event.type() != LeadershipEvent.Type.SERVICE_DISRUPTED) {
+                Leadership leadership = event.subject();
+                updateMaster(extractDeviceIdFromTopic(leadership.topic()), leadership.leaderNodeId());
+            }
             eventHandler.execute(() -> handleEvent(event));
         }
 
@@ -17,6 +17,7 @@ package org.onosproject.store.resource.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import org.onlab.util.Tools;
 import org.onosproject.net.resource.ContinuousResource;
 import org.onosproject.net.resource.ContinuousResourceId;
 import org.onosproject.net.resource.DiscreteResourceId;
@@ -147,8 +148,9 @@ class ConsistentContinuousResourceSubStore implements ConsistentResourceSubStore
 
     @Override
     public Stream<ContinuousResource> getResources(ResourceConsumerId consumerId) {
-        return consumers.values().stream()
-                .flatMap(x -> x.value().allocations().stream())
+        // pages through the allocations rather than loading them all at once
+        return Tools.stream(consumers::iterator)
+                .flatMap(x -> x.getValue().value().allocations().stream())
                 .filter(x -> x.consumerId().equals(consumerId))
                 // this cast is safe because this class stores
                 // continuous resource allocations only
@@ -17,20 +17,30 @@ package org.onosproject.store.resource.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onosproject.net.resource.DiscreteResource;
 import org.onosproject.net.resource.DiscreteResourceId;
 import org.onosproject.net.resource.Resource;
 import org.onosproject.net.resource.ResourceAllocation;
+import org.onosproject.net.resource.ResourceConsumer;
 import org.onosproject.net.resource.ResourceConsumerId;
 import org.onosproject.net.resource.Resources;
+import org.onosproject.store.service.CommitStatus;
 import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.DistributedPrimitive;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.TransactionContext;
 import org.onosproject.store.service.Versioned;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Stream;
 
 import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIALIZER;
@@ -40,7 +50,14 @@ import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIAL
  */
 class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
         <DiscreteResourceId, DiscreteResource, TransactionalDiscreteResourceSubStore> {
+    // entry of the consumer index present once the allocations made before
+    // the index was introduced are indexed; no consumer has this ID
+    static final ResourceConsumerId INDEXED = ResourceConsumerId.of(0, ResourceConsumer.class);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
     private ConsistentMap<DiscreteResourceId, ResourceConsumerId> consumers;
+    // reverse index of the consumers map, kept consistent with it by the transactional sub-store
+    private ConsistentMap<ResourceConsumerId, Set<DiscreteResourceId>> consumerIndex;
     private ConsistentMap<DiscreteResourceId, DiscreteResources> childMap;
 
     ConsistentDiscreteResourceSubStore(StorageService service) {
@@ -48,12 +65,61 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
                 .withName(MapNames.DISCRETE_CONSUMER_MAP)
                 .withSerializer(SERIALIZER)
                 .build();
+        this.consumerIndex = service.<ResourceConsumerId, Set<DiscreteResourceId>>consistentMapBuilder()
+                .withName(MapNames.DISCRETE_CONSUMER_INDEX_MAP)
+                .withSerializer(SERIALIZER)
+                .build();
         this.childMap = service.<DiscreteResourceId, DiscreteResources>consistentMapBuilder()
                 .withName(MapNames.DISCRETE_CHILD_MAP)
                 .withSerializer(SERIALIZER)
                 .build();
 
         childMap.put(Resource.ROOT.id(), DiscreteResources.empty());
+        if (!consumerIndex.containsKey(INDEXED)) {
+            indexAllocations(service);
+        }
+    }
+
+    /**
+     * Adds the allocations made before the consumer index was introduced to
+     * the index, one transaction per consumer, then marks the index as
+     * complete so that later activations skip the scan.
+     *
+     * @param service storage service
+     */
+    private void indexAllocations(StorageService service) {
+        Map<ResourceConsumerId, Set<DiscreteResourceId>> indexed = Maps.newHashMap();
+        Map<ResourceConsumerId, Set<DiscreteResourceId>> unindexed = Maps.newHashMap();
+        consumers.iterator().forEachRemaining(entry -> {
+            ResourceConsumerId consumerId = entry.getValue().value();
+            Set<DiscreteResourceId> ids = indexed.computeIfAbsent(consumerId, id -> {
+                Versioned<Set<DiscreteResourceId>> allocated = consumerIndex.get(id);
+                return allocated == null ? ImmutableSet.of() : allocated.value();
+            });
+            if (!ids.contains(entry.getKey())) {
+                unindexed.computeIfAbsent(consumerId, id -> Sets.newHashSet()).add(entry.getKey());
+            }
+        });
+
+        for (Map.Entry<ResourceConsumerId, Set<DiscreteResourceId>> entry : unindexed.entrySet()) {
+            log.info("Indexing {} resources allocated to {}", entry.getValue().size(), entry.getKey());
+            while (true) {
+                TransactionContext tx = service.transactionContextBuilder().build();
+                tx.begin();
+                transactional(tx).index(entry.getKey(), entry.getValue());
+                try {
+                    if (tx.commit().get(DistributedPrimitive.DEFAULT_OPERTATION_TIMEOUT_MILLIS,
+                                        TimeUnit.MILLISECONDS) == CommitStatus.SUCCESS) {
+                        break;
+                    }
+                } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                    // left unmarked so that the next activation tries again
+                    log.warn("Failed to index the resources allocated to {}: {}", entry.getKey(), e);
+                    return;
+                }
+            }
+        }
+        consumerIndex.put(INDEXED, ImmutableSet.of());
     }
 
     @Override
@@ -111,11 +177,15 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
                 .filter(x -> consumers.containsKey(x.id()));
     }
 
+    // computational complexity: O(n) where n is the number of the resources allocated to the consumer
     @Override
     public Stream<DiscreteResource> getResources(ResourceConsumerId consumerId) {
-        return consumers.entrySet().stream()
-                .filter(x -> x.getValue().value().equals(consumerId))
-                .map(Map.Entry::getKey)
+        Versioned<Set<DiscreteResourceId>> allocated = consumerIndex.get(consumerId);
+        if (allocated == null) {
+            return Stream.of();
+        }
+
+        return allocated.value().stream()
                 .map(x -> Resources.discrete(x).resource());
     }
 }
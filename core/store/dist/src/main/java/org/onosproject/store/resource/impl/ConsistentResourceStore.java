@@ -16,6 +16,7 @@
 package org.onosproject.store.resource.impl;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -29,6 +30,8 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableSet;
 import org.apache.felix.scr.annotations.Activate;
@@ -36,6 +39,9 @@ import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.Tools;
 import org.onosproject.net.resource.ContinuousResource;
@@ -63,6 +69,8 @@ import org.slf4j.LoggerFactory;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onosproject.net.resource.ResourceEvent.Type.RESOURCE_ADDED;
 import static org.onosproject.net.resource.ResourceEvent.Type.RESOURCE_REMOVED;
 
@@ -89,17 +97,38 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
             .register(MplsLabelCodec.class)
             .build());
 
+    private static final String METRICS_COMPONENT = "ResourceStore";
+    private static final String METRICS_FEATURE = "transaction";
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected StorageService service;
 
+    // the commits are only measured when a metrics service is available
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
+
     private ConsistentDiscreteResourceSubStore discreteStore;
     private ConsistentContinuousResourceSubStore continuousStore;
 
+    // latency of the transaction commits, and rates of the commits and of
+    // those failing on a conflict with a concurrent transaction
+    private Timer commitTimer;
+    private Meter commitMeter;
+    private Meter conflictMeter;
+
     @Activate
     public void activate() {
         discreteStore = new ConsistentDiscreteResourceSubStore(service);
         continuousStore = new ConsistentContinuousResourceSubStore(service);
 
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            commitTimer = metricsService.createTimer(component, feature, "commitLatency");
+            commitMeter = metricsService.createMeter(component, feature, "commits");
+            conflictMeter = metricsService.createMeter(component, feature, "conflicts");
+        }
+
         log.info("Started");
     }
 
@@ -235,16 +264,8 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
 
             TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
             TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
-            for (Resource resource : resources) {
-                if (resource instanceof DiscreteResource) {
-                    if (!discreteTxStore.allocate(consumer.consumerId(), (DiscreteResource) resource)) {
-                        return abortTransaction(tx);
-                    }
-                } else if (resource instanceof ContinuousResource) {
-                    if (!continuousTxStore.allocate(consumer.consumerId(), (ContinuousResource) resource)) {
-                        return abortTransaction(tx);
-                    }
-                }
+            if (!allocate(discreteTxStore, continuousTxStore, consumer, resources)) {
+                return abortTransaction(tx);
             }
 
             try {
@@ -258,6 +279,50 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         }
     }
 
+    @Override
+    public Map<ResourceConsumer, Boolean> allocate(
+            Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests) {
+        checkNotNull(requests);
+
+        // Retry the transaction until successful.
+        while (true) {
+            TransactionContext tx = service.transactionContextBuilder().build();
+            tx.begin();
+
+            TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
+            TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
+            Map<ResourceConsumer, Boolean> results = new LinkedHashMap<>();
+            for (Map.Entry<? extends ResourceConsumer, ? extends List<? extends Resource>> entry
+                    : requests.entrySet()) {
+                ResourceConsumer consumer = entry.getKey();
+                List<? extends Resource> resources = entry.getValue();
+                // the resources are checked up front as a failed request can't be undone
+                // without aborting the requests of the other consumers
+                boolean allocatable = isAllocatable(discreteTxStore, continuousTxStore, resources);
+                if (allocatable && !allocate(discreteTxStore, continuousTxStore, consumer, resources)) {
+                    log.warn("Failed to allocate {} after checking them", resources);
+                    abortTransaction(tx);
+                    return failure(requests);
+                }
+                results.put(consumer, allocatable);
+            }
+
+            if (!results.containsValue(true)) {
+                abortTransaction(tx);
+                return results;
+            }
+
+            try {
+                if (commitTransaction(tx) == CommitStatus.SUCCESS) {
+                    return results;
+                }
+            } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                log.warn("Failed to allocate resources to {} consumers: {}", requests.size(), e);
+                return failure(requests);
+            }
+        }
+    }
+
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         checkNotNull(allocations);
@@ -310,13 +375,13 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         }
     }
 
-    // computational complexity: O(n + m) where n is the number of entries in discreteConsumers
-    // and m is the number of allocations for all continuous resources
+    // computational complexity: O(n + m) where n is the number of discrete resources allocated
+    // to the consumer and m is the number of allocations for all continuous resources
     @Override
     public Collection<Resource> getResources(ResourceConsumer consumer) {
         checkNotNull(consumer);
 
-        // NOTE: getting all entries may become performance bottleneck
+        // NOTE: getting all continuous allocations may become performance bottleneck
         // TODO: revisit for better backend data structure
         Stream<DiscreteResource> discrete = discreteStore.getResources(consumer.consumerId());
         Stream<ContinuousResource> continuous = continuousStore.getResources(consumer.consumerId());
@@ -366,7 +431,37 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
      */
     private CommitStatus commitTransaction(TransactionContext tx)
             throws InterruptedException, ExecutionException, TimeoutException {
-        return tx.commit().get(DistributedPrimitive.DEFAULT_OPERTATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        Timer.Context timer = startTimer(commitTimer);
+        try {
+            CommitStatus status = tx.commit()
+                    .get(DistributedPrimitive.DEFAULT_OPERTATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            mark(commitMeter);
+            if (status != CommitStatus.SUCCESS) {
+                mark(conflictMeter);
+            }
+            return status;
+        } finally {
+            stopTimer(timer);
+        }
+    }
+
+    /**
+     * Returns the result of an allocation failed for all the consumers.
+     *
+     * @param requests requested allocations
+     * @return failure of the allocation for every consumer
+     */
+    private static Map<ResourceConsumer, Boolean> failure(
+            Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests) {
+        Map<ResourceConsumer, Boolean> results = new LinkedHashMap<>();
+        requests.keySet().forEach(x -> results.put(x, false));
+        return results;
+    }
+
+    private static void mark(Meter meter) {
+        if (meter != null) {
+            meter.mark();
+        }
     }
 
     /**
@@ -380,6 +475,63 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         return false;
     }
 
+    /**
+     * Checks that all the given resources can be allocated together, without
+     * allocating them.
+     *
+     * @param discreteTxStore   transactional store of discrete resources
+     * @param continuousTxStore transactional store of continuous resources
+     * @param resources         resources to be allocated
+     * @return true if the resources can be allocated, false otherwise
+     */
+    private boolean isAllocatable(TransactionalDiscreteResourceSubStore discreteTxStore,
+                                  TransactionalContinuousResourceSubStore continuousTxStore,
+                                  List<? extends Resource> resources) {
+        Set<DiscreteResourceId> discrete = new HashSet<>();
+        Map<ContinuousResourceId, Double> continuous = new LinkedHashMap<>();
+        for (Resource resource : resources) {
+            if (resource instanceof DiscreteResource) {
+                DiscreteResourceId id = ((DiscreteResource) resource).id();
+                if (!discrete.add(id) || !discreteTxStore.lookup(id).isPresent()
+                        || discreteTxStore.isAllocated(id)) {
+                    return false;
+                }
+            } else if (resource instanceof ContinuousResource) {
+                ContinuousResource request = (ContinuousResource) resource;
+                continuous.merge(request.id(), request.value(), Double::sum);
+            }
+        }
+
+        return continuous.entrySet().stream()
+                .allMatch(x -> continuousTxStore.hasEnoughResource(x.getKey(), x.getValue()));
+    }
+
+    /**
+     * Allocates the given resources to the consumer.
+     *
+     * @param discreteTxStore   transactional store of discrete resources
+     * @param continuousTxStore transactional store of continuous resources
+     * @param consumer          consumer the resources are allocated to
+     * @param resources         resources to be allocated
+     * @return true if the operation succeeds, false otherwise
+     */
+    private boolean allocate(TransactionalDiscreteResourceSubStore discreteTxStore,
+                             TransactionalContinuousResourceSubStore continuousTxStore,
+                             ResourceConsumer consumer, List<? extends Resource> resources) {
+        for (Resource resource : resources) {
+            if (resource instanceof DiscreteResource) {
+                if (!discreteTxStore.allocate(consumer.consumerId(), (DiscreteResource) resource)) {
+                    return false;
+                }
+            } else if (resource instanceof ContinuousResource) {
+                if (!continuousTxStore.allocate(consumer.consumerId(), (ContinuousResource) resource)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Appends the values to the existing values associated with the specified key.
      * If the map already has all the given values, appending will not happen.
@@ -55,13 +55,25 @@ final class ContinuousResourceAllocation {
      */
     // computational complexity: O(n) where n is the number of allocations
     boolean hasEnoughResource(ContinuousResource request) {
+        return hasEnoughResource(request.value());
+    }
+
+    /**
+     * Checks if there is enough resource volume to allocate the requested volume
+     * against the specified resource.
+     *
+     * @param volume    requested volume
+     * @return true if there is enough resource volume. Otherwise, false.
+     */
+    // computational complexity: O(n) where n is the number of allocations
+    boolean hasEnoughResource(double volume) {
         double allocated = allocations.stream()
                 .filter(x -> x.resource() instanceof ContinuousResource)
                 .map(x -> (ContinuousResource) x.resource())
                 .mapToDouble(ContinuousResource::value)
                 .sum();
         double left = original.value() - allocated;
-        return request.value() <= left;
+        return volume <= left;
     }
 
     ImmutableList<ResourceAllocation> allocations() {
@@ -155,6 +155,26 @@ class TransactionalContinuousResourceSubStore
         return appendValue(original, new ResourceAllocation(request, consumerId));
     }
 
+    /**
+     * Checks that the specified resource is registered and that the given
+     * volume of it is left to allocate.
+     *
+     * @param id     ID of the resource
+     * @param volume volume to be allocated
+     * @return true if the volume can be allocated, false otherwise
+     */
+    boolean hasEnoughResource(ContinuousResourceId id, double volume) {
+        Optional<ContinuousResource> lookedUp = lookup(id);
+        if (!lookedUp.isPresent()) {
+            return false;
+        }
+
+        ContinuousResourceAllocation allocations = consumers.get(id);
+        return Optional.ofNullable(allocations)
+                .orElse(ContinuousResourceAllocation.empty(lookedUp.get()))
+                .hasEnoughResource(volume);
+    }
+
     // Appends the specified ResourceAllocation to the existing values stored in the map
     // computational complexity: O(n) where n is the number of the elements in the associated allocation
     private boolean appendValue(ContinuousResource original, ResourceAllocation value) {
@@ -15,9 +15,12 @@
  */
 package org.onosproject.store.resource.impl;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onosproject.net.resource.DiscreteResource;
 import org.onosproject.net.resource.DiscreteResourceId;
 import org.onosproject.net.resource.Resource;
@@ -37,10 +40,14 @@ class TransactionalDiscreteResourceSubStore
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final TransactionalMap<DiscreteResourceId, DiscreteResources> childMap;
     private final TransactionalMap<DiscreteResourceId, ResourceConsumerId> consumers;
+    private final TransactionalMap<ResourceConsumerId, Set<DiscreteResourceId>> consumerIndex;
+    // index entries written by this transaction, updated in place rather than copied on every change
+    private final Map<ResourceConsumerId, Set<DiscreteResourceId>> stagedIndex = Maps.newHashMap();
 
     TransactionalDiscreteResourceSubStore(TransactionContext tx) {
         this.childMap = tx.getTransactionalMap(MapNames.DISCRETE_CHILD_MAP, SERIALIZER);
         this.consumers = tx.getTransactionalMap(MapNames.DISCRETE_CONSUMER_MAP, SERIALIZER);
+        this.consumerIndex = tx.getTransactionalMap(MapNames.DISCRETE_CONSUMER_INDEX_MAP, SERIALIZER);
     }
 
     // check the existence in the set: O(1) operation
@@ -128,13 +135,66 @@ class TransactionalDiscreteResourceSubStore
         }
 
         ResourceConsumerId oldValue = consumers.put(resource.id(), consumerId);
-        return oldValue == null;
+        if (oldValue != null) {
+            return false;
+        }
+
+        Set<DiscreteResourceId> allocated = stagedIndex(consumerId);
+        allocated.add(resource.id());
+        consumerIndex.put(consumerId, allocated);
+        return true;
     }
 
     @Override
     public boolean release(ResourceConsumerId consumerId, DiscreteResource resource) {
         // if this single release fails (because the resource is allocated to another consumer)
         // the whole release fails
-        return consumers.remove(resource.id(), consumerId);
+        if (!consumers.remove(resource.id(), consumerId)) {
+            return false;
+        }
+
+        Set<DiscreteResourceId> allocated = stagedIndex(consumerId);
+        if (!allocated.remove(resource.id())) {
+            // not indexed yet, see index()
+            return true;
+        }
+        if (allocated.isEmpty()) {
+            consumerIndex.remove(consumerId);
+            stagedIndex.remove(consumerId);
+        } else {
+            consumerIndex.put(consumerId, allocated);
+        }
+        return true;
+    }
+
+    /**
+     * Adds to the index of a consumer the given resources that are still
+     * allocated to it, e.g. resources allocated before the index was
+     * introduced. The allocations are written back so that the transaction
+     * fails if they are released concurrently.
+     *
+     * @param consumerId  consumer ID
+     * @param resourceIds resources allocated to the consumer
+     */
+    void index(ResourceConsumerId consumerId, Set<DiscreteResourceId> resourceIds) {
+        Set<DiscreteResourceId> allocated = stagedIndex(consumerId);
+        int indexed = allocated.size();
+        for (DiscreteResourceId id : resourceIds) {
+            if (consumerId.equals(consumers.get(id))) {
+                consumers.put(id, consumerId);
+                allocated.add(id);
+            }
+        }
+        if (allocated.size() > indexed) {
+            consumerIndex.put(consumerId, allocated);
+        }
+    }
+
+    // Returns the index entry of a consumer as written by this transaction.
+    private Set<DiscreteResourceId> stagedIndex(ResourceConsumerId consumerId) {
+        return stagedIndex.computeIfAbsent(consumerId, id -> {
+            Set<DiscreteResourceId> allocated = consumerIndex.get(id);
+            return allocated == null ? Sets.newHashSet() : Sets.newHashSet(allocated);
+        });
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.topology.impl;
 
+import com.google.common.base.Strings;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -93,7 +94,7 @@ public class DistributedTopologyStore
 
     private final Logger log = getLogger(getClass());
 
-    private static final String FORMAT = "Settings: linkWeightFunction={}";
+    private static final String FORMAT = "Settings: linkWeightFunction={}, incrementalTopology={}";
 
     private volatile DefaultTopology current =
             new DefaultTopology(ProviderId.NONE,
@@ -125,6 +126,12 @@ public class DistributedTopologyStore
             label = "Default link-weight function: hopCount, linkMetric, geoDistance")
     private String linkWeightFunction = DEFAULT_LINK_WEIGHT_FUNCTION;
 
+    private static final boolean DEFAULT_INCREMENTAL_TOPOLOGY = true;
+    @Property(name = "incrementalTopology", boolValue = DEFAULT_INCREMENTAL_TOPOLOGY,
+            label = "Derive each new topology from the current one, searching " +
+                    "again only the clusters affected by the changes")
+    private boolean incrementalTopology = DEFAULT_INCREMENTAL_TOPOLOGY;
+
     // Cluster root to broadcast points bindings to allow convergence to
     // a shared broadcast tree; node that is the master of the cluster root
     // is the primary.
@@ -170,7 +177,12 @@ public class DistributedTopologyStore
                             new GeoDistanceLinkWeight(deviceService) : null;
             setDefaultLinkWeight(weight);
         }
-        log.info(FORMAT, linkWeightFunction);
+
+        String newIncrementalTopology = get(properties, "incrementalTopology");
+        if (!Strings.isNullOrEmpty(newIncrementalTopology)) {
+            incrementalTopology = Boolean.parseBoolean(newIncrementalTopology.trim());
+        }
+        log.info(FORMAT, linkWeightFunction, incrementalTopology);
     }
 
     @Override
@@ -308,9 +320,11 @@ public class DistributedTopologyStore
     public TopologyEvent updateTopology(ProviderId providerId,
                                         GraphDescription graphDescription,
                                         List<Event> reasons) {
-        // Have the default topology construct self from the description data.
+        // Have the default topology construct self from the description data,
+        // deriving what it can from the current topology.
         DefaultTopology newTopology =
-                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint);
+                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint,
+                                    incrementalTopology ? current : null);
         updateBroadcastPoints(newTopology);
 
         // Promote the new topology to current and return a ready-to-send event.
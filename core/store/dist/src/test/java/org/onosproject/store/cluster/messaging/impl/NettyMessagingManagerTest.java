@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.cluster.messaging.impl;
 
+import com.codahale.metrics.Histogram;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -22,6 +23,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
 import org.onlab.packet.IpAddress;
 import org.onosproject.cluster.ClusterMetadata;
 import org.onosproject.cluster.ClusterMetadataEventListener;
@@ -34,7 +36,9 @@ import org.onosproject.net.provider.ProviderId;
 import org.onosproject.store.cluster.messaging.Endpoint;
 
 import java.net.ConnectException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
@@ -43,7 +47,9 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.stream.LongStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -51,6 +57,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.onlab.junit.TestTools.findAvailablePort;
+import static org.onlab.junit.TestUtils.setField;
 
 /**
  * Unit tests for NettyMessaging.
@@ -85,13 +92,13 @@ public class NettyMessagingManagerTest {
         netty1 = new NettyMessagingManager();
         netty1.clusterMetadataService = dummyMetadataService(DUMMY_NAME, IP_STRING, ep1);
         netty1.clockService = testClockService;
-        netty1.activate();
+        netty1.activate(null);
 
         ep2 = new Endpoint(IpAddress.valueOf("127.0.0.1"), findAvailablePort(5003));
         netty2 = new NettyMessagingManager();
         netty2.clusterMetadataService = dummyMetadataService(DUMMY_NAME, IP_STRING, ep2);
         netty2.clockService = testClockService;
-        netty2.activate();
+        netty2.activate(null);
     }
 
     /**
@@ -134,6 +141,54 @@ public class NettyMessagingManagerTest {
         Uninterruptibles.awaitUninterruptibly(latch2);
     }
 
+    @Test
+    public void testSendAsyncWithWriteBatching() {
+        setField(netty1, "writeBatchingEnabled", true);
+        setField(netty1, "writeBatchWindowMicros", 1000);
+
+        String subject = nextSubject();
+        int messages = 100;
+        CountDownLatch received = new CountDownLatch(messages);
+        BiConsumer<Endpoint, byte[]> handler = (ep, data) -> received.countDown();
+        netty2.registerHandler(subject, handler, MoreExecutors.directExecutor());
+
+        List<CompletableFuture<Void>> responses = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            responses.add(netty1.sendAsync(ep2, subject, "hello world".getBytes()));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+        Uninterruptibles.awaitUninterruptibly(received);
+
+        Histogram messagesPerFlush = netty1.messagesPerFlush(ep2);
+        assertTrue(messagesPerFlush.getCount() > 0);
+        assertEquals(messages, LongStream.of(messagesPerFlush.getSnapshot().getValues()).sum());
+        assertEquals(0, netty1.queueDepth(ep2));
+    }
+
+    /**
+     * Tests that the outbound metrics are removed on deactivation, so that
+     * another activation can register them again.
+     */
+    @Test
+    public void testOutboundMetricsRemoved() throws Exception {
+        MetricsManager metricsService = new MetricsManager();
+        for (int i = 0; i < 2; i++) {
+            Endpoint ep = new Endpoint(IpAddress.valueOf(IP_STRING), findAvailablePort(5005));
+            NettyMessagingManager netty = new NettyMessagingManager();
+            netty.clusterMetadataService = dummyMetadataService(DUMMY_NAME, IP_STRING, ep);
+            netty.clockService = testClockService;
+            netty.metricsService = metricsService;
+            netty.activate(null);
+            try {
+                netty.sendAsync(ep2, nextSubject(), "hello world".getBytes()).join();
+                assertEquals(1, metricsService.getGauges((name, metric) -> name.endsWith("queueDepth")).size());
+            } finally {
+                netty.deactivate();
+            }
+            assertTrue(metricsService.getMetrics().isEmpty());
+        }
+    }
+
     @Test
     @Ignore // FIXME disabled on 9/29/16 due to random failures
     public void testSendAndReceive() {
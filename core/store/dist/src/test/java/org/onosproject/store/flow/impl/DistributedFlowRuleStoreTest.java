@@ -16,6 +16,9 @@
 package org.onosproject.store.flow.impl;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import org.junit.After;
 import org.junit.Before;
@@ -25,7 +28,10 @@ import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.mastership.MastershipService;
 import org.onosproject.mastership.MastershipServiceAdapter;
 import org.onosproject.net.device.DeviceServiceAdapter;
 import org.onosproject.net.DeviceId;
@@ -38,22 +44,44 @@ import org.onosproject.net.flow.FlowEntry;
 import org.onosproject.net.flow.DefaultFlowRule;
 import org.onosproject.net.flow.FlowRuleBatchOperation;
 import org.onosproject.net.intent.IntentTestsMocks;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
+import org.onosproject.store.flow.ReplicaInfo;
 import org.onosproject.store.persistence.PersistenceServiceAdapter;
 import org.onosproject.store.service.TestStorageService;
 
 import org.onlab.packet.Ip4Address;
+import org.onlab.packet.IpPrefix;
+import org.onlab.util.Tools;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import org.osgi.service.component.ComponentContext;
 
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertEquals;
+import static org.onlab.junit.TestUtils.callMethod;
+import static org.onlab.junit.TestUtils.getField;
+import static org.onlab.junit.TestUtils.setField;
 import static org.onosproject.net.NetTestTools.APP_ID;
 import static org.onosproject.net.NetTestTools.did;
 
@@ -64,8 +92,6 @@ public class DistributedFlowRuleStoreTest {
 
     DistributedFlowRuleStore flowStoreImpl;
     ComponentContext context = null;
-    private ClusterService mockClusterService;
-    private ControllerNode mockControllerNode;
 
     private NodeId nodeId;
 
@@ -92,6 +118,16 @@ public class DistributedFlowRuleStoreTest {
                     .makeTemporary(44)
                     .fromApp(APP_ID)
                     .build();
+    ApplicationId otherAppId = new DefaultApplicationId(2, "other");
+    FlowRule flowRule2 =
+            DefaultFlowRule.builder()
+                    .forDevice(did("device2"))
+                    .withSelector(SELECTOR)
+                    .withTreatment(TREATMENT)
+                    .withPriority(44)
+                    .makeTemporary(44)
+                    .fromApp(otherAppId)
+                    .build();
 
     static class MasterOfAll extends MastershipServiceAdapter {
         @Override
@@ -129,27 +165,69 @@ public class DistributedFlowRuleStoreTest {
         }
     }
 
+    /**
+     * Communication service that hands the requests of one store to the
+     * handlers of another on the calling thread.
+     */
+    private static class LoopbackCommunicator extends ClusterCommunicationServiceAdapter {
+        private final Map<MessageSubject, Function<byte[], byte[]>> handlers = Maps.newConcurrentMap();
+        private LoopbackCommunicator peer;
+
+        @Override
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder,
+                                                          Function<byte[], R> decoder, NodeId toNodeId) {
+            Function<byte[], byte[]> handler = peer.handlers.get(subject);
+            if (handler == null) {
+                return Tools.exceptionalFuture(new MessagingException.NoRemoteHandler());
+            }
+            return CompletableFuture.completedFuture(decoder.apply(handler.apply(encoder.apply(message))));
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                         Function<M, R> handler, Function<R, byte[]> encoder,
+                                         Executor executor) {
+            handlers.put(subject, bytes -> encoder.apply(handler.apply(decoder.apply(bytes))));
+        }
+
+        @Override
+        public void removeSubscriber(MessageSubject subject) {
+            handlers.remove(subject);
+        }
+    }
+
     @Before
     public void setUp() throws Exception {
-        flowStoreImpl = new DistributedFlowRuleStore();
-        flowStoreImpl.storageService = new TestStorageService();
-        flowStoreImpl.replicaInfoManager = new ReplicaInfoManager();
-        mockClusterService = createMock(ClusterService.class);
-        flowStoreImpl.clusterService = mockClusterService;
         nodeId = new NodeId("1");
-        mockControllerNode = new MockControllerNode(nodeId);
+        flowStoreImpl = activateStore(nodeId, new MasterOfAll(), new ClusterCommunicationServiceAdapter(),
+                                      new ReplicaInfoManager());
+    }
+
+    private DistributedFlowRuleStore activateStore(NodeId localId, MastershipService mastershipService,
+                                                   ClusterCommunicationService clusterCommunicator,
+                                                   ReplicaInfoManager replicaInfoManager) {
+        DistributedFlowRuleStore store = new DistributedFlowRuleStore();
+        store.storageService = new TestStorageService();
+        store.replicaInfoManager = replicaInfoManager;
+        ClusterService mockClusterService = createMock(ClusterService.class);
+        store.clusterService = mockClusterService;
+        ControllerNode mockControllerNode = new MockControllerNode(localId);
 
         expect(mockClusterService.getLocalNode())
                 .andReturn(mockControllerNode).anyTimes();
+        expect(mockClusterService.getNodes())
+                .andReturn(ImmutableSet.of(mockControllerNode)).anyTimes();
         replay(mockClusterService);
 
-        flowStoreImpl.clusterCommunicator = new ClusterCommunicationServiceAdapter();
-        flowStoreImpl.mastershipService = new MasterOfAll();
-        flowStoreImpl.deviceService = new DeviceServiceAdapter();
-        flowStoreImpl.coreService = new CoreServiceAdapter();
-        flowStoreImpl.configService = new ComponentConfigAdapter();
-        flowStoreImpl.persistenceService = new PersistenceServiceAdapter();
-        flowStoreImpl.activate(context);
+        store.clusterCommunicator = clusterCommunicator;
+        store.mastershipService = mastershipService;
+        store.deviceService = new DeviceServiceAdapter();
+        store.coreService = new CoreServiceAdapter();
+        store.configService = new ComponentConfigAdapter();
+        store.persistenceService = new PersistenceServiceAdapter();
+        store.activate(context);
+        return store;
     }
 
     @After
@@ -262,4 +340,137 @@ public class DistributedFlowRuleStoreTest {
         }
         assertThat(sum3, is(0));
     }
+
+    /**
+     * Tests looking up flow entries by application.
+     */
+    @Test
+    public void testFlowEntriesByAppId() {
+        FlowEntry flowEntry = new DefaultFlowEntry(flowRule);
+        FlowEntry flowEntry1 = new DefaultFlowEntry(flowRule1);
+        FlowEntry flowEntry2 = new DefaultFlowEntry(flowRule2);
+        flowStoreImpl.addOrUpdateFlowRule(flowEntry);
+        flowStoreImpl.addOrUpdateFlowRule(flowEntry1);
+        flowStoreImpl.addOrUpdateFlowRule(flowEntry2);
+
+        assertThat(flowStoreImpl.getFlowEntriesByAppId(APP_ID),
+                   containsInAnyOrder(flowEntry, flowEntry1));
+        assertThat(flowStoreImpl.getFlowEntriesByAppId(otherAppId), contains(flowEntry2));
+        assertThat(flowStoreImpl.getFlowEntriesByGroupId(otherAppId, (short) 0), contains(flowEntry2));
+
+        flowStoreImpl.removeFlowRule(flowEntry);
+        assertThat(flowStoreImpl.getFlowEntriesByAppId(APP_ID), contains(flowEntry1));
+
+        flowStoreImpl.purgeFlowRule(did("device2"));
+        assertThat(flowStoreImpl.getFlowEntriesByAppId(otherAppId), is(emptyIterable()));
+        assertThat(flowStoreImpl.getFlowEntriesByGroupId(otherAppId, (short) 0), is(emptyIterable()));
+    }
+
+    /**
+     * Tests flow entry state changes with off-heap flow tables.
+     */
+    @Test
+    public void testOffHeapFlowTable() throws Exception {
+        setField(flowStoreImpl, "offHeapFlowTables", true);
+        FlowRule rule = DefaultFlowRule.builder()
+                .forDevice(did("device3"))
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchIPDst(IpPrefix.valueOf("10.0.0.0/24"))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder()
+                                       .setOutput(PortNumber.portNumber(1))
+                                       .build())
+                .withPriority(22)
+                .makePermanent()
+                .fromApp(APP_ID)
+                .build();
+
+        flowStoreImpl.storeBatch(new FlowRuleBatchOperation(ImmutableList.of(
+                new FlowRuleBatchEntry(FlowRuleBatchEntry.FlowRuleOperation.ADD, rule)), rule.deviceId(), 1));
+        assertEquals("PENDING_ADD", flowStoreImpl.getFlowEntry(rule).state().toString());
+
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(rule));
+        assertEquals("ADDED", flowStoreImpl.getFlowEntry(rule).state().toString());
+        assertThat(flowStoreImpl.getFlowEntries(rule.deviceId()), contains(new DefaultFlowEntry(rule)));
+        assertThat(flowStoreImpl.getFlowEntriesByAppId(APP_ID), contains(new DefaultFlowEntry(rule)));
+
+        flowStoreImpl.storeBatch(new FlowRuleBatchOperation(ImmutableList.of(
+                new FlowRuleBatchEntry(FlowRuleBatchEntry.FlowRuleOperation.REMOVE, rule)), rule.deviceId(), 2));
+        assertEquals("PENDING_REMOVE", flowStoreImpl.getFlowEntry(rule).state().toString());
+
+        flowStoreImpl.removeFlowRule(new DefaultFlowEntry(rule));
+        assertThat(flowStoreImpl.getFlowEntries(rule.deviceId()), is(emptyIterable()));
+    }
+
+    /**
+     * Tests that a flow entry state change made in place reaches the backup
+     * node through a delta backup.
+     */
+    @Test
+    public void testDeltaBackupOfStateChange() throws Exception {
+        NodeId backupId = new NodeId("2");
+        LoopbackCommunicator masterChannel = new LoopbackCommunicator();
+        LoopbackCommunicator backupChannel = new LoopbackCommunicator();
+        masterChannel.peer = backupChannel;
+        backupChannel.peer = masterChannel;
+        DistributedFlowRuleStore master = activateStore(nodeId, new MasterOfAll(), masterChannel,
+                new ReplicaInfoManager() {
+                    @Override
+                    public ReplicaInfo getReplicaInfoFor(DeviceId deviceId) {
+                        return new ReplicaInfo(nodeId, ImmutableList.of(backupId));
+                    }
+                });
+        DistributedFlowRuleStore backup = activateStore(backupId, new MasterOfAll() {
+            @Override
+            public MastershipRole getLocalRole(DeviceId deviceId) {
+                return MastershipRole.STANDBY;
+            }
+        }, backupChannel, new ReplicaInfoManager());
+        try {
+            // run the backup rounds from the test only
+            ((ScheduledFuture<?>) getField(master, "backupTask")).cancel(false);
+            ((ScheduledExecutorService) getField(master, "backupSenderExecutor")).submit(() -> { }).get();
+
+            FlowRule rule = serializableRule(22);
+            FlowRule rule1 = serializableRule(33);
+            master.storeBatch(new FlowRuleBatchOperation(ImmutableList.of(
+                    new FlowRuleBatchEntry(FlowRuleBatchEntry.FlowRuleOperation.ADD, rule),
+                    new FlowRuleBatchEntry(FlowRuleBatchEntry.FlowRuleOperation.ADD, rule1)), deviceId, 1));
+            runBackupRound(master);
+            assertEquals("PENDING_ADD", backupEntry(backup, rule).state().toString());
+            long deltaBytes = ((AtomicLong) getField(master, "deltaBackupBytes")).get();
+
+            master.addOrUpdateFlowRule(new DefaultFlowEntry(rule));
+            runBackupRound(master);
+            assertThat(((AtomicLong) getField(master, "deltaBackupBytes")).get(), greaterThan(deltaBytes));
+            assertEquals("ADDED", backupEntry(backup, rule).state().toString());
+            assertEquals("PENDING_ADD", backupEntry(backup, rule1).state().toString());
+        } finally {
+            master.deactivate(context);
+            backup.deactivate(context);
+        }
+    }
+
+    private FlowRule serializableRule(int priority) {
+        return DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchIPDst(IpPrefix.valueOf("10.0.0.0/24"))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder()
+                                       .setOutput(PortNumber.portNumber(1))
+                                       .build())
+                .withPriority(priority)
+                .makePermanent()
+                .fromApp(APP_ID)
+                .build();
+    }
+
+    private void runBackupRound(DistributedFlowRuleStore store) {
+        callMethod(getField(store, "flowTable"), "backup", new Class<?>[]{});
+    }
+
+    private FlowEntry backupEntry(DistributedFlowRuleStore store, FlowRule rule) {
+        return callMethod(getField(store, "flowTable"), "getFlowEntry", FlowRule.class, rule);
+    }
 }
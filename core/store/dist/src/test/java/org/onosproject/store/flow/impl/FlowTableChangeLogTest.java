@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import org.junit.Test;
+import org.onosproject.net.flow.FlowId;
+
+import com.google.common.collect.ImmutableSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the flow table change log.
+ */
+public class FlowTableChangeLogTest {
+
+    private static final FlowId FID1 = FlowId.valueOf(1);
+    private static final FlowId FID2 = FlowId.valueOf(2);
+    private static final FlowId FID3 = FlowId.valueOf(3);
+
+    @Test
+    public void testRecord() {
+        FlowTableChangeLog changeLog = new FlowTableChangeLog();
+        assertEquals(0, changeLog.version());
+        assertTrue(changeLog.changedSince(0).isEmpty());
+
+        assertEquals(1, changeLog.record(FID1));
+        assertEquals(2, changeLog.record(FID2));
+        assertEquals(3, changeLog.record(FID1));
+
+        assertEquals(3, changeLog.version());
+        assertEquals(2, changeLog.size());
+        assertEquals(ImmutableSet.of(FID1, FID2), changeLog.changedSince(0));
+        assertEquals(ImmutableSet.of(FID1, FID2), changeLog.changedSince(1));
+        assertEquals(ImmutableSet.of(FID1), changeLog.changedSince(2));
+        assertTrue(changeLog.changedSince(3).isEmpty());
+    }
+
+    @Test
+    public void testUnknownVersion() {
+        FlowTableChangeLog changeLog = new FlowTableChangeLog();
+        changeLog.record(FID1);
+        assertNull(changeLog.changedSince(2));
+    }
+
+    @Test
+    public void testCompact() {
+        FlowTableChangeLog changeLog = new FlowTableChangeLog();
+        changeLog.record(FID1);
+        changeLog.record(FID2);
+        changeLog.record(FID3);
+
+        changeLog.compact(2);
+        assertEquals(1, changeLog.size());
+        assertNull(changeLog.changedSince(1));
+        assertEquals(ImmutableSet.of(FID3), changeLog.changedSince(2));
+
+        // compacting below the current floor is a no-op
+        changeLog.compact(1);
+        assertEquals(ImmutableSet.of(FID3), changeLog.changedSince(2));
+
+        // compacting never goes past the current version
+        changeLog.compact(10);
+        assertEquals(0, changeLog.size());
+        assertTrue(changeLog.changedSince(3).isEmpty());
+
+        assertEquals(4, changeLog.record(FID2));
+        assertEquals(ImmutableSet.of(FID2), changeLog.changedSince(3));
+    }
+}
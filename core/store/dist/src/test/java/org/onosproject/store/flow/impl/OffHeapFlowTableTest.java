@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the off-heap flow table.
+ */
+public class OffHeapFlowTableTest {
+
+    private final OffHeapFlowTable table = new OffHeapFlowTable(Serializer.using(KryoNamespaces.API));
+
+    private static StoredFlowEntry entry(int i) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+                .forDevice(did("device1"))
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchEthType((short) 0x0800)
+                                      .matchIPDst(IpPrefix.valueOf(i << 8, 24))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder()
+                                       .setOutput(PortNumber.portNumber(1))
+                                       .build())
+                .withPriority(100)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build());
+    }
+
+    private void add(StoredFlowEntry entry) {
+        table.computeIfAbsent(entry.id(), id -> Maps.newConcurrentMap()).compute(entry, (k, v) -> entry);
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        StoredFlowEntry entry = entry(1);
+        assertNull(table.get(entry.id()));
+
+        add(entry);
+        assertEquals(1, table.size());
+        Map<StoredFlowEntry, StoredFlowEntry> bucket = table.get(entry.id());
+        assertEquals(entry, bucket.get(entry));
+        assertTrue(table.liveBytes() > 0);
+
+        assertEquals(entry, bucket.remove(entry));
+        assertEquals(0, table.size());
+        assertNull(table.get(entry.id()));
+        assertEquals(0, table.liveBytes());
+    }
+
+    @Test
+    public void testWriteBack() {
+        StoredFlowEntry entry = entry(1);
+        add(entry);
+
+        StoredFlowEntry copy = table.get(entry.id()).get(entry);
+        copy.setState(FlowEntryState.ADDED);
+        assertEquals(FlowEntryState.PENDING_ADD, table.get(entry.id()).get(entry).state());
+
+        table.get(entry.id()).computeIfPresent(copy, (k, v) -> copy);
+        assertEquals(FlowEntryState.ADDED, table.get(entry.id()).get(entry).state());
+    }
+
+    @Test
+    public void testPutBuckets() {
+        StoredFlowEntry entry1 = entry(1);
+        StoredFlowEntry entry2 = entry(2);
+        table.putAll(ImmutableMap.of(entry1.id(), ImmutableMap.of(entry1, entry1),
+                                     entry2.id(), ImmutableMap.of(entry2, entry2)));
+        assertEquals(2, table.size());
+        assertEquals(ImmutableMap.of(entry1, entry1), Maps.newHashMap(table.get(entry1.id())));
+
+        Map<StoredFlowEntry, StoredFlowEntry> previous = table.put(entry1.id(), ImmutableMap.of());
+        assertEquals(ImmutableMap.of(entry1, entry1), previous);
+        assertFalse(table.containsKey(entry1.id()));
+        assertEquals(ImmutableMap.of(entry2, entry2), table.remove(entry2.id()));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testManyEntries() {
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            add(entry(i));
+        }
+        assertEquals(count, table.size());
+        // replace every bucket a few times to leave garbage for compaction
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < count; i++) {
+                add(entry(i));
+            }
+        }
+        assertTrue(table.allocatedBytes() <= 2 * table.liveBytes() + (1 << 20));
+
+        for (int i = 0; i < count; i += 2) {
+            StoredFlowEntry entry = entry(i);
+            assertEquals(entry, table.remove(entry.id()).get(entry));
+        }
+        assertEquals(count / 2, table.size());
+        for (int i = 0; i < count; i++) {
+            StoredFlowEntry entry = entry(i);
+            assertEquals(i % 2 != 0, table.containsKey(entry.id()));
+        }
+        assertEquals(count / 2, table.entrySet().size());
+
+        table.clear();
+        assertTrue(table.isEmpty());
+        assertNull(table.get(FlowId.valueOf(entry(1).id().value())));
+    }
+}
@@ -18,6 +18,8 @@ package org.onosproject.store.group.impl;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.Before;
@@ -176,6 +178,30 @@ public class DistributedGroupStoreTest {
         assertThat(auditPendingReqQueue.size(), is(0));
     }
 
+    /**
+     * Tests that completing the audit of a device only processes the pending
+     * groups of that device, and that clearing it only affects that device.
+     */
+    @Test
+    public void testPerDeviceAudit() throws Exception {
+        groupStore.storeGroupDescription(groupDescription1);
+        groupStore.storeGroupDescription(groupDescription2);
+        assertThat(auditPendingReqQueue.size(), is(2));
+
+        groupStore.deviceInitialAuditCompleted(deviceId2, true);
+        assertThat(auditPendingReqQueue.size(), is(1));
+        assertThat(groupStore.getGroupCount(deviceId1), is(0));
+        assertThat(groupStore.getGroupCount(deviceId2), is(1));
+        assertThat(groupStore.getGroup(deviceId2, groupKey2), notNullValue());
+
+        groupStore.deviceInitialAuditCompleted(deviceId1, true);
+        groupStore.deviceInitialAuditCompleted(deviceId2, false);
+        assertThat(auditPendingReqQueue.size(), is(0));
+        assertThat(groupStore.deviceInitialAuditStatus(deviceId1), is(true));
+        assertThat(groupStore.deviceInitialAuditStatus(deviceId2), is(false));
+        assertThat(groupStore.getGroupCount(deviceId1), is(1));
+    }
+
 
     /**
      * Tests adding and removing a group.
@@ -241,6 +267,29 @@ public class DistributedGroupStoreTest {
         assertThat(groupStore.getGroupCount(deviceId2), is(0));
     }
 
+    /**
+     * Tests that pending group requests queued by another instance are
+     * indexed from the pending table events and processed with the audit
+     * of their device.
+     */
+    @Test
+    public void testRemotePendingGroup() throws Exception {
+        DefaultGroup pending = new DefaultGroup(new GroupId(0), groupDescription2);
+        pending.setState(Group.GroupState.WAITING_AUDIT_COMPLETE);
+        auditPendingReqQueue.put(new DistributedGroupStore.GroupStoreKeyMapKey(deviceId2, groupKey2), pending);
+        groupStore.storeGroupDescription(groupDescription1);
+
+        Map<DeviceId, Set<?>> pendingKeys = TestUtils.getField(groupStoreImpl, "pendingGroupKeysByDevice");
+        assertThat(pendingKeys.get(deviceId1), hasSize(1));
+        assertThat(pendingKeys.get(deviceId2), hasSize(1));
+
+        groupStore.deviceInitialAuditCompleted(deviceId2, true);
+        assertThat(groupStore.getGroup(deviceId2, groupKey2), notNullValue());
+        assertThat(auditPendingReqQueue.size(), is(1));
+        assertThat(pendingKeys.get(deviceId2), nullValue());
+        assertThat(pendingKeys.get(deviceId1), hasSize(1));
+    }
+
     /**
      * Tests adding and removing a group.
      */
@@ -18,22 +18,45 @@ package org.onosproject.store.host.impl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.junit.TestUtils;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
 import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
 import org.onosproject.net.host.DefaultHostDescription;
 import org.onosproject.net.host.HostDescription;
 import org.onosproject.net.provider.ProviderId;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ConsistentMapAdapter;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TestStorageService;
+import org.onosproject.store.service.Versioned;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 /**
@@ -118,6 +141,121 @@ public class DistributedHostStoreTest {
         assertTrue(hosts.size() == 0);
     }
 
+    /**
+     * Tests that the MAC, VLAN and location indexes agree with a scan of
+     * all hosts after concurrent host moves and removals.
+     */
+    @Test
+    public void testIndexesUnderConcurrentMoves() throws Exception {
+        List<HostId> hostIds = IntStream.range(0, 200)
+                .mapToObj(i -> HostId.hostId(MacAddress.valueOf(0x1a0000000000L + i / 2),
+                                             VlanId.vlanId((short) (i % 2 + 1))))
+                .collect(Collectors.toList());
+        hostIds.forEach(id -> ecXHostStore.createOrUpdateHost(PID, id, createHostDesc(id, location(0)), false));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> moves = IntStream.range(0, 4)
+                    .mapToObj(t -> pool.submit(() -> {
+                        Random random = new Random(t);
+                        for (int i = 0; i < 2000; i++) {
+                            HostId id = hostIds.get(random.nextInt(hostIds.size()));
+                            ecXHostStore.createOrUpdateHost(PID, id, createHostDesc(id, location(random.nextInt(16))),
+                                                            false);
+                        }
+                    }))
+                    .collect(Collectors.toList());
+            for (Future<?> move : moves) {
+                move.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertIndexesMatchScan();
+
+        hostIds.subList(0, 50).forEach(ecXHostStore::removeHost);
+        assertEquals(150, ecXHostStore.getHostCount());
+        assertIndexesMatchScan();
+    }
+
+    /**
+     * Tests that an event older than the removal of a host, delivered late,
+     * does not bring the host back into the indexes.
+     */
+    @Test
+    public void testLateEventAfterRemoval() throws TestUtils.TestUtilsException {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, createHostDesc(HOSTID, location(0)), false);
+        ConsistentMap<HostId, DefaultHost> hosts = TestUtils.getField(ecXHostStore, "hostsConsistentMap");
+        Versioned<DefaultHost> stale = hosts.get(HOSTID);
+        ecXHostStore.removeHost(HOSTID);
+        assertEquals(ImmutableSet.of(), ecXHostStore.getHosts(HOSTID.mac()));
+
+        MapEventListener<HostId, DefaultHost> tracker = TestUtils.getField(ecXHostStore, "hostLocationTracker");
+        tracker.event(new MapEvent<>("onos-hosts", HOSTID, stale, null));
+        assertEquals(ImmutableSet.of(), ecXHostStore.getHosts(HOSTID.mac()));
+        assertEquals(ImmutableSet.of(), ecXHostStore.getConnectedHosts(location(0)));
+
+        // a later write of the host is indexed again
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, createHostDesc(HOSTID, location(1)), false);
+        assertEquals(1, ecXHostStore.getConnectedHosts(location(1)).size());
+    }
+
+    /**
+     * Tests that reloading the indexes from a snapshot neither drops a host
+     * inserted while the snapshot was taken nor keeps a removed host.
+     */
+    @Test
+    public void testReloadIndexesRacingInsert() throws TestUtils.TestUtilsException {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, createHostDesc(HOSTID, location(0)), false);
+        ConsistentMap<HostId, DefaultHost> hosts = TestUtils.getField(ecXHostStore, "hostsConsistentMap");
+        DefaultHost host = new DefaultHost(PID, HOSTID1, HOSTID1.mac(), HOSTID1.vlanId(), location(1),
+                                           ImmutableSet.of());
+        ConsistentMap<HostId, DefaultHost> racing = new ConsistentMapAdapter<HostId, DefaultHost>() {
+            @Override
+            public Set<Map.Entry<HostId, Versioned<DefaultHost>>> entrySet() {
+                // the host is inserted, and indexed, once the snapshot is taken
+                Set<Map.Entry<HostId, Versioned<DefaultHost>>> snapshot = ImmutableSet.of();
+                hosts.put(HOSTID1, host);
+                return snapshot;
+            }
+        };
+
+        TestUtils.setField(ecXHostStore, "hostsConsistentMap", racing);
+        try {
+            TestUtils.callMethod(ecXHostStore, "loadHostIndexes", new Class<?>[]{});
+        } finally {
+            TestUtils.setField(ecXHostStore, "hostsConsistentMap", hosts);
+        }
+        assertEquals(ImmutableSet.of(host), ecXHostStore.getConnectedHosts(location(1)));
+        assertEquals(ImmutableSet.of(), ecXHostStore.getConnectedHosts(location(0)));
+    }
+
+    private void assertIndexesMatchScan() {
+        Set<Host> all = ImmutableSet.copyOf(ecXHostStore.getHosts());
+        for (Host host : all) {
+            assertEquals(scan(all, h -> h.mac().equals(host.mac())), ecXHostStore.getHosts(host.mac()));
+            assertEquals(scan(all, h -> h.vlan().equals(host.vlan())), ecXHostStore.getHosts(host.vlan()));
+        }
+        for (int i = 0; i < 16; i++) {
+            ConnectPoint cp = location(i);
+            assertEquals(scan(all, h -> h.location().equals(cp)), ecXHostStore.getConnectedHosts(cp));
+            assertEquals(scan(all, h -> h.location().deviceId().equals(cp.deviceId())),
+                         ecXHostStore.getConnectedHosts(cp.deviceId()));
+        }
+    }
+
+    private static Set<Host> scan(Iterable<Host> hosts, Predicate<Host> predicate) {
+        return StreamSupport.stream(hosts.spliterator(), false).filter(predicate).collect(Collectors.toSet());
+    }
+
+    private static HostLocation location(int i) {
+        return new HostLocation(DeviceId.deviceId("of:" + (i / 4)), PortNumber.portNumber(i % 4), 0);
+    }
+
+    private HostDescription createHostDesc(HostId hostId, HostLocation location) {
+        return new DefaultHostDescription(hostId.mac(), hostId.vlanId(), location, ImmutableSet.of());
+    }
+
     private HostDescription createHostDesc(HostId hostId, Set<IpAddress> ips) {
         return new DefaultHostDescription(hostId.mac(),
                 hostId.vlanId(),
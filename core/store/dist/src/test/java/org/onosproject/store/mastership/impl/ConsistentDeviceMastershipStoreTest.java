@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.store.mastership.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.Leader;
+import org.onosproject.cluster.Leadership;
+import org.onosproject.cluster.LeadershipEvent;
+import org.onosproject.cluster.LeadershipEventListener;
+import org.onosproject.cluster.LeadershipServiceAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.onosproject.cluster.LeadershipEvent.Type.LEADER_CHANGED;
+import static org.onosproject.cluster.LeadershipEvent.Type.SERVICE_DISRUPTED;
+import static org.onosproject.cluster.LeadershipEvent.Type.SERVICE_RESTORED;
+
+/**
+ * Test of the index of mastered devices of the consistent mastership store.
+ */
+public class ConsistentDeviceMastershipStoreTest {
+
+    private static final NodeId NID1 = NodeId.nodeId("n1");
+    private static final NodeId NID2 = NodeId.nodeId("n2");
+
+    private static final DeviceId DID1 = DeviceId.deviceId("of:1");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:2");
+    private static final DeviceId DID3 = DeviceId.deviceId("of:3");
+
+    private TestLeadershipService leadershipService;
+    private ConsistentDeviceMastershipStore store;
+
+    @Before
+    public void setUp() {
+        leadershipService = new TestLeadershipService();
+        leadershipService.elect(DID1, NID1);
+        leadershipService.elect(DID2, NID1);
+
+        store = new ConsistentDeviceMastershipStore();
+        store.leadershipService = leadershipService;
+        store.clusterService = new ClusterServiceAdapter();
+        store.clusterCommunicator = new ClusterCommunicationServiceAdapter();
+        store.activate();
+    }
+
+    @After
+    public void tearDown() {
+        store.deactivate();
+    }
+
+    /**
+     * Tests that the leaders present at activation are indexed.
+     */
+    @Test
+    public void testActivation() {
+        assertEquals(ImmutableSet.of(DID1, DID2), store.getDevices(NID1));
+        assertEquals(ImmutableSet.of(), store.getDevices(NID2));
+    }
+
+    /**
+     * Tests that a leader change moves the device to its new master.
+     */
+    @Test
+    public void testLeaderChange() {
+        leadershipService.post(LEADER_CHANGED, leadershipService.elect(DID1, NID2));
+        assertEquals(ImmutableSet.of(DID2), store.getDevices(NID1));
+        assertEquals(ImmutableSet.of(DID1), store.getDevices(NID2));
+    }
+
+    /**
+     * Tests that a device whose leadership has no leader left is removed.
+     */
+    @Test
+    public void testNoLeader() {
+        leadershipService.post(LEADER_CHANGED, leadershipService.elect(DID2, null));
+        assertEquals(ImmutableSet.of(DID1), store.getDevices(NID1));
+        assertEquals(ImmutableSet.of(), store.getDevices(NID2));
+    }
+
+    /**
+     * Tests that the index follows the leaderships restored after a
+     * disruption, since the changes during the disruption come with no
+     * other event.
+     */
+    @Test
+    public void testServiceRestored() {
+        leadershipService.post(SERVICE_DISRUPTED, leadershipService.board.get(DID1));
+        leadershipService.elect(DID1, NID2);
+        leadershipService.elect(DID2, null);
+        leadershipService.elect(DID3, NID2);
+        assertEquals(ImmutableSet.of(DID1, DID2), store.getDevices(NID1));
+
+        // one event per topic, as the leadership store restores them
+        leadershipService.board.values().forEach(l -> leadershipService.post(SERVICE_RESTORED, l));
+        assertEquals(ImmutableSet.of(), store.getDevices(NID1));
+        assertEquals(ImmutableSet.of(DID1, DID3), store.getDevices(NID2));
+    }
+
+    /**
+     * Leadership service whose leader board is set by the test, and which
+     * hands the events posted by the test to its listener.
+     */
+    private static class TestLeadershipService extends LeadershipServiceAdapter {
+        private final Map<DeviceId, Leadership> board = Maps.newConcurrentMap();
+        private LeadershipEventListener listener;
+
+        Leadership elect(DeviceId deviceId, NodeId leader) {
+            List<NodeId> candidates = leader == null ? ImmutableList.of() : ImmutableList.of(leader);
+            Leadership leadership = new Leadership("device:" + deviceId,
+                                                   leader == null ? null : new Leader(leader, 1, 0),
+                                                   candidates);
+            board.put(deviceId, leadership);
+            return leadership;
+        }
+
+        void post(LeadershipEvent.Type type, Leadership leadership) {
+            LeadershipEvent event = new LeadershipEvent(type, leadership);
+            if (listener.isRelevant(event)) {
+                listener.event(event);
+            }
+        }
+
+        @Override
+        public Leadership getLeadership(String path) {
+            return board.values().stream().filter(l -> l.topic().equals(path)).findFirst().orElse(null);
+        }
+
+        @Override
+        public List<NodeId> getCandidates(String path) {
+            Leadership leadership = getLeadership(path);
+            return leadership == null ? ImmutableList.of() : leadership.candidates();
+        }
+
+        @Override
+        public Map<String, Leadership> getLeaderBoard() {
+            ImmutableMap.Builder<String, Leadership> leaderBoard = ImmutableMap.builder();
+            board.values().forEach(l -> leaderBoard.put(l.topic(), l));
+            return leaderBoard.build();
+        }
+
+        @Override
+        public void addListener(LeadershipEventListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void removeListener(LeadershipEventListener listener) {
+            this.listener = null;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.Bandwidth;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.resource.ContinuousResource;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.DiscreteResourceId;
+import org.onosproject.net.resource.Resource;
+import org.onosproject.net.resource.ResourceAllocation;
+import org.onosproject.net.resource.ResourceConsumer;
+import org.onosproject.net.resource.ResourceConsumerId;
+import org.onosproject.net.resource.Resources;
+import org.onosproject.store.service.ConsistentMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for the allocations of the consistent resource store.
+ */
+public class ConsistentResourceStoreTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+    private static final int PORTS = 500;
+
+    private static final ResourceConsumer CONSUMER1 = IntentId.valueOf(1);
+    private static final ResourceConsumer CONSUMER2 = IntentId.valueOf(2);
+    private static final ResourceConsumer CONSUMER3 = IntentId.valueOf(3);
+
+    private TestTransactionalStorageService service;
+    private ConsistentResourceStore store;
+
+    @Before
+    public void setUp() {
+        service = new TestTransactionalStorageService();
+        store = store();
+        store.register(ImmutableList.of(Resources.discrete(DID).resource()));
+        store.register(IntStream.rangeClosed(1, PORTS)
+                               .mapToObj(ConsistentResourceStoreTest::port)
+                               .collect(Collectors.toList()));
+    }
+
+    private ConsistentResourceStore store() {
+        ConsistentResourceStore store = new ConsistentResourceStore();
+        store.service = service;
+        store.activate();
+        return store;
+    }
+
+    private static DiscreteResource port(int number) {
+        return Resources.discrete(DID, PortNumber.portNumber(number)).resource();
+    }
+
+    private static List<ResourceAllocation> allocations(ResourceConsumer consumer, Resource... resources) {
+        return Stream.of(resources)
+                .map(x -> new ResourceAllocation(x, consumer))
+                .collect(Collectors.toList());
+    }
+
+    private ConsistentMap<DiscreteResourceId, ResourceConsumerId> consumers() {
+        return service.map(MapNames.DISCRETE_CONSUMER_MAP);
+    }
+
+    private ConsistentMap<ResourceConsumerId, Set<DiscreteResourceId>> consumerIndex() {
+        return service.map(MapNames.DISCRETE_CONSUMER_INDEX_MAP);
+    }
+
+    /**
+     * Tests that the resources of a consumer follow its allocations and
+     * releases, and that its index entry goes with its last allocation.
+     */
+    @Test
+    public void testAllocateAndRelease() {
+        assertThat(store.allocate(ImmutableList.of(port(1), port(2)), CONSUMER1), is(true));
+        assertThat(store.allocate(ImmutableList.of(port(3)), CONSUMER2), is(true));
+        assertThat(store.allocate(ImmutableList.of(port(2)), CONSUMER2), is(false));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(1), port(2)));
+        assertThat(store.getResources(CONSUMER2), containsInAnyOrder(port(3)));
+
+        assertThat(store.release(allocations(CONSUMER1, port(1))), is(true));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(2)));
+        assertThat(store.isAvailable(port(1)), is(true));
+
+        assertThat(store.release(allocations(CONSUMER1, port(2))), is(true));
+        assertThat(store.getResources(CONSUMER1), is(empty()));
+        assertThat(consumerIndex().get(CONSUMER1.consumerId()), is(nullValue()));
+        assertThat(store.getResources(CONSUMER2), containsInAnyOrder(port(3)));
+    }
+
+    /**
+     * Tests that a transaction allocating and releasing many resources of a
+     * consumer indexes them all.
+     */
+    @Test
+    public void testManyAllocations() {
+        List<DiscreteResource> ports = IntStream.rangeClosed(1, PORTS)
+                .mapToObj(ConsistentResourceStoreTest::port)
+                .collect(Collectors.toList());
+        assertThat(store.allocate(ports, CONSUMER1), is(true));
+        assertThat(store.getResources(CONSUMER1).size(), is(PORTS));
+
+        List<ResourceAllocation> released = ports.subList(0, PORTS - 1).stream()
+                .map(x -> new ResourceAllocation(x, CONSUMER1))
+                .collect(Collectors.toList());
+        assertThat(store.release(released), is(true));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(PORTS)));
+    }
+
+    /**
+     * Tests that the allocations made before the consumer index was
+     * introduced are indexed when the store is activated, and only once.
+     */
+    @Test
+    public void testUnindexedAllocations() {
+        assertThat(store.allocate(ImmutableList.of(port(1)), CONSUMER1), is(true));
+        consumers().put(port(2).id(), CONSUMER1.consumerId());
+        consumers().put(port(3).id(), CONSUMER2.consumerId());
+        consumerIndex().remove(ConsistentDiscreteResourceSubStore.INDEXED);
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(1)));
+
+        store = store();
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(1), port(2)));
+        assertThat(store.getResources(CONSUMER2), containsInAnyOrder(port(3)));
+
+        // the allocations are not scanned again
+        consumers().put(port(4).id(), CONSUMER1.consumerId());
+        store = store();
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(1), port(2)));
+
+        assertThat(store.release(allocations(CONSUMER1, port(2))), is(true));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(1)));
+        assertThat(store.release(allocations(CONSUMER2, port(3))), is(true));
+        assertThat(consumerIndex().get(CONSUMER2.consumerId()), is(nullValue()));
+    }
+
+    /**
+     * Tests that an allocation missing from the index can still be released.
+     */
+    @Test
+    public void testReleaseUnindexedAllocation() {
+        assertThat(store.allocate(ImmutableList.of(port(1)), CONSUMER1), is(true));
+        consumers().put(port(2).id(), CONSUMER1.consumerId());
+
+        assertThat(store.release(allocations(CONSUMER1, port(2))), is(true));
+        assertThat(store.isAvailable(port(2)), is(true));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(1)));
+    }
+
+    /**
+     * Tests that the continuous resources of a consumer are found among the
+     * allocations of all the consumers.
+     */
+    @Test
+    public void testContinuousResources() {
+        ContinuousResource bandwidth = Resources.continuous(DID, PortNumber.portNumber(1), Bandwidth.class)
+                .resource(Bandwidth.gbps(10).bps());
+        ContinuousResource half = Resources.continuous(DID, PortNumber.portNumber(1), Bandwidth.class)
+                .resource(Bandwidth.gbps(5).bps());
+        assertThat(store.register(ImmutableList.of(bandwidth)), is(true));
+
+        assertThat(store.allocate(ImmutableList.of(half, port(2)), CONSUMER1), is(true));
+        assertThat(store.allocate(ImmutableList.of(half), CONSUMER2), is(true));
+        assertThat(store.allocate(ImmutableList.of(half), CONSUMER3), is(false));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(half, port(2)));
+        assertThat(store.getResources(CONSUMER2), containsInAnyOrder(half));
+        assertThat(store.getResources(CONSUMER3), is(empty()));
+    }
+
+    /**
+     * Tests that each consumer of a batch gets either all or none of the
+     * resources it requests, whatever the other consumers get.
+     */
+    @Test
+    public void testBatchAllocate() {
+        assertThat(store.allocate(ImmutableList.of(port(4)), CONSUMER3), is(true));
+
+        Map<ResourceConsumer, Boolean> results = store.allocate(ImmutableMap.of(
+                CONSUMER1, ImmutableList.of(port(1), port(2)),
+                // port 4 is allocated, port 5 must not be allocated either
+                CONSUMER2, ImmutableList.of(port(5), port(4)),
+                // port 2 goes to the consumer ahead in the batch
+                CONSUMER3, ImmutableList.of(port(3), port(2))));
+
+        assertThat(results, is(ImmutableMap.of(CONSUMER1, true, CONSUMER2, false, CONSUMER3, false)));
+        assertThat(results.keySet(), contains(CONSUMER1, CONSUMER2, CONSUMER3));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(1), port(2)));
+        assertThat(store.getResources(CONSUMER2), is(empty()));
+        assertThat(store.getResources(CONSUMER3), containsInAnyOrder(port(4)));
+        assertThat(store.isAvailable(port(3)), is(true));
+        assertThat(store.isAvailable(port(5)), is(true));
+    }
+
+    /**
+     * Tests that a consumer requesting a resource twice, or a resource that
+     * is not registered, gets none of its resources.
+     */
+    @Test
+    public void testBatchAllocateInvalidRequests() {
+        DiscreteResource unregistered = Resources.discrete(DeviceId.deviceId("of:2")).resource();
+        Map<ResourceConsumer, Boolean> results = store.allocate(ImmutableMap.of(
+                CONSUMER1, ImmutableList.of(port(1), port(1)),
+                CONSUMER2, ImmutableList.of(port(2), unregistered)));
+
+        assertThat(results, is(ImmutableMap.of(CONSUMER1, false, CONSUMER2, false)));
+        assertThat(store.isAvailable(port(1)), is(true));
+        assertThat(store.isAvailable(port(2)), is(true));
+    }
+
+    /**
+     * Tests that a batch none of whose consumers can be satisfied is not
+     * committed.
+     */
+    @Test
+    public void testBatchAllocateNothing() {
+        assertThat(store.allocate(ImmutableList.of(port(1)), CONSUMER1), is(true));
+        int commits = service.commits();
+
+        Map<ResourceConsumer, Boolean> results = store.allocate(ImmutableMap.of(
+                CONSUMER2, ImmutableList.of(port(1)),
+                CONSUMER3, ImmutableList.of(port(2), port(1))));
+
+        assertThat(results, is(ImmutableMap.of(CONSUMER2, false, CONSUMER3, false)));
+        assertThat(service.commits(), is(commits));
+        assertThat(store.isAvailable(port(2)), is(true));
+    }
+
+    /**
+     * Tests that a batch conflicting with a concurrent allocation is retried
+     * against the allocations committed in between.
+     */
+    @Test
+    public void testBatchAllocateConflict() {
+        int commits = service.commits();
+        service.beforeNextCommit(() -> consumers().put(port(2).id(), CONSUMER3.consumerId()));
+
+        Map<ResourceConsumer, Boolean> results = store.allocate(ImmutableMap.of(
+                CONSUMER1, ImmutableList.of(port(1)),
+                CONSUMER2, ImmutableList.of(port(2), port(3))));
+
+        assertThat(service.commits(), is(commits + 2));
+        assertThat(results, is(ImmutableMap.of(CONSUMER1, true, CONSUMER2, false)));
+        assertThat(store.getResources(CONSUMER1), containsInAnyOrder(port(1)));
+        assertThat(store.getResources(CONSUMER2), is(empty()));
+        assertThat(store.isAvailable(port(3)), is(true));
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.CommitStatus;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.TestConsistentMap;
+import org.onosproject.store.service.TestStorageService;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.TransactionContextBuilder;
+import org.onosproject.store.service.TransactionalMap;
+import org.onosproject.store.service.Versioned;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Storage service whose consistent maps are shared by name, and whose
+ * transactions are optimistic: a transaction fails to commit if an entry it
+ * writes changed since it was read.
+ */
+class TestTransactionalStorageService extends TestStorageService {
+
+    private final Map<String, ConsistentMap<?, ?>> maps = Maps.newConcurrentMap();
+    private final AtomicInteger commits = new AtomicInteger();
+    private Runnable beforeNextCommit;
+
+    /**
+     * Returns the consistent map of the given name.
+     *
+     * @param name map name
+     * @param <K>  key type
+     * @param <V>  value type
+     * @return consistent map
+     */
+    @SuppressWarnings("unchecked")
+    <K, V> ConsistentMap<K, V> map(String name) {
+        return (ConsistentMap<K, V>) maps.computeIfAbsent(name, n ->
+                new TestConsistentMap.Builder<K, V>().withName(n).build());
+    }
+
+    /**
+     * Runs an action right before the next transaction is committed, as if
+     * another transaction had committed first.
+     *
+     * @param action action
+     */
+    synchronized void beforeNextCommit(Runnable action) {
+        beforeNextCommit = action;
+    }
+
+    /**
+     * Returns the number of commit attempts.
+     *
+     * @return number of commits, successful or not
+     */
+    int commits() {
+        return commits.get();
+    }
+
+    @Override
+    public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
+        return new TestConsistentMap.Builder<K, V>() {
+            @Override
+            public ConsistentMap<K, V> build() {
+                return map(name());
+            }
+        };
+    }
+
+    @Override
+    public TransactionContextBuilder transactionContextBuilder() {
+        return new TransactionContextBuilder() {
+            @Override
+            public TransactionContext build() {
+                return new TestTransactionContext();
+            }
+        };
+    }
+
+    private synchronized CommitStatus commit(Map<String, TestTransactionalMap<?, ?>> transactionalMaps) {
+        commits.incrementAndGet();
+        if (beforeNextCommit != null) {
+            Runnable action = beforeNextCommit;
+            beforeNextCommit = null;
+            action.run();
+        }
+        if (transactionalMaps.values().stream().anyMatch(TestTransactionalMap::conflicts)) {
+            return CommitStatus.FAILURE;
+        }
+        transactionalMaps.values().forEach(TestTransactionalMap::apply);
+        return CommitStatus.SUCCESS;
+    }
+
+    private final class TestTransactionContext implements TransactionContext {
+        private final TransactionId transactionId = TransactionId.from(UUID.randomUUID().toString());
+        private final Map<String, TestTransactionalMap<?, ?>> transactionalMaps = Maps.newHashMap();
+        private boolean open;
+
+        @Override
+        public String name() {
+            return transactionId.toString();
+        }
+
+        @Override
+        public TransactionId transactionId() {
+            return transactionId;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void begin() {
+            open = true;
+        }
+
+        @Override
+        public CompletableFuture<CommitStatus> commit() {
+            open = false;
+            return CompletableFuture.completedFuture(TestTransactionalStorageService.this.commit(transactionalMaps));
+        }
+
+        @Override
+        public void abort() {
+            open = false;
+            transactionalMaps.clear();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K, V> TransactionalMap<K, V> getTransactionalMap(String mapName, Serializer serializer) {
+            return (TransactionalMap<K, V>) transactionalMaps.computeIfAbsent(mapName, n ->
+                    new TestTransactionalMap<>(map(n)));
+        }
+    }
+
+    // Map recording the versions read and the values written, which are
+    // applied on commit if none of the versions read changed.
+    private static final class TestTransactionalMap<K, V> implements TransactionalMap<K, V> {
+        private final ConsistentMap<K, V> map;
+        private final Map<K, Long> readVersions = Maps.newHashMap();
+        private final Map<K, Optional<V>> writes = Maps.newHashMap();
+
+        private TestTransactionalMap(ConsistentMap<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public V get(K key) {
+            Optional<V> written = writes.get(key);
+            if (written != null) {
+                return written.orElse(null);
+            }
+            Versioned<V> value = map.get(key);
+            readVersions.putIfAbsent(key, value == null ? 0 : value.version());
+            return Versioned.valueOrNull(value);
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V previous = get(key);
+            writes.put(key, Optional.of(value));
+            return previous;
+        }
+
+        @Override
+        public V remove(K key) {
+            V previous = get(key);
+            writes.put(key, Optional.empty());
+            return previous;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V previous = get(key);
+            if (previous == null) {
+                writes.put(key, Optional.of(value));
+            }
+            return previous;
+        }
+
+        @Override
+        public boolean remove(K key, V value) {
+            if (!Objects.equals(get(key), value)) {
+                return false;
+            }
+            writes.put(key, Optional.empty());
+            return true;
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            if (!Objects.equals(get(key), oldValue)) {
+                return false;
+            }
+            writes.put(key, Optional.of(newValue));
+            return true;
+        }
+
+        private boolean conflicts() {
+            return writes.keySet().stream().anyMatch(key -> {
+                Versioned<V> value = map.get(key);
+                return readVersions.get(key) != (value == null ? 0 : value.version());
+            });
+        }
+
+        private void apply() {
+            writes.forEach((key, value) -> {
+                if (value.isPresent()) {
+                    map.put(key, value.get());
+                } else {
+                    map.remove(key);
+                }
+            });
+        }
+    }
+}
@@ -17,10 +17,12 @@ package org.onosproject.store.primitives.impl;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.onosproject.cluster.NodeId;
 
 import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -31,6 +33,7 @@ public class AntiEntropyAdvertisement<K> {
 
     private final NodeId sender;
     private final Map<K, MapValue.Digest> digest;
+    private final Set<Integer> leaves;
 
     /**
      * Creates a new anti entropy advertisement message.
@@ -40,8 +43,24 @@ public class AntiEntropyAdvertisement<K> {
      */
     public AntiEntropyAdvertisement(NodeId sender,
                                     Map<K, MapValue.Digest> digest) {
+        this(sender, digest, ImmutableSet.of());
+    }
+
+    /**
+     * Creates a new anti entropy advertisement message covering only the
+     * keys under the given hash tree leaves.
+     *
+     * @param sender the sender's node ID
+     * @param digest for map entries under the leaves
+     * @param leaves hash tree leaves covered by the digest, or an empty set
+     *               if the digest covers the whole map
+     */
+    public AntiEntropyAdvertisement(NodeId sender,
+                                    Map<K, MapValue.Digest> digest,
+                                    Set<Integer> leaves) {
         this.sender = checkNotNull(sender);
         this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.leaves = ImmutableSet.copyOf(checkNotNull(leaves));
     }
 
     /**
@@ -62,11 +81,22 @@ public class AntiEntropyAdvertisement<K> {
         return digest;
     }
 
+    /**
+     * Returns the hash tree leaves covered by the digest.
+     *
+     * @return leaf node numbers, or an empty set if the digest covers the
+     * whole map
+     */
+    public Set<Integer> leaves() {
+        return leaves;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass())
                 .add("sender", sender)
                 .add("totalEntries", digest.size())
+                .add("totalLeaves", leaves.size())
                 .toString();
     }
 }
@@ -17,19 +17,26 @@ package org.onosproject.store.primitives.impl;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
 
+import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.TransactionLog;
 import org.onosproject.store.service.Versioned;
+import org.onosproject.utils.MeteringAgent;
 import org.slf4j.Logger;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
 
 import static org.onosproject.store.service.DistributedPrimitive.Status.INACTIVE;
 import static org.onosproject.store.service.DistributedPrimitive.Status.SUSPENDED;
@@ -37,8 +44,10 @@ import static org.onosproject.store.service.DistributedPrimitive.Status.SUSPENDE
 /**
  * {@code AsyncConsistentMap} that caches entries on read.
  * <p>
- * The cache entries are automatically invalidated when updates are detected either locally or
- * remotely.
+ * The cache entries are automatically updated when updates are detected either locally or
+ * remotely. Entries are tracked by their {@link Versioned#version() version}: neither a read
+ * nor an event may replace a cached entry with an older version of it, and a read that was
+ * issued before a local update or an invalidation is never cached.
  * <p> This implementation only attempts to serve cached entries for {@link AsyncConsistentMap#get get}
  * calls. All other calls skip the cache and directly go the backing map.
  *
@@ -47,12 +56,20 @@ import static org.onosproject.store.service.DistributedPrimitive.Status.SUSPENDE
  */
 public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMap<K, V> {
     private static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final String PRIMITIVE_NAME = "consistentMapCache";
+    private static final String HIT = "hit";
+    private static final String MISS = "miss";
+    private static final String STALE = "stale";
     private final Logger log = getLogger(getClass());
 
-    private final LoadingCache<K, CompletableFuture<Versioned<V>>> cache;
+    private final Cache<K, CacheEntry<V>> cache;
+    private final Map<K, CompletableFuture<Versioned<V>>> loads = Maps.newConcurrentMap();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long barrier;
     private final AsyncConsistentMap<K, V> backingMap;
     private final MapEventListener<K, V> cacheUpdater;
     private final Consumer<Status> statusListener;
+    private final MeteringAgent monitor;
 
     /**
      * Default constructor.
@@ -70,17 +87,40 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
      * @param cacheSize the maximum size of the cache
      */
     public CachingAsyncConsistentMap(AsyncConsistentMap<K, V> backingMap, int cacheSize) {
+        this(backingMap, 0, cacheSize, (key, value) -> 1, false);
+    }
+
+    /**
+     * Constructor to configure the expiry and weight of the cache entries.
+     *
+     * @param backingMap a distributed, strongly consistent map for backing
+     * @param timeToLiveMillis time after which cached entries expire; zero for no expiry
+     * @param maxWeight the maximum total weight of the cache entries
+     * @param weigher function returning the weight of an entry
+     * @param meteringEnabled whether cache hits, misses and stale values are metered
+     */
+    public CachingAsyncConsistentMap(AsyncConsistentMap<K, V> backingMap,
+                                     long timeToLiveMillis,
+                                     long maxWeight,
+                                     ToIntBiFunction<? super K, ? super V> weigher,
+                                     boolean meteringEnabled) {
         super(backingMap);
         this.backingMap = backingMap;
-        cache = CacheBuilder.newBuilder()
-                            .maximumSize(cacheSize)
-                            .build(CacheLoader.from(CachingAsyncConsistentMap.super::get));
+        CacheBuilder<K, CacheEntry<V>> builder = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((K key, CacheEntry<V> entry) ->
+                        entry.value == null ? 1 : weigher.applyAsInt(key, entry.value.value()));
+        if (timeToLiveMillis > 0) {
+            builder.expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS);
+        }
+        cache = builder.build();
+        monitor = meteringEnabled ? new MeteringAgent(PRIMITIVE_NAME, backingMap.name(), true) : null;
         cacheUpdater = event -> {
-            Versioned<V> newValue = event.newValue();
-            if (newValue == null) {
-                cache.invalidate(event.key());
-            } else {
-                cache.put(event.key(), CompletableFuture.completedFuture(newValue));
+            if (event.newValue() != null) {
+                update(event.key(), event.newValue().version(), event.newValue());
+            } else if (event.oldValue() != null) {
+                // the removal is newer than the value it removed
+                update(event.key(), event.oldValue().version() + 1, null);
             }
         };
         statusListener = status -> {
@@ -88,7 +128,7 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
             // If the status of the underlying map is SUSPENDED or INACTIVE
             // we can no longer guarantee that the cache will be in sync.
             if (status == SUSPENDED || status == INACTIVE) {
-                cache.invalidateAll();
+                invalidateAll();
             }
         };
         super.addListener(cacheUpdater);
@@ -103,29 +143,41 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
 
     @Override
     public CompletableFuture<Versioned<V>> get(K key) {
-        return cache.getUnchecked(key)
-                .whenComplete((r, e) -> {
-                    if (e != null) {
-                        cache.invalidate(key);
-                    }
-                });
-    }
+        CacheEntry<V> entry = cache.getIfPresent(key);
+        if (entry != null && entry.valid) {
+            count(HIT);
+            return CompletableFuture.completedFuture(entry.value);
+        }
+        count(MISS);
 
-    @Override
-    public CompletableFuture<Versioned<V>> getOrDefault(K key, V defaultValue) {
-        return cache.getUnchecked(key).thenCompose(r -> {
-            if (r == null) {
-                CompletableFuture<Versioned<V>> versioned = backingMap.getOrDefault(key, defaultValue);
-                cache.put(key, versioned);
-                return versioned;
+        // concurrent reads of a key share a single request to the backing map
+        CompletableFuture<Versioned<V>> load = loads.get(key);
+        if (load != null) {
+            return load;
+        }
+        CompletableFuture<Versioned<V>> future = new CompletableFuture<>();
+        load = loads.putIfAbsent(key, future);
+        if (load != null) {
+            return load;
+        }
+        long start = sequence.get();
+        super.get(key).whenComplete((r, e) -> {
+            loads.remove(key, future);
+            if (e == null) {
+                load(key, r, start);
+                future.complete(r);
             } else {
-                return CompletableFuture.completedFuture(r);
-            }
-        }).whenComplete((r, e) -> {
-            if (e != null) {
-                cache.invalidate(key);
+                future.completeExceptionally(e);
             }
         });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> getOrDefault(K key, V defaultValue) {
+        return get(key).thenCompose(r -> r == null
+                ? backingMap.getOrDefault(key, defaultValue)
+                : CompletableFuture.completedFuture(r));
     }
 
     @Override
@@ -133,31 +185,37 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
             Predicate<? super V> condition,
             BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
         return super.computeIf(key, condition, remappingFunction)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> invalidate(key));
     }
 
     @Override
     public CompletableFuture<Versioned<V>> put(K key, V value) {
         return super.put(key, value)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> invalidate(key));
     }
 
     @Override
     public CompletableFuture<Versioned<V>> putAndGet(K key, V value) {
         return super.putAndGet(key, value)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> invalidate(key));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
+        return super.putIfAbsent(key, value)
+                .whenComplete((r, e) -> invalidate(key));
     }
 
     @Override
     public CompletableFuture<Versioned<V>> remove(K key) {
         return super.remove(key)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> invalidate(key));
     }
 
     @Override
     public CompletableFuture<Void> clear() {
         return super.clear()
-                .whenComplete((r, e) -> cache.invalidateAll());
+                .whenComplete((r, e) -> invalidateAll());
     }
 
     @Override
@@ -165,7 +223,7 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
         return super.remove(key, value)
                 .whenComplete((r, e) -> {
                     if (r) {
-                        cache.invalidate(key);
+                        invalidate(key);
                     }
                 });
     }
@@ -175,7 +233,7 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
         return super.remove(key, version)
                 .whenComplete((r, e) -> {
                     if (r) {
-                        cache.invalidate(key);
+                        invalidate(key);
                     }
                 });
     }
@@ -183,7 +241,7 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
     @Override
     public CompletableFuture<Versioned<V>> replace(K key, V value) {
         return super.replace(key, value)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> invalidate(key));
     }
 
     @Override
@@ -191,7 +249,7 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
         return super.replace(key, oldValue, newValue)
                 .whenComplete((r, e) -> {
                     if (r) {
-                        cache.invalidate(key);
+                        invalidate(key);
                     }
                 });
     }
@@ -201,8 +259,124 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
         return super.replace(key, oldVersion, newValue)
                 .whenComplete((r, e) -> {
                     if (r) {
-                        cache.invalidate(key);
+                        invalidate(key);
                     }
                 });
     }
+
+    @Override
+    public CompletableFuture<Boolean> prepareAndCommit(TransactionLog<MapUpdate<K, V>> transactionLog) {
+        return super.prepareAndCommit(transactionLog)
+                .whenComplete((r, e) -> transactionLog.records().forEach(update -> invalidate(update.key())));
+    }
+
+    /**
+     * Caches the value read for a key unless the cache already holds a newer entry
+     * or the key was updated locally or invalidated after the read was issued.
+     *
+     * @param key key
+     * @param value value read from the backing map
+     * @param start sequence number at which the read was issued
+     */
+    private void load(K key, Versioned<V> value, long start) {
+        if (start < barrier) {
+            return;
+        }
+        cache.asMap().compute(key, (k, entry) -> {
+            if (entry == null) {
+                return CacheEntry.valid(value, value == null ? 0 : value.version());
+            } else if (!entry.valid) {
+                if (start >= entry.sequence && (value == null || value.version() >= entry.version)) {
+                    return CacheEntry.valid(value, value == null ? entry.version : value.version());
+                }
+            } else if (value != null && value.version() > entry.version) {
+                return CacheEntry.valid(value, value.version());
+            } else if (value == null ? entry.value != null : value.version() < entry.version) {
+                count(STALE);
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Applies a map event to the cache.
+     * <p>
+     * Only keys that are cached or being read are updated, so that the cache holds
+     * the entries that are actually read.
+     *
+     * @param key key
+     * @param version version of the event
+     * @param value new value; {@code null} if the key was removed
+     */
+    private void update(K key, long version, Versioned<V> value) {
+        if (cache.getIfPresent(key) == null && !loads.containsKey(key)) {
+            return;
+        }
+        cache.asMap().compute(key, (k, entry) -> {
+            if (entry == null || entry.valid && version >= entry.version) {
+                return CacheEntry.valid(value, version);
+            } else if (!entry.valid) {
+                // wait for a read issued after the local update
+                return CacheEntry.invalid(Math.max(version, entry.version), entry.sequence);
+            }
+            count(STALE);
+            return entry;
+        });
+    }
+
+    /**
+     * Invalidates the entry of a key updated locally, so that the next read
+     * observes the update.
+     *
+     * @param key key
+     */
+    private void invalidate(K key) {
+        long invalidation = sequence.incrementAndGet();
+        loads.remove(key);
+        cache.asMap().compute(key, (k, entry) ->
+                CacheEntry.invalid(entry == null ? 0 : entry.version, invalidation));
+    }
+
+    private void count(String event) {
+        if (monitor != null) {
+            monitor.incrementCounter(event);
+        }
+    }
+
+    private void invalidateAll() {
+        barrier = sequence.incrementAndGet();
+        loads.clear();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Cached state of a key.
+     * <p>
+     * A valid entry holds the value of the key, or {@code null} if the key is absent.
+     * An invalid entry marks a key updated locally and is not served until a read
+     * issued after the update completes.
+     *
+     * @param <V> value type
+     */
+    private static final class CacheEntry<V> {
+        private final Versioned<V> value;
+        private final long version;
+        private final boolean valid;
+        private final long sequence;
+
+        private CacheEntry(Versioned<V> value, long version, boolean valid, long sequence) {
+            this.value = value;
+            this.version = version;
+            this.valid = valid;
+            this.sequence = sequence;
+        }
+
+        private static <V> CacheEntry<V> valid(Versioned<V> value, long version) {
+            return new CacheEntry<>(value, version, true, 0);
+        }
+
+        private static <V> CacheEntry<V> invalid(long version, long sequence) {
+            return new CacheEntry<>(null, version, false, sequence);
+        }
+    }
 }
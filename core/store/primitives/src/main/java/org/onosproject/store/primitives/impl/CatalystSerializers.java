@@ -43,6 +43,7 @@ import org.onosproject.store.primitives.resources.impl.AtomixWorkQueueCommands;
 import org.onosproject.store.primitives.resources.impl.AtomixWorkQueueFactory;
 import org.onosproject.store.primitives.resources.impl.CommitResult;
 import org.onosproject.store.primitives.resources.impl.DocumentTreeUpdateResult;
+import org.onosproject.store.primitives.resources.impl.IteratorBatch;
 import org.onosproject.store.primitives.resources.impl.MapEntryUpdateResult;
 import org.onosproject.store.primitives.resources.impl.PrepareResult;
 import org.onosproject.store.primitives.resources.impl.RollbackResult;
@@ -81,7 +82,8 @@ public final class CatalystSerializers {
                                                                        DocumentTreeUpdateResult.Status.class,
                                                                        DocumentTreeEvent.class,
                                                                        DocumentTreeEvent.Type.class,
-                                                                       RollbackResult.class));
+                                                                       RollbackResult.class,
+                                                                       IteratorBatch.class));
         // ONOS classes
         serializer.register(Change.class, factory);
         serializer.register(Leader.class, factory);
@@ -94,6 +96,7 @@ public final class CatalystSerializers {
         serializer.register(PrepareResult.class, factory);
         serializer.register(CommitResult.class, factory);
         serializer.register(RollbackResult.class, factory);
+        serializer.register(IteratorBatch.class, factory);
         serializer.register(TransactionId.class, factory);
         serializer.register(MapUpdate.class, factory);
         serializer.register(MapUpdate.Type.class, factory);
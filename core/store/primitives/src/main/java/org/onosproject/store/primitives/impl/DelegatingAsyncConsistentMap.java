@@ -30,6 +30,7 @@ import com.google.common.base.MoreObjects;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
 import org.onosproject.store.service.Version;
@@ -119,6 +120,11 @@ public class DelegatingAsyncConsistentMap<K, V>
         return delegateMap.entrySet();
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        return delegateMap.iterator();
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
         return delegateMap.putIfAbsent(key, value);
@@ -22,6 +22,7 @@ import org.onosproject.store.service.AsyncConsistentTreeMap;
 import org.onosproject.store.service.AsyncDistributedSet;
 
 import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
 
 /**
  * Misc utilities for working with {@code DistributedPrimitive}s.
@@ -65,6 +66,26 @@ public final class DistributedPrimitives {
         return new CachingAsyncConsistentMap<>(map);
     }
 
+    /**
+     * Creates an instance of {@code AsyncConsistentMap} that serves reads from a bounded near-cache.
+     *
+     * @param map backing map
+     * @param timeToLiveMillis time after which cached entries expire; zero for no expiry
+     * @param maxWeight maximum total weight of the cached entries
+     * @param weigher function returning the weight of an entry
+     * @param meteringEnabled whether the cache hits, misses and stale values are metered
+     * @return caching map
+     * @param <K> map key type
+     * @param <V> map value type
+     */
+    public static <K, V> AsyncConsistentMap<K, V> newCachingMap(AsyncConsistentMap<K, V> map,
+                                                                long timeToLiveMillis,
+                                                                long maxWeight,
+                                                                ToIntBiFunction<? super K, ? super V> weigher,
+                                                                boolean meteringEnabled) {
+        return new CachingAsyncConsistentMap<>(map, timeToLiveMillis, maxWeight, weigher, meteringEnabled);
+    }
+
     /**
      * Creates an instance of {@code AsyncConsistentMap} that disallows updates.
      *
@@ -18,9 +18,11 @@ package org.onosproject.store.primitives.impl;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import org.apache.commons.lang3.tuple.Pair;
 import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.KryoNamespace;
@@ -44,6 +46,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -63,9 +66,11 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -99,6 +104,7 @@ public class EventuallyConsistentMapImpl<K, V>
     private final MessageSubject updateMessageSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
     private final MessageSubject updateRequestSubject;
+    private final MessageSubject hashTreeAdvertisementSubject;
 
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
             = Sets.newCopyOnWriteArraySet();
@@ -133,6 +139,10 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private final boolean persistent;
 
+    private static final int HASH_TREE_DEPTH = 10;
+    private static final int HASH_TREE_LEVELS_PER_ROUND = 5;
+    private final MapHashTree<K> hashTree;
+
     /**
      * Creates a new eventually consistent map shared amongst multiple instances.
      * <p>
@@ -158,9 +168,12 @@ public class EventuallyConsistentMapImpl<K, V>
      * @param antiEntropyPeriod     period that the anti-entropy task should run
      * @param antiEntropyTimeUnit   time unit for anti-entropy period
      * @param convergeFaster        make anti-entropy try to converge faster
+     * @param hashTreeAntiEntropy   compare hash trees before exchanging digests
+     *                              during anti-entropy
      * @param persistent            persist data to disk
      * @param persistenceService    persistence service
      */
+    // CHECKSTYLE IGNORE ParameterNumber FOR NEXT 1 LINES
     EventuallyConsistentMapImpl(String mapName,
                                 ClusterService clusterService,
                                 ClusterCommunicationService clusterCommunicator,
@@ -174,6 +187,7 @@ public class EventuallyConsistentMapImpl<K, V>
                                 long antiEntropyPeriod,
                                 TimeUnit antiEntropyTimeUnit,
                                 boolean convergeFaster,
+                                boolean hashTreeAntiEntropy,
                                 boolean persistent,
                                 PersistenceService persistenceService) {
         this.mapName = mapName;
@@ -189,6 +203,12 @@ public class EventuallyConsistentMapImpl<K, V>
         } else {
             items = Maps.newConcurrentMap();
         }
+        if (hashTreeAntiEntropy) {
+            hashTree = new MapHashTree<>(HASH_TREE_DEPTH, serializer::encode);
+            items.forEach((key, value) -> hashTree.update(key, null, value));
+        } else {
+            hashTree = null;
+        }
         senderPending = Maps.newConcurrentMap();
         destroyedMessage = mapName + ERROR_DESTROYED;
 
@@ -272,6 +292,17 @@ public class EventuallyConsistentMapImpl<K, V>
                                           this::handleUpdateRequests,
                                           this.backgroundExecutor);
 
+        if (hashTree != null) {
+            hashTreeAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-tree");
+            clusterCommunicator.addSubscriber(hashTreeAdvertisementSubject,
+                                              serializer::decode,
+                                              this::handleHashTreeAdvertisement,
+                                              serializer::encode,
+                                              this.backgroundExecutor);
+        } else {
+            hashTreeAdvertisementSubject = null;
+        }
+
         if (!tombstonesDisabled) {
             previousTombstonePurgeTime = 0;
             this.backgroundExecutor.scheduleWithFixedDelay(this::purgeTombstones,
@@ -302,6 +333,7 @@ public class EventuallyConsistentMapImpl<K, V>
                          .register(MapValue.class)
                          .register(MapValue.Digest.class)
                          .register(UpdateRequest.class)
+                         .register(HashTreeAdvertisement.class)
                          .build(name() + "-ecmap"));
     }
 
@@ -418,6 +450,7 @@ public class EventuallyConsistentMapImpl<K, V>
             }
             if (updated.get()) {
                 previousValue.set(existing);
+                updateHashTree(k, existing, tombstone.orElse(null));
                 return tombstone.orElse(null);
             } else {
                 return existing;
@@ -446,7 +479,9 @@ public class EventuallyConsistentMapImpl<K, V>
                 updated.set(true);
                 // We return a copy to ensure updates to peers can be serialized.
                 // This prevents replica divergence due to serialization failures.
-                return serializer.copy(newValue);
+                MapValue<V> copy = serializer.copy(newValue);
+                updateHashTree(k, mv, copy);
+                return copy;
             } else {
                 return mv;
             }
@@ -517,6 +552,7 @@ public class EventuallyConsistentMapImpl<K, V>
         items.compute(key, (k, existing) -> {
             if (existing == null || newValue.isNewerThan(existing)) {
                 updated.set(true);
+                updateHashTree(k, existing, newValue);
                 return newValue;
             }
             return existing;
@@ -558,9 +594,18 @@ public class EventuallyConsistentMapImpl<K, V>
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(updateRequestSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+        if (hashTreeAdvertisementSubject != null) {
+            clusterCommunicator.removeSubscriber(hashTreeAdvertisementSubject);
+        }
         return CompletableFuture.completedFuture(null);
     }
 
+    private void updateHashTree(K key, MapValue<V> oldValue, MapValue<V> newValue) {
+        if (hashTree != null) {
+            hashTree.update(key, oldValue, newValue);
+        }
+    }
+
     private void notifyListeners(EventuallyConsistentMapEvent<K, V> event) {
         listeners.forEach(listener -> listener.event(event));
     }
@@ -608,22 +653,82 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private void sendAdvertisementToPeer(NodeId peer) {
         long adCreationTime = System.currentTimeMillis();
-        AntiEntropyAdvertisement<K> ad = createAdvertisement();
-        clusterCommunicator.sendAndReceive(ad,
+        CompletableFuture<AntiEntropyResponse> response;
+        if (hashTree != null) {
+            response = compareHashTrees(peer, ImmutableSet.of(MapHashTree.ROOT))
+                    .thenCompose(leaves -> {
+                        if (leaves == null) {
+                            return CompletableFuture.completedFuture(AntiEntropyResponse.IGNORED);
+                        } else if (leaves.isEmpty()) {
+                            // in sync with the peer
+                            return CompletableFuture.completedFuture(AntiEntropyResponse.PROCESSED);
+                        }
+                        return sendAdvertisementToPeer(peer, createAdvertisement(leaves));
+                    });
+        } else {
+            response = sendAdvertisementToPeer(peer, createAdvertisement());
+        }
+        response.whenComplete((result, error) -> {
+            if (error != null) {
+                log.debug("Failed to send anti-entropy advertisement to {}: {}",
+                        peer, error.getMessage());
+            } else if (result == AntiEntropyResponse.PROCESSED) {
+                antiEntropyTimes.put(peer, adCreationTime);
+            }
+        });
+    }
+
+    private CompletableFuture<AntiEntropyResponse> sendAdvertisementToPeer(NodeId peer,
+                                                                           AntiEntropyAdvertisement<K> ad) {
+        return clusterCommunicator.sendAndReceive(ad,
                 antiEntropyAdvertisementSubject,
                 serializer::encode,
                 serializer::decode,
+                peer);
+    }
+
+    /**
+     * Compares the given nodes of the local hash tree with those of the peer,
+     * descending into the differing nodes until the leaves are reached.
+     *
+     * @param peer  peer to compare with
+     * @param nodes nodes to compare, all on the same level
+     * @return future for the differing leaves, or for null if the peer
+     * ignored the comparison
+     */
+    private CompletableFuture<Set<Integer>> compareHashTrees(NodeId peer, Set<Integer> nodes) {
+        long[] tree = hashTree.snapshot();
+        int[] advertised = Ints.toArray(nodes);
+        long[] hashes = Arrays.stream(advertised).mapToLong(node -> tree[node]).toArray();
+        HashTreeAdvertisement ad = new HashTreeAdvertisement(localNodeId, hashTree.depth(), advertised, hashes);
+        return clusterCommunicator.<HashTreeAdvertisement, int[]>sendAndReceive(ad,
+                hashTreeAdvertisementSubject,
+                serializer::encode,
+                serializer::decode,
                 peer)
-                .whenComplete((result, error) -> {
-                    if (error != null) {
-                        log.debug("Failed to send anti-entropy advertisement to {}: {}",
-                                peer, error.getMessage());
-                    } else if (result == AntiEntropyResponse.PROCESSED) {
-                        antiEntropyTimes.put(peer, adCreationTime);
+                .thenCompose(differing -> {
+                    if (differing == null || differing.length == 0 || hashTree.isLeaf(differing[0])) {
+                        return CompletableFuture.completedFuture(
+                                differing == null ? null : ImmutableSet.copyOf(Ints.asList(differing)));
                     }
+                    return compareHashTrees(peer, hashTree.descendants(Ints.asList(differing),
+                                                                       HASH_TREE_LEVELS_PER_ROUND));
                 });
     }
 
+    private int[] handleHashTreeAdvertisement(HashTreeAdvertisement ad) {
+        if (destroyed || underHighLoad() || ad.depth() != hashTree.depth()) {
+            return null;
+        }
+        long[] tree = hashTree.snapshot();
+        int[] nodes = ad.nodes();
+        long[] hashes = ad.hashes();
+        return IntStream.range(0, nodes.length)
+                .filter(i -> tree[nodes[i]] != hashes[i])
+                .map(i -> nodes[i])
+                .toArray();
+    }
+
     private void sendUpdateRequestToPeer(NodeId peer, Set<K> keys) {
         UpdateRequest<K> request = new UpdateRequest<>(localNodeId, keys);
         clusterCommunicator.unicast(request,
@@ -643,8 +748,31 @@ public class EventuallyConsistentMapImpl<K, V>
                 ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
     }
 
+    private AntiEntropyAdvertisement<K> createAdvertisement(Set<Integer> leaves) {
+        Map<K, MapValue.Digest> digest = Maps.newHashMap();
+        forEachItem(leaves, (key, value) -> digest.put(key, value.digest()));
+        return new AntiEntropyAdvertisement<>(localNodeId, digest, leaves);
+    }
+
+    /**
+     * Applies the given action to the entries under the given hash tree
+     * leaves, or to all entries if no leaves are given.
+     */
+    private void forEachItem(Set<Integer> leaves, BiConsumer<K, MapValue<V>> action) {
+        if (leaves.isEmpty()) {
+            items.forEach(action);
+            return;
+        }
+        leaves.forEach(leaf -> hashTree.keys(leaf).forEach(key -> {
+            MapValue<V> value = items.get(key);
+            if (value != null) {
+                action.accept(key, value);
+            }
+        }));
+    }
+
     private AntiEntropyResponse handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
-        if (destroyed || underHighLoad()) {
+        if (destroyed || underHighLoad() || (hashTree == null && !ad.leaves().isEmpty())) {
             return AntiEntropyResponse.IGNORED;
         }
         try {
@@ -674,7 +802,7 @@ public class EventuallyConsistentMapImpl<K, V>
         Set<K> staleOrMissing = new HashSet<>();
         Set<K> locallyUnknown = new HashSet<>(ad.digest().keySet());
 
-        items.forEach((key, localValue) -> {
+        forEachItem(ad.leaves(), (key, localValue) -> {
             locallyUnknown.remove(key);
             MapValue.Digest remoteValueDigest = ad.digest().get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
@@ -737,7 +865,13 @@ public class EventuallyConsistentMapImpl<K, V>
                                           .filter(e -> e.getValue().creationTime() <= currentSafeTombstonePurgeTime)
                                           .collect(Collectors.toList());
         previousTombstonePurgeTime = currentSafeTombstonePurgeTime;
-        tombStonesToDelete.forEach(entry -> items.remove(entry.getKey(), entry.getValue()));
+        tombStonesToDelete.forEach(entry -> items.computeIfPresent(entry.getKey(), (key, value) -> {
+            if (!value.equals(entry.getValue())) {
+                return value;
+            }
+            updateHashTree(key, value, null);
+            return null;
+        }));
     }
 
     private void processUpdates(Collection<UpdateEntry<K, V>> updates) {
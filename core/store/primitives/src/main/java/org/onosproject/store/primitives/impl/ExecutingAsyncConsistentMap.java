@@ -26,6 +26,7 @@ import java.util.function.Predicate;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
 import org.onosproject.store.service.Version;
@@ -111,6 +112,11 @@ public class ExecutingAsyncConsistentMap<K, V>
         return asyncFuture(delegateMap.entrySet());
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Map.Entry<K, Versioned<V>>>> iterator() {
+        return asyncFuture(delegateMap.iterator()).thenApply(ExecutingIterator::new);
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
         return asyncFuture(delegateMap.putIfAbsent(key, value));
@@ -180,4 +186,30 @@ public class ExecutingAsyncConsistentMap<K, V>
     public CompletableFuture<Void> removeListener(MapEventListener<K, V> listener) {
         return asyncFuture(delegateMap.removeListener(listener));
     }
+
+    /**
+     * Iterator that completes its calls on the executors of the map.
+     */
+    private class ExecutingIterator<T> implements AsyncIterator<T> {
+        private final AsyncIterator<T> delegateIterator;
+
+        ExecutingIterator(AsyncIterator<T> delegateIterator) {
+            this.delegateIterator = delegateIterator;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            return asyncFuture(delegateIterator.hasNext());
+        }
+
+        @Override
+        public CompletableFuture<T> next() {
+            return asyncFuture(delegateIterator.next());
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            return asyncFuture(delegateIterator.close());
+        }
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import com.google.common.base.MoreObjects;
+
+import org.onosproject.cluster.NodeId;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Hash tree advertisement message for eventually consistent map.
+ * <p>
+ * Carries the hashes of a set of nodes of the sender's {@link MapHashTree};
+ * the receiver replies with the nodes whose hashes differ from its own.
+ * </p>
+ */
+public class HashTreeAdvertisement {
+
+    private final NodeId sender;
+    private final int depth;
+    private final int[] nodes;
+    private final long[] hashes;
+
+    /**
+     * Creates a new hash tree advertisement message.
+     *
+     * @param sender the sender's node ID
+     * @param depth  depth of the sender's hash tree
+     * @param nodes  advertised node numbers
+     * @param hashes hashes of the advertised nodes
+     */
+    public HashTreeAdvertisement(NodeId sender, int depth, int[] nodes, long[] hashes) {
+        checkArgument(nodes.length == hashes.length, "nodes and hashes differ in length");
+        this.sender = checkNotNull(sender);
+        this.depth = depth;
+        this.nodes = nodes;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the depth of the sender's hash tree.
+     *
+     * @return hash tree depth
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the advertised node numbers.
+     *
+     * @return node numbers
+     */
+    public int[] nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the hashes of the advertised nodes, in the order of {@link #nodes()}.
+     *
+     * @return node hashes
+     */
+    public long[] hashes() {
+        return hashes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("depth", depth)
+                .add("totalNodes", nodes.length)
+                .toString();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Hash tree summarizing the entries of an eventually consistent map. Two
+ * replicas compare their trees top down to find the key ranges in which
+ * they differ.
+ * <p>
+ * Keys are spread over a fixed number of leaf buckets by the hash of their
+ * serialized form, so that all replicas agree on the bucket of a key. The
+ * hash of a leaf is the XOR of the hashes of its entries, which lets a leaf
+ * be updated in place as entries change; the hashes of inner nodes are
+ * computed on demand by {@link #snapshot()}.
+ * </p>
+ * <p>
+ * Nodes are numbered heap-style: the root is {@link #ROOT} and the children
+ * of node {@code n} are {@code 2n} and {@code 2n + 1}.
+ * </p>
+ *
+ * @param <K> key type
+ */
+final class MapHashTree<K> {
+
+    static final int ROOT = 1;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int depth;
+    private final int leafCount;
+    private final Function<Object, byte[]> encoder;
+    private final AtomicLongArray leaves;
+    private final List<Set<K>> leafKeys;
+
+    /**
+     * Creates a new hash tree.
+     *
+     * @param depth   number of levels below the root
+     * @param encoder serializes the keys and timestamps of the map
+     */
+    MapHashTree(int depth, Function<Object, byte[]> encoder) {
+        checkArgument(depth > 0 && depth < 24, "depth must be between 1 and 23");
+        this.depth = depth;
+        this.leafCount = 1 << depth;
+        this.encoder = checkNotNull(encoder);
+        this.leaves = new AtomicLongArray(leafCount);
+        this.leafKeys = Lists.newArrayListWithCapacity(leafCount);
+        for (int i = 0; i < leafCount; i++) {
+            leafKeys.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Returns the number of levels below the root.
+     *
+     * @return tree depth
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns whether the given node is a leaf.
+     *
+     * @param node node number
+     * @return true if the node is a leaf
+     */
+    boolean isLeaf(int node) {
+        return node >= leafCount;
+    }
+
+    /**
+     * Updates the tree for a change of the value mapped to a key.
+     * Updates of the same key must not run concurrently.
+     *
+     * @param key      key
+     * @param oldValue previous value, or null if the key was not mapped
+     * @param newValue new value, or null if the key is no longer mapped
+     */
+    void update(K key, MapValue<?> oldValue, MapValue<?> newValue) {
+        if (oldValue == newValue) {
+            return;
+        }
+        byte[] keyBytes = encoder.apply(key);
+        int leaf = leafOf(keyBytes);
+        long delta = entryHash(keyBytes, oldValue) ^ entryHash(keyBytes, newValue);
+        leaves.accumulateAndGet(leaf, delta, (a, b) -> a ^ b);
+        if (newValue == null) {
+            leafKeys.get(leaf).remove(key);
+        } else {
+            leafKeys.get(leaf).add(key);
+        }
+    }
+
+    /**
+     * Returns the hashes of all nodes of the tree, indexed by node number.
+     *
+     * @return node hashes
+     */
+    long[] snapshot() {
+        long[] tree = new long[2 * leafCount];
+        for (int i = 0; i < leafCount; i++) {
+            tree[leafCount + i] = leaves.get(i);
+        }
+        for (int node = leafCount - 1; node >= ROOT; node--) {
+            tree[node] = HASH.newHasher()
+                    .putLong(tree[2 * node])
+                    .putLong(tree[2 * node + 1])
+                    .hash()
+                    .asLong();
+        }
+        return tree;
+    }
+
+    /**
+     * Returns the descendants of the given nodes that lie the given number
+     * of levels below them, or the leaves below them if those are closer.
+     *
+     * @param nodes  node numbers, all on the same level
+     * @param levels number of levels to descend
+     * @return descendant node numbers
+     */
+    Set<Integer> descendants(Collection<Integer> nodes, int levels) {
+        ImmutableSet.Builder<Integer> descendants = ImmutableSet.builder();
+        nodes.forEach(node -> {
+            int descend = Math.min(levels, depth - level(node));
+            IntStream.range(node << descend, (node + 1) << descend).forEach(descendants::add);
+        });
+        return descendants.build();
+    }
+
+    /**
+     * Returns the keys held under the given leaf.
+     *
+     * @param leaf leaf node number
+     * @return keys of the leaf
+     */
+    Set<K> keys(int leaf) {
+        checkArgument(isLeaf(leaf), "not a leaf: %s", leaf);
+        return leafKeys.get(leaf - leafCount);
+    }
+
+    private int level(int node) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(node);
+    }
+
+    private int leafOf(byte[] keyBytes) {
+        return HASH.hashBytes(keyBytes).asInt() & (leafCount - 1);
+    }
+
+    private long entryHash(byte[] keyBytes, MapValue<?> value) {
+        if (value == null) {
+            return 0;
+        }
+        return HASH.newHasher()
+                .putBytes(keyBytes)
+                .putBytes(encoder.apply(value.timestamp()))
+                .putBoolean(value.isTombstone())
+                .hash()
+                .asLong();
+    }
+}
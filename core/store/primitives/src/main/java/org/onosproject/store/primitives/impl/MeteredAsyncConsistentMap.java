@@ -29,6 +29,7 @@ import java.util.function.Predicate;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
@@ -64,6 +65,7 @@ public class MeteredAsyncConsistentMap<K, V>  extends DelegatingAsyncConsistentM
     private static final String KEY_SET = "keySet";
     private static final String VALUES = "values";
     private static final String ENTRY_SET = "entrySet";
+    private static final String ITERATOR = "iterator";
     private static final String REPLACE = "replace";
     private static final String COMPUTE_IF_ABSENT = "computeIfAbsent";
     private static final String BEGIN = "begin";
@@ -192,6 +194,13 @@ public class MeteredAsyncConsistentMap<K, V>  extends DelegatingAsyncConsistentM
                     .whenComplete((r, e) -> timer.stop(e));
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        final MeteringAgent.Context timer = monitor.startTimer(ITERATOR);
+        return super.iterator()
+                    .whenComplete((r, e) -> timer.stop(e));
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
         final MeteringAgent.Context timer = monitor.startTimer(PUT_IF_ABSENT);
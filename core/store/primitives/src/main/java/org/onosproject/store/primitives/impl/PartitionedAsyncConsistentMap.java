@@ -18,8 +18,11 @@ package org.onosproject.store.primitives.impl;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
@@ -35,6 +38,7 @@ import org.onosproject.cluster.PartitionId;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
 import org.onosproject.store.service.Version;
@@ -154,6 +158,12 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
                 ImmutableSet.of());
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        return Tools.allOf(getMaps().stream().map(m -> m.iterator()).collect(Collectors.toList()))
+                .thenApply(PartitionedMultiIterator::new);
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
         return getMap(key).putIfAbsent(key, value);
@@ -254,4 +264,47 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
     private Collection<AsyncConsistentMap<K, V>> getMaps() {
         return partitions.values();
     }
+
+    /**
+     * Iterator walking the entries of the partitions one partition after the other.
+     */
+    private static class PartitionedMultiIterator<T> implements AsyncIterator<T> {
+        private final List<AsyncIterator<T>> iterators;
+        private final Iterator<AsyncIterator<T>> remaining;
+        private AsyncIterator<T> iterator;
+
+        PartitionedMultiIterator(List<AsyncIterator<T>> iterators) {
+            this.iterators = iterators;
+            this.remaining = iterators.iterator();
+            this.iterator = remaining.hasNext() ? remaining.next() : null;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            if (iterator == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return iterator.hasNext().thenCompose(hasNext -> {
+                if (hasNext) {
+                    return CompletableFuture.completedFuture(true);
+                }
+                iterator = remaining.hasNext() ? remaining.next() : null;
+                return hasNext();
+            });
+        }
+
+        @Override
+        public CompletableFuture<T> next() {
+            return hasNext().thenCompose(hasNext -> hasNext ? iterator.next()
+                    : Tools.exceptionalFuture(new NoSuchElementException()));
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            iterator = null;
+            return CompletableFuture.allOf(iterators.stream()
+                                                   .map(AsyncIterator::close)
+                                                   .toArray(CompletableFuture[]::new));
+        }
+    }
 }
@@ -32,6 +32,7 @@ import org.onlab.util.Tools;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
@@ -190,6 +191,11 @@ public class TranscodingAsyncConsistentMap<K1, V1, K2, V2> implements AsyncConsi
                                           .collect(Collectors.toSet()));
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K1, Versioned<V1>>>> iterator() {
+        return backingMap.iterator().thenApply(TranscodingIterator::new);
+    }
+
     @Override
     public CompletableFuture<Versioned<V1>> putIfAbsent(K1 key, V1 value) {
         try {
@@ -343,4 +349,28 @@ public class TranscodingAsyncConsistentMap<K1, V1, K2, V2> implements AsyncConsi
                     event.oldValue() != null ? event.oldValue().map(valueDecoder) : null));
         }
     }
+
+    private class TranscodingIterator implements AsyncIterator<Entry<K1, Versioned<V1>>> {
+        private final AsyncIterator<Entry<K2, Versioned<V2>>> iterator;
+
+        public TranscodingIterator(AsyncIterator<Entry<K2, Versioned<V2>>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public CompletableFuture<Entry<K1, Versioned<V1>>> next() {
+            return iterator.next().thenApply(e -> Maps.immutableEntry(keyDecoder.apply(e.getKey()),
+                                                                      versionedValueTransform.apply(e.getValue())));
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            return iterator.close();
+        }
+    }
 }
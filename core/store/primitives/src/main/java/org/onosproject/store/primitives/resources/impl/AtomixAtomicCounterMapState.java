@@ -46,8 +46,9 @@ import java.util.Properties;
  * <p>
  * The counter map state is implemented as a snapshottable state machine. Snapshots are necessary
  * since incremental compaction is impractical for counters where the value of a counter is the sum
- * of all its increments. Note that this snapshotting large state machines may risk blocking of the
- * Raft cluster with the current implementation of snapshotting in Copycat.
+ * of all its increments. Counters are written to snapshots one at a time, but note that snapshotting
+ * large state machines may still risk blocking of the Raft cluster with the current implementation
+ * of snapshotting in Copycat.
  */
 public class AtomixAtomicCounterMapState extends ResourceStateMachine implements Snapshottable {
     private Map<String, Long> map = new HashMap<>();
@@ -77,12 +78,21 @@ public class AtomixAtomicCounterMapState extends ResourceStateMachine implements
 
     @Override
     public void snapshot(SnapshotWriter writer) {
-        writer.writeObject(map);
+        // counters are streamed one by one rather than serialized as a whole map
+        writer.writeInt(map.size());
+        map.forEach((key, value) -> {
+            writer.writeString(key);
+            writer.writeLong(value);
+        });
     }
 
     @Override
     public void install(SnapshotReader reader) {
-        map = reader.readObject();
+        map = new HashMap<>();
+        int size = reader.readInt();
+        for (int i = 0; i < size; i++) {
+            map.put(reader.readString(), reader.readLong());
+        }
     }
 
     /**
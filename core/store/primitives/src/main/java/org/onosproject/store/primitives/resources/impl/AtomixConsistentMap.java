@@ -21,10 +21,13 @@ import io.atomix.resource.ResourceTypeInfo;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -45,6 +48,7 @@ import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapComman
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Get;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.GetOrDefault;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.IsEmpty;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.IteratorNext;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.KeySet;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Listen;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Size;
@@ -57,6 +61,7 @@ import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapComman
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAndGet;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Values;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.ConsistentMapException;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
@@ -79,6 +84,8 @@ public class AtomixConsistentMap extends AbstractResource<AtomixConsistentMap>
 
     public static final String CHANGE_SUBJECT = "changeEvents";
 
+    private static final int ITERATOR_BATCH_SIZE = 1000;
+
     public AtomixConsistentMap(CopycatClient client, Properties properties) {
         super(client, properties);
     }
@@ -151,6 +158,11 @@ public class AtomixConsistentMap extends AbstractResource<AtomixConsistentMap>
         return client.submit(new EntrySet());
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<String, Versioned<byte[]>>>> iterator() {
+        return CompletableFuture.completedFuture(new ConsistentMapIterator());
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public CompletableFuture<Versioned<byte[]>> put(String key, byte[] value) {
@@ -343,4 +355,47 @@ public class AtomixConsistentMap extends AbstractResource<AtomixConsistentMap>
     private boolean isListening() {
         return !mapEventListeners.isEmpty();
     }
+
+    /**
+     * Iterator fetching the entries of the map from the state machine one batch at a time,
+     * in key order; each batch resumes after the last key of the previous one.
+     */
+    private class ConsistentMapIterator implements AsyncIterator<Entry<String, Versioned<byte[]>>> {
+        private String lastKey;
+        private boolean last;
+        private Iterator<Entry<String, Versioned<byte[]>>> batch = Collections.emptyIterator();
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            if (batch.hasNext()) {
+                return CompletableFuture.completedFuture(true);
+            } else if (last) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return client.submit(new IteratorNext(lastKey, ITERATOR_BATCH_SIZE))
+                    .thenCompose(result -> {
+                        lastKey = result.lastKey();
+                        batch = result.entries().iterator();
+                        last = result.last();
+                        return hasNext();
+                    });
+        }
+
+        @Override
+        public CompletableFuture<Entry<String, Versioned<byte[]>>> next() {
+            return hasNext().thenApply(hasNext -> {
+                if (!hasNext) {
+                    throw new NoSuchElementException();
+                }
+                return batch.next();
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            batch = Collections.emptyIterator();
+            last = true;
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 }
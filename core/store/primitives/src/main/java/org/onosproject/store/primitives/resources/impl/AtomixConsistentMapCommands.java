@@ -49,6 +49,12 @@ public final class AtomixConsistentMapCommands {
     @SuppressWarnings("serial")
     public abstract static class MapCommand<V> implements Command<V>, CatalystSerializable {
 
+        @Override
+        public CompactionMode compaction() {
+            // map commands are released once applied and compacted once covered by a snapshot of the map
+            return CompactionMode.SNAPSHOT;
+        }
+
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(getClass())
@@ -279,11 +285,6 @@ public final class AtomixConsistentMapCommands {
         public TransactionPrepareAndCommit(TransactionLog<MapUpdate<String, byte[]>> transactionLog) {
             super(transactionLog);
         }
-
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
-        }
     }
 
     /**
@@ -320,11 +321,6 @@ public final class AtomixConsistentMapCommands {
             transactionId = serializer.readObject(buffer);
         }
 
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
-        }
-
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(getClass())
@@ -367,11 +363,6 @@ public final class AtomixConsistentMapCommands {
             transactionId = serializer.readObject(buffer);
         }
 
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
-        }
-
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(getClass())
@@ -435,11 +426,6 @@ public final class AtomixConsistentMapCommands {
             return this.versionMatch;
         }
 
-        @Override
-        public CompactionMode compaction() {
-          return value == null ? CompactionMode.TOMBSTONE : CompactionMode.FULL;
-        }
-
         @Override
         public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
             super.writeObject(buffer, serializer);
@@ -547,6 +533,64 @@ public final class AtomixConsistentMapCommands {
     public static class EntrySet extends MapQuery<Set<Map.Entry<String, Versioned<byte[]>>>> {
     }
 
+    /**
+     * Iterator next query.
+     */
+    @SuppressWarnings("serial")
+    public static class IteratorNext extends MapQuery<IteratorBatch<Map.Entry<String, Versioned<byte[]>>>> {
+        private String afterKey;
+        private int batchSize;
+
+        public IteratorNext() {
+        }
+
+        public IteratorNext(String afterKey, int batchSize) {
+            this.afterKey = afterKey;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Returns the key after which the batch starts.
+         * @return last key of the previous batch, or {@code null} for the first batch
+         */
+        public String afterKey() {
+            return afterKey;
+        }
+
+        /**
+         * Returns the maximum number of entries to return.
+         * @return batch size
+         */
+        public int batchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("afterKey", afterKey)
+                    .add("batchSize", batchSize)
+                    .toString();
+        }
+
+        @Override
+        public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
+            super.writeObject(buffer, serializer);
+            buffer.writeBoolean(afterKey != null);
+            if (afterKey != null) {
+                buffer.writeString(afterKey);
+            }
+            buffer.writeInt(batchSize);
+        }
+
+        @Override
+        public void readObject(BufferInput<?> buffer, Serializer serializer) {
+            super.readObject(buffer, serializer);
+            afterKey = buffer.readBoolean() ? buffer.readString() : null;
+            batchSize = buffer.readInt();
+        }
+    }
+
     /**
      * Size query.
      */
@@ -559,10 +603,6 @@ public final class AtomixConsistentMapCommands {
      */
     @SuppressWarnings("serial")
     public static class Clear extends MapCommand<MapEntryUpdateResult.Status> {
-        @Override
-        public CompactionMode compaction() {
-          return CompactionMode.TOMBSTONE;
-        }
     }
 
     /**
@@ -627,6 +667,7 @@ public final class AtomixConsistentMapCommands {
             registry.register(TransactionRollback.class, -774);
             registry.register(TransactionPrepareAndCommit.class, -775);
             registry.register(UpdateAndGet.class, -776);
+            registry.register(IteratorNext.class, -780);
         }
     }
 }
@@ -29,16 +29,18 @@ import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
 import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
 import io.atomix.resource.ResourceStateMachine;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
-import org.onlab.util.CountDownCompleter;
 import org.onlab.util.Match;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
@@ -49,6 +51,7 @@ import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapComman
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Get;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.GetOrDefault;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.IsEmpty;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.IteratorNext;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.KeySet;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Listen;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Size;
@@ -72,12 +75,20 @@ import com.google.common.collect.Sets;
 
 /**
  * State Machine for {@link AtomixConsistentMap} resource.
+ * <p>
+ * Map entries and transactions are kept as plain values rather than as the commits that produced them, and
+ * are written to snapshots. Commits are thus released once applied, letting Copycat compact the log up to the
+ * last snapshot. Listen commits are the exception: they are retained for as long as their session listens,
+ * since sessions cannot be written to snapshots, and rebuild the listeners when the log is replayed.
  */
 public class AtomixConsistentMapState extends ResourceStateMachine implements SessionListener, Snapshottable {
 
+    private static final int MAX_ITERATOR_BATCH_BYTES = 1024 * 1024;
+
     private final Logger log = getLogger(getClass());
     private final Map<Long, Commit<? extends Listen>> listeners = new HashMap<>();
-    private final Map<String, MapEntryValue> mapEntries = new HashMap<>();
+    // sorted so that iterators resume after the last key they read on any replica
+    private final NavigableMap<String, MapEntryValue> mapEntries = new TreeMap<>();
     private final Set<String> preparedKeys = Sets.newHashSet();
     private final Map<TransactionId, TransactionScope> activeTransactions = Maps.newHashMap();
     private long currentVersion;
@@ -88,10 +99,88 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
 
     @Override
     public void snapshot(SnapshotWriter writer) {
+        writer.writeLong(currentVersion);
+
+        // Entries are streamed to the snapshot one by one to avoid copying the whole map.
+        writer.writeInt(mapEntries.size());
+        mapEntries.forEach((key, value) -> {
+            writer.writeString(key);
+            writeValue(writer, value);
+        });
+
+        writer.writeInt(preparedKeys.size());
+        preparedKeys.forEach(writer::writeString);
+
+        writer.writeInt(activeTransactions.size());
+        activeTransactions.forEach((transactionId, scope) -> {
+            writer.writeObject(transactionId);
+            writer.writeLong(scope.version());
+            writer.writeBoolean(scope.isPrepared());
+            if (scope.isPrepared()) {
+                writer.writeObject(scope.transactionLog());
+            }
+        });
     }
 
     @Override
     public void install(SnapshotReader reader) {
+        currentVersion = reader.readLong();
+
+        mapEntries.clear();
+        int entries = reader.readInt();
+        for (int i = 0; i < entries; i++) {
+            String key = reader.readString();
+            mapEntries.put(key, readValue(reader));
+        }
+
+        preparedKeys.clear();
+        int keys = reader.readInt();
+        for (int i = 0; i < keys; i++) {
+            preparedKeys.add(reader.readString());
+        }
+
+        activeTransactions.clear();
+        int transactions = reader.readInt();
+        for (int i = 0; i < transactions; i++) {
+            TransactionId transactionId = reader.readObject();
+            long version = reader.readLong();
+            TransactionLog<MapUpdate<String, byte[]>> transactionLog =
+                    reader.readBoolean() ? reader.readObject() : null;
+            activeTransactions.put(transactionId, new TransactionScope(version, transactionLog));
+        }
+    }
+
+    /**
+     * Writes a map entry value to a snapshot.
+     *
+     * @param writer snapshot writer
+     * @param value map entry value
+     */
+    private static void writeValue(SnapshotWriter writer, MapEntryValue value) {
+        writer.writeLong(value.version());
+        if (value.type() == MapEntryValue.Type.TOMBSTONE) {
+            writer.writeInt(-1);
+        } else {
+            writer.writeInt(value.value().length);
+            writer.write(value.value());
+        }
+    }
+
+    /**
+     * Reads a map entry value written by {@link #writeValue(SnapshotWriter, MapEntryValue)}.
+     *
+     * @param reader snapshot reader
+     * @return map entry value
+     */
+    private static MapEntryValue readValue(SnapshotReader reader) {
+        long version = reader.readLong();
+        int length = reader.readInt();
+        if (length < 0) {
+            return new MapEntryValue(MapEntryValue.Type.TOMBSTONE, version, null);
+        }
+        byte[] value = new byte[length];
+        reader.read(value);
+        return new MapEntryValue(MapEntryValue.Type.VALUE, version, value);
     }
 
     @Override
@@ -109,6 +198,7 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         executor.register(KeySet.class, this::keySet);
         executor.register(Size.class, this::size);
         executor.register(Values.class, this::values);
+        executor.register(IteratorNext.class, this::iteratorNext);
         // Commands
         executor.register(UpdateAndGet.class, this::updateAndGet);
         executor.register(AtomixConsistentMapCommands.Clear.class, this::clear);
@@ -126,7 +216,6 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         listeners.clear();
 
         // Delete Map entries
-        mapEntries.values().forEach(MapEntryValue::discard);
         mapEntries.clear();
     }
 
@@ -280,6 +369,41 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         }
     }
 
+    /**
+     * Handles an iterator next commit.
+     * <p>
+     * Iterators keep no state on the state machine: each batch starts after
+     * the last key of the previous one, so that a batch may be read from any
+     * replica, and skips the keys removed since.
+     *
+     * @param commit iterator next commit
+     * @return batch of the entries following the key of the commit, in key order
+     */
+    protected IteratorBatch<Map.Entry<String, Versioned<byte[]>>> iteratorNext(Commit<? extends IteratorNext> commit) {
+        try {
+            String afterKey = commit.operation().afterKey();
+            Iterator<Map.Entry<String, MapEntryValue>> iterator = afterKey == null
+                    ? mapEntries.entrySet().iterator()
+                    : mapEntries.tailMap(afterKey, false).entrySet().iterator();
+
+            List<Map.Entry<String, Versioned<byte[]>>> entries = new ArrayList<>();
+            String lastKey = afterKey;
+            int bytes = 0;
+            while (iterator.hasNext() && entries.size() < commit.operation().batchSize()
+                    && bytes < MAX_ITERATOR_BATCH_BYTES) {
+                Map.Entry<String, MapEntryValue> entry = iterator.next();
+                lastKey = entry.getKey();
+                if (entry.getValue().type() != MapEntryValue.Type.TOMBSTONE) {
+                    entries.add(Maps.immutableEntry(entry.getKey(), toVersioned(entry.getValue())));
+                    bytes += entry.getValue().value().length;
+                }
+            }
+            return new IteratorBatch<>(lastKey, entries, !iterator.hasNext());
+        } finally {
+            commit.close();
+        }
+    }
+
     /**
      * Handles a update and get commit.
      *
@@ -294,7 +418,6 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
             Versioned<byte[]> oldMapValue = toVersioned(oldCommitValue);
 
             if (updateStatus != MapEntryUpdateResult.Status.OK) {
-                commit.close();
                 return new MapEntryUpdateResult<>(updateStatus, "", key, oldMapValue, oldMapValue);
             }
 
@@ -306,25 +429,16 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
             MapEvent.Type updateType = newValue == null ? REMOVE
                     : oldCommitValue == null ? INSERT : UPDATE;
 
-            // If a value existed in the map, remove and discard the value to ensure disk can be freed.
-            if (updateType == REMOVE || updateType == UPDATE) {
-                mapEntries.remove(key);
-                oldCommitValue.discard();
-            }
-
-            // If this is an insert/update commit, add the commit to the map entries.
+            // If this is an insert/update commit, add the value to the map entries.
             if (updateType == INSERT || updateType == UPDATE) {
-                mapEntries.put(key, new NonTransactionalCommit(commit));
+                mapEntries.put(key, new MapEntryValue(MapEntryValue.Type.VALUE, currentVersion, newValue));
             } else if (!activeTransactions.isEmpty()) {
                 // If this is a delete but transactions are currently running, ensure tombstones are retained
                 // for version checks.
-                TombstoneCommit tombstone = new TombstoneCommit(
-                        commit.index(),
-                        new CountDownCompleter<>(commit, 1, Commit::close));
-                mapEntries.put(key, tombstone);
+                mapEntries.put(key, new MapEntryValue(MapEntryValue.Type.TOMBSTONE, currentVersion, null));
             } else {
                 // If no transactions are in progress, we can safely delete the key from memory.
-                commit.close();
+                mapEntries.remove(key);
             }
 
             publish(Lists.newArrayList(new MapEvent<>("", key, newMapValue, oldMapValue)));
@@ -332,6 +446,8 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         } catch (Exception e) {
             log.error("State machine operation failed", e);
             throw Throwables.propagate(e);
+        } finally {
+            commit.close();
         }
     }
 
@@ -352,7 +468,6 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
                 Versioned<byte[]> removedValue = new Versioned<>(value.value(),
                         value.version());
                 publish(Lists.newArrayList(new MapEvent<>("", key, null, removedValue)));
-                value.discard();
                 iterator.remove();
             }
             return MapEntryUpdateResult.Status.OK;
@@ -424,18 +539,22 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
      * @return prepare result
      */
     protected PrepareResult prepareAndCommit(Commit<? extends TransactionPrepareAndCommit> commit) {
-        TransactionId transactionId = commit.operation().transactionLog().transactionId();
-        PrepareResult prepareResult = prepare(commit);
-        TransactionScope transactionScope = activeTransactions.remove(transactionId);
-        if (prepareResult == PrepareResult.OK) {
-            this.currentVersion = commit.index();
-            transactionScope = transactionScope.prepared(commit);
-            commit(transactionScope);
-        } else if (transactionScope != null) {
-            transactionScope.close();
+        try {
+            TransactionId transactionId = commit.operation().transactionLog().transactionId();
+            PrepareResult prepareResult = prepare(commit.operation().transactionLog());
+            TransactionScope transactionScope = activeTransactions.remove(transactionId);
+            if (prepareResult == PrepareResult.OK) {
+                this.currentVersion = commit.index();
+                commit(transactionScope);
+            }
+            discardTombstones();
+            return prepareResult;
+        } catch (Exception e) {
+            log.warn("Failure applying {}", commit, e);
+            throw Throwables.propagate(e);
+        } finally {
+            commit.close();
         }
-        discardTombstones();
-        return prepareResult;
     }
 
     /**
@@ -445,80 +564,82 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
      * @return prepare result
      */
     protected PrepareResult prepare(Commit<? extends TransactionPrepare> commit) {
-        boolean ok = false;
-
         try {
-            TransactionLog<MapUpdate<String, byte[]>> transactionLog = commit.operation().transactionLog();
-
-            // Iterate through records in the transaction log and perform isolation checks.
-            for (MapUpdate<String, byte[]> record : transactionLog.records()) {
-                String key = record.key();
-
-                // If the record is a VERSION_MATCH then check that the record's version matches the current
-                // version of the state machine.
-                if (record.type() == MapUpdate.Type.VERSION_MATCH && key == null) {
-                    if (record.version() > currentVersion) {
-                        return PrepareResult.OPTIMISTIC_LOCK_FAILURE;
-                    } else {
-                        continue;
-                    }
-                }
-
-                // If the prepared keys already contains the key contained within the record, that indicates a
-                // conflict with a concurrent transaction.
-                if (preparedKeys.contains(key)) {
-                    return PrepareResult.CONCURRENT_TRANSACTION;
-                }
+            return prepare(commit.operation().transactionLog());
+        } catch (Exception e) {
+            log.warn("Failure applying {}", commit, e);
+            throw Throwables.propagate(e);
+        } finally {
+            commit.close();
+        }
+    }
 
-                // Read the existing value from the map.
-                MapEntryValue existingValue = mapEntries.get(key);
+    /**
+     * Prepares a transaction.
+     *
+     * @param transactionLog transaction log
+     * @return prepare result
+     */
+    private PrepareResult prepare(TransactionLog<MapUpdate<String, byte[]>> transactionLog) {
+        // Iterate through records in the transaction log and perform isolation checks.
+        for (MapUpdate<String, byte[]> record : transactionLog.records()) {
+            String key = record.key();
 
-                // Note: if the existing value is null, that means the key has not changed during the transaction,
-                // otherwise a tombstone would have been retained.
-                if (existingValue == null) {
-                    // If the value is null, ensure the version is equal to the transaction version.
-                    if (record.version() != transactionLog.version()) {
-                        return PrepareResult.OPTIMISTIC_LOCK_FAILURE;
-                    }
+            // If the record is a VERSION_MATCH then check that the record's version matches the current
+            // version of the state machine.
+            if (record.type() == MapUpdate.Type.VERSION_MATCH && key == null) {
+                if (record.version() > currentVersion) {
+                    return PrepareResult.OPTIMISTIC_LOCK_FAILURE;
                 } else {
-                    // If the value is non-null, compare the current version with the record version.
-                    if (existingValue.version() > record.version()) {
-                        return PrepareResult.OPTIMISTIC_LOCK_FAILURE;
-                    }
+                    continue;
                 }
             }
 
-            // No violations detected. Mark modified keys locked for transactions.
-            transactionLog.records().forEach(record -> {
-                if (record.type() != MapUpdate.Type.VERSION_MATCH) {
-                    preparedKeys.add(record.key());
+            // If the prepared keys already contains the key contained within the record, that indicates a
+            // conflict with a concurrent transaction.
+            if (preparedKeys.contains(key)) {
+                return PrepareResult.CONCURRENT_TRANSACTION;
+            }
+
+            // Read the existing value from the map.
+            MapEntryValue existingValue = mapEntries.get(key);
+
+            // Note: if the existing value is null, that means the key has not changed during the transaction,
+            // otherwise a tombstone would have been retained.
+            if (existingValue == null) {
+                // If the value is null, ensure the version is equal to the transaction version.
+                if (record.version() != transactionLog.version()) {
+                    return PrepareResult.OPTIMISTIC_LOCK_FAILURE;
                 }
-            });
-
-            ok = true;
-
-            // Update the transaction scope. If the transaction scope is not set on this node, that indicates the
-            // coordinator is communicating with another node. Transactions assume that the client is communicating
-            // with a single leader in order to limit the overhead of retaining tombstones.
-            TransactionScope transactionScope = activeTransactions.get(transactionLog.transactionId());
-            if (transactionScope == null) {
-                activeTransactions.put(
-                        transactionLog.transactionId(),
-                        new TransactionScope(transactionLog.version(), commit));
-                return PrepareResult.PARTIAL_FAILURE;
             } else {
-                activeTransactions.put(
-                        transactionLog.transactionId(),
-                        transactionScope.prepared(commit));
-                return PrepareResult.OK;
+                // If the value is non-null, compare the current version with the record version.
+                if (existingValue.version() > record.version()) {
+                    return PrepareResult.OPTIMISTIC_LOCK_FAILURE;
+                }
             }
-        } catch (Exception e) {
-            log.warn("Failure applying {}", commit, e);
-            throw Throwables.propagate(e);
-        } finally {
-            if (!ok) {
-                commit.close();
+        }
+
+        // No violations detected. Mark modified keys locked for transactions.
+        transactionLog.records().forEach(record -> {
+            if (record.type() != MapUpdate.Type.VERSION_MATCH) {
+                preparedKeys.add(record.key());
             }
+        });
+
+        // Update the transaction scope. If the transaction scope is not set on this node, that indicates the
+        // coordinator is communicating with another node. Transactions assume that the client is communicating
+        // with a single leader in order to limit the overhead of retaining tombstones.
+        TransactionScope transactionScope = activeTransactions.get(transactionLog.transactionId());
+        if (transactionScope == null) {
+            activeTransactions.put(
+                    transactionLog.transactionId(),
+                    new TransactionScope(transactionLog.version(), transactionLog));
+            return PrepareResult.PARTIAL_FAILURE;
+        } else {
+            activeTransactions.put(
+                    transactionLog.transactionId(),
+                    transactionScope.prepared(transactionLog));
+            return PrepareResult.OK;
         }
     }
 
@@ -532,17 +653,19 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         TransactionId transactionId = commit.operation().transactionId();
         TransactionScope transactionScope = activeTransactions.remove(transactionId);
         if (transactionScope == null) {
+            commit.close();
             return CommitResult.UNKNOWN_TRANSACTION_ID;
         }
 
         try {
             this.currentVersion = commit.index();
-            return commit(transactionScope.committed(commit));
+            return commit(transactionScope);
         } catch (Exception e) {
             log.warn("Failure applying {}", commit, e);
             throw Throwables.propagate(e);
         } finally {
             discardTombstones();
+            commit.close();
         }
     }
 
@@ -553,19 +676,6 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         TransactionLog<MapUpdate<String, byte[]>> transactionLog = transactionScope.transactionLog();
         boolean retainTombstones = !activeTransactions.isEmpty();
 
-        // Count the total number of keys that will be set by this transaction. This is necessary to do reference
-        // counting for garbage collection.
-        long totalReferencesToCommit = transactionLog.records().stream()
-                // No keys are set for version checks. For deletes, references are only retained of tombstones
-                // need to be retained for concurrent transactions.
-                .filter(record -> record.type() != MapUpdate.Type.VERSION_MATCH && record.type() != MapUpdate.Type.LOCK
-                        && (record.type() != MapUpdate.Type.REMOVE_IF_VERSION_MATCH || retainTombstones))
-                .count();
-
-        // Create a count down completer that counts references to the transaction commit for garbage collection.
-        CountDownCompleter<TransactionScope> completer = new CountDownCompleter<>(
-                transactionScope, totalReferencesToCommit, TransactionScope::close);
-
         List<MapEvent<String, byte[]>> eventsToPublish = Lists.newArrayList();
         for (MapUpdate<String, byte[]> record : transactionLog.records()) {
             if (record.type() == MapUpdate.Type.VERSION_MATCH) {
@@ -582,12 +692,12 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
             MapEntryValue previousValue = mapEntries.remove(key);
             MapEntryValue newValue = null;
 
-            // If the record is not a delete, create a transactional commit.
+            // If the record is not a delete, create a value.
             if (record.type() != MapUpdate.Type.REMOVE_IF_VERSION_MATCH) {
-                newValue = new TransactionalCommit(currentVersion, record.value(), completer);
+                newValue = new MapEntryValue(MapEntryValue.Type.VALUE, currentVersion, record.value());
             } else if (retainTombstones) {
-                // For deletes, if tombstones need to be retained then create and store a tombstone commit.
-                newValue = new TombstoneCommit(currentVersion, completer);
+                // For deletes, if tombstones need to be retained then create and store a tombstone.
+                newValue = new MapEntryValue(MapEntryValue.Type.TOMBSTONE, currentVersion, null);
             }
 
             eventsToPublish.add(new MapEvent<>("", key, toVersioned(newValue), toVersioned(previousValue)));
@@ -595,10 +705,6 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
             if (newValue != null) {
                 mapEntries.put(key, newValue);
             }
-
-            if (previousValue != null) {
-                previousValue.discard();
-            }
         }
         publish(eventsToPublish);
         return CommitResult.OK;
@@ -614,10 +720,10 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         TransactionId transactionId = commit.operation().transactionId();
         TransactionScope transactionScope = activeTransactions.remove(transactionId);
         if (transactionScope == null) {
+            commit.close();
             return RollbackResult.UNKNOWN_TRANSACTION_ID;
         } else if (!transactionScope.isPrepared()) {
             discardTombstones();
-            transactionScope.close();
             commit.close();
             return RollbackResult.OK;
         } else {
@@ -631,7 +737,6 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
                 return RollbackResult.OK;
             } finally {
                 discardTombstones();
-                transactionScope.close();
                 commit.close();
             }
         }
@@ -648,7 +753,6 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
                 MapEntryValue value = iterator.next().getValue();
                 if (value.type() == MapEntryValue.Type.TOMBSTONE) {
                     iterator.remove();
-                    value.discard();
                 }
             }
         } else {
@@ -660,7 +764,6 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
                 MapEntryValue value = iterator.next().getValue();
                 if (value.type() == MapEntryValue.Type.TOMBSTONE && value.version < lowWaterMark) {
                     iterator.remove();
-                    value.discard();
                 }
             }
         }
@@ -735,15 +838,17 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
     }
 
     /**
-     * Interface implemented by map values.
+     * Value of a map entry.
      */
-    private abstract static class MapEntryValue {
-        protected final Type type;
-        protected final long version;
+    private static final class MapEntryValue {
+        private final Type type;
+        private final long version;
+        private final byte[] value;
 
-        MapEntryValue(Type type, long version) {
+        MapEntryValue(Type type, long version, byte[] value) {
             this.type = type;
             this.version = version;
+            this.value = value;
         }
 
         /**
@@ -769,12 +874,12 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
          *
          * @return raw value
          */
-        abstract byte[] value();
-
-        /**
-         * Discards the value by invoke appropriate clean up actions.
-         */
-        abstract void discard();
+        byte[] value() {
+            if (type == Type.TOMBSTONE) {
+                throw new UnsupportedOperationException();
+            }
+            return value;
+        }
 
         /**
          * Value type.
@@ -785,101 +890,20 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         }
     }
 
-    /**
-     * A {@code MapEntryValue} that is derived from a non-transactional update
-     * i.e. via any standard map update operation.
-     */
-    private static class NonTransactionalCommit extends MapEntryValue {
-        private final Commit<? extends UpdateAndGet> commit;
-
-        NonTransactionalCommit(Commit<? extends UpdateAndGet> commit) {
-            super(Type.VALUE, commit.index());
-            this.commit = commit;
-        }
-
-        @Override
-        byte[] value() {
-            return commit.operation().value();
-        }
-
-        @Override
-        void discard() {
-            commit.close();
-        }
-    }
-
-    /**
-     * A {@code MapEntryValue} that is derived from updates submitted via a
-     * transaction.
-     */
-    private static class TransactionalCommit extends MapEntryValue {
-        private final byte[] value;
-        private final CountDownCompleter<?> completer;
-
-        TransactionalCommit(long version, byte[] value, CountDownCompleter<?> completer) {
-            super(Type.VALUE, version);
-            this.value = value;
-            this.completer = completer;
-        }
-
-        @Override
-        byte[] value() {
-            return value;
-        }
-
-        @Override
-        void discard() {
-            completer.countDown();
-        }
-    }
-
-    /**
-     * A {@code MapEntryValue} that represents a deleted entry.
-     */
-    private static class TombstoneCommit extends MapEntryValue {
-        private final CountDownCompleter<?> completer;
-
-        public TombstoneCommit(long version, CountDownCompleter<?> completer) {
-            super(Type.TOMBSTONE, version);
-            this.completer = completer;
-        }
-
-        @Override
-        byte[] value() {
-            throw new UnsupportedOperationException();
-        }
-
-        @Override
-        void discard() {
-            completer.countDown();
-        }
-    }
-
     /**
      * Map transaction scope.
      */
     private static final class TransactionScope {
         private final long version;
-        private final Commit<? extends TransactionPrepare> prepareCommit;
-        private final Commit<? extends TransactionCommit> commitCommit;
+        private final TransactionLog<MapUpdate<String, byte[]>> transactionLog;
 
         private TransactionScope(long version) {
-            this(version, null, null);
+            this(version, null);
         }
 
-        private TransactionScope(
-                long version,
-                Commit<? extends TransactionPrepare> prepareCommit) {
-            this(version, prepareCommit, null);
-        }
-
-        private TransactionScope(
-                long version,
-                Commit<? extends TransactionPrepare> prepareCommit,
-                Commit<? extends TransactionCommit> commitCommit) {
+        private TransactionScope(long version, TransactionLog<MapUpdate<String, byte[]>> transactionLog) {
             this.version = version;
-            this.prepareCommit = prepareCommit;
-            this.commitCommit = commitCommit;
+            this.transactionLog = transactionLog;
         }
 
         /**
@@ -897,7 +921,7 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
          * @return whether this is a prepared transaction scope
          */
         boolean isPrepared() {
-            return prepareCommit != null;
+            return transactionLog != null;
         }
 
         /**
@@ -907,40 +931,17 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
          */
         TransactionLog<MapUpdate<String, byte[]>> transactionLog() {
             checkState(isPrepared());
-            return prepareCommit.operation().transactionLog();
+            return transactionLog;
         }
 
         /**
-         * Returns a new transaction scope with a prepare commit.
+         * Returns a new transaction scope with a prepared transaction log.
          *
-         * @param commit the prepare commit
-         * @return new transaction scope updated with the prepare commit
+         * @param transactionLog the prepared transaction log
+         * @return new transaction scope updated with the transaction log
          */
-        TransactionScope prepared(Commit<? extends TransactionPrepare> commit) {
-            return new TransactionScope(version, commit);
-        }
-
-        /**
-         * Returns a new transaction scope with a commit commit.
-         *
-         * @param commit the commit commit ;-)
-         * @return new transaction scope updated with the commit commit
-         */
-        TransactionScope committed(Commit<? extends TransactionCommit> commit) {
-            checkState(isPrepared());
-            return new TransactionScope(version, prepareCommit, commit);
-        }
-
-        /**
-         * Closes the transaction and all associated commits.
-         */
-        void close() {
-            if (prepareCommit != null) {
-                prepareCommit.close();
-            }
-            if (commitCommit != null) {
-                commitCommit.close();
-            }
+        TransactionScope prepared(TransactionLog<MapUpdate<String, byte[]>> transactionLog) {
+            return new TransactionScope(version, transactionLog);
         }
     }
 }
@@ -49,6 +49,13 @@ public final class AtomixConsistentMultimapCommands {
     public abstract static class MultimapCommand<V> implements Command<V>,
             CatalystSerializable {
 
+        @Override
+        public CompactionMode compaction() {
+            // multimap commands are released once applied and compacted once
+            // covered by a snapshot of the multimap
+            return CompactionMode.SNAPSHOT;
+        }
+
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(getClass())
@@ -289,11 +296,6 @@ public final class AtomixConsistentMultimapCommands {
             return versionMatch;
         }
 
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
-        }
-
         @Override
         public void writeObject(BufferOutput<?> buffer,
                                 Serializer serializer) {
@@ -350,11 +352,6 @@ public final class AtomixConsistentMultimapCommands {
             return versionMatch;
         }
 
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
-        }
-
         @Override
         public void writeObject(BufferOutput<?> buffer,
                                 Serializer serializer) {
@@ -413,11 +410,6 @@ public final class AtomixConsistentMultimapCommands {
             return versionMatch;
         }
 
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.QUORUM;
-        }
-
         @Override
         public void writeObject(BufferOutput<?> buffer,
                                 Serializer serializer) {
@@ -477,11 +469,6 @@ public final class AtomixConsistentMultimapCommands {
             return values;
         }
 
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.QUORUM;
-        }
-
         @Override
         public void writeObject(BufferOutput<?> buffer,
                                 Serializer serializer) {
@@ -513,12 +500,7 @@ public final class AtomixConsistentMultimapCommands {
      * Clear multimap command.
      */
     @SuppressWarnings("serial")
-    public static class Clear extends MultimapCommand<Void> {
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
-        }
-    }
+    public static class Clear extends MultimapCommand<Void> {    }
 
     /**
      * Key set query.
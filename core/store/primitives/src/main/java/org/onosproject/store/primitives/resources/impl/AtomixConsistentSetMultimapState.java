@@ -17,7 +17,6 @@
 package org.onosproject.store.primitives.resources.impl;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -31,7 +30,6 @@ import io.atomix.copycat.server.session.SessionListener;
 import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
 import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
 import io.atomix.resource.ResourceStateMachine;
-import org.onlab.util.CountDownCompleter;
 import org.onlab.util.Match;
 import org.onosproject.store.service.Versioned;
 import org.slf4j.Logger;
@@ -43,7 +41,7 @@ import java.util.EnumSet;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
@@ -72,6 +70,9 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * State Machine for {@link AtomixConsistentSetMultimap} resource.
+ * <p>
+ * The values of each key are written to snapshots, so commits are released
+ * once applied.
  */
 public class AtomixConsistentSetMultimapState extends ResourceStateMachine
         implements SessionListener, Snapshottable {
@@ -87,10 +88,37 @@ public class AtomixConsistentSetMultimapState extends ResourceStateMachine
 
     @Override
     public void snapshot(SnapshotWriter writer) {
+        writer.writeLong(globalVersion.get());
+        // entries are streamed one by one to avoid copying the whole multimap
+        writer.writeInt(backingMap.size());
+        backingMap.forEach((key, value) -> {
+            writer.writeString(key);
+            writer.writeLong(value.version());
+            writer.writeInt(value.values().size());
+            value.values().forEach(bytes -> {
+                writer.writeInt(bytes.length);
+                writer.write(bytes);
+            });
+        });
     }
 
     @Override
     public void install(SnapshotReader reader) {
+        globalVersion.set(reader.readLong());
+        backingMap.clear();
+        int entries = reader.readInt();
+        for (int i = 0; i < entries; i++) {
+            String key = reader.readString();
+            long version = reader.readLong();
+            int count = reader.readInt();
+            Set<byte[]> values = Sets.newTreeSet(new ByteArrayComparator());
+            for (int j = 0; j < count; j++) {
+                byte[] bytes = new byte[reader.readInt()];
+                reader.read(bytes);
+                values.add(bytes);
+            }
+            backingMap.put(key, new NonTransactionalValues(version, values));
+        }
     }
 
     @Override
@@ -313,11 +341,14 @@ public class AtomixConsistentSetMultimapState extends ResourceStateMachine
      */
     protected Versioned<Collection<? extends byte[]>> removeAll(
             Commit<? extends RemoveAll> commit) {
-        if (!backingMap.containsKey(commit.operation().key())) {
+        try {
+            if (!backingMap.containsKey(commit.operation().key())) {
+                return new Versioned<>(Sets.newHashSet(), -1);
+            } else {
+                return backingMap.get(commit.operation().key()).addCommit(commit);
+            }
+        } finally {
             commit.close();
-            return new Versioned<>(Sets.newHashSet(), -1);
-        } else {
-            return backingMap.get(commit.operation().key()).addCommit(commit);
         }
     }
 
@@ -328,13 +359,16 @@ public class AtomixConsistentSetMultimapState extends ResourceStateMachine
      * @return true if any change results, else false
      */
     protected boolean multiRemove(Commit<? extends MultiRemove> commit) {
-        if (!backingMap.containsKey(commit.operation().key())) {
+        try {
+            if (!backingMap.containsKey(commit.operation().key())) {
+                return false;
+            } else {
+                return (backingMap
+                        .get(commit.operation().key())
+                        .addCommit(commit)) != null;
+            }
+        } finally {
             commit.close();
-            return false;
-        } else {
-            return (backingMap
-                    .get(commit.operation().key())
-                    .addCommit(commit)) != null;
         }
     }
 
@@ -345,25 +379,33 @@ public class AtomixConsistentSetMultimapState extends ResourceStateMachine
      * @return true if this commit results in a change, else false
      */
     protected boolean put(Commit<? extends Put> commit) {
-        if (commit.operation().values().isEmpty()) {
-            return false;
-        }
-        if (!backingMap.containsKey(commit.operation().key())) {
-            backingMap.put(commit.operation().key(),
-                           new NonTransactionalCommit(1));
+        try {
+            if (commit.operation().values().isEmpty()) {
+                return false;
+            }
+            if (!backingMap.containsKey(commit.operation().key())) {
+                backingMap.put(commit.operation().key(),
+                               new NonTransactionalValues());
+            }
+            return backingMap
+                    .get(commit.operation().key())
+                    .addCommit(commit) != null;
+        } finally {
+            commit.close();
         }
-        return backingMap
-                .get(commit.operation().key())
-                .addCommit(commit) != null;
     }
 
     protected Versioned<Collection<? extends byte[]>> replace(
             Commit<? extends Replace> commit) {
-        if (!backingMap.containsKey(commit.operation().key())) {
-            backingMap.put(commit.operation().key(),
-                           new NonTransactionalCommit(1));
+        try {
+            if (!backingMap.containsKey(commit.operation().key())) {
+                backingMap.put(commit.operation().key(),
+                               new NonTransactionalValues());
+            }
+            return backingMap.get(commit.operation().key()).addCommit(commit);
+        } finally {
+            commit.close();
         }
-        return backingMap.get(commit.operation().key()).addCommit(commit);
     }
 
     private interface MapEntryValue {
@@ -383,12 +425,7 @@ public class AtomixConsistentSetMultimapState extends ResourceStateMachine
         long version();
 
         /**
-         * Discards the value by invoke appropriate clean up actions.
-         */
-        void discard();
-
-        /**
-         * Add a new commit and modifies the set of values accordingly.
+         * Applies a new commit and modifies the set of values accordingly.
          * In the case of a replace or removeAll it returns the set of removed
          * values. In the case of put or multiRemove it returns null for no
          * change and a set of the added or removed values respectively if a
@@ -400,29 +437,25 @@ public class AtomixConsistentSetMultimapState extends ResourceStateMachine
                 Commit<? extends MultimapCommand> commit);
     }
 
-    private class NonTransactionalCommit implements MapEntryValue {
+    private class NonTransactionalValues implements MapEntryValue {
         private long version;
-        private final TreeMap<byte[], CountDownCompleter<Commit>>
-                valueCountdownMap = Maps.newTreeMap(new ByteArrayComparator());
-        /*This is a mapping of commits that added values to the commits
-        * removing those values, they will not be circular because keys will
-        * be exclusively Put and Replace commits and values will be exclusively
-        * Multiremove commits, each time a Put or replace is removed it should
-        * as part of closing go through and countdown each of the remove
-        * commits depending on it.*/
-        private final HashMultimap<Commit, CountDownCompleter<Commit>>
-                additiveToRemovalCommits = HashMultimap.create();
-
-        public NonTransactionalCommit(
-                long version) {
+        private final TreeSet<byte[]> valueSet =
+                Sets.newTreeSet(new ByteArrayComparator());
+
+        public NonTransactionalValues() {
             //Set the version to current it will only be updated once this is
             // populated
             this.version = globalVersion.get();
         }
 
+        public NonTransactionalValues(long version, Set<byte[]> values) {
+            this.version = version;
+            this.valueSet.addAll(values);
+        }
+
         @Override
         public Collection<? extends byte[]> values() {
-            return ImmutableSet.copyOf(valueCountdownMap.keySet());
+            return ImmutableSet.copyOf(valueSet);
         }
 
         @Override
@@ -430,12 +463,6 @@ public class AtomixConsistentSetMultimapState extends ResourceStateMachine
             return version;
         }
 
-        @Override
-        public void discard() {
-            valueCountdownMap.values().forEach(completer ->
-                                                   completer.object().close());
-        }
-
         @Override
         public Versioned<Collection<? extends byte[]>> addCommit(
                 Commit<? extends MultimapCommand> commit) {
@@ -448,138 +475,62 @@ public class AtomixConsistentSetMultimapState extends ResourceStateMachine
                 Set<byte[]> valuesToAdd =
                         Sets.newTreeSet(new ByteArrayComparator());
                 ((Put) commit.operation()).values().forEach(value -> {
-                    if (!valueCountdownMap.containsKey(value)) {
+                    if (!valueSet.contains(value)) {
                         valuesToAdd.add(value);
                     }
                 });
                 if (valuesToAdd.isEmpty()) {
-                    //Do not increment or add the commit if no change resulted
-                    commit.close();
+                    //Do not increment the version if no change resulted
                     return null;
                 }
-                //When all values from a commit have been removed decrement all
-                //removal commits relying on it and remove itself from the
-                //mapping of additive commits to the commits removing the
-                //values it added. (Only multiremoves will be dependent)
-                CountDownCompleter<Commit> completer =
-                        new CountDownCompleter<>(commit, valuesToAdd.size(),
-                        c -> {
-                            if (additiveToRemovalCommits.containsKey(c)) {
-                                additiveToRemovalCommits.
-                                        get(c).
-                                        forEach(countdown ->
-                                                        countdown.countDown());
-                                additiveToRemovalCommits.removeAll(c);
-                            }
-                            c.close();
-                        });
                 retVersion = new Versioned<>(valuesToAdd, version);
-                valuesToAdd.forEach(value -> valueCountdownMap.put(value,
-                                                                   completer));
+                valueSet.addAll(valuesToAdd);
                 version++;
                 return retVersion;
 
             } else if (commit.operation() instanceof Replace) {
-                //Will this work??  Need to check before check-in!
                 Set<byte[]> removedValues = Sets.newHashSet();
-                removedValues.addAll(valueCountdownMap.keySet());
+                removedValues.addAll(valueSet);
                 retVersion = new Versioned<>(removedValues, version);
-                valueCountdownMap.values().forEach(countdown ->
-                                                   countdown.countDown());
-                valueCountdownMap.clear();
-                Set<byte[]> valuesToAdd =
-                        Sets.newTreeSet(new ByteArrayComparator());
-                ((Replace) commit.operation()).values().forEach(value -> {
-                    valuesToAdd.add(value);
-                });
-                if (valuesToAdd.isEmpty()) {
-                    version = globalVersion.incrementAndGet();
+                valueSet.clear();
+                valueSet.addAll(((Replace) commit.operation()).values());
+                version = globalVersion.incrementAndGet();
+                if (valueSet.isEmpty()) {
                     backingMap.remove(((Replace) commit.operation()).key());
-                    //Order is important here, the commit must be closed last
-                    //(or minimally after all uses)
-                    commit.close();
-                    return retVersion;
                 }
-                CountDownCompleter<Commit> completer =
-                        new CountDownCompleter<>(commit, valuesToAdd.size(),
-                                     c -> {
-                                         if (additiveToRemovalCommits
-                                             .containsKey(c)) {
-                                            additiveToRemovalCommits.
-                                                 get(c).
-                                                 forEach(countdown ->
-                                                     countdown.countDown());
-                                             additiveToRemovalCommits.
-                                                     removeAll(c);
-                                         }
-                                         c.close();
-                                     });
-                valuesToAdd.forEach(value ->
-                                    valueCountdownMap.put(value, completer));
-                version = globalVersion.incrementAndGet();
                 return retVersion;
 
             } else if (commit.operation() instanceof RemoveAll) {
                 Set<byte[]> removed = Sets.newHashSet();
                 //We can assume here that values only appear once and so we
                 //do not need to sanitize the return for duplicates.
-                removed.addAll(valueCountdownMap.keySet());
+                removed.addAll(valueSet);
                 retVersion = new Versioned<>(removed, version);
-                valueCountdownMap.values().forEach(countdown ->
-                                                   countdown.countDown());
-                valueCountdownMap.clear();
-                //In the case of a removeAll all commits will be removed and
-                //unlike the multiRemove case we do not need to consider
-                //dependencies among additive and removal commits.
-
-                //Save the key for use after the commit is closed
-                String key = ((RemoveAll) commit.operation()).key();
-                commit.close();
+                valueSet.clear();
                 version = globalVersion.incrementAndGet();
-                backingMap.remove(key);
+                backingMap.remove(((RemoveAll) commit.operation()).key());
                 return retVersion;
 
             } else if (commit.operation() instanceof MultiRemove) {
-                //Must first calculate how many commits the removal depends on.
-                //At this time we also sanitize the removal set by adding to a
-                //set with proper handling of byte[] equality.
+                //Sanitize the removal set by adding to a set with proper
+                //handling of byte[] equality.
                 Set<byte[]> removed = Sets.newHashSet();
-                Set<Commit> commitsRemovedFrom = Sets.newHashSet();
                 ((MultiRemove) commit.operation()).values().forEach(value -> {
-                    if (valueCountdownMap.containsKey(value)) {
+                    if (valueSet.remove(value)) {
                         removed.add(value);
-                        commitsRemovedFrom
-                                .add(valueCountdownMap.get(value).object());
                     }
                 });
                 //If there is nothing to be removed no action should be taken.
                 if (removed.isEmpty()) {
-                    //Do not increment or add the commit if no change resulted
-                    commit.close();
                     return null;
                 }
-                //When all additive commits this depends on are closed this can
-                //be closed as well.
-                CountDownCompleter<Commit> completer =
-                        new CountDownCompleter<>(commit,
-                                                 commitsRemovedFrom.size(),
-                                                 c -> c.close());
-                commitsRemovedFrom.forEach(commitRemovedFrom -> {
-                    additiveToRemovalCommits.put(commitRemovedFrom, completer);
-                });
-                //Save key in case countdown results in closing the commit.
-                String removedKey = ((MultiRemove) commit.operation()).key();
-                removed.forEach(removedValue -> {
-                    valueCountdownMap.remove(removedValue).countDown();
-                });
                 //The version is updated locally as well as globally even if
                 //this object will be removed from the map in case any other
                 //party still holds a reference to this object.
                 retVersion = new Versioned<>(removed, version);
                 version = globalVersion.incrementAndGet();
-                if (valueCountdownMap.isEmpty()) {
-                    backingMap
-                            .remove(removedKey);
+                if (valueSet.isEmpty()) {
+                    backingMap.remove(((MultiRemove) commit.operation()).key());
                 }
                 return retVersion;
 
@@ -51,6 +51,13 @@ public final class AtomixConsistentTreeMapCommands {
     public abstract static class TreeCommand<V>
             implements Command<V>, CatalystSerializable {
 
+        @Override
+        public CompactionMode compaction() {
+            // tree commands are released once applied and compacted once
+            // covered by a snapshot of the tree
+            return CompactionMode.SNAPSHOT;
+        }
+
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(getClass())
@@ -241,11 +248,6 @@ public final class AtomixConsistentTreeMapCommands {
             return this.versionMatch;
         }
 
-        @Override
-        public CompactionMode compaction() {
-            return value == null ? CompactionMode.TOMBSTONE : CompactionMode.QUORUM;
-        }
-
         @Override
         public void writeObject(BufferOutput<?> buffer,
                                 Serializer serializer) {
@@ -370,10 +372,6 @@ public final class AtomixConsistentTreeMapCommands {
     @SuppressWarnings("serial")
     public static class Clear
             extends TreeCommand<MapEntryUpdateResult.Status> {
-        @Override
-        public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
-        }
     }
 
     /**
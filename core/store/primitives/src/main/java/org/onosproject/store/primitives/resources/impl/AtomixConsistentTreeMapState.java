@@ -20,9 +20,12 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.atomix.copycat.server.Commit;
+import io.atomix.copycat.server.Snapshottable;
 import io.atomix.copycat.server.StateMachineExecutor;
 import io.atomix.copycat.server.session.ServerSession;
 import io.atomix.copycat.server.session.SessionListener;
+import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
+import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
 import io.atomix.resource.ResourceStateMachine;
 import org.onlab.util.Match;
 import org.onosproject.store.service.MapEvent;
@@ -73,8 +76,12 @@ import static org.onosproject.store.primitives.resources.impl.MapEntryUpdateResu
 /**
  * State machine corresponding to {@link AtomixConsistentTreeMap} backed by a
  * {@link TreeMap}.
+ * <p>
+ * Tree entries are written to snapshots, so update commits are released once
+ * applied; listen commits are retained while their session listens.
  */
-public class AtomixConsistentTreeMapState extends ResourceStateMachine implements SessionListener {
+public class AtomixConsistentTreeMapState extends ResourceStateMachine
+        implements SessionListener, Snapshottable {
 
     private final Map<Long, Commit<? extends Listen>> listeners =
             Maps.newHashMap();
@@ -145,11 +152,42 @@ public class AtomixConsistentTreeMapState extends ResourceStateMachine implement
         executor.register(Clear.class, this::clear);
     }
 
+    @Override
+    public void snapshot(SnapshotWriter writer) {
+        // entries are streamed one by one to avoid copying the whole tree
+        writer.writeInt(tree.size());
+        tree.forEach((key, value) -> {
+            writer.writeString(key);
+            writer.writeLong(value.version());
+            writer.writeInt(value.value().length);
+            writer.write(value.value());
+        });
+        writer.writeInt(preparedKeys.size());
+        preparedKeys.forEach(writer::writeString);
+    }
+
+    @Override
+    public void install(SnapshotReader reader) {
+        tree.clear();
+        int entries = reader.readInt();
+        for (int i = 0; i < entries; i++) {
+            String key = reader.readString();
+            long version = reader.readLong();
+            byte[] value = new byte[reader.readInt()];
+            reader.read(value);
+            tree.put(key, new TreeMapEntryValue(version, value));
+        }
+        preparedKeys.clear();
+        int keys = reader.readInt();
+        for (int i = 0; i < keys; i++) {
+            preparedKeys.add(reader.readString());
+        }
+    }
+
     @Override
     public void delete() {
         listeners.values().forEach(Commit::close);
         listeners.clear();
-        tree.values().forEach(TreeMapEntryValue::discard);
         tree.clear();
     }
 
@@ -239,40 +277,34 @@ public class AtomixConsistentTreeMapState extends ResourceStateMachine implement
 
     protected MapEntryUpdateResult<String, byte[]> updateAndGet(
             Commit<? extends UpdateAndGet> commit) {
-        Status updateStatus = validate(commit.operation());
-        String key = commit.operation().key();
-        TreeMapEntryValue oldCommitValue = tree.get(commit.operation().key());
-        Versioned<byte[]> oldTreeValue = toVersioned(oldCommitValue);
+        try {
+            Status updateStatus = validate(commit.operation());
+            String key = commit.operation().key();
+            TreeMapEntryValue oldCommitValue = tree.get(commit.operation().key());
+            Versioned<byte[]> oldTreeValue = toVersioned(oldCommitValue);
 
-        if (updateStatus != Status.OK) {
-            commit.close();
-            return new MapEntryUpdateResult<>(updateStatus, "", key,
+            if (updateStatus != Status.OK) {
+                return new MapEntryUpdateResult<>(updateStatus, "", key,
                                                   oldTreeValue, oldTreeValue);
-        }
+            }
 
-        byte[] newValue = commit.operation().value();
-        long newVersion = commit.index();
-        Versioned<byte[]> newTreeValue = newValue == null ? null
-                : new Versioned<byte[]>(newValue, newVersion);
+            byte[] newValue = commit.operation().value();
+            long newVersion = commit.index();
+            Versioned<byte[]> newTreeValue = newValue == null ? null
+                    : new Versioned<byte[]>(newValue, newVersion);
 
-        MapEvent.Type updateType = newValue == null ? MapEvent.Type.REMOVE
-                : oldCommitValue == null ? MapEvent.Type.INSERT :
-                MapEvent.Type.UPDATE;
-        if (updateType == MapEvent.Type.REMOVE ||
-                updateType == MapEvent.Type.UPDATE) {
-            tree.remove(key);
-            oldCommitValue.discard();
-        }
-        if (updateType == MapEvent.Type.INSERT ||
-                updateType == MapEvent.Type.UPDATE) {
-            tree.put(key, new NonTransactionalCommit(newVersion, commit));
-        } else {
+            if (newValue == null) {
+                tree.remove(key);
+            } else {
+                tree.put(key, new TreeMapEntryValue(newVersion, newValue));
+            }
+            publish(Lists.newArrayList(new MapEvent<>("", key, newTreeValue,
+                                                      oldTreeValue)));
+            return new MapEntryUpdateResult<>(updateStatus, "", key, oldTreeValue,
+                                              newTreeValue);
+        } finally {
             commit.close();
         }
-        publish(Lists.newArrayList(new MapEvent<>("", key, newTreeValue,
-                                                  oldTreeValue)));
-        return new MapEntryUpdateResult<>(updateStatus, "", key, oldTreeValue,
-                                          newTreeValue);
     }
 
     protected Status clear(
@@ -290,7 +322,6 @@ public class AtomixConsistentTreeMapState extends ResourceStateMachine implement
                                               value.version());
                 publish(Lists.newArrayList(new MapEvent<>("", key, null,
                                                           removedValue)));
-                value.discard();
                 iterator.remove();
             }
             return Status.OK;
@@ -538,38 +569,21 @@ public class AtomixConsistentTreeMapState extends ResourceStateMachine implement
         }
     }
 
-    private interface TreeMapEntryValue {
-
-        byte[] value();
-
-        long version();
-
-        void discard();
-    }
-
-    private class NonTransactionalCommit implements TreeMapEntryValue {
+    private static final class TreeMapEntryValue {
         private final long version;
-        private final Commit<? extends UpdateAndGet> commit;
+        private final byte[] value;
 
-        public NonTransactionalCommit(long version,
-                                      Commit<? extends UpdateAndGet> commit) {
+        private TreeMapEntryValue(long version, byte[] value) {
             this.version = version;
-            this.commit = commit;
+            this.value = value;
         }
 
-        @Override
-        public byte[] value() {
-            return commit.operation().value();
+        byte[] value() {
+            return value;
         }
 
-        @Override
-        public long version() {
+        long version() {
             return version;
         }
-
-        @Override
-        public void discard() {
-            commit.close();
-        }
     }
 }
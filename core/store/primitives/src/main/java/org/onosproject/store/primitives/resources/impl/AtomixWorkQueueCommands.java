@@ -75,7 +75,7 @@ public final class AtomixWorkQueueCommands {
 
         @Override
         public CompactionMode compaction() {
-            return CompactionMode.QUORUM;
+            return CompactionMode.SNAPSHOT;
         }
 
         @Override
@@ -117,7 +117,7 @@ public final class AtomixWorkQueueCommands {
 
         @Override
         public CompactionMode compaction() {
-            return CompactionMode.QUORUM;
+            return CompactionMode.SNAPSHOT;
         }
 
         @Override
@@ -221,7 +221,7 @@ public final class AtomixWorkQueueCommands {
 
         @Override
         public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
+            return CompactionMode.SNAPSHOT;
         }
 
         @Override
@@ -245,7 +245,7 @@ public final class AtomixWorkQueueCommands {
 
         @Override
         public CompactionMode compaction() {
-            return CompactionMode.TOMBSTONE;
+            return CompactionMode.SNAPSHOT;
         }
 
         @Override
@@ -37,7 +37,6 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import org.onlab.util.CountDownCompleter;
 import org.onosproject.store.primitives.resources.impl.AtomixWorkQueueCommands.Add;
 import org.onosproject.store.primitives.resources.impl.AtomixWorkQueueCommands.Clear;
 import org.onosproject.store.primitives.resources.impl.AtomixWorkQueueCommands.Complete;
@@ -58,6 +57,10 @@ import com.google.common.util.concurrent.AtomicLongMap;
 
 /**
  * State machine for {@link AtomixWorkQueue} resource.
+ * <p>
+ * Pending and assigned tasks are written to snapshots, so commits adding,
+ * taking and completing tasks are released once applied. Register commits
+ * are retained while their session processes tasks.
  */
 public class AtomixWorkQueueState  extends ResourceStateMachine implements SessionListener, Snapshottable {
 
@@ -99,9 +102,7 @@ public class AtomixWorkQueueState  extends ResourceStateMachine implements Sessi
 
     protected void clear(Commit<? extends Clear> commit) {
         try {
-            unassignedTasks.forEach(TaskHolder::complete);
             unassignedTasks.clear();
-            assignments.values().forEach(TaskAssignment::markComplete);
             assignments.clear();
             registeredWorkers.values().forEach(Commit::close);
             registeredWorkers.clear();
@@ -131,28 +132,27 @@ public class AtomixWorkQueueState  extends ResourceStateMachine implements Sessi
     }
 
     protected void add(Commit<? extends Add> commit) {
-        Collection<byte[]> items = commit.operation().items();
-
-        // Create a CountDownCompleter that will close the commit when all tasks
-        // submitted as part of it are completed.
-        CountDownCompleter<Commit<? extends Add>> referenceTracker =
-                new CountDownCompleter<>(commit, items.size(), Commit::close);
-
-        AtomicInteger itemIndex = new AtomicInteger(0);
-        items.forEach(item -> {
-            String taskId = String.format("%d:%d:%d", commit.session().id(),
-                                                      commit.index(),
-                                                      itemIndex.getAndIncrement());
-            unassignedTasks.add(new TaskHolder(new Task<>(taskId, item), referenceTracker));
-        });
+        try {
+            Collection<byte[]> items = commit.operation().items();
+
+            AtomicInteger itemIndex = new AtomicInteger(0);
+            items.forEach(item -> {
+                String taskId = String.format("%d:%d:%d", commit.session().id(),
+                                                          commit.index(),
+                                                          itemIndex.getAndIncrement());
+                unassignedTasks.add(new TaskHolder(new Task<>(taskId, item)));
+            });
 
-        // Send an event to all sessions that have expressed interest in task processing
-        // and are not actively processing a task.
-        registeredWorkers.values()
-                         .stream()
-                         .map(Commit::session)
-                         .forEach(session -> session.publish(AtomixWorkQueue.TASK_AVAILABLE));
-        // FIXME: This generates a lot of event traffic.
+            // Send an event to all sessions that have expressed interest in task processing
+            // and are not actively processing a task.
+            registeredWorkers.values()
+                             .stream()
+                             .map(Commit::session)
+                             .forEach(session -> session.publish(AtomixWorkQueue.TASK_AVAILABLE));
+            // FIXME: This generates a lot of event traffic.
+        } finally {
+            commit.close();
+        }
     }
 
     protected Collection<Task<byte[]>> take(Commit<? extends Take> commit) {
@@ -189,7 +189,7 @@ public class AtomixWorkQueueState  extends ResourceStateMachine implements Sessi
             commit.operation().taskIds().forEach(taskId -> {
                 TaskAssignment assignment = assignments.get(taskId);
                 if (assignment != null && assignment.sessionId() == sessionId) {
-                    assignments.remove(taskId).markComplete();
+                    assignments.remove(taskId);
                     // bookkeeping
                     totalCompleted.incrementAndGet();
                     activeTasksPerSession.decrementAndGet(sessionId);
@@ -225,11 +225,46 @@ public class AtomixWorkQueueState  extends ResourceStateMachine implements Sessi
     @Override
     public void snapshot(SnapshotWriter writer) {
         writer.writeLong(totalCompleted.get());
+        // tasks are streamed one by one to avoid copying the whole queue
+        writer.writeInt(unassignedTasks.size());
+        unassignedTasks.forEach(holder -> writeTask(writer, holder.task()));
+        writer.writeInt(assignments.size());
+        assignments.values().forEach(assignment -> {
+            writer.writeLong(assignment.sessionId());
+            writeTask(writer, assignment.taskHolder().task());
+        });
     }
 
     @Override
     public void install(SnapshotReader reader) {
         totalCompleted.set(reader.readLong());
+        unassignedTasks.clear();
+        int unassigned = reader.readInt();
+        for (int i = 0; i < unassigned; i++) {
+            unassignedTasks.add(new TaskHolder(readTask(reader)));
+        }
+        assignments.clear();
+        activeTasksPerSession.clear();
+        int assigned = reader.readInt();
+        for (int i = 0; i < assigned; i++) {
+            long sessionId = reader.readLong();
+            TaskHolder holder = new TaskHolder(readTask(reader));
+            assignments.put(holder.task().taskId(), new TaskAssignment(sessionId, holder));
+            activeTasksPerSession.incrementAndGet(sessionId);
+        }
+    }
+
+    private static void writeTask(SnapshotWriter writer, Task<byte[]> task) {
+        writer.writeString(task.taskId());
+        writer.writeInt(task.payload().length);
+        writer.write(task.payload());
+    }
+
+    private static Task<byte[]> readTask(SnapshotReader reader) {
+        String taskId = reader.readString();
+        byte[] payload = new byte[reader.readInt()];
+        reader.read(payload);
+        return new Task<>(taskId, payload);
     }
 
     private void evictWorker(long sessionId) {
@@ -257,20 +292,14 @@ public class AtomixWorkQueueState  extends ResourceStateMachine implements Sessi
     private class TaskHolder {
 
         private final Task<byte[]> task;
-        private final CountDownCompleter<Commit<? extends Add>> referenceTracker;
 
-        public TaskHolder(Task<byte[]> delegate, CountDownCompleter<Commit<? extends Add>> referenceTracker) {
+        public TaskHolder(Task<byte[]> delegate) {
             this.task = delegate;
-            this.referenceTracker = referenceTracker;
         }
 
         public Task<byte[]> task() {
             return task;
         }
-
-        public void complete() {
-            referenceTracker.countDown();
-        }
     }
 
     private class TaskAssignment {
@@ -290,10 +319,6 @@ public class AtomixWorkQueueState  extends ResourceStateMachine implements Sessi
             return taskHolder;
         }
 
-        public void markComplete() {
-            taskHolder.complete();
-        }
-
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(getClass())
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.resources.impl;
+
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Page of elements returned by a state machine iterator.
+ *
+ * @param <T> element type
+ */
+public class IteratorBatch<T> {
+
+    private final String lastKey;
+    private final List<T> entries;
+    private final boolean last;
+
+    public IteratorBatch(String lastKey, List<T> entries, boolean last) {
+        this.lastKey = lastKey;
+        this.entries = entries;
+        this.last = last;
+    }
+
+    /**
+     * Returns the last key read for the batch, after which the next batch is to be read.
+     * @return last key read
+     */
+    public String lastKey() {
+        return lastKey;
+    }
+
+    /**
+     * Returns the elements of the batch.
+     * @return batch elements
+     */
+    public List<T> entries() {
+        return entries;
+    }
+
+    /**
+     * Returns whether this is the last batch of the iterator.
+     * @return {@code true} if the iterator is exhausted
+     */
+    public boolean last() {
+        return last;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(IteratorBatch.class)
+                .add("lastKey", lastKey)
+                .add("entries", entries.size())
+                .add("last", last)
+                .toString();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.store.service.AsyncConsistentMapAdapter;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.Versioned;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the versioned invalidation of {@link CachingAsyncConsistentMap}.
+ */
+public class CachingAsyncConsistentMapTest {
+
+    private static final String KEY = "foo";
+
+    private TestMap backingMap;
+    private CachingAsyncConsistentMap<String, String> map;
+
+    @Before
+    public void setUp() {
+        backingMap = new TestMap();
+        map = new CachingAsyncConsistentMap<>(backingMap, 0, 100, (key, value) -> 1, false);
+    }
+
+    private void event(String key, Versioned<String> newValue, Versioned<String> oldValue) {
+        backingMap.listener.event(new MapEvent<>("test", key, newValue, oldValue));
+    }
+
+    /**
+     * Tests that reads are served from the cache once loaded.
+     */
+    @Test
+    public void testHit() {
+        CompletableFuture<Versioned<String>> first = map.get(KEY);
+        // a concurrent read shares the pending request
+        CompletableFuture<Versioned<String>> second = map.get(KEY);
+        backingMap.gets.remove().complete(new Versioned<>("a", 1));
+        assertEquals("a", first.join().value());
+        assertEquals("a", second.join().value());
+
+        assertEquals("a", map.get(KEY).join().value());
+        assertNull(backingMap.gets.peek());
+    }
+
+    /**
+     * Tests that a read racing with an update does not overwrite the newer value.
+     */
+    @Test
+    public void testStaleRead() {
+        CompletableFuture<Versioned<String>> read = map.get(KEY);
+        event(KEY, new Versioned<>("b", 2), new Versioned<>("a", 1));
+        backingMap.gets.remove().complete(new Versioned<>("a", 1));
+        assertEquals("a", read.join().value());
+
+        assertEquals("b", map.get(KEY).join().value());
+        assertNull(backingMap.gets.peek());
+
+        // an out of order event is ignored as well
+        event(KEY, new Versioned<>("a", 1), null);
+        assertEquals("b", map.get(KEY).join().value());
+    }
+
+    /**
+     * Tests that a read racing with a removal does not restore the removed value.
+     */
+    @Test
+    public void testStaleReadAfterRemoval() {
+        CompletableFuture<Versioned<String>> read = map.get(KEY);
+        event(KEY, null, new Versioned<>("a", 1));
+        backingMap.gets.remove().complete(new Versioned<>("a", 1));
+        assertEquals("a", read.join().value());
+
+        assertNull(map.get(KEY).join());
+        assertNull(backingMap.gets.peek());
+    }
+
+    /**
+     * Tests that a local update is visible to the reads that follow it.
+     */
+    @Test
+    public void testLocalUpdate() {
+        CompletableFuture<Versioned<String>> read = map.get(KEY);
+        map.put(KEY, "b").join();
+        // the read issued before the update is not shared
+        CompletableFuture<Versioned<String>> next = map.get(KEY);
+        assertEquals(2, backingMap.gets.size());
+
+        backingMap.gets.remove().complete(new Versioned<>("a", 1));
+        assertEquals("a", read.join().value());
+        assertEquals(1, backingMap.gets.size());
+
+        backingMap.gets.remove().complete(new Versioned<>("b", 2));
+        assertEquals("b", next.join().value());
+        assertEquals("b", map.get(KEY).join().value());
+        assertNull(backingMap.gets.peek());
+    }
+
+    /**
+     * Tests that entries with an unknown value are not served after an update.
+     */
+    @Test
+    public void testAbsentKey() {
+        CompletableFuture<Versioned<String>> read = map.get(KEY);
+        event(KEY, new Versioned<>("a", 1), null);
+        backingMap.gets.remove().complete(null);
+        assertNull(read.join());
+        assertEquals("a", map.get(KEY).join().value());
+    }
+
+    /**
+     * Tests that bulk reads go to the backing map, and neither read nor
+     * change the cached entries.
+     */
+    @Test
+    public void testBulkReads() {
+        CompletableFuture<Versioned<String>> read = map.get(KEY);
+        backingMap.gets.remove().complete(new Versioned<>("a", 1));
+        assertEquals("a", read.join().value());
+
+        // the backing map is ahead of the cache until the event is received
+        backingMap.contents.put(KEY, new Versioned<>("b", 2));
+        assertEquals(ImmutableSet.of(KEY), map.keySet().join());
+        assertEquals("b", Iterables.getOnlyElement(map.values().join()).value());
+        assertEquals("b", Iterables.getOnlyElement(map.entrySet().join()).getValue().value());
+
+        assertEquals("a", map.get(KEY).join().value());
+        assertNull(backingMap.gets.peek());
+    }
+
+    private static class TestMap extends AsyncConsistentMapAdapter<String, String> {
+        private final Queue<CompletableFuture<Versioned<String>>> gets = new LinkedList<>();
+        private final Map<String, Versioned<String>> contents = new HashMap<>();
+        private MapEventListener<String, String> listener;
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> get(String key) {
+            CompletableFuture<Versioned<String>> future = new CompletableFuture<>();
+            gets.add(future);
+            return future;
+        }
+
+        @Override
+        public CompletableFuture<Set<String>> keySet() {
+            return CompletableFuture.completedFuture(ImmutableSet.copyOf(contents.keySet()));
+        }
+
+        @Override
+        public CompletableFuture<Collection<Versioned<String>>> values() {
+            return CompletableFuture.completedFuture(ImmutableList.copyOf(contents.values()));
+        }
+
+        @Override
+        public CompletableFuture<Set<Map.Entry<String, Versioned<String>>>> entrySet() {
+            return CompletableFuture.completedFuture(ImmutableSet.copyOf(contents.entrySet()));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> put(String key, String value) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> addListener(MapEventListener<String, String> listener, Executor executor) {
+            this.listener = listener;
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
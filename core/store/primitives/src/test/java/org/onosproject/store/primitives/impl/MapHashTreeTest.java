@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.serializers.StoreSerializer;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+
+/**
+ * Unit tests for MapHashTree.
+ */
+public class MapHashTreeTest {
+
+    private static final int DEPTH = 10;
+    private static final int LEVELS_PER_ROUND = 5;
+    private static final int ENTRIES = 10000;
+    private static final NodeId NODE = new NodeId("node");
+
+    private final StoreSerializer serializer = StoreSerializer.using(KryoNamespace.newBuilder()
+            .register(KryoNamespaces.API)
+            .register(LogicalTimestamp.class)
+            .register(AntiEntropyAdvertisement.class)
+            .register(MapValue.Digest.class)
+            .register(HashTreeAdvertisement.class)
+            .build());
+
+    private Map<String, MapValue<String>> items;
+
+    @Before
+    public void setUp() {
+        items = Maps.newHashMap();
+        IntStream.range(0, ENTRIES).forEach(i -> items.put("key" + i, value(i, 1)));
+    }
+
+    private MapValue<String> value(int i, long timestamp) {
+        return new MapValue<>("value" + i, new LogicalTimestamp(timestamp));
+    }
+
+    private MapHashTree<String> tree(Map<String, MapValue<String>> entries) {
+        MapHashTree<String> tree = new MapHashTree<>(DEPTH, serializer::encode);
+        entries.forEach((key, value) -> tree.update(key, null, value));
+        return tree;
+    }
+
+    @Test
+    public void testSameContentsSameHashes() {
+        MapHashTree<String> tree = tree(items);
+        MapHashTree<String> other = new MapHashTree<>(DEPTH, serializer::encode);
+        items.keySet().stream()
+                .sorted()
+                .forEach(key -> other.update(key, null, items.get(key)));
+        assertArrayEquals(tree.snapshot(), other.snapshot());
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        MapHashTree<String> empty = new MapHashTree<>(DEPTH, serializer::encode);
+        MapHashTree<String> tree = new MapHashTree<>(DEPTH, serializer::encode);
+        MapValue<String> first = value(0, 1);
+        MapValue<String> second = value(0, 2);
+
+        tree.update("key0", null, first);
+        assertNotEquals(empty.snapshot()[MapHashTree.ROOT], tree.snapshot()[MapHashTree.ROOT]);
+        long[] before = tree.snapshot();
+
+        tree.update("key0", first, second);
+        assertNotEquals(before[MapHashTree.ROOT], tree.snapshot()[MapHashTree.ROOT]);
+
+        tree.update("key0", second, MapValue.tombstone(new LogicalTimestamp(3)));
+        assertNotEquals(empty.snapshot()[MapHashTree.ROOT], tree.snapshot()[MapHashTree.ROOT]);
+
+        tree.update("key0", MapValue.tombstone(new LogicalTimestamp(3)), null);
+        assertArrayEquals(empty.snapshot(), tree.snapshot());
+    }
+
+    @Test
+    public void testFindDifferingLeaf() {
+        MapHashTree<String> local = tree(items);
+        items.put("key42", value(42, 2));
+        MapHashTree<String> remote = tree(items);
+
+        Set<Integer> leaves = differingLeaves(local, remote);
+        assertEquals(1, leaves.size());
+        int leaf = leaves.iterator().next();
+        assertTrue(local.isLeaf(leaf));
+        assertTrue(local.keys(leaf).contains("key42"));
+        assertTrue(remote.keys(leaf).contains("key42"));
+    }
+
+    /**
+     * Compares the bytes sent by one anti-entropy round with and without
+     * hash trees, for an in-sync map and for a map differing in one entry.
+     */
+    @Test
+    public void testAdvertisementBytes() {
+        Map<String, MapValue.Digest> digest = Maps.transformValues(items, MapValue::digest);
+        int fullBytes = serializer.encode(new AntiEntropyAdvertisement<>(NODE, digest)).length;
+
+        MapHashTree<String> local = tree(items);
+        int inSyncBytes = advertise(local, ImmutableSet.of(MapHashTree.ROOT)).length;
+
+        items.put("key42", value(42, 2));
+        MapHashTree<String> remote = tree(items);
+        int diffBytes = 0;
+        Set<Integer> nodes = ImmutableSet.of(MapHashTree.ROOT);
+        while (true) {
+            diffBytes += advertise(local, nodes).length;
+            Set<Integer> differing = differing(local, remote, nodes);
+            if (differing.isEmpty() || local.isLeaf(differing.iterator().next())) {
+                Map<String, MapValue.Digest> leafDigest = differing.stream()
+                        .flatMap(leaf -> local.keys(leaf).stream())
+                        .collect(Collectors.toMap(key -> key, key -> items.get(key).digest()));
+                diffBytes += serializer.encode(new AntiEntropyAdvertisement<>(NODE, leafDigest, differing)).length;
+                break;
+            }
+            nodes = local.descendants(differing, LEVELS_PER_ROUND);
+        }
+
+        assertTrue(inSyncBytes * 100 < fullBytes);
+        assertTrue(diffBytes * 10 < fullBytes);
+    }
+
+    private byte[] advertise(MapHashTree<String> tree, Set<Integer> nodes) {
+        long[] snapshot = tree.snapshot();
+        int[] advertised = Ints.toArray(nodes);
+        long[] hashes = IntStream.of(advertised).mapToLong(node -> snapshot[node]).toArray();
+        return serializer.encode(new HashTreeAdvertisement(NODE, tree.depth(), advertised, hashes));
+    }
+
+    private Set<Integer> differing(MapHashTree<String> local, MapHashTree<String> remote, Set<Integer> nodes) {
+        long[] localTree = local.snapshot();
+        long[] remoteTree = remote.snapshot();
+        return nodes.stream()
+                .filter(node -> localTree[node] != remoteTree[node])
+                .collect(Collectors.toSet());
+    }
+
+    private Set<Integer> differingLeaves(MapHashTree<String> local, MapHashTree<String> remote) {
+        Set<Integer> nodes = ImmutableSet.of(MapHashTree.ROOT);
+        while (true) {
+            Set<Integer> differing = differing(local, remote, nodes);
+            if (differing.isEmpty() || local.isLeaf(differing.iterator().next())) {
+                return differing;
+            }
+            nodes = local.descendants(differing, LEVELS_PER_ROUND);
+        }
+    }
+}
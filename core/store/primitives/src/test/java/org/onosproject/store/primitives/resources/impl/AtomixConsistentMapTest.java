@@ -16,6 +16,8 @@
 package org.onosproject.store.primitives.resources.impl;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import io.atomix.resource.ResourceType;
 import org.junit.AfterClass;
@@ -24,6 +26,7 @@ import org.junit.Test;
 import org.onlab.util.Tools;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
@@ -33,10 +36,14 @@ import org.onosproject.store.service.Versioned;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertArrayEquals;
@@ -115,6 +122,66 @@ public class AtomixConsistentMapTest extends AtomixTestBase {
         transactionRollbackTests();
     }
 
+    /**
+     * Tests iterating over the map in batches.
+     */
+    @Test
+    public void testIterator() throws Throwable {
+        AtomixConsistentMap map = createAtomixClient().getResource("testIteratorMap",
+                AtomixConsistentMap.class).join();
+
+        int count = 2500;
+        CompletableFuture.allOf(IntStream.range(0, count)
+                                         .mapToObj(i -> map.put("key" + i, Tools.getBytesUtf8("value" + i)))
+                                         .toArray(CompletableFuture[]::new)).join();
+
+        AsyncIterator<Map.Entry<String, Versioned<byte[]>>> iterator = map.iterator().join();
+        // keys removed after the iterator is opened are skipped
+        map.remove("key0").join();
+
+        // iterators hold no state on the map, so any number of them can be open
+        List<AsyncIterator<Map.Entry<String, Versioned<byte[]>>>> others = IntStream.range(0, 20)
+                .mapToObj(i -> map.iterator().join())
+                .collect(Collectors.toList());
+        others.forEach(other -> assertTrue(other.hasNext().join()));
+
+        List<String> keys = Lists.newArrayList();
+        while (iterator.hasNext().join()) {
+            Map.Entry<String, Versioned<byte[]>> entry = iterator.next().join();
+            keys.add(entry.getKey());
+            assertArrayEquals(Tools.getBytesUtf8(entry.getKey().replace("key", "value")),
+                              entry.getValue().value());
+            if (keys.size() == 1500) {
+                // a key behind the cursor is not returned, one ahead of it is
+                map.put("key", Tools.getBytesUtf8("value")).join();
+                map.put("key~", Tools.getBytesUtf8("value~")).join();
+            }
+        }
+        assertEquals(count, keys.size());
+        assertFalse(keys.contains("key0"));
+        assertFalse(keys.contains("key"));
+        assertEquals("key~", keys.get(keys.size() - 1));
+        // pages resume after the last key read, so keys come in order and once
+        assertEquals(Ordering.natural().sortedCopy(keys), keys);
+        assertEquals(keys.size(), Sets.newHashSet(keys).size());
+
+        for (AsyncIterator<Map.Entry<String, Versioned<byte[]>>> other : others) {
+            int entries = 0;
+            while (other.hasNext().join()) {
+                other.next().join();
+                entries++;
+            }
+            assertEquals(count, entries);
+        }
+
+        try {
+            iterator.next().join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof NoSuchElementException);
+        }
+    }
+
     protected void basicMapOperationTests() throws Throwable {
         final byte[] rawFooValue = Tools.getBytesUtf8("Hello foo!");
         final byte[] rawBarValue = Tools.getBytesUtf8("Hello bar!");
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.resources.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.atomix.copycat.Operation;
+import io.atomix.copycat.server.Commit;
+import io.atomix.copycat.server.Snapshottable;
+import io.atomix.copycat.server.session.ServerSession;
+import io.atomix.copycat.server.storage.Storage;
+import io.atomix.copycat.server.storage.StorageLevel;
+import io.atomix.copycat.server.storage.snapshot.Snapshot;
+import io.atomix.copycat.server.storage.snapshot.SnapshotReader;
+import io.atomix.copycat.server.storage.snapshot.SnapshotStore;
+import io.atomix.copycat.server.storage.snapshot.SnapshotWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.Match;
+import org.onosproject.store.primitives.MapUpdate;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.primitives.impl.CatalystSerializers;
+import org.onosproject.store.service.Task;
+import org.onosproject.store.service.TransactionLog;
+import org.onosproject.store.service.WorkQueueStats;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the snapshots of the Atomix resource state machines.
+ */
+public class AtomixSnapshotTest {
+
+    private static final byte[] VALUE1 = "value1".getBytes();
+    private static final byte[] VALUE2 = "value2".getBytes();
+
+    private final AtomicLong index = new AtomicLong();
+    private ServerSession session;
+    private SnapshotStore store;
+
+    @Before
+    public void setUp() {
+        session = createMock(ServerSession.class);
+        expect(session.id()).andReturn(1L).anyTimes();
+        replay(session);
+        store = new SnapshotStore("test", new Storage(StorageLevel.MEMORY),
+                                  CatalystSerializers.getSerializer());
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    private <T extends Operation> Commit<T> commit(T operation) {
+        return new TestCommit<>(index.incrementAndGet(), session, operation);
+    }
+
+    // Snapshots the given state machine and installs the snapshot into the other.
+    private <S extends Snapshottable> S copy(Snapshottable source, S target) {
+        Snapshot snapshot = store.createSnapshot(index.get());
+        try (SnapshotWriter writer = snapshot.writer()) {
+            source.snapshot(writer);
+        }
+        snapshot.complete();
+        try (SnapshotReader reader = store.currentSnapshot().reader()) {
+            target.install(reader);
+        }
+        return target;
+    }
+
+    /**
+     * Tests that the entries, versions and transactions of a consistent map
+     * are restored from a snapshot.
+     */
+    @Test
+    public void testConsistentMap() {
+        AtomixConsistentMapState state = new AtomixConsistentMapState(new Properties());
+        state.updateAndGet(commit(new AtomixConsistentMapCommands.UpdateAndGet(
+                "foo", VALUE1, Match.any(), Match.any())));
+        long barVersion = index.get() + 1;
+        state.updateAndGet(commit(new AtomixConsistentMapCommands.UpdateAndGet(
+                "bar", VALUE2, Match.any(), Match.any())));
+
+        // a removal while a transaction is running leaves a tombstone
+        TransactionId transactionId = TransactionId.from("tx1");
+        long transactionVersion = state.begin(commit(new AtomixConsistentMapCommands.TransactionBegin(transactionId)));
+        state.updateAndGet(commit(new AtomixConsistentMapCommands.UpdateAndGet(
+                "foo", null, Match.any(), Match.any())));
+        MapUpdate<String, byte[]> update = MapUpdate.<String, byte[]>newBuilder()
+                .withType(MapUpdate.Type.PUT_IF_VERSION_MATCH)
+                .withKey("baz")
+                .withValue(VALUE1)
+                .withVersion(transactionVersion)
+                .build();
+        state.prepare(commit(new AtomixConsistentMapCommands.TransactionPrepare(
+                new TransactionLog<>(transactionId, transactionVersion, ImmutableList.of(update)))));
+
+        AtomixConsistentMapState copy = copy(state, new AtomixConsistentMapState(new Properties()));
+        assertNull(copy.get(commit(new AtomixConsistentMapCommands.Get("foo"))));
+        assertArrayEquals(VALUE2, copy.get(commit(new AtomixConsistentMapCommands.Get("bar"))).value());
+        assertEquals(barVersion, copy.get(commit(new AtomixConsistentMapCommands.Get("bar"))).version());
+        assertEquals(1, copy.size(commit(new AtomixConsistentMapCommands.Size())));
+
+        assertEquals(CommitResult.OK,
+                     copy.commit(commit(new AtomixConsistentMapCommands.TransactionCommit(transactionId))));
+        assertArrayEquals(VALUE1, copy.get(commit(new AtomixConsistentMapCommands.Get("baz"))).value());
+        assertEquals(2, copy.size(commit(new AtomixConsistentMapCommands.Size())));
+    }
+
+    /**
+     * Tests that the ordered entries of a tree map are restored from a
+     * snapshot.
+     */
+    @Test
+    public void testConsistentTreeMap() {
+        AtomixConsistentTreeMapState state = new AtomixConsistentTreeMapState(new Properties());
+        state.updateAndGet(commit(new AtomixConsistentTreeMapCommands.UpdateAndGet(
+                "b", VALUE2, Match.any(), Match.any())));
+        long version = index.get() + 1;
+        state.updateAndGet(commit(new AtomixConsistentTreeMapCommands.UpdateAndGet(
+                "a", VALUE1, Match.any(), Match.any())));
+
+        AtomixConsistentTreeMapState copy = copy(state, new AtomixConsistentTreeMapState(new Properties()));
+        assertEquals("a", copy.firstKey(commit(new AtomixConsistentTreeMapCommands.FirstKey())));
+        assertEquals("b", copy.lastKey(commit(new AtomixConsistentTreeMapCommands.LastKey())));
+        assertArrayEquals(VALUE1, copy.get(commit(new AtomixConsistentTreeMapCommands.Get("a"))).value());
+        assertEquals(version, copy.get(commit(new AtomixConsistentTreeMapCommands.Get("a"))).version());
+    }
+
+    /**
+     * Tests that the values of a set multimap are restored from a snapshot.
+     */
+    @Test
+    public void testConsistentSetMultimap() {
+        AtomixConsistentSetMultimapState state = new AtomixConsistentSetMultimapState(new Properties());
+        state.put(commit(new AtomixConsistentMultimapCommands.Put(
+                "foo", ImmutableList.of(VALUE1, VALUE2), Match.any())));
+        state.put(commit(new AtomixConsistentMultimapCommands.Put(
+                "bar", ImmutableList.of(VALUE1), Match.any())));
+
+        AtomixConsistentSetMultimapState copy =
+                copy(state, new AtomixConsistentSetMultimapState(new Properties()));
+        assertEquals(3, copy.size(commit(new AtomixConsistentMultimapCommands.Size())));
+        Collection<? extends byte[]> values = copy.get(commit(new AtomixConsistentMultimapCommands.Get("foo"))).value();
+        assertEquals(2, values.size());
+        assertTrue(values.stream().anyMatch(value -> new String(value).equals("value2")));
+
+        // values added after the install keep their set semantics
+        assertTrue(copy.put(commit(new AtomixConsistentMultimapCommands.Put(
+                "bar", ImmutableList.of(VALUE1, VALUE2), Match.any()))));
+        assertEquals(4, copy.size(commit(new AtomixConsistentMultimapCommands.Size())));
+    }
+
+    /**
+     * Tests that the counters of a counter map are restored from a snapshot.
+     */
+    @Test
+    public void testAtomicCounterMap() {
+        AtomixAtomicCounterMapState state = new AtomixAtomicCounterMapState(new Properties());
+        state.put(commit(new AtomixAtomicCounterMapCommands.Put("foo", 10)));
+        state.incrementAndGet(commit(new AtomixAtomicCounterMapCommands.IncrementAndGet("bar")));
+
+        AtomixAtomicCounterMapState copy = copy(state, new AtomixAtomicCounterMapState(new Properties()));
+        assertEquals(10, copy.get(commit(new AtomixAtomicCounterMapCommands.Get("foo"))));
+        assertEquals(2, copy.incrementAndGet(commit(new AtomixAtomicCounterMapCommands.IncrementAndGet("bar"))));
+    }
+
+    /**
+     * Tests that the pending and assigned tasks of a work queue are restored
+     * from a snapshot.
+     */
+    @Test
+    public void testWorkQueue() {
+        AtomixWorkQueueState state = new AtomixWorkQueueState(new Properties());
+        state.add(commit(new AtomixWorkQueueCommands.Add(ImmutableList.of(VALUE1, VALUE2))));
+        Task<byte[]> task = state.take(commit(new AtomixWorkQueueCommands.Take(1))).iterator().next();
+
+        AtomixWorkQueueState copy = copy(state, new AtomixWorkQueueState(new Properties()));
+        WorkQueueStats stats = copy.stats(commit(new AtomixWorkQueueCommands.Stats()));
+        assertEquals(1, stats.totalPending());
+        assertEquals(1, stats.totalInProgress());
+
+        copy.complete(commit(new AtomixWorkQueueCommands.Complete(ImmutableList.of(task.taskId()))));
+        Task<byte[]> next = copy.take(commit(new AtomixWorkQueueCommands.Take(1))).iterator().next();
+        assertArrayEquals(VALUE2, next.payload());
+        stats = copy.stats(commit(new AtomixWorkQueueCommands.Stats()));
+        assertEquals(0, stats.totalPending());
+        assertEquals(1, stats.totalInProgress());
+        assertEquals(1, stats.totalCompleted());
+    }
+
+    // Commit applied directly to a state machine.
+    private static final class TestCommit<T extends Operation> implements Commit<T> {
+        private final long index;
+        private final ServerSession session;
+        private final T operation;
+
+        private TestCommit(long index, ServerSession session, T operation) {
+            this.index = index;
+            this.session = session;
+            this.operation = operation;
+        }
+
+        @Override
+        public long index() {
+            return index;
+        }
+
+        @Override
+        public ServerSession session() {
+            return session;
+        }
+
+        @Override
+        public Instant time() {
+            return Instant.now();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<T> type() {
+            return (Class<T>) operation.getClass();
+        }
+
+        @Override
+        public T operation() {
+            return operation;
+        }
+
+        @Override
+        public Commit<T> acquire() {
+            return this;
+        }
+
+        @Override
+        public boolean release() {
+            return false;
+        }
+
+        @Override
+        public int references() {
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -16,12 +16,14 @@
 
 package org.onosproject.netconf;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.Beta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
@@ -92,6 +94,24 @@ public interface NetconfSession {
      */
     String requestSync(String request) throws NetconfException;
 
+    /**
+     * Executes an asynchronous RPC to the server.
+     * <p>
+     * The session assigns the message-id of the request, so that RPCs can be
+     * issued without waiting for the replies to the previous ones. Sessions
+     * may bound the number of RPCs awaiting a reply and queue the others.
+     *
+     * @param request the XML containing the RPC for the server.
+     * @return future that will be completed with the server response
+     * @throws NetconfException when there is a problem in the communication process on
+     * the underlying connection
+     */
+    @Beta
+    default CompletableFuture<String> rpc(String request) throws NetconfException {
+        // default implementation waits for the reply
+        return CompletableFuture.completedFuture(requestSync(request));
+    }
+
     /**
      * Retrieves the specified configuration.
      *
@@ -199,6 +219,24 @@ public interface NetconfSession {
     }
 
 
+    /**
+     * Retrieves part of the specified configuration asynchronously.
+     *
+     * @param netconfTargetConfig       the type of configuration to retrieve.
+     * @param configurationFilterSchema XML schema to filter the configuration
+     *                                  elements we are interested in
+     * @return future that will be completed with the configuration
+     * @throws NetconfException when there is a problem in the communication process on
+     * the underlying connection
+     */
+    @Beta
+    default CompletableFuture<String> getConfigAsync(DatastoreId netconfTargetConfig,
+                                                     String configurationFilterSchema)
+            throws NetconfException {
+        // default implementation waits for the reply
+        return CompletableFuture.completedFuture(getConfig(netconfTargetConfig, configurationFilterSchema));
+    }
+
     /**
      * Retrieves part of the specified configuration based on the filterSchema.
      *
@@ -229,6 +267,29 @@ public interface NetconfSession {
         return editConfig(netconfTargetConfig.id(), mode, newConfiguration);
     }
 
+    /**
+     * Edits the specified configuration asynchronously.
+     * <p>
+     * Consecutive edits of the same datastore that are still waiting to be
+     * sent may be merged into a single edit-config RPC, in which case they
+     * succeed or fail together.
+     *
+     * @param netconfTargetConfig the targetConfiguration to change
+     * @param mode                selected mode to change the configuration
+     * @param newConfiguration    configuration to set
+     * @return future that will be completed with true if the configuration
+     * was edited correctly
+     * @throws NetconfException when there is a problem in the communication process on
+     * the underlying connection
+     */
+    @Beta
+    default CompletableFuture<Boolean> editConfigAsync(DatastoreId netconfTargetConfig, String mode,
+                                                       String newConfiguration)
+            throws NetconfException {
+        // default implementation waits for the reply
+        return CompletableFuture.completedFuture(editConfig(netconfTargetConfig, mode, newConfiguration));
+    }
+
     /**
      * Retrieves part of the specified configuration based on the filterSchema.
      *
@@ -586,6 +647,17 @@ public interface NetconfSession {
      */
     void addDeviceOutputListener(NetconfDeviceOutputEventListener listener);
 
+    /**
+     * Returns the latency of the RPCs issued on this session.
+     *
+     * @return timer of the round trips of the RPCs, or empty if the session
+     * does not record them
+     */
+    @Beta
+    default Optional<Timer> rpcLatency() {
+        return Optional.empty();
+    }
+
     /**
      * Remove a listener from the underlying stream handler implementation.
      *
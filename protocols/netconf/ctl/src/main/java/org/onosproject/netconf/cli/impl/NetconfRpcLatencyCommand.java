@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.netconf.cli.impl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.karaf.shell.commands.Argument;
+import org.apache.karaf.shell.commands.Command;
+import org.onosproject.cli.AbstractShellCommand;
+import org.onosproject.net.DeviceId;
+import org.onosproject.netconf.NetconfController;
+import org.onosproject.netconf.NetconfDevice;
+import org.onosproject.netconf.NetconfSession;
+
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+/**
+ * Command that lists the latency of the RPCs issued on the NETCONF sessions.
+ */
+@Command(scope = "onos", name = "netconf-rpc-latency",
+        description = "Lists the latency of the RPCs issued on NETCONF sessions")
+public class NetconfRpcLatencyCommand extends AbstractShellCommand {
+
+    private static final String FORMAT =
+            "device=%s, rpcs=%d, rate=%.1f/s, mean=%.2fms, p99=%.2fms, max=%.2fms";
+
+    @Argument(index = 0, name = "uri", description = "Device ID",
+            required = false, multiValued = false)
+    String uri = null;
+
+    @Override
+    protected void execute() {
+        NetconfController controller = get(NetconfController.class);
+        checkNotNull(controller, "Netconf controller is null");
+
+        Map<DeviceId, NetconfDevice> devices = controller.getDevicesMap();
+        if (uri != null) {
+            DeviceId deviceId = DeviceId.deviceId(uri);
+            NetconfDevice device = devices.get(deviceId);
+            if (device == null) {
+                print("Netconf device object not found for %s", deviceId);
+                return;
+            }
+            printLatency(deviceId, device.getSession());
+        } else {
+            devices.forEach((deviceId, device) -> printLatency(deviceId, device.getSession()));
+        }
+    }
+
+    private void printLatency(DeviceId deviceId, NetconfSession session) {
+        if (session == null) {
+            print("Netconf session not found for %s", deviceId);
+            return;
+        }
+        Timer timer = session.rpcLatency().orElse(null);
+        if (timer == null) {
+            print("device=%s, RPC latency not recorded", deviceId);
+            return;
+        }
+        Snapshot snapshot = timer.getSnapshot();
+        print(FORMAT, deviceId, timer.getCount(), timer.getOneMinuteRate(),
+              millis(snapshot.getMean()), millis(snapshot.get99thPercentile()), millis(snapshot.getMax()));
+    }
+
+    private static double millis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
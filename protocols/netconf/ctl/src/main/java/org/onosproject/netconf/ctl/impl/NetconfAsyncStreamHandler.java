@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import org.apache.sshd.client.channel.ClientChannel;
+import org.apache.sshd.common.io.IoInputStream;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.onlab.util.OrderedExecutor;
+import org.onosproject.netconf.NetconfDeviceInfo;
+import org.onosproject.netconf.NetconfDeviceOutputEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Stream handler that does the IO of a NETCONF session on the asynchronous
+ * streams of an SSH channel, without a thread of its own.
+ * <p>
+ * Reads are completed by the I/O threads of the SSH client and only split the
+ * received bytes into messages. The messages are then delivered in order on a
+ * dispatch executor shared by all sessions, so listeners never block the I/O
+ * threads.
+ * The channel must be opened in asynchronous streaming mode.
+ */
+public class NetconfAsyncStreamHandler implements NetconfStreamHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(NetconfAsyncStreamHandler.class);
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final NetconfDeviceInfo netconfDeviceInfo;
+    private final IoInputStream asyncOut;
+    private final IoOutputStream asyncIn;
+    private final Map<Integer, CompletableFuture<String>> replies;
+    private final NetconfMessageDispatcher dispatcher;
+    private final OrderedExecutor dispatchExecutor;
+
+    // only accessed by the completion of the single outstanding read
+    private final NetconfMessageFramer framer = new NetconfMessageFramer();
+    private final Buffer readBuffer = new ByteArrayBuffer(READ_BUFFER_SIZE);
+    private volatile boolean socketClosed = false;
+
+    // the channel accepts a single outstanding write
+    private final Queue<byte[]> pendingWrites = new ArrayDeque<>();
+    private boolean writing = false;
+
+    /**
+     * Creates a stream handler for an opened channel and starts reading from it.
+     *
+     * @param channel    channel opened in asynchronous streaming mode
+     * @param deviceInfo device the channel is established with
+     * @param delegate   session delegate notified of the replies
+     * @param replies    futures of the pending replies, by message identifier
+     * @param executor   executor the received messages are dispatched on
+     */
+    public NetconfAsyncStreamHandler(ClientChannel channel, NetconfDeviceInfo deviceInfo,
+                                     NetconfSessionDelegate delegate,
+                                     Map<Integer, CompletableFuture<String>> replies,
+                                     Executor executor) {
+        this.netconfDeviceInfo = deviceInfo;
+        this.dispatchExecutor = new OrderedExecutor(executor);
+        this.asyncOut = channel.getAsyncOut();
+        this.asyncIn = channel.getAsyncIn();
+        this.replies = replies;
+        this.dispatcher = new NetconfMessageDispatcher(deviceInfo, delegate);
+        log.debug("Stream handler for device {} session started", deviceInfo);
+        read();
+    }
+
+    @Override
+    public CompletableFuture<String> sendMessage(String request) {
+        Optional<Integer> messageId = NetconfMessageFramer.messageId(request);
+        return sendMessage(request, messageId.get());
+    }
+
+    @Override
+    public CompletableFuture<String> sendMessage(String request, int messageId) {
+        log.debug("Sending message {} to device {}", request, netconfDeviceInfo);
+        CompletableFuture<String> cf = new CompletableFuture<>();
+        replies.put(messageId, cf);
+        write(request.getBytes(StandardCharsets.UTF_8));
+        return cf;
+    }
+
+    private void write(byte[] bytes) {
+        synchronized (pendingWrites) {
+            if (writing) {
+                pendingWrites.add(bytes);
+                return;
+            }
+            writing = true;
+        }
+        asyncIn.write(new ByteArrayBuffer(bytes)).addListener(this::writeCompleted);
+    }
+
+    private void writeCompleted(IoWriteFuture future) {
+        if (future.getException() != null) {
+            log.warn("Error in writing to the session for device {}", netconfDeviceInfo, future.getException());
+        }
+        byte[] next;
+        synchronized (pendingWrites) {
+            next = pendingWrites.poll();
+            if (next == null) {
+                writing = false;
+                return;
+            }
+        }
+        asyncIn.write(new ByteArrayBuffer(next)).addListener(this::writeCompleted);
+    }
+
+    // Issues reads for as long as they complete immediately, then waits for
+    // the completion of the read in progress.
+    private void read() {
+        while (!socketClosed) {
+            readBuffer.clear();
+            IoReadFuture future = asyncOut.read(readBuffer);
+            if (!future.isDone()) {
+                future.addListener(this::readCompleted);
+                return;
+            }
+            received(future);
+        }
+    }
+
+    private void readCompleted(IoReadFuture future) {
+        received(future);
+        read();
+    }
+
+    private void received(IoReadFuture future) {
+        if (future.getException() != null) {
+            log.debug("Netconf device {} session closed: {}", netconfDeviceInfo,
+                      future.getException().getMessage());
+            close();
+            return;
+        }
+        Buffer buffer = future.getBuffer();
+        framer.append(buffer.array(), buffer.rpos(), buffer.available());
+        try {
+            for (String message = framer.next(); message != null && !socketClosed; message = framer.next()) {
+                String deviceReply = message;
+                dispatchExecutor.execute(() -> {
+                    if (!dispatcher.dispatch(deviceReply)) {
+                        socketClosed = true;
+                    }
+                });
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Malformed message from device {}, closing the session", netconfDeviceInfo, e);
+            close();
+        }
+    }
+
+    private void close() {
+        socketClosed = true;
+        dispatchExecutor.execute(dispatcher::sessionClosed);
+    }
+
+    @Override
+    public void addDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        dispatcher.addDeviceEventListener(listener);
+    }
+
+    @Override
+    public void removeDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        dispatcher.removeDeviceEventListener(listener);
+    }
+
+    @Override
+    public void setEnableNotifications(boolean enableNotifications) {
+        dispatcher.setEnableNotifications(enableNotifications);
+    }
+}
@@ -24,6 +24,8 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
 import org.onlab.packet.IpAddress;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.net.AnnotationKeys;
@@ -80,6 +82,12 @@ public class NetconfControllerImpl implements NetconfController {
             label = "Time (in seconds) waiting for a NetConf reply")
     protected static int netconfReplyTimeout = DEFAULT_REPLY_TIMEOUT_SECONDS;
 
+    private static final String PROP_NETCONF_MAX_OUTSTANDING_RPCS = "netconfMaxOutstandingRpcs";
+    private static final int DEFAULT_MAX_OUTSTANDING_RPCS = 16;
+    @Property(name = PROP_NETCONF_MAX_OUTSTANDING_RPCS, intValue = DEFAULT_MAX_OUTSTANDING_RPCS,
+            label = "Maximum number of asynchronous RPCs awaiting a reply on a NETCONF session")
+    protected static int netconfMaxOutstandingRpcs = DEFAULT_MAX_OUTSTANDING_RPCS;
+
     private static final String SSH_LIBRARY = "sshLibrary";
     private static final String APACHE_MINA = "apache_mina";
     @Property(name = SSH_LIBRARY, value = APACHE_MINA,
@@ -109,8 +117,16 @@ public class NetconfControllerImpl implements NetconfController {
             Executors.newCachedThreadPool(groupedThreads("onos/netconfdevicecontroller",
                                                          "connection-reopen-%d", log));
 
+    // SSH client and dispatch executor shared by the Apache Mina sessions
+    private SshClient sshClient;
+    private ExecutorService dispatchExecutor;
+
     @Activate
     public void activate(ComponentContext context) {
+        sshClient = SshClient.setUpDefaultClient();
+        sshClient.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        sshClient.start();
+        dispatchExecutor = Executors.newCachedThreadPool(groupedThreads("onos/netconf", "dispatch-%d", log));
         cfgService.registerProperties(getClass());
         modified(context);
         log.info("Started");
@@ -125,6 +141,14 @@ public class NetconfControllerImpl implements NetconfController {
         cfgService.unregisterProperties(getClass(), false);
         netconfDeviceListeners.clear();
         netconfDeviceMap.clear();
+        if (sshClient != null) {
+            sshClient.stop();
+            sshClient = null;
+        }
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdown();
+            dispatchExecutor = null;
+        }
         log.info("Stopped");
     }
 
@@ -133,6 +157,7 @@ public class NetconfControllerImpl implements NetconfController {
         if (context == null) {
             netconfReplyTimeout = DEFAULT_REPLY_TIMEOUT_SECONDS;
             netconfConnectTimeout = DEFAULT_CONNECT_TIMEOUT_SECONDS;
+            netconfMaxOutstandingRpcs = DEFAULT_MAX_OUTSTANDING_RPCS;
             sshLibrary = APACHE_MINA;
             log.info("No component configuration");
             return;
@@ -142,6 +167,7 @@ public class NetconfControllerImpl implements NetconfController {
 
         int newNetconfReplyTimeout;
         int newNetconfConnectTimeout;
+        int newNetconfMaxOutstandingRpcs;
         String newSshLibrary;
         try {
             String s = get(properties, PROP_NETCONF_REPLY_TIMEOUT);
@@ -152,6 +178,10 @@ public class NetconfControllerImpl implements NetconfController {
             newNetconfConnectTimeout = isNullOrEmpty(s) ?
                     netconfConnectTimeout : Integer.parseInt(s.trim());
 
+            s = get(properties, PROP_NETCONF_MAX_OUTSTANDING_RPCS);
+            newNetconfMaxOutstandingRpcs = isNullOrEmpty(s) ?
+                    netconfMaxOutstandingRpcs : Integer.parseInt(s.trim());
+
             newSshLibrary = get(properties, SSH_LIBRARY);
 
         } catch (NumberFormatException e) {
@@ -165,14 +195,19 @@ public class NetconfControllerImpl implements NetconfController {
         } else if (newNetconfReplyTimeout <= 0) {
             log.warn("netconfReplyTimeout is invalid - 0 or less.");
             return;
+        } else if (newNetconfMaxOutstandingRpcs <= 0) {
+            log.warn("netconfMaxOutstandingRpcs is invalid - 0 or less.");
+            return;
         }
 
         netconfReplyTimeout = newNetconfReplyTimeout;
         netconfConnectTimeout = newNetconfConnectTimeout;
+        netconfMaxOutstandingRpcs = newNetconfMaxOutstandingRpcs;
         sshLibrary = newSshLibrary;
-        log.info("Settings: {} = {}, {} = {}, {} = {}",
+        log.info("Settings: {} = {}, {} = {}, {} = {}, {} = {}",
                  PROP_NETCONF_REPLY_TIMEOUT, netconfReplyTimeout,
                  PROP_NETCONF_CONNECT_TIMEOUT, netconfConnectTimeout,
+                 PROP_NETCONF_MAX_OUTSTANDING_RPCS, netconfMaxOutstandingRpcs,
                  SSH_LIBRARY, sshLibrary);
     }
 
@@ -329,7 +364,9 @@ public class NetconfControllerImpl implements NetconfController {
                 return new DefaultNetconfDevice(netconfDeviceInfo,
                                                 new NetconfSessionImpl.SshNetconfSessionFactory());
             }
-            return new DefaultNetconfDevice(netconfDeviceInfo);
+            return new DefaultNetconfDevice(netconfDeviceInfo,
+                                            new NetconfSessionMinaImpl.MinaSshNetconfSessionFactory(
+                                                    sshClient, dispatchExecutor));
         }
     }
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import com.google.common.collect.Lists;
+import org.onosproject.netconf.NetconfDeviceInfo;
+import org.onosproject.netconf.NetconfDeviceOutputEvent;
+import org.onosproject.netconf.NetconfDeviceOutputEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Delivers the messages received on a NETCONF session to the session delegate
+ * and to the device output listeners, according to their root element.
+ */
+final class NetconfMessageDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NetconfMessageDispatcher.class);
+    private static final String HELLO = "hello";
+    private static final String RPC_REPLY = "rpc-reply";
+    private static final String NOTIFICATION = "notification";
+
+    private final NetconfDeviceInfo netconfDeviceInfo;
+    private final NetconfSessionDelegate sessionDelegate;
+    private final List<NetconfDeviceOutputEventListener> netconfDeviceEventListeners
+            = Lists.newCopyOnWriteArrayList();
+    private volatile boolean enableNotifications = true;
+
+    NetconfMessageDispatcher(NetconfDeviceInfo deviceInfo, NetconfSessionDelegate delegate) {
+        this.netconfDeviceInfo = deviceInfo;
+        this.sessionDelegate = delegate;
+    }
+
+    /**
+     * Delivers a message received from the device.
+     *
+     * @param message message, without framing
+     * @return false if the device closed the session with an empty message
+     */
+    boolean dispatch(String message) {
+        if (message.isEmpty()) {
+            log.debug("Netconf device {} socketClosed = true DEVICE_UNREGISTERED", netconfDeviceInfo);
+            NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                    NetconfDeviceOutputEvent.Type.DEVICE_UNREGISTERED,
+                    null, null, Optional.of(-2), netconfDeviceInfo);
+            netconfDeviceEventListeners.forEach(listener -> listener.event(event));
+            return false;
+        }
+        String rootElement = NetconfMessageFramer.rootElement(message);
+        Optional<Integer> messageId = NetconfMessageFramer.messageId(message);
+        if (RPC_REPLY.equals(rootElement) || HELLO.equals(rootElement)) {
+            log.debug("Netconf device {} sessionDelegate.notify() DEVICE_REPLY {} {}",
+                      netconfDeviceInfo, messageId, message);
+            NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                    NetconfDeviceOutputEvent.Type.DEVICE_REPLY,
+                    null, message, messageId, netconfDeviceInfo);
+            sessionDelegate.notify(event);
+            netconfDeviceEventListeners.forEach(listener -> listener.event(event));
+        } else if (NOTIFICATION.equals(rootElement)) {
+            log.debug("Netconf device {} DEVICE_NOTIFICATION {} {} {}",
+                      netconfDeviceInfo, enableNotifications, messageId, message);
+            if (enableNotifications) {
+                log.debug("dispatching to {} listeners", netconfDeviceEventListeners.size());
+                NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                        NetconfDeviceOutputEvent.Type.DEVICE_NOTIFICATION,
+                        null, message, messageId, netconfDeviceInfo);
+                netconfDeviceEventListeners.forEach(listener -> listener.event(event));
+            }
+        } else {
+            log.debug("Error on reply from device {} {}", netconfDeviceInfo, message);
+        }
+        return true;
+    }
+
+    /**
+     * Notifies the listeners that the session with the device was closed.
+     */
+    void sessionClosed() {
+        NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
+                NetconfDeviceOutputEvent.Type.SESSION_CLOSED,
+                null, null, Optional.of(-1), netconfDeviceInfo);
+        netconfDeviceEventListeners.forEach(listener -> listener.event(event));
+    }
+
+    void addDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        if (!netconfDeviceEventListeners.contains(listener)) {
+            netconfDeviceEventListeners.add(listener);
+        }
+    }
+
+    void removeDeviceEventListener(NetconfDeviceOutputEventListener listener) {
+        netconfDeviceEventListeners.remove(listener);
+    }
+
+    void setEnableNotifications(boolean enableNotifications) {
+        this.enableNotifications = enableNotifications;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Splits the bytes received on a NETCONF session into messages.
+ * <p>
+ * Supports both the end-of-message framing of NETCONF 1.0, where messages are
+ * terminated by {@code ]]>]]>}, and the chunked framing of NETCONF 1.1
+ * (RFC 6242). The framing of each message is recognized from its first bytes.
+ * Bytes are scanned in place, so the framer does not need to inspect a message
+ * again when more of it arrives. Framers are not thread safe.
+ */
+public final class NetconfMessageFramer {
+
+    private static final byte[] END_OF_MESSAGE = "]]>]]>".getBytes(StandardCharsets.UTF_8);
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_RETAINED_CAPACITY = 65536;
+    private static final String MESSAGE_ID = "message-id=";
+    private static final String HELLO = "hello";
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    // start of the current message, end of the received bytes, and position
+    // from which to resume the search for the end of message delimiter
+    private int start;
+    private int end;
+    private int scan;
+    // payload of the chunks received so far for a chunked message
+    private ByteArrayOutputStream chunks;
+
+    /**
+     * Appends received bytes.
+     *
+     * @param bytes  array holding the received bytes
+     * @param offset offset of the received bytes
+     * @param length number of received bytes
+     */
+    public void append(byte[] bytes, int offset, int length) {
+        if (end + length > buffer.length) {
+            // reclaim the space of the messages already returned before growing
+            int pending = end - start;
+            byte[] target = pending + length > buffer.length
+                    ? new byte[Math.max(buffer.length * 2, pending + length)] : buffer;
+            System.arraycopy(buffer, start, target, 0, pending);
+            buffer = target;
+            scan -= start;
+            end = pending;
+            start = 0;
+        }
+        System.arraycopy(bytes, offset, buffer, end, length);
+        end += length;
+    }
+
+    /**
+     * Returns the next complete message received.
+     *
+     * @return message, or {@code null} if no message has been received in full
+     * @throws IllegalArgumentException if a chunked message is malformed
+     */
+    public String next() {
+        if (chunks == null) {
+            if (end - start < 2) {
+                // a leading new line may start a chunk
+                return end > start && buffer[start] != '\n' ? nextDelimited() : null;
+            } else if (buffer[start] == '\n' && buffer[start + 1] == '#') {
+                chunks = new ByteArrayOutputStream();
+            } else {
+                return nextDelimited();
+            }
+        }
+        return nextChunked();
+    }
+
+    private String nextDelimited() {
+        int last = end - END_OF_MESSAGE.length;
+        for (int i = Math.max(scan, start); i <= last; i++) {
+            if (buffer[i] == ']' && matchesEndOfMessage(i)) {
+                String message = new String(buffer, start, i - start, StandardCharsets.UTF_8);
+                consume(i + END_OF_MESSAGE.length);
+                return message;
+            }
+        }
+        scan = Math.max(start, last + 1);
+        return null;
+    }
+
+    private boolean matchesEndOfMessage(int position) {
+        for (int j = 1; j < END_OF_MESSAGE.length; j++) {
+            if (buffer[position + j] != END_OF_MESSAGE[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String nextChunked() {
+        while (true) {
+            // each chunk starts with LF HASH, followed by the size and LF, or by HASH LF at the end
+            if (end - start < 4) {
+                return null;
+            }
+            if (buffer[start] != '\n' || buffer[start + 1] != '#') {
+                throw new IllegalArgumentException("Malformed chunk header");
+            }
+            if (buffer[start + 2] == '#') {
+                if (buffer[start + 3] != '\n') {
+                    throw new IllegalArgumentException("Malformed end of chunks");
+                }
+                String message = new String(chunks.toByteArray(), StandardCharsets.UTF_8);
+                chunks = null;
+                consume(start + 4);
+                return message;
+            }
+            long size = 0;
+            int position = start + 2;
+            while (position < end && buffer[position] != '\n') {
+                byte digit = buffer[position++];
+                if (digit < '0' || digit > '9' || size > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Malformed chunk size");
+                }
+                size = size * 10 + digit - '0';
+            }
+            if (position == end) {
+                return null;
+            }
+            if (size == 0 || size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid chunk size " + size);
+            }
+            int data = position + 1;
+            if (end - data < size) {
+                return null;
+            }
+            chunks.write(buffer, data, (int) size);
+            consume(data + (int) size);
+        }
+    }
+
+    private void consume(int position) {
+        start = position;
+        scan = position;
+        if (start == end) {
+            start = 0;
+            end = 0;
+            scan = 0;
+            // release the space taken by a large message once it has been returned
+            if (buffer.length > MAX_RETAINED_CAPACITY) {
+                buffer = new byte[INITIAL_CAPACITY];
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the root element of a message, without namespace prefix.
+     *
+     * @param message NETCONF message
+     * @return root element name, or an empty string if there is none
+     */
+    public static String rootElement(String message) {
+        int open = rootStart(message);
+        if (open < 0) {
+            return "";
+        }
+        int nameEnd = open + 1;
+        while (nameEnd < message.length()
+                && !Character.isWhitespace(message.charAt(nameEnd))
+                && message.charAt(nameEnd) != '>' && message.charAt(nameEnd) != '/') {
+            nameEnd++;
+        }
+        String name = message.substring(open + 1, nameEnd);
+        return name.substring(name.indexOf(':') + 1);
+    }
+
+    /**
+     * Returns the message identifier from the start tag of the root element of
+     * a message.
+     *
+     * @param message NETCONF message
+     * @return message identifier; -1 for hello messages, or empty if there is none
+     */
+    public static Optional<Integer> messageId(String message) {
+        if (HELLO.equals(rootElement(message))) {
+            return Optional.of(-1);
+        }
+        int open = rootStart(message);
+        int close = open < 0 ? -1 : message.indexOf('>', open);
+        int attribute = close < 0 ? -1 : message.indexOf(MESSAGE_ID, open);
+        if (attribute < 0 || attribute > close) {
+            return Optional.empty();
+        }
+        int value = attribute + MESSAGE_ID.length();
+        char quote = message.charAt(value);
+        int valueEnd = message.indexOf(quote, value + 1);
+        if ((quote != '"' && quote != '\'') || valueEnd < 0 || valueEnd > close) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Integer.parseInt(message.substring(value + 1, valueEnd)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Returns the position of the start tag of the root element, skipping the
+    // XML declaration, processing instructions and comments.
+    private static int rootStart(String message) {
+        int position = 0;
+        while (true) {
+            int open = message.indexOf('<', position);
+            if (open < 0 || open + 1 >= message.length()) {
+                return -1;
+            }
+            char first = message.charAt(open + 1);
+            if (first == '?') {
+                position = message.indexOf("?>", open);
+            } else if (first == '!') {
+                position = message.indexOf('>', open);
+            } else {
+                return open;
+            }
+            if (position < 0) {
+                return -1;
+            }
+        }
+    }
+}
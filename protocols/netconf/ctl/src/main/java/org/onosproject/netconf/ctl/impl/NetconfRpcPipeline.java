@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import com.codahale.metrics.Timer;
+import com.google.common.base.Objects;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onosproject.netconf.DatastoreId;
+import org.onosproject.netconf.NetconfDeviceInfo;
+import org.onosproject.netconf.NetconfException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Sends the RPCs of a NETCONF session without waiting for the previous
+ * replies, keeping at most a configurable number of them awaiting a reply.
+ * <p>
+ * RPCs beyond that window are queued in order, and a single thread at a time
+ * sends them, so that they go on the wire in the order they were queued.
+ * Consecutive merge edits of the same datastore that are still queued are
+ * coalesced into a single edit-config RPC. The round trip of every RPC is
+ * recorded in a timer.
+ */
+final class NetconfRpcPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(NetconfRpcPipeline.class);
+    private static final String MERGE = "merge";
+    private static final int MAX_COALESCED_EDITS = 64;
+
+    /**
+     * Builds the edit-config RPC for a datastore.
+     */
+    interface EditConfigFormatter {
+        /**
+         * Returns the edit-config RPC for a datastore.
+         *
+         * @param target        datastore to edit
+         * @param mode          default operation, or null
+         * @param configuration configuration to set
+         * @return edit-config RPC
+         */
+        String format(DatastoreId target, String mode, String configuration);
+    }
+
+    private final NetconfDeviceInfo deviceInfo;
+    private final Function<String, CompletableFuture<String>> sender;
+    private final EditConfigFormatter editFormatter;
+    private final Timer latency = new Timer();
+
+    private final Deque<Rpc> queued = new ArrayDeque<>();
+    private int outstanding = 0;
+    // true while a thread is sending the queued RPCs
+    private boolean draining = false;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param deviceInfo    device the session is established with
+     * @param sender        sends an RPC, assigning its message-id, and returns
+     *                      the future of its reply
+     * @param editFormatter builds the edit-config RPCs
+     */
+    NetconfRpcPipeline(NetconfDeviceInfo deviceInfo,
+                       Function<String, CompletableFuture<String>> sender,
+                       EditConfigFormatter editFormatter) {
+        this.deviceInfo = deviceInfo;
+        this.sender = sender;
+        this.editFormatter = editFormatter;
+    }
+
+    /**
+     * Returns the timer of the round trips of the RPCs sent.
+     *
+     * @return RPC latency timer
+     */
+    Timer latency() {
+        return latency;
+    }
+
+    /**
+     * Queues an RPC to be sent.
+     *
+     * @param request RPC
+     * @return future that will be completed with the reply
+     */
+    CompletableFuture<String> submit(String request) {
+        Rpc rpc = new Rpc(request);
+        synchronized (this) {
+            queued.add(rpc);
+        }
+        drain();
+        return rpc.reply;
+    }
+
+    /**
+     * Queues an edit of a datastore, coalescing it with the previous one if
+     * that edit has not been sent yet.
+     *
+     * @param target        datastore to edit
+     * @param mode          default operation, or null
+     * @param configuration configuration to set
+     * @return future that will be completed with the reply
+     */
+    CompletableFuture<String> submitEdit(DatastoreId target, String mode, String configuration) {
+        Rpc rpc;
+        synchronized (this) {
+            Rpc last = queued.peekLast();
+            if (last != null && last.canCoalesce(target, mode)) {
+                last.configuration.append('\n').append(configuration);
+                last.edits++;
+                return last.reply;
+            }
+            rpc = new Rpc(target, mode, configuration);
+            queued.add(rpc);
+        }
+        drain();
+        return rpc.reply;
+    }
+
+    /**
+     * Queues an RPC to be sent and waits for its reply. The wait is bounded
+     * by the reply timeout of each window of RPCs ahead of this one, and of
+     * its own; the RPC is dropped if it is still queued when the wait ends.
+     *
+     * @param request RPC
+     * @return reply
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException   if the RPC failed
+     * @throws TimeoutException     if no reply came in time
+     */
+    String submitAndWait(String request)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Rpc rpc = new Rpc(request);
+        int windows;
+        synchronized (this) {
+            queued.add(rpc);
+            int window = NetconfControllerImpl.netconfMaxOutstandingRpcs;
+            windows = (outstanding + queued.size() + window - 1) / window;
+        }
+        drain();
+        try {
+            return rpc.reply.get((long) windows * NetconfControllerImpl.netconfReplyTimeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            rpc.reply.cancel(false);
+            throw e;
+        }
+    }
+
+    // Sends the queued RPCs the window allows; a thread that finds another
+    // one sending leaves the queue to it, which keeps the RPCs in order.
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        while (true) {
+            Rpc rpc;
+            synchronized (this) {
+                rpc = nextRpc();
+                if (rpc == null) {
+                    draining = false;
+                    return;
+                }
+                outstanding++;
+            }
+            send(rpc);
+        }
+    }
+
+    private Rpc nextRpc() {
+        while (outstanding < NetconfControllerImpl.netconfMaxOutstandingRpcs) {
+            Rpc rpc = queued.poll();
+            // skip the RPCs abandoned while queued
+            if (rpc == null || !rpc.reply.isDone()) {
+                return rpc;
+            }
+        }
+        return null;
+    }
+
+    private void send(Rpc rpc) {
+        String request = rpc.request(editFormatter);
+        if (rpc.edits > 1) {
+            log.debug("Coalesced {} edits of {} for device {}", rpc.edits, rpc.target, deviceInfo);
+        }
+        Timer.Context context = latency.time();
+        CompletableFuture<String> reply;
+        try {
+            reply = sender.apply(request);
+        } catch (RuntimeException e) {
+            reply = new CompletableFuture<>();
+            reply.completeExceptionally(e);
+        }
+        CompletableFuture<String> pending = reply;
+        ScheduledFuture<?> timeout = SharedScheduledExecutors.getSingleThreadExecutor().schedule(
+                () -> pending.completeExceptionally(new NetconfException(
+                        "No matching reply for request " + request)),
+                NetconfControllerImpl.netconfReplyTimeout, TimeUnit.SECONDS);
+        pending.whenComplete((result, error) -> {
+            timeout.cancel(false);
+            context.stop();
+            synchronized (this) {
+                outstanding--;
+            }
+            if (error != null) {
+                rpc.reply.completeExceptionally(error);
+            } else {
+                rpc.reply.complete(result);
+            }
+            drain();
+        });
+    }
+
+    // RPC waiting to be sent; edits keep their configuration so that
+    // following edits can be merged in until the RPC is sent.
+    private static final class Rpc {
+        private final String request;
+        private final DatastoreId target;
+        private final String mode;
+        private final StringBuilder configuration;
+        private int edits;
+        private final CompletableFuture<String> reply = new CompletableFuture<>();
+
+        private Rpc(String request) {
+            this.request = request;
+            this.target = null;
+            this.mode = null;
+            this.configuration = null;
+        }
+
+        private Rpc(DatastoreId target, String mode, String configuration) {
+            this.request = null;
+            this.target = target;
+            this.mode = mode;
+            this.configuration = new StringBuilder(configuration);
+            this.edits = 1;
+        }
+
+        private boolean canCoalesce(DatastoreId otherTarget, String otherMode) {
+            return configuration != null && edits < MAX_COALESCED_EDITS
+                    && target.equals(otherTarget) && Objects.equal(mode, otherMode)
+                    && (mode == null || MERGE.equals(mode));
+        }
+
+        private String request(EditConfigFormatter formatter) {
+            return configuration == null ? request : formatter.format(target, mode, configuration.toString());
+        }
+    }
+}
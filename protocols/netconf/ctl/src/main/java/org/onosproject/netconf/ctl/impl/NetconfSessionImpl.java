@@ -16,6 +16,7 @@
 
 package org.onosproject.netconf.ctl.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.Beta;
 import ch.ethz.ssh2.Connection;
 import ch.ethz.ssh2.Session;
@@ -119,6 +120,7 @@ public class NetconfSessionImpl implements NetconfSession {
     private final Set<String> deviceCapabilities = new LinkedHashSet<>();
     private NetconfStreamHandler streamHandler;
     private Map<Integer, CompletableFuture<String>> replies;
+    private final NetconfRpcPipeline pipeline;
     private List<String> errorReplies;
     private boolean subscriptionConnected = false;
     private String notificationFilterSchema = null;
@@ -136,6 +138,9 @@ public class NetconfSessionImpl implements NetconfSession {
         connectionActive = false;
         replies = new ConcurrentHashMap<>();
         errorReplies = new ArrayList<>();
+        pipeline = new NetconfRpcPipeline(deviceInfo,
+                                          request -> sendAsync(request, messageIdInteger.getAndIncrement()),
+                                          this::editConfigRpc);
         startConnection();
     }
 
@@ -373,18 +378,11 @@ public class NetconfSessionImpl implements NetconfSession {
 
     private String sendRequest(String request, boolean isHello) throws NetconfException {
         checkAndReestablish();
-        int messageId = -1;
-        if (!isHello) {
-            messageId = messageIdInteger.getAndIncrement();
-        }
-        request = formatRequestMessageId(request, messageId);
-        request = formatXmlHeader(request);
-        CompletableFuture<String> futureReply = request(request, messageId);
         int replyTimeout = NetconfControllerImpl.netconfReplyTimeout;
         String rp;
         try {
-            rp = futureReply.get(replyTimeout, TimeUnit.SECONDS);
-            replies.remove(messageId);
+            rp = isHello ? sendAsync(request, -1).get(replyTimeout, TimeUnit.SECONDS) :
+                    pipeline.submitAndWait(request);
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
             throw new NetconfException("No matching reply for request " + request, e);
         }
@@ -392,6 +390,28 @@ public class NetconfSessionImpl implements NetconfSession {
         return rp.trim();
     }
 
+    private CompletableFuture<String> sendAsync(String request, int messageId) {
+        request = formatRequestMessageId(request, messageId);
+        request = formatXmlHeader(request);
+        CompletableFuture<String> futureReply = request(request, messageId);
+        futureReply.whenComplete((reply, error) -> replies.remove(messageId));
+        return futureReply;
+    }
+
+    @Override
+    public CompletableFuture<String> rpc(String request) throws NetconfException {
+        if (!request.contains(ENDPATTERN)) {
+            request = request + NEW_LINE + ENDPATTERN;
+        }
+        checkAndReestablish();
+        return pipeline.submit(request).thenApply(String::trim);
+    }
+
+    @Override
+    public Optional<Timer> rpcLatency() {
+        return Optional.of(pipeline.latency());
+    }
+
     private String formatRequestMessageId(String request, int messageId) {
         if (request.contains(MESSAGE_ID_STRING)) {
             //FIXME if application provides his own counting of messages this fails that count
@@ -472,6 +492,20 @@ public class NetconfSessionImpl implements NetconfSession {
     @Override
     public String getConfig(DatastoreId netconfTargetConfig,
                             String configurationSchema) throws NetconfException {
+        String reply = sendRequest(getConfigRpc(netconfTargetConfig, configurationSchema));
+        return checkReply(reply) ? reply : "ERROR " + reply;
+    }
+
+    @Override
+    public CompletableFuture<String> getConfigAsync(DatastoreId netconfTargetConfig,
+                                                    String configurationSchema) throws NetconfException {
+        checkAndReestablish();
+        return pipeline.submit(getConfigRpc(netconfTargetConfig, configurationSchema))
+                .thenApply(String::trim)
+                .thenApply(reply -> checkReply(reply) ? reply : "ERROR " + reply);
+    }
+
+    private String getConfigRpc(DatastoreId netconfTargetConfig, String configurationSchema) {
         StringBuilder rpc = new StringBuilder(XML_HEADER);
         rpc.append("<rpc ");
         rpc.append(MESSAGE_ID_STRING);
@@ -492,8 +526,7 @@ public class NetconfSessionImpl implements NetconfSession {
         rpc.append("</get-config>\n");
         rpc.append("</rpc>\n");
         rpc.append(ENDPATTERN);
-        String reply = sendRequest(rpc.toString());
-        return checkReply(reply) ? reply : "ERROR " + reply;
+        return rpc.toString();
     }
 
     @Override
@@ -505,6 +538,20 @@ public class NetconfSessionImpl implements NetconfSession {
     @Override
     public boolean editConfig(DatastoreId netconfTargetConfig, String mode, String newConfiguration)
             throws NetconfException {
+        String rpc = editConfigRpc(netconfTargetConfig, mode, newConfiguration);
+        log.debug(rpc);
+        return checkReply(sendRequest(rpc));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> editConfigAsync(DatastoreId netconfTargetConfig, String mode,
+                                                      String newConfiguration) throws NetconfException {
+        checkAndReestablish();
+        return pipeline.submitEdit(netconfTargetConfig, mode, newConfiguration.trim())
+                .thenApply(this::checkReply);
+    }
+
+    private String editConfigRpc(DatastoreId netconfTargetConfig, String mode, String newConfiguration) {
         newConfiguration = newConfiguration.trim();
         StringBuilder rpc = new StringBuilder(XML_HEADER);
         rpc.append(RPC_OPEN);
@@ -529,9 +576,7 @@ public class NetconfSessionImpl implements NetconfSession {
         rpc.append(EDIT_CONFIG_CLOSE).append("\n");
         rpc.append(RPC_CLOSE);
         rpc.append(ENDPATTERN);
-        log.debug(rpc.toString());
-        String reply = sendRequest(rpc.toString());
-        return checkReply(reply);
+        return rpc.toString();
     }
 
     @Override
@@ -708,7 +753,7 @@ public class NetconfSessionImpl implements NetconfSession {
         streamHandler.removeDeviceEventListener(listener);
     }
 
-    private boolean checkReply(String reply) throws NetconfException {
+    private boolean checkReply(String reply) {
         if (reply != null) {
             if (!reply.contains("<rpc-error>")) {
                 log.debug("Device {} sent reply {}", deviceInfo, reply);
@@ -16,6 +16,7 @@
 
 package org.onosproject.netconf.ctl.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.Beta;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
@@ -26,6 +27,7 @@ import org.apache.sshd.client.future.ConnectFuture;
 import org.apache.sshd.client.future.OpenFuture;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.onlab.util.SharedExecutors;
 import org.onosproject.netconf.DatastoreId;
 import org.onosproject.netconf.NetconfDeviceInfo;
 import org.onosproject.netconf.NetconfDeviceOutputEvent;
@@ -58,6 +60,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -126,6 +129,7 @@ public class NetconfSessionMinaImpl implements NetconfSession {
     private final Set<String> deviceCapabilities = new LinkedHashSet<>();
     private NetconfStreamHandler streamHandler;
     private Map<Integer, CompletableFuture<String>> replies;
+    private final NetconfRpcPipeline pipeline;
     private List<String> errorReplies;
     private boolean subscriptionConnected = false;
     private String notificationFilterSchema = null;
@@ -136,15 +140,39 @@ public class NetconfSessionMinaImpl implements NetconfSession {
             new CopyOnWriteArrayList<>();
 
 
+    // SSH client of the controller, whose I/O threads all its sessions share;
+    // null if the session starts a client of its own
+    private final SshClient sharedClient;
+    private final Executor dispatchExecutor;
+
     private ClientChannel channel = null;
     private ClientSession session = null;
     private SshClient client = null;
 
 
     public NetconfSessionMinaImpl(NetconfDeviceInfo deviceInfo) throws NetconfException {
+        this(deviceInfo, null, SharedExecutors.getPoolThreadExecutor());
+    }
+
+    /**
+     * Creates a session over an SSH client and a dispatch executor owned by
+     * the caller, which stops them once all its sessions are closed.
+     *
+     * @param deviceInfo       device to connect to
+     * @param client           started SSH client
+     * @param dispatchExecutor executor the messages received are dispatched on
+     * @throws NetconfException if the session cannot be established
+     */
+    public NetconfSessionMinaImpl(NetconfDeviceInfo deviceInfo, SshClient client,
+                                  Executor dispatchExecutor) throws NetconfException {
         this.deviceInfo = deviceInfo;
+        this.sharedClient = client;
+        this.dispatchExecutor = dispatchExecutor;
         replies = new ConcurrentHashMap<>();
         errorReplies = new ArrayList<>();
+        pipeline = new NetconfRpcPipeline(deviceInfo,
+                                          request -> sendAsync(request, messageIdInteger.getAndIncrement()),
+                                          this::editConfigRpc);
         startConnection();
     }
 
@@ -157,9 +185,15 @@ public class NetconfSessionMinaImpl implements NetconfSession {
     }
 
     private void startClient() throws IOException {
-        client = SshClient.setUpDefaultClient();
-        client.start();
-        client.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        if (sharedClient == null) {
+            client = SshClient.setUpDefaultClient();
+            client.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+            client.start();
+        } else if (sharedClient.isClosed()) {
+            throw new NetconfException("SSH client is stopped, cannot connect to device " + deviceInfo);
+        } else {
+            client = sharedClient;
+        }
         startSession();
     }
 
@@ -217,12 +251,13 @@ public class NetconfSessionMinaImpl implements NetconfSession {
 
     private void openChannel() throws IOException {
         channel = session.createSubsystemChannel("netconf");
+        channel.setStreaming(ClientChannel.Streaming.Async);
         OpenFuture channelFuture = channel.open();
         if (channelFuture.await(NetconfControllerImpl.netconfConnectTimeout, TimeUnit.SECONDS)) {
             if (channelFuture.isOpened()) {
-                streamHandler = new NetconfStreamThread(channel.getInvertedOut(), channel.getInvertedIn(),
-                                                        channel.getInvertedErr(), deviceInfo,
-                                                        new NetconfSessionDelegateImpl(), replies);
+                streamHandler = new NetconfAsyncStreamHandler(channel, deviceInfo,
+                                                              new NetconfSessionDelegateImpl(), replies,
+                                                              dispatchExecutor);
             } else {
                 throw new NetconfException("Failed to open channel with device " +
                                                    deviceInfo);
@@ -252,7 +287,7 @@ public class NetconfSessionMinaImpl implements NetconfSession {
         if (openNewSession) {
             log.info("Creating notification session to {} with filter {}",
                      deviceInfo, filterSchema);
-            NetconfSession child = new NotificationSession(deviceInfo);
+            NetconfSession child = new NotificationSession(deviceInfo, sharedClient, dispatchExecutor);
 
             child.addDeviceOutputListener(new NotificationForwarder());
 
@@ -409,18 +444,11 @@ public class NetconfSessionMinaImpl implements NetconfSession {
 
     private String sendRequest(String request, boolean isHello) throws NetconfException {
         checkAndReestablish();
-        int messageId = -1;
-        if (!isHello) {
-            messageId = messageIdInteger.getAndIncrement();
-        }
-        request = formatRequestMessageId(request, messageId);
-        request = formatXmlHeader(request);
-        CompletableFuture<String> futureReply = request(request, messageId);
         int replyTimeout = NetconfControllerImpl.netconfReplyTimeout;
         String rp;
         try {
-            rp = futureReply.get(replyTimeout, TimeUnit.SECONDS);
-            replies.remove(messageId);
+            rp = isHello ? sendAsync(request, -1).get(replyTimeout, TimeUnit.SECONDS) :
+                    pipeline.submitAndWait(request);
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
             throw new NetconfException("No matching reply for request " + request, e);
         }
@@ -428,6 +456,28 @@ public class NetconfSessionMinaImpl implements NetconfSession {
         return rp.trim();
     }
 
+    private CompletableFuture<String> sendAsync(String request, int messageId) {
+        request = formatRequestMessageId(request, messageId);
+        request = formatXmlHeader(request);
+        CompletableFuture<String> futureReply = request(request, messageId);
+        futureReply.whenComplete((reply, error) -> replies.remove(messageId));
+        return futureReply;
+    }
+
+    @Override
+    public CompletableFuture<String> rpc(String request) throws NetconfException {
+        if (!request.contains(ENDPATTERN)) {
+            request = request + NEW_LINE + ENDPATTERN;
+        }
+        checkAndReestablish();
+        return pipeline.submit(request).thenApply(String::trim);
+    }
+
+    @Override
+    public Optional<Timer> rpcLatency() {
+        return Optional.of(pipeline.latency());
+    }
+
     private String formatRequestMessageId(String request, int messageId) {
         if (request.contains(MESSAGE_ID_STRING)) {
             //FIXME if application provides his own counting of messages this fails that count
@@ -508,6 +558,20 @@ public class NetconfSessionMinaImpl implements NetconfSession {
     @Override
     public String getConfig(DatastoreId netconfTargetConfig,
                             String configurationSchema) throws NetconfException {
+        String reply = sendRequest(getConfigRpc(netconfTargetConfig, configurationSchema));
+        return checkReply(reply) ? reply : "ERROR " + reply;
+    }
+
+    @Override
+    public CompletableFuture<String> getConfigAsync(DatastoreId netconfTargetConfig,
+                                                    String configurationSchema) throws NetconfException {
+        checkAndReestablish();
+        return pipeline.submit(getConfigRpc(netconfTargetConfig, configurationSchema))
+                .thenApply(String::trim)
+                .thenApply(reply -> checkReply(reply) ? reply : "ERROR " + reply);
+    }
+
+    private String getConfigRpc(DatastoreId netconfTargetConfig, String configurationSchema) {
         StringBuilder rpc = new StringBuilder(XML_HEADER);
         rpc.append("<rpc ");
         rpc.append(MESSAGE_ID_STRING);
@@ -528,8 +592,7 @@ public class NetconfSessionMinaImpl implements NetconfSession {
         rpc.append("</get-config>\n");
         rpc.append("</rpc>\n");
         rpc.append(ENDPATTERN);
-        String reply = sendRequest(rpc.toString());
-        return checkReply(reply) ? reply : "ERROR " + reply;
+        return rpc.toString();
     }
 
     @Override
@@ -543,7 +606,20 @@ public class NetconfSessionMinaImpl implements NetconfSession {
                               String mode,
                               String newConfiguration)
             throws NetconfException {
+        String rpc = editConfigRpc(netconfTargetConfig, mode, newConfiguration);
+        log.debug(rpc);
+        return checkReply(sendRequest(rpc));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> editConfigAsync(DatastoreId netconfTargetConfig, String mode,
+                                                      String newConfiguration) throws NetconfException {
+        checkAndReestablish();
+        return pipeline.submitEdit(netconfTargetConfig, mode, newConfiguration.trim())
+                .thenApply(this::checkReply);
+    }
 
+    private String editConfigRpc(DatastoreId netconfTargetConfig, String mode, String newConfiguration) {
         newConfiguration = newConfiguration.trim();
         StringBuilder rpc = new StringBuilder(XML_HEADER);
         rpc.append(RPC_OPEN);
@@ -568,9 +644,7 @@ public class NetconfSessionMinaImpl implements NetconfSession {
         rpc.append(EDIT_CONFIG_CLOSE).append("\n");
         rpc.append(RPC_CLOSE);
         rpc.append(ENDPATTERN);
-        log.debug(rpc.toString());
-        String reply = sendRequest(rpc.toString());
-        return checkReply(reply);
+        return rpc.toString();
     }
 
     @Override
@@ -747,7 +821,7 @@ public class NetconfSessionMinaImpl implements NetconfSession {
         streamHandler.removeDeviceEventListener(listener);
     }
 
-    private boolean checkReply(String reply) throws NetconfException {
+    private boolean checkReply(String reply) {
         if (reply != null) {
             if (!reply.contains("<rpc-error>")) {
                 log.debug("Device {} sent reply {}", deviceInfo, reply);
@@ -767,9 +841,10 @@ public class NetconfSessionMinaImpl implements NetconfSession {
 
         private String notificationFilter;
 
-        NotificationSession(NetconfDeviceInfo deviceInfo)
+        NotificationSession(NetconfDeviceInfo deviceInfo, SshClient client,
+                            Executor dispatchExecutor)
                 throws NetconfException {
-            super(deviceInfo);
+            super(deviceInfo, client, dispatchExecutor);
         }
 
         @Override
@@ -837,9 +912,31 @@ public class NetconfSessionMinaImpl implements NetconfSession {
 
     public static class MinaSshNetconfSessionFactory implements NetconfSessionFactory {
 
+        private final SshClient client;
+        private final Executor dispatchExecutor;
+
+        /**
+         * Creates a factory of sessions starting an SSH client each.
+         */
+        public MinaSshNetconfSessionFactory() {
+            this(null, SharedExecutors.getPoolThreadExecutor());
+        }
+
+        /**
+         * Creates a factory of sessions sharing an SSH client and a dispatch
+         * executor owned by the caller.
+         *
+         * @param client           started SSH client
+         * @param dispatchExecutor executor the messages received are dispatched on
+         */
+        public MinaSshNetconfSessionFactory(SshClient client, Executor dispatchExecutor) {
+            this.client = client;
+            this.dispatchExecutor = dispatchExecutor;
+        }
+
         @Override
         public NetconfSession createNetconfSession(NetconfDeviceInfo netconfDeviceInfo) throws NetconfException {
-            return new NetconfSessionMinaImpl(netconfDeviceInfo);
+            return new NetconfSessionMinaImpl(netconfDeviceInfo, client, dispatchExecutor);
         }
     }
 }
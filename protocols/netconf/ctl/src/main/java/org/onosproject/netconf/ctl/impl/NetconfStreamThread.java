@@ -16,27 +16,19 @@
 
 package org.onosproject.netconf.ctl.impl;
 
-import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import org.onosproject.netconf.NetconfDeviceInfo;
-import org.onosproject.netconf.NetconfDeviceOutputEvent;
 import org.onosproject.netconf.NetconfDeviceOutputEventListener;
 import org.onosproject.netconf.NetconfException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Thread that gets spawned each time a session is established and handles all the input
@@ -47,23 +39,14 @@ public class NetconfStreamThread extends Thread implements NetconfStreamHandler
 
     private static final Logger log = LoggerFactory
             .getLogger(NetconfStreamThread.class);
-    private static final String HELLO = "<hello";
-    private static final String END_PATTERN = "]]>]]>";
-    private static final String RPC_REPLY = "rpc-reply";
-    private static final String RPC_ERROR = "rpc-error";
-    private static final String NOTIFICATION_LABEL = "<notification";
-    private static final String MESSAGE_ID = "message-id=";
-    private static final Pattern MSGID_PATTERN = Pattern.compile(MESSAGE_ID + "\"(\\d+)\"");
+    private static final int READ_BUFFER_SIZE = 8192;
 
     private PrintWriter outputStream;
     private final InputStream err;
     private final InputStream in;
     private NetconfDeviceInfo netconfDeviceInfo;
-    private NetconfSessionDelegate sessionDelegate;
-    private NetconfMessageState state;
-    private List<NetconfDeviceOutputEventListener> netconfDeviceEventListeners
-            = Lists.newCopyOnWriteArrayList();
-    private boolean enableNotifications = true;
+    private final NetconfMessageDispatcher dispatcher;
+    private final NetconfMessageFramer framer = new NetconfMessageFramer();
     private Map<Integer, CompletableFuture<String>> replies;
 
     public NetconfStreamThread(final InputStream in, final OutputStream out,
@@ -74,8 +57,7 @@ public class NetconfStreamThread extends Thread implements NetconfStreamHandler
         this.err = err;
         outputStream = new PrintWriter(out);
         netconfDeviceInfo = deviceInfo;
-        state = NetconfMessageState.NO_MATCHING_PATTERN;
-        sessionDelegate = delegate;
+        dispatcher = new NetconfMessageDispatcher(deviceInfo, delegate);
         this.replies = replies;
         log.debug("Stream thread for device {} session started", deviceInfo);
         start();
@@ -175,106 +157,53 @@ public class NetconfStreamThread extends Thread implements NetconfStreamHandler
 
     @Override
     public void run() {
-        BufferedReader bufferReader = new BufferedReader(new InputStreamReader(in));
-            try {
-                boolean socketClosed = false;
-                StringBuilder deviceReplyBuilder = new StringBuilder();
-                while (!socketClosed) {
-                    int cInt = bufferReader.read();
-                    if (cInt == -1) {
-                        log.debug("Netconf device {}  sent error char in session," +
-                                          " will need to be reopend", netconfDeviceInfo);
-                        NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
-                                NetconfDeviceOutputEvent.Type.SESSION_CLOSED,
-                                null, null, Optional.of(-1), netconfDeviceInfo);
-                        netconfDeviceEventListeners.forEach(
-                                listener -> listener.event(event));
-                        socketClosed = true;
-                        log.debug("Netconf device {} ERROR cInt == -1 socketClosed = true", netconfDeviceInfo);
-                    }
-                    char c = (char) cInt;
-                    state = state.evaluateChar(c);
-                    deviceReplyBuilder.append(c);
-                    if (state == NetconfMessageState.END_PATTERN) {
-                        String deviceReply = deviceReplyBuilder.toString();
-                        if (deviceReply.equals(END_PATTERN)) {
-                            socketClosed = true;
-                            log.debug("Netconf device {} socketClosed = true DEVICE_UNREGISTERED {}",
-                                     netconfDeviceInfo, deviceReply);
-                            NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
-                                    NetconfDeviceOutputEvent.Type.DEVICE_UNREGISTERED,
-                                    null, null, Optional.of(-2), netconfDeviceInfo);
-                            netconfDeviceEventListeners.forEach(
-                                    listener -> listener.event(event));
-                            this.interrupt();
-                        } else {
-                            deviceReply = deviceReply.replace(END_PATTERN, "");
-                            if (deviceReply.contains(RPC_REPLY) ||
-                                    deviceReply.contains(RPC_ERROR) ||
-                                    deviceReply.contains(HELLO)) {
-                                log.debug("Netconf device {} sessionDelegate.notify() DEVICE_REPLY {} {}",
-                                    netconfDeviceInfo, getMsgId(deviceReply), deviceReply);
-                                NetconfDeviceOutputEvent event = new NetconfDeviceOutputEvent(
-                                        NetconfDeviceOutputEvent.Type.DEVICE_REPLY,
-                                        null, deviceReply, getMsgId(deviceReply), netconfDeviceInfo);
-                                sessionDelegate.notify(event);
-                                netconfDeviceEventListeners.forEach(
-                                        listener -> listener.event(event));
-                            } else if (deviceReply.contains(NOTIFICATION_LABEL)) {
-                                log.debug("Netconf device {} DEVICE_NOTIFICATION {} {} {}",
-                                         netconfDeviceInfo, enableNotifications,
-                                         getMsgId(deviceReply), deviceReply);
-                                if (enableNotifications) {
-                                    log.debug("dispatching to {} listeners", netconfDeviceEventListeners.size());
-                                    final String finalDeviceReply = deviceReply;
-                                    netconfDeviceEventListeners.forEach(
-                                            listener -> listener.event(new NetconfDeviceOutputEvent(
-                                                    NetconfDeviceOutputEvent.Type.DEVICE_NOTIFICATION,
-                                                    null, finalDeviceReply, getMsgId(finalDeviceReply),
-                                                    netconfDeviceInfo)));
-                                }
-                            } else {
-                                log.debug("Error on reply from device {} {}", netconfDeviceInfo, deviceReply);
-                            }
-                            deviceReplyBuilder.setLength(0);
-                        }
+        byte[] bytes = new byte[READ_BUFFER_SIZE];
+        try {
+            boolean socketClosed = false;
+            while (!socketClosed) {
+                int read = in.read(bytes);
+                if (read == -1) {
+                    log.debug("Netconf device {}  sent error char in session," +
+                                      " will need to be reopend", netconfDeviceInfo);
+                    dispatcher.sessionClosed();
+                    socketClosed = true;
+                    log.debug("Netconf device {} ERROR cInt == -1 socketClosed = true", netconfDeviceInfo);
+                } else {
+                    framer.append(bytes, 0, read);
+                    String deviceReply = framer.next();
+                    while (deviceReply != null && !socketClosed) {
+                        socketClosed = !dispatcher.dispatch(deviceReply);
+                        deviceReply = framer.next();
                     }
                 }
-            } catch (IOException e) {
-                log.warn("Error in reading from the session for device {} ", netconfDeviceInfo, e);
-                throw new RuntimeException(new NetconfException("Error in reading from the session for device {}" +
-                                                                        netconfDeviceInfo, e));
-                //TODO should we send a socket closed message to listeners ?
             }
+        } catch (IllegalArgumentException e) {
+            log.warn("Malformed message from device {}, closing the session", netconfDeviceInfo, e);
+            dispatcher.sessionClosed();
+        } catch (IOException e) {
+            log.warn("Error in reading from the session for device {} ", netconfDeviceInfo, e);
+            throw new RuntimeException(new NetconfException("Error in reading from the session for device {}" +
+                                                                    netconfDeviceInfo, e));
+            //TODO should we send a socket closed message to listeners ?
+        }
     }
 
     protected static Optional<Integer> getMsgId(String reply) {
-        Matcher matcher = MSGID_PATTERN.matcher(reply);
-        if (matcher.find()) {
-            Integer messageId = Integer.parseInt(matcher.group(1));
-            Preconditions.checkNotNull(messageId, "Error in retrieving the message id");
-            return Optional.of(messageId);
-        }
-        if (reply.contains(HELLO)) {
-            return Optional.of(-1);
-        }
-        return Optional.empty();
+        return NetconfMessageFramer.messageId(reply);
     }
 
     @Override
     public void addDeviceEventListener(NetconfDeviceOutputEventListener listener) {
-        if (!netconfDeviceEventListeners.contains(listener)) {
-            netconfDeviceEventListeners.add(listener);
-        }
+        dispatcher.addDeviceEventListener(listener);
     }
 
     @Override
     public void removeDeviceEventListener(NetconfDeviceOutputEventListener listener) {
-        netconfDeviceEventListeners.remove(listener);
+        dispatcher.removeDeviceEventListener(listener);
     }
 
     @Override
     public void setEnableNotifications(boolean enableNotifications) {
-        this.enableNotifications = enableNotifications;
+        dispatcher.setEnableNotifications(enableNotifications);
     }
 }
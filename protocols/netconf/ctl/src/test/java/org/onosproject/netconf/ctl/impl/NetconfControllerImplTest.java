@@ -15,6 +15,7 @@
  */
 package org.onosproject.netconf.ctl.impl;
 
+import org.apache.sshd.client.SshClient;
 import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Before;
@@ -43,6 +44,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -148,6 +150,28 @@ public class NetconfControllerImplTest {
                      5, ctrl.netconfReplyTimeout);
     }
 
+    /**
+     * Test that the SSH client and the dispatch executor shared by the
+     * sessions are stopped with the controller.
+     */
+    @Test
+    public void testDeactivateStopsSharedResources() throws Exception {
+        ctrl.activate(null);
+        SshClient client = (SshClient) field("sshClient").get(ctrl);
+        ExecutorService executor = (ExecutorService) field("dispatchExecutor").get(ctrl);
+        assertFalse("SSH client should be started", client.isClosed());
+
+        ctrl.deactivate();
+        assertTrue("SSH client should be stopped", client.isClosed());
+        assertTrue("Dispatch executor should be shut down", executor.isShutdown());
+    }
+
+    private Field field(String name) throws NoSuchFieldException {
+        Field field = ctrl.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
     /**
      * Test modification of component configuration.
      */
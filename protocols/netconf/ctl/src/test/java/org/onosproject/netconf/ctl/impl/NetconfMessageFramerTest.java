@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the framing of NETCONF messages.
+ */
+public class NetconfMessageFramerTest {
+
+    private static final String REPLY =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<rpc-reply message-id=\"7\" xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"><ok/></rpc-reply>";
+    private static final String NOTIFICATION =
+            "<notification xmlns=\"urn:ietf:params:xml:ns:netconf:notification:1.0\">" +
+            "<eventTime>2017-01-01T00:00:00Z</eventTime></notification>";
+
+    private NetconfMessageFramer framer;
+
+    @Before
+    public void setUp() {
+        framer = new NetconfMessageFramer();
+    }
+
+    private void append(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        framer.append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Tests messages terminated by the end of message delimiter.
+     */
+    @Test
+    public void testEndOfMessage() {
+        append(REPLY + "]]>]]>" + NOTIFICATION + "]]>]]>");
+        assertEquals(REPLY, framer.next());
+        assertEquals(NOTIFICATION, framer.next());
+        assertNull(framer.next());
+    }
+
+    /**
+     * Tests a message received one byte at a time, with the delimiter split
+     * across reads.
+     */
+    @Test
+    public void testSplitEndOfMessage() {
+        String received = REPLY + "]]>]]>";
+        for (int i = 0; i < received.length() - 1; i++) {
+            append(received.substring(i, i + 1));
+            assertNull(framer.next());
+        }
+        append(received.substring(received.length() - 1));
+        assertEquals(REPLY, framer.next());
+        assertNull(framer.next());
+    }
+
+    /**
+     * Tests messages larger than the initial buffer, interleaved with
+     * partial reads.
+     */
+    @Test
+    public void testLargeMessages() {
+        StringBuilder builder = new StringBuilder("<rpc-reply message-id=\"1\"><data>");
+        for (int i = 0; i < 20000; i++) {
+            builder.append("<x>").append(i).append("</x>");
+        }
+        String large = builder.append("</data></rpc-reply>").toString();
+        String received = large + "]]>]]>" + large + "]]>]]>" + REPLY;
+        for (int i = 0; i < received.length(); i += 1000) {
+            append(received.substring(i, Math.min(received.length(), i + 1000)));
+        }
+        assertEquals(large, framer.next());
+        assertEquals(large, framer.next());
+        assertNull(framer.next());
+        append("]]>]]>");
+        assertEquals(REPLY, framer.next());
+    }
+
+    /**
+     * Tests messages in chunked framing, split across reads.
+     */
+    @Test
+    public void testChunked() {
+        append("\n#4\n<rpc");
+        assertNull(framer.next());
+        append("\n#18\n-reply message-id=");
+        assertNull(framer.next());
+        append("\n#5\n\"9\"/>");
+        assertNull(framer.next());
+        append("\n##");
+        assertNull(framer.next());
+        append("\n\n#6\n<ok/>\n\n##\n");
+        assertEquals("<rpc-reply message-id=\"9\"/>", framer.next());
+        assertEquals("<ok/>\n", framer.next());
+        assertNull(framer.next());
+    }
+
+    /**
+     * Tests that malformed chunks are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedChunk() {
+        append("\n#4x\n<rpc");
+        framer.next();
+    }
+
+    /**
+     * Tests the root element and message identifier read from the messages.
+     */
+    @Test
+    public void testHeader() {
+        assertEquals("rpc-reply", NetconfMessageFramer.rootElement(REPLY));
+        assertEquals(Optional.of(7), NetconfMessageFramer.messageId(REPLY));
+        assertEquals("rpc-reply", NetconfMessageFramer.rootElement("<!-- reply --><nc:rpc-reply message-id='12'/>"));
+        assertEquals(Optional.of(12), NetconfMessageFramer.messageId("<nc:rpc-reply message-id='12'/>"));
+        assertEquals(Optional.of(-1), NetconfMessageFramer.messageId("\n<hello><session-id>3</session-id></hello>"));
+        assertEquals("notification", NetconfMessageFramer.rootElement(NOTIFICATION));
+        assertEquals(Optional.empty(), NetconfMessageFramer.messageId(NOTIFICATION));
+        assertEquals(Optional.empty(),
+                     NetconfMessageFramer.messageId("<rpc-reply><data message-id=\"3\"/></rpc-reply>"));
+        assertEquals("", NetconfMessageFramer.rootElement("no markup"));
+    }
+}
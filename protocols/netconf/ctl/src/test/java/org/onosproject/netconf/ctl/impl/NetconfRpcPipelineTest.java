@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.netconf.ctl.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.netconf.DatastoreId;
+import org.onosproject.netconf.NetconfDeviceInfo;
+import org.onosproject.netconf.NetconfException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the pipelining of the RPCs of a NETCONF session.
+ */
+public class NetconfRpcPipelineTest {
+
+    private static final int WINDOW = 2;
+    private static final NetconfDeviceInfo DEVICE_INFO =
+            new NetconfDeviceInfo("device", "001", IpAddress.valueOf("127.0.0.1"), 830);
+
+    private final List<String> sent = Collections.synchronizedList(Lists.newArrayList());
+    private final List<CompletableFuture<String>> replies = Collections.synchronizedList(Lists.newArrayList());
+    private int savedWindow;
+    private int savedTimeout;
+    private NetconfRpcPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        savedWindow = NetconfControllerImpl.netconfMaxOutstandingRpcs;
+        savedTimeout = NetconfControllerImpl.netconfReplyTimeout;
+        NetconfControllerImpl.netconfMaxOutstandingRpcs = WINDOW;
+        pipeline = pipeline(request -> {
+            CompletableFuture<String> reply = new CompletableFuture<>();
+            sent.add(request);
+            replies.add(reply);
+            return reply;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        NetconfControllerImpl.netconfMaxOutstandingRpcs = savedWindow;
+        NetconfControllerImpl.netconfReplyTimeout = savedTimeout;
+    }
+
+    private static NetconfRpcPipeline pipeline(Function<String, CompletableFuture<String>> sender) {
+        return new NetconfRpcPipeline(DEVICE_INFO, sender,
+                                      (target, mode, configuration) -> target + "/" + mode + ":" + configuration);
+    }
+
+    /**
+     * Tests that at most a window of RPCs is outstanding, and that the
+     * queued ones are sent in order as replies come in, in any order.
+     */
+    @Test
+    public void testWindow() throws Exception {
+        List<CompletableFuture<String>> futures = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            futures.add(pipeline.submit("rpc" + i));
+        }
+        assertThat(sent, contains("rpc0", "rpc1"));
+
+        replies.get(1).complete("reply1");
+        assertThat(futures.get(1).get(), is("reply1"));
+        assertFalse(futures.get(0).isDone());
+        assertThat(sent, contains("rpc0", "rpc1", "rpc2"));
+
+        replies.get(0).complete("reply0");
+        replies.get(2).complete("reply2");
+        assertThat(sent, contains("rpc0", "rpc1", "rpc2", "rpc3", "rpc4"));
+        assertThat(futures.get(0).get(), is("reply0"));
+        assertThat(futures.get(2).get(), is("reply2"));
+        assertThat(pipeline.latency().getCount(), is(3L));
+    }
+
+    /**
+     * Tests that RPCs submitted concurrently, with replies completed by
+     * other threads, are sent one at a time and each thread's in the order
+     * it submitted them.
+     */
+    @Test
+    public void testInOrderSending() throws Exception {
+        AtomicBoolean sending = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        ExecutorService repliers = Executors.newFixedThreadPool(4);
+        NetconfRpcPipeline concurrent = pipeline(request -> {
+            if (!sending.compareAndSet(false, true)) {
+                overlapped.set(true);
+            }
+            sent.add(request);
+            sending.set(false);
+            return CompletableFuture.supplyAsync(() -> request, repliers);
+        });
+
+        int threads = 4;
+        int rpcs = 500;
+        ExecutorService submitters = Executors.newFixedThreadPool(threads);
+        List<CompletableFuture<String>> futures = Collections.synchronizedList(Lists.newArrayList());
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            submitters.execute(() -> {
+                for (int i = 0; i < rpcs; i++) {
+                    futures.add(concurrent.submit(thread + ":" + i));
+                }
+            });
+        }
+        submitters.shutdown();
+        assertTrue(submitters.awaitTermination(10, TimeUnit.SECONDS));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        repliers.shutdown();
+
+        assertFalse(overlapped.get());
+        assertThat(sent.size(), is(threads * rpcs));
+        int[] next = new int[threads];
+        for (String request : sent) {
+            String[] ids = request.split(":");
+            int thread = Integer.parseInt(ids[0]);
+            assertThat(Integer.parseInt(ids[1]), is(next[thread]++));
+        }
+    }
+
+    /**
+     * Tests that only queued merge edits of the same datastore are
+     * coalesced, and at most a given number of them.
+     */
+    @Test
+    public void testCoalescing() {
+        pipeline.submit("rpc0");
+        pipeline.submit("rpc1");
+
+        CompletableFuture<String> merged = pipeline.submitEdit(DatastoreId.RUNNING, "merge", "a");
+        assertTrue(merged == pipeline.submitEdit(DatastoreId.RUNNING, "merge", "b"));
+        CompletableFuture<String> defaultMode = pipeline.submitEdit(DatastoreId.CANDIDATE, null, "c");
+        assertFalse(merged == defaultMode);
+        assertTrue(defaultMode == pipeline.submitEdit(DatastoreId.CANDIDATE, null, "c2"));
+        CompletableFuture<String> replace = pipeline.submitEdit(DatastoreId.CANDIDATE, "replace", "d");
+        assertFalse(replace == pipeline.submitEdit(DatastoreId.CANDIDATE, "replace", "e"));
+
+        CompletableFuture<String> capped = pipeline.submitEdit(DatastoreId.STARTUP, "merge", "0");
+        for (int i = 1; i < 64; i++) {
+            assertTrue(capped == pipeline.submitEdit(DatastoreId.STARTUP, "merge", String.valueOf(i)));
+        }
+        assertFalse(capped == pipeline.submitEdit(DatastoreId.STARTUP, "merge", "64"));
+
+        for (int i = 0; i < 7; i++) {
+            replies.get(i).complete("ok");
+        }
+        assertThat(sent.subList(2, 6), contains("running/merge:a\nb", "candidate/null:c\nc2",
+                                                "candidate/replace:d", "candidate/replace:e"));
+        assertThat(sent.get(6).split("\n").length, is(64));
+        assertThat(sent.get(7), is("startup/merge:64"));
+    }
+
+    /**
+     * Tests that an RPC without a reply times out and frees its slot.
+     */
+    @Test
+    public void testTimeout() throws Exception {
+        NetconfControllerImpl.netconfReplyTimeout = 1;
+        CompletableFuture<String> first = pipeline.submit("rpc0");
+        pipeline.submit("rpc1");
+        pipeline.submit("rpc2");
+        assertThat(sent, contains("rpc0", "rpc1"));
+
+        try {
+            first.get(5, TimeUnit.SECONDS);
+            fail("RPC without a reply did not time out");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(NetconfException.class));
+        }
+        assertThat(sent, contains("rpc0", "rpc1", "rpc2"));
+    }
+
+    /**
+     * Tests that a synchronous RPC still queued when its wait ends is
+     * dropped rather than sent.
+     */
+    @Test
+    public void testSynchronousTimeout() throws Exception {
+        NetconfControllerImpl.netconfMaxOutstandingRpcs = 1;
+        NetconfControllerImpl.netconfReplyTimeout = 60;
+        pipeline.submit("rpc0");
+        // one window ahead and its own: waits for 2 seconds
+        NetconfControllerImpl.netconfReplyTimeout = 1;
+        try {
+            pipeline.submitAndWait("rpc1");
+            fail("Queued RPC did not time out");
+        } catch (TimeoutException e) {
+            assertThat(sent, contains("rpc0"));
+        }
+        CompletableFuture<String> next = pipeline.submit("rpc2");
+        replies.get(0).complete("reply0");
+        assertThat(sent, contains("rpc0", "rpc2"));
+        replies.get(1).complete("reply2");
+        assertThat(next.get(), is("reply2"));
+    }
+
+    /**
+     * Tests that an exception of the sender fails the RPC and frees its slot.
+     */
+    @Test
+    public void testSenderException() throws Exception {
+        NetconfRpcPipeline failing = pipeline(request -> {
+            sent.add(request);
+            if (request.equals("rpc0")) {
+                throw new IllegalStateException("session closed");
+            }
+            return CompletableFuture.completedFuture("reply");
+        });
+        NetconfControllerImpl.netconfMaxOutstandingRpcs = 1;
+        CompletableFuture<String> first = failing.submit("rpc0");
+        CompletableFuture<String> second = failing.submit("rpc1");
+
+        assertTrue(first.isCompletedExceptionally());
+        try {
+            first.get();
+            fail("RPC did not fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+        assertThat(second.get(), is("reply"));
+        assertThat(sent, contains("rpc0", "rpc1"));
+    }
+}
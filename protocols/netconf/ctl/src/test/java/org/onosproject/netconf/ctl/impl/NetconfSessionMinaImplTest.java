@@ -27,6 +27,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.onlab.junit.TestTools;
 import org.onlab.packet.Ip4Address;
+import org.onosproject.netconf.DatastoreId;
 import org.onosproject.netconf.NetconfDeviceInfo;
 import org.onosproject.netconf.NetconfException;
 import org.onosproject.netconf.NetconfSession;
@@ -35,14 +36,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -228,6 +232,27 @@ public class NetconfSessionMinaImplTest {
         log.info("Finishing get-config async");
     }
 
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        log.info("Starting pipelined edit-config and get-config");
+        long sent = session1.rpcLatency().get().getCount();
+        List<CompletableFuture<Boolean>> edits = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            edits.add(session1.editConfigAsync(DatastoreId.RUNNING, null, SAMPLE_REQUEST));
+        }
+        CompletableFuture<String> config = session1.getConfigAsync(DatastoreId.RUNNING, SAMPLE_REQUEST);
+        for (CompletableFuture<Boolean> edit : edits) {
+            assertTrue("NETCONF edit-config command failed", edit.get(5, TimeUnit.SECONDS));
+        }
+        assertTrue("NETCONF get-config running command failed. ",
+                   GET_REPLY_PATTERN.matcher(config.get(5, TimeUnit.SECONDS)).matches());
+
+        // queued edits are coalesced, so there may be fewer round trips than requests
+        long roundTrips = session1.rpcLatency().get().getCount() - sent;
+        assertTrue("Incorrect number of round trips " + roundTrips, roundTrips >= 2 && roundTrips <= 41);
+        log.info("Finishing pipelined requests in {} round trips", roundTrips);
+    }
+
     @Test
     public void testGetRequest() {
         log.info("Starting get async");
@@ -16,6 +16,7 @@
 package org.onosproject.openflow.controller;
 
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.EthernetView;
 import org.projectfloodlight.openflow.types.OFPort;
 
 import java.util.Optional;
@@ -78,6 +79,15 @@ public interface OpenFlowPacketContext {
      */
     byte[] unparsed();
 
+    /**
+     * Provides a view of the payload that decodes its headers on demand.
+     *
+     * @return lazily decoded view of the payload
+     */
+    default EthernetView view() {
+        return EthernetView.of(unparsed());
+    }
+
     /**
      * Provide the dpid of the switch where the packet in arrived.
      *
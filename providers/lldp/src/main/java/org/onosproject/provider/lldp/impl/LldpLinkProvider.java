@@ -17,6 +17,7 @@ package org.onosproject.provider.lldp.impl;
 
 import java.util.Dictionary;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
@@ -143,6 +144,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
 
     private ScheduledExecutorService executor;
     protected ExecutorService eventExecutor;
+    private List<ScheduledExecutorService> probeSchedulers;
 
     private boolean shuttingDown = false;
 
@@ -246,6 +248,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
     @Activate
     public void activate(ComponentContext context) {
         eventExecutor = newSingleThreadScheduledExecutor(groupedThreads("onos/linkevents", "events-%d", log));
+        probeSchedulers = LinkDiscovery.newSchedulers();
         shuttingDown = false;
         cfgService.registerProperties(getClass());
         appId = coreService.registerApplication(PROVIDER_NAME);
@@ -282,6 +285,8 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         disable();
         eventExecutor.shutdownNow();
         eventExecutor = null;
+        probeSchedulers.forEach(ScheduledExecutorService::shutdownNow);
+        probeSchedulers = null;
         log.info("Stopped");
     }
 
@@ -340,7 +345,9 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         providerService = providerRegistry.register(this);
         masterService.addListener(roleListener);
         deviceService.addListener(deviceListener);
-        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0));
+        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0),
+                                   ImmutableSet.of(DefaultTrafficSelector.builder().matchEthType(TYPE_LLDP).build(),
+                                                   DefaultTrafficSelector.builder().matchEthType(TYPE_BSN).build()));
 
         loadDevices();
 
@@ -429,7 +436,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         }
 
         LinkDiscovery ld = discoverers.computeIfAbsent(device.id(),
-                                     did -> new LinkDiscovery(device, context));
+                                     did -> new LinkDiscovery(device, context, probeSchedulers));
         if (ld.isStopped()) {
             ld.start();
         }
@@ -15,14 +15,13 @@
  */
 package org.onosproject.provider.lldpcommon;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
-import org.jboss.netty.util.Timeout;
-import org.jboss.netty.util.TimerTask;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.MacAddress;
 import org.onlab.packet.ONOSLLDP;
-import org.onlab.util.Timer;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
@@ -30,19 +29,25 @@ import org.onosproject.net.Link.Type;
 import org.onosproject.net.LinkKey;
 import org.onosproject.net.Port;
 import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.link.DefaultLinkDescription;
 import org.onosproject.net.link.LinkDescription;
 import org.onosproject.net.packet.DefaultOutboundPacket;
-import org.onosproject.net.packet.OutboundPacket;
 import org.onosproject.net.packet.PacketContext;
 import org.onosproject.net.link.ProbedLinkProvider;
 import org.slf4j.Logger;
 
 import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.PortNumber.portNumber;
 import static org.onosproject.net.flow.DefaultTrafficTreatment.builder;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -53,33 +58,49 @@ import static org.slf4j.LoggerFactory.getLogger;
  * fast. Every probeRate milliseconds, loop over all fast ports and send an
  * LLDP, send an LLDP for a single slow port. Based on FlowVisor topology
  * discovery implementation.
+ * <p>
+ * Probe frames are built once per port by patching the port number into a
+ * frame prebuilt for the device. Probe rounds run on one of a few scheduler
+ * threads shared by the discoveries of a provider, selected by device, and are
+ * phased by device across the probe interval.
  */
-public class LinkDiscovery implements TimerTask {
+public class LinkDiscovery {
+
+    private static final int SCHEDULER_SHARDS =
+            Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final int PORT_NUMBER_OFFSET = Ethernet.ETHERNET_HEADER_LENGTH + ONOSLLDP.PORT_NUMBER_OFFSET;
 
     private final Logger log = getLogger(getClass());
 
     private final Device device;
     private final LinkDiscoveryContext context;
+    private final ScheduledExecutorService scheduler;
 
     private final Ethernet ethPacket;
     private final Ethernet bddpEth;
 
-    private Timeout timeout;
+    private ScheduledFuture<?> timeout;
     private volatile boolean isStopped;
     // Set of ports to be probed
     private final Set<Long> ports = Sets.newConcurrentHashSet();
+    // Probe frames of each port and the templates they were patched from
+    private final Map<Long, Probes> probes = Maps.newConcurrentMap();
+    private volatile Templates templates;
 
     /**
      * Instantiates discovery manager for the given physical switch. Creates a
      * generic LLDP packet that will be customized for the port it is sent out on.
      * Starts the the timer for the discovery process.
      *
-     * @param device  the physical switch
-     * @param context discovery context
+     * @param device     the physical switch
+     * @param context    discovery context
+     * @param schedulers schedulers of the probe rounds, see {@link #newSchedulers()}
      */
-    public LinkDiscovery(Device device, LinkDiscoveryContext context) {
+    public LinkDiscovery(Device device, LinkDiscoveryContext context,
+                         List<ScheduledExecutorService> schedulers) {
         this.device = device;
         this.context = context;
+        this.scheduler = schedulers.get(Math.floorMod(device.id().hashCode(), schedulers.size()));
 
         ethPacket = new Ethernet();
         ethPacket.setEtherType(Ethernet.TYPE_LLDP);
@@ -97,10 +118,26 @@ public class LinkDiscovery implements TimerTask {
 
     }
 
+    /**
+     * Creates the scheduler threads the probe rounds of the devices are spread
+     * across. The caller owns them and shuts them down once the discoveries
+     * using them are stopped.
+     *
+     * @return probe schedulers
+     */
+    public static List<ScheduledExecutorService> newSchedulers() {
+        ImmutableList.Builder<ScheduledExecutorService> schedulers = ImmutableList.builder();
+        for (int i = 0; i < SCHEDULER_SHARDS; i++) {
+            schedulers.add(newSingleThreadScheduledExecutor(
+                    groupedThreads("onos/link-discovery", "prober-" + i, getLogger(LinkDiscovery.class))));
+        }
+        return schedulers.build();
+    }
+
     public synchronized void stop() {
         if (!isStopped) {
             isStopped = true;
-            timeout.cancel();
+            timeout.cancel(false);
         } else {
             log.warn("LinkDiscovery stopped multiple times?");
         }
@@ -109,7 +146,9 @@ public class LinkDiscovery implements TimerTask {
     public synchronized void start() {
         if (isStopped) {
             isStopped = false;
-            timeout = Timer.getTimer().newTimeout(this, 0, MILLISECONDS);
+            // phase the rounds of the devices across the probe interval
+            long delay = Math.floorMod(device.id().hashCode(), Math.max(context.probeRate(), 1));
+            timeout = scheduler.schedule(this::run, delay, MILLISECONDS);
         } else {
             log.warn("LinkDiscovery started multiple times?");
         }
@@ -140,6 +179,7 @@ public class LinkDiscovery implements TimerTask {
      */
     public void removePort(PortNumber port) {
         ports.remove(port.toLong());
+        probes.remove(port.toLong());
     }
 
     /**
@@ -200,64 +240,67 @@ public class LinkDiscovery implements TimerTask {
     }
 
     /**
-     * Execute this method every t milliseconds. Loops over all ports
+     * Execute this method every probeRate milliseconds. Loops over all ports
      * labeled as fast and sends out an LLDP. Send out an LLDP on a single slow
      * port.
-     *
-     * @param t timeout
      */
-    @Override
-    public void run(Timeout t) {
+    private void run() {
         if (isStopped()) {
             return;
         }
 
-        if (context.mastershipService().isLocalMaster(device.id())) {
-            log.trace("Sending probes from {}", device.id());
-            ports.forEach(this::sendProbes);
+        try {
+            if (context.mastershipService().isLocalMaster(device.id())) {
+                log.trace("Sending probes from {}", device.id());
+                ports.forEach(this::sendProbes);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to send probes from {}", device.id(), e);
         }
 
-        if (!isStopped()) {
-            timeout = Timer.getTimer().newTimeout(this, context.probeRate(), MILLISECONDS);
+        synchronized (this) {
+            if (!isStopped()) {
+                timeout = scheduler.schedule(this::run, context.probeRate(), MILLISECONDS);
+            }
         }
     }
 
     /**
-     * Creates packet_out LLDP for specified output port.
+     * Returns the probe frames of the specified port, patching them from the
+     * device templates if they were not built for the current fingerprint.
      *
      * @param port the port
-     * @return Packet_out message with LLDP data
+     * @return probe frames
      */
-    private OutboundPacket createOutBoundLldp(Long port) {
-        if (port == null) {
-            return null;
+    private Probes getProbes(Long port) {
+        Templates current = getTemplates();
+        Probes portProbes = probes.get(port);
+        if (portProbes == null || portProbes.templates != current) {
+            portProbes = new Probes(current, port);
+            probes.put(port, portProbes);
         }
-        ONOSLLDP lldp = getLinkProbe(port);
-        ethPacket.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
-        return new DefaultOutboundPacket(device.id(),
-                                         builder().setOutput(portNumber(port)).build(),
-                                         ByteBuffer.wrap(ethPacket.serialize()));
+        return portProbes;
     }
 
     /**
-     * Creates packet_out BDDP for specified output port.
+     * Returns the LLDP and BDDP frames prebuilt for this device, rebuilding them
+     * if the cluster fingerprint has changed.
      *
-     * @param port the port
-     * @return Packet_out message with LLDP data
+     * @return probe templates
      */
-    private OutboundPacket createOutBoundBddp(Long port) {
-        if (port == null) {
-            return null;
+    private Templates getTemplates() {
+        String fingerprint = context.fingerprint();
+        Templates current = templates;
+        if (current == null || !current.fingerprint.equals(fingerprint)) {
+            synchronized (ethPacket) {
+                ONOSLLDP lldp = ONOSLLDP.onosLLDP(device.id().toString(), device.chassisId(), 0);
+                ethPacket.setSourceMACAddress(fingerprint).setPayload(lldp);
+                bddpEth.setSourceMACAddress(fingerprint).setPayload(lldp);
+                current = new Templates(fingerprint, ethPacket.serialize(), bddpEth.serialize());
+            }
+            templates = current;
         }
-        ONOSLLDP lldp = getLinkProbe(port);
-        bddpEth.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
-        return new DefaultOutboundPacket(device.id(),
-                                         builder().setOutput(portNumber(port)).build(),
-                                         ByteBuffer.wrap(bddpEth.serialize()));
-    }
-
-    private ONOSLLDP getLinkProbe(Long port) {
-        return ONOSLLDP.onosLLDP(device.id().toString(), device.chassisId(), port.intValue());
+        return current;
     }
 
     private void sendProbes(Long portNumber) {
@@ -265,15 +308,50 @@ public class LinkDiscovery implements TimerTask {
             return;
         }
         log.trace("Sending probes out to {}@{}", portNumber, device.id());
-        OutboundPacket pkt = createOutBoundLldp(portNumber);
-        context.packetService().emit(pkt);
+        Probes portProbes = getProbes(portNumber);
+        context.packetService().emit(new DefaultOutboundPacket(device.id(), portProbes.treatment,
+                                                               ByteBuffer.wrap(portProbes.lldp)));
         if (context.useBddp()) {
-            OutboundPacket bpkt = createOutBoundBddp(portNumber);
-            context.packetService().emit(bpkt);
+            context.packetService().emit(new DefaultOutboundPacket(device.id(), portProbes.treatment,
+                                                                   ByteBuffer.wrap(portProbes.bddp)));
         }
     }
 
     public boolean containsPort(long portNumber) {
         return ports.contains(portNumber);
     }
+
+    // LLDP and BDDP frames of the device, probing port 0
+    private static final class Templates {
+        private final String fingerprint;
+        private final byte[] lldp;
+        private final byte[] bddp;
+
+        private Templates(String fingerprint, byte[] lldp, byte[] bddp) {
+            this.fingerprint = fingerprint;
+            this.lldp = lldp;
+            this.bddp = bddp;
+        }
+    }
+
+    // Probe frames of a port; never modified once built, as emitted packets may refer to them
+    private static final class Probes {
+        private final Templates templates;
+        private final TrafficTreatment treatment;
+        private final byte[] lldp;
+        private final byte[] bddp;
+
+        private Probes(Templates templates, long port) {
+            this.templates = templates;
+            this.treatment = builder().setOutput(portNumber(port)).build();
+            this.lldp = patch(templates.lldp, port);
+            this.bddp = patch(templates.bddp, port);
+        }
+
+        private static byte[] patch(byte[] template, long port) {
+            byte[] frame = template.clone();
+            ByteBuffer.wrap(frame).putInt(PORT_NUMBER_OFFSET, (int) port);
+            return frame;
+        }
+    }
 }
@@ -16,10 +16,12 @@
 package org.onosproject.provider.netcfglinks;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -109,6 +111,7 @@ public class NetworkConfigLinksProvider
 
     // Device link discovery helpers.
     protected final Map<DeviceId, LinkDiscovery> discoverers = new ConcurrentHashMap<>();
+    private List<ScheduledExecutorService> probeSchedulers;
 
     private final LinkDiscoveryContext context = new InternalDiscoveryContext();
 
@@ -149,6 +152,7 @@ public class NetworkConfigLinksProvider
     protected void activate() {
         log.info("Activated");
         appId = coreService.registerApplication(PROVIDER_NAME);
+        probeSchedulers = LinkDiscovery.newSchedulers();
         packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0));
         providerService = providerRegistry.register(this);
         deviceService.addListener(deviceListener);
@@ -166,6 +170,8 @@ public class NetworkConfigLinksProvider
         netCfgService.removeListener(cfgListener);
         packetService.removeProcessor(packetProcessor);
         disable();
+        probeSchedulers.forEach(ScheduledExecutorService::shutdownNow);
+        probeSchedulers = null;
         log.info("Deactivated");
     }
 
@@ -184,7 +190,7 @@ public class NetworkConfigLinksProvider
         }
 
         LinkDiscovery ld = discoverers.computeIfAbsent(device.id(),
-                did -> new LinkDiscovery(device, context));
+                did -> new LinkDiscovery(device, context, probeSchedulers));
         if (ld.isStopped()) {
             ld.start();
         }
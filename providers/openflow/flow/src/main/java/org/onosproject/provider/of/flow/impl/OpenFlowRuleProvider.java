@@ -33,6 +33,7 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
+import org.onlab.util.SharedExecutors;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
@@ -54,6 +55,7 @@ import org.onosproject.net.statistic.DefaultLoad;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowController;
 import org.onosproject.openflow.controller.OpenFlowEventListener;
+import org.onosproject.openflow.controller.OpenFlowMessageListener;
 import org.onosproject.openflow.controller.OpenFlowSwitch;
 import org.onosproject.openflow.controller.OpenFlowSwitchListener;
 import org.onosproject.openflow.controller.RoleState;
@@ -65,6 +67,7 @@ import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
 import org.projectfloodlight.openflow.protocol.OFErrorMsg;
 import org.projectfloodlight.openflow.protocol.OFFlowMod;
 import org.projectfloodlight.openflow.protocol.OFFlowRemoved;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFPortStatus;
@@ -125,6 +128,9 @@ public class OpenFlowRuleProvider extends AbstractProvider
     private static final int MIN_EXPECTED_BYTE_LEN = 56;
     private static final int SKIP_BYTES = 4;
     private static final boolean DEFAULT_ADAPTIVE_FLOW_SAMPLING = false;
+    private static final boolean DEFAULT_PIPELINED_FLOW_STATS = false;
+    private static final int DEFAULT_MAX_OUTSTANDING_FLOW_STATS = 2;
+    private static final int DEFAULT_FLOW_STATS_SPLIT_THRESHOLD = 10_000;
 
     @Property(name = "flowPollFrequency", intValue = DEFAULT_POLL_FREQUENCY,
             label = "Frequency (in seconds) for polling flow statistics")
@@ -134,6 +140,21 @@ public class OpenFlowRuleProvider extends AbstractProvider
             label = "Adaptive Flow Sampling is on or off")
     private boolean adaptiveFlowSampling = DEFAULT_ADAPTIVE_FLOW_SAMPLING;
 
+    @Property(name = "pipelinedFlowStats", boolValue = DEFAULT_PIPELINED_FLOW_STATS,
+            label = "Pipelined flow statistics polling is on or off; " +
+                    "applies when adaptive flow sampling is off")
+    private boolean pipelinedFlowStats = DEFAULT_PIPELINED_FLOW_STATS;
+
+    @Property(name = "maxOutstandingFlowStats", intValue = DEFAULT_MAX_OUTSTANDING_FLOW_STATS,
+            label = "Maximum number of outstanding flow statistics requests per switch " +
+                    "with pipelined polling")
+    private int maxOutstandingFlowStats = DEFAULT_MAX_OUTSTANDING_FLOW_STATS;
+
+    @Property(name = "flowStatsSplitThreshold", intValue = DEFAULT_FLOW_STATS_SPLIT_THRESHOLD,
+            label = "Number of flow entries above which pipelined polling requests " +
+                    "the statistics of each table, or table slice, separately")
+    private int flowStatsSplitThreshold = DEFAULT_FLOW_STATS_SPLIT_THRESHOLD;
+
     private FlowRuleProviderService providerService;
 
     private final InternalFlowProvider listener = new InternalFlowProvider();
@@ -147,6 +168,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
     // NewAdaptiveFlowStatsCollector Set
     private final Map<Dpid, NewAdaptiveFlowStatsCollector> afsCollectors = Maps.newConcurrentMap();
+    private final Map<Dpid, PipelinedFlowStatsCollector> pipelinedCollectors = Maps.newConcurrentMap();
     private final Map<Dpid, TableStatisticsCollector> tableStatsCollectors = Maps.newConcurrentMap();
 
     /**
@@ -162,6 +184,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
         providerService = providerRegistry.register(this);
         controller.addListener(listener);
         controller.addEventListener(listener);
+        controller.addMessageListener(listener);
 
         modified(context);
 
@@ -169,13 +192,14 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
         createCollectors();
 
-        log.info("Started with flowPollFrequency = {}, adaptiveFlowSampling = {}",
-                flowPollFrequency, adaptiveFlowSampling);
+        log.info("Started with flowPollFrequency = {}, adaptiveFlowSampling = {}, pipelinedFlowStats = {}",
+                flowPollFrequency, adaptiveFlowSampling, pipelinedFlowStats);
     }
 
     @Deactivate
     protected void deactivate(ComponentContext context) {
         cfgService.unregisterProperties(getClass(), false);
+        controller.removeMessageListener(listener);
         stopCollectors();
         providerRegistry.unregister(this);
         providerService = null;
@@ -215,6 +239,43 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
 
         log.info("Settings: adaptiveFlowSampling={}", adaptiveFlowSampling);
+
+        boolean newPipelinedFlowStats;
+        int newMaxOutstandingFlowStats;
+        int newFlowStatsSplitThreshold;
+        try {
+            s = get(properties, "pipelinedFlowStats");
+            newPipelinedFlowStats = isNullOrEmpty(s) ? pipelinedFlowStats : Boolean.parseBoolean(s.trim());
+
+            s = get(properties, "maxOutstandingFlowStats");
+            newMaxOutstandingFlowStats = isNullOrEmpty(s) ?
+                    maxOutstandingFlowStats : Integer.parseInt(s.trim());
+
+            s = get(properties, "flowStatsSplitThreshold");
+            newFlowStatsSplitThreshold = isNullOrEmpty(s) ?
+                    flowStatsSplitThreshold : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newPipelinedFlowStats = pipelinedFlowStats;
+            newMaxOutstandingFlowStats = maxOutstandingFlowStats;
+            newFlowStatsSplitThreshold = flowStatsSplitThreshold;
+        }
+
+        if (newMaxOutstandingFlowStats != maxOutstandingFlowStats ||
+                newFlowStatsSplitThreshold != flowStatsSplitThreshold) {
+            maxOutstandingFlowStats = newMaxOutstandingFlowStats;
+            flowStatsSplitThreshold = newFlowStatsSplitThreshold;
+            pipelinedCollectors.values().forEach(fsc -> fsc.adjustPipelining(maxOutstandingFlowStats,
+                                                                             flowStatsSplitThreshold));
+        }
+
+        if (newPipelinedFlowStats != pipelinedFlowStats) {
+            stopCollectors();
+            pipelinedFlowStats = newPipelinedFlowStats;
+            createCollectors();
+        }
+
+        log.info("Settings: pipelinedFlowStats={}, maxOutstandingFlowStats={}, flowStatsSplitThreshold={}",
+                 pipelinedFlowStats, maxOutstandingFlowStats, flowStatsSplitThreshold);
     }
 
     private Cache<Long, InternalCacheEntry> createBatchCache() {
@@ -242,6 +303,16 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     new NewAdaptiveFlowStatsCollector(driverService, sw, flowPollFrequency);
             fsc.start();
             stopCollectorIfNeeded(afsCollectors.put(new Dpid(sw.getId()), fsc));
+        } else if (pipelinedFlowStats) {
+            DeviceId did = DeviceId.deviceId(Dpid.uri(sw.getId()));
+            PipelinedFlowStatsCollector fsc =
+                    new PipelinedFlowStatsCollector(timer, sw, flowPollFrequency,
+                                                    maxOutstandingFlowStats, flowStatsSplitThreshold,
+                                                    SharedExecutors.getPoolThreadExecutor(),
+                                                    (entries, first, last) ->
+                                                            pushFlowMetricsPart(did, entries, first, last));
+            fsc.start();
+            stopCollectorIfNeeded(pipelinedCollectors.put(new Dpid(sw.getId()), fsc));
         } else {
             FlowStatsCollector fsc = new FlowStatsCollector(timer, sw, flowPollFrequency);
             fsc.start();
@@ -263,6 +334,9 @@ public class OpenFlowRuleProvider extends AbstractProvider
             // NewAdaptiveFlowStatsCollector Destructor
             afsCollectors.values().forEach(NewAdaptiveFlowStatsCollector::stop);
             afsCollectors.clear();
+        } else if (pipelinedFlowStats) {
+            pipelinedCollectors.values().forEach(PipelinedFlowStatsCollector::stop);
+            pipelinedCollectors.clear();
         } else {
             simpleCollectors.values().forEach(FlowStatsCollector::stop);
             simpleCollectors.clear();
@@ -276,12 +350,27 @@ public class OpenFlowRuleProvider extends AbstractProvider
         if (adaptiveFlowSampling) {
             // NewAdaptiveFlowStatsCollector calAndPollInterval
             afsCollectors.values().forEach(fsc -> fsc.adjustCalAndPollInterval(flowPollFrequency));
+        } else if (pipelinedFlowStats) {
+            pipelinedCollectors.values().forEach(fsc -> fsc.adjustPollInterval(flowPollFrequency));
         } else {
             simpleCollectors.values().forEach(fsc -> fsc.adjustPollInterval(flowPollFrequency));
         }
         tableStatsCollectors.values().forEach(tsc -> tsc.adjustPollInterval(flowPollFrequency));
     }
 
+    private void pushFlowMetricsPart(DeviceId did, List<OFFlowStatsEntry> entries,
+                                     boolean first, boolean last) {
+        FlowRuleProviderService service = providerService;
+        if (service == null) {
+            // We are shutting down, nothing to be done
+            return;
+        }
+        List<FlowEntry> flowEntries = entries.stream()
+                .map(entry -> new FlowEntryBuilder(did, entry, driverService).build())
+                .collect(Collectors.toList());
+        service.pushFlowMetricsPart(did, flowEntries, first, last);
+    }
+
     @Override
     public void applyFlowRule(FlowRule... flowRules) {
         for (FlowRule flowRule : flowRules) {
@@ -353,6 +442,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
             return;
         }
         pendingBatches.put(batch.id(), new InternalCacheEntry(batch));
+        // write the whole batch and its barrier to the switch at once
+        List<OFMessage> msgs = Lists.newArrayListWithCapacity(batch.size() + 1);
         OFFlowMod mod;
         for (FlowRuleBatchEntry fbe : batch.getOperations()) {
             // flow is the third party privacy flow
@@ -360,7 +451,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
             FlowRuleExtPayLoad flowRuleExtPayLoad = fbe.target().payLoad();
             if (hasPayload(flowRuleExtPayLoad)) {
                 OFMessage msg = new ThirdPartyMessage(flowRuleExtPayLoad.payLoad());
-                sw.sendMsg(msg);
+                msgs.add(msg);
                 continue;
             }
             FlowModBuilder builder =
@@ -382,11 +473,12 @@ public class OpenFlowRuleProvider extends AbstractProvider
                             fbe.operator(), fbe);
                     continue;
             }
-            sw.sendMsg(mod);
+            msgs.add(mod);
         }
         OFBarrierRequest.Builder builder = sw.factory().buildBarrierRequest()
                 .setXid(batch.id());
-        sw.sendMsg(builder.build());
+        msgs.add(builder.build());
+        sw.sendMsg(msgs);
     }
 
     private boolean hasPayload(FlowRuleExtPayLoad flowRuleExtPayLoad) {
@@ -396,7 +488,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
     }
 
     private class InternalFlowProvider
-            implements OpenFlowSwitchListener, OpenFlowEventListener {
+            implements OpenFlowSwitchListener, OpenFlowEventListener, OpenFlowMessageListener {
 
         @Override
         public void switchAdded(Dpid dpid) {
@@ -407,6 +499,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
         public void switchRemoved(Dpid dpid) {
             if (adaptiveFlowSampling) {
                 stopCollectorIfNeeded(afsCollectors.remove(dpid));
+            } else if (pipelinedFlowStats) {
+                stopCollectorIfNeeded(pipelinedCollectors.remove(dpid));
             } else {
                 stopCollectorIfNeeded(simpleCollectors.remove(dpid));
             }
@@ -438,7 +532,12 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     break;
                 case STATS_REPLY:
                     if (((OFStatsReply) msg).getStatsType() == OFStatsType.FLOW) {
-                        pushFlowMetrics(dpid, (OFFlowStatsReply) msg);
+                        // pipelined collectors handle the parts of the replies to their
+                        // requests as they arrive; other replies are pushed whole
+                        PipelinedFlowStatsCollector collector = pipelinedCollectors.get(dpid);
+                        if (collector == null || !collector.isOwnReply(msg.getXid())) {
+                            pushFlowMetrics(dpid, (OFFlowStatsReply) msg);
+                        }
                     } else if (((OFStatsReply) msg).getStatsType() == OFStatsType.TABLE) {
                         pushTableStatistics(dpid, (OFTableStatsReply) msg);
                     }
@@ -466,6 +565,10 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     } else {
                         log.warn("Received error message {} from {}", msg, dpid);
                     }
+                    PipelinedFlowStatsCollector collector = pipelinedCollectors.get(dpid);
+                    if (collector != null && collector.handleError((OFErrorMsg) msg)) {
+                        break;
+                    }
                     handleErrorMsg(deviceId, msg);
                     break;
                 default:
@@ -602,6 +705,21 @@ public class OpenFlowRuleProvider extends AbstractProvider
             return U64.ofRaw(bb.readLong());
         }
 
+        @Override
+        public void handleIncomingMessage(Dpid dpid, OFMessage msg) {
+            if (msg.getType() == OFType.STATS_REPLY &&
+                    ((OFStatsReply) msg).getStatsType() == OFStatsType.FLOW) {
+                PipelinedFlowStatsCollector collector = pipelinedCollectors.get(dpid);
+                if (collector != null) {
+                    collector.handleReply((OFFlowStatsReply) msg);
+                }
+            }
+        }
+
+        @Override
+        public void handleOutgoingMessage(Dpid dpid, List<OFMessage> msgs) {
+        }
+
         @Override
         public void receivedRoleReply(Dpid dpid, RoleState requested,
                                       RoleState response) {
@@ -645,6 +763,10 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
 
         private void pushTableStatistics(Dpid dpid, OFTableStatsReply replies) {
+            PipelinedFlowStatsCollector collector = pipelinedCollectors.get(dpid);
+            if (collector != null) {
+                collector.updateTableSizes(replies.getEntries());
+            }
 
             DeviceId did = DeviceId.deviceId(Dpid.uri(dpid));
             List<TableStatisticsEntry> tableStatsEntries = replies.getEntries().stream()
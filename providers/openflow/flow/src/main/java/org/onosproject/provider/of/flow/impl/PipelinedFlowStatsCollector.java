@@ -0,0 +1,313 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.onlab.util.OrderedExecutor;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.onosproject.openflow.controller.RoleState;
+import org.projectfloodlight.openflow.protocol.OFErrorMsg;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFStatsReplyFlags;
+import org.projectfloodlight.openflow.protocol.OFTableStatsEntry;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.OFPort;
+import org.projectfloodlight.openflow.types.TableId;
+import org.projectfloodlight.openflow.types.U64;
+import org.slf4j.Logger;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Collects flow statistics for the specified switch in rounds of pipelined
+ * requests.
+ * <p>
+ * Rounds start at a random phase of the poll interval, so that the polls of
+ * different switches are spread over time. A round requests the whole flow
+ * table at once, unless the last table statistics show more active entries
+ * than the split threshold; the round then requests each known table
+ * separately, including the tables last seen empty, and slices the tables
+ * above the threshold further by the low bits of the flow cookie. At most a
+ * given number of requests of a round are outstanding at a time, and each
+ * part of a multipart reply is handed to the consumer as soon as it arrives,
+ * in order.
+ * </p>
+ * <p>
+ * A request answered by an error is released so that the round goes on, but
+ * the round is then incomplete and its last part is not flagged as such.
+ * </p>
+ */
+class PipelinedFlowStatsCollector implements SwitchDataCollector {
+
+    private final Logger log = getLogger(getClass());
+
+    public static final int SECONDS = 1000;
+
+    // rounds still in progress after this many poll intervals are abandoned
+    private static final int ROUND_TIMEOUT_INTERVALS = 3;
+
+    /**
+     * Consumer of the parts of the flow statistics replies of a round.
+     */
+    interface PartConsumer {
+        /**
+         * Accepts the flow statistics entries of one reply part.
+         *
+         * @param entries flow statistics entries
+         * @param first   true if this is the first part of the round
+         * @param last    true if this is the last part of the round
+         */
+        void accept(List<OFFlowStatsEntry> entries, boolean first, boolean last);
+    }
+
+    private final Timer timer;
+    private final OpenFlowSwitch sw;
+    private final PartConsumer consumer;
+    private final Executor executor;
+
+    private TimerTask task;
+    private int pollInterval;
+    private int maxOutstanding;
+    private long splitThreshold;
+
+    private volatile Map<TableId, Long> tableSizes = ImmutableMap.of();
+
+    // state of the current round
+    private final Deque<OFFlowStatsRequest> queued = Lists.newLinkedList();
+    private final Set<Long> outstanding = Sets.newHashSet();
+    // requests sent in the current and the previous round
+    private final Set<Long> roundRequests = Sets.newHashSet();
+    private Set<Long> previousRoundRequests = ImmutableSet.of();
+    private long roundStart;
+    private boolean firstPart;
+    private boolean roundFailed;
+
+    /**
+     * Creates a new collector for the given switch.
+     *
+     * @param timer          timer to use for scheduling
+     * @param sw             switch to pull
+     * @param pollInterval   poll frequency in seconds
+     * @param maxOutstanding maximum number of outstanding requests
+     * @param splitThreshold number of entries above which tables are polled separately
+     * @param executor       executor processing the reply parts
+     * @param consumer       consumer of the reply parts
+     */
+    PipelinedFlowStatsCollector(Timer timer, OpenFlowSwitch sw, int pollInterval,
+                                int maxOutstanding, long splitThreshold,
+                                Executor executor, PartConsumer consumer) {
+        this.timer = timer;
+        this.sw = checkNotNull(sw, "Null switch");
+        this.pollInterval = pollInterval;
+        this.maxOutstanding = Math.max(1, maxOutstanding);
+        this.splitThreshold = splitThreshold;
+        this.executor = new OrderedExecutor(executor);
+        this.consumer = consumer;
+    }
+
+    /**
+     * Adjusts poll frequency.
+     *
+     * @param pollInterval poll frequency in seconds
+     */
+    synchronized void adjustPollInterval(int pollInterval) {
+        this.pollInterval = pollInterval;
+        task.cancel();
+        schedule();
+    }
+
+    /**
+     * Adjusts how requests are split and pipelined; applies from the next round.
+     *
+     * @param maxOutstanding maximum number of outstanding requests
+     * @param splitThreshold number of entries above which tables are polled separately
+     */
+    synchronized void adjustPipelining(int maxOutstanding, long splitThreshold) {
+        this.maxOutstanding = Math.max(1, maxOutstanding);
+        this.splitThreshold = splitThreshold;
+    }
+
+    /**
+     * Updates the number of active entries of the tables of the switch.
+     *
+     * @param tableStats table statistics entries
+     */
+    void updateTableSizes(List<OFTableStatsEntry> tableStats) {
+        ImmutableMap.Builder<TableId, Long> sizes = ImmutableMap.builder();
+        tableStats.forEach(entry -> sizes.put(entry.getTableId(), entry.getActiveCount()));
+        tableSizes = sizes.build();
+    }
+
+    /**
+     * Handles a part of a flow statistics reply.
+     *
+     * @param reply flow statistics reply part
+     * @return true if the reply belongs to a request of this collector
+     */
+    synchronized boolean handleReply(OFFlowStatsReply reply) {
+        if (!outstanding.contains(reply.getXid())) {
+            return false;
+        }
+        boolean first = firstPart;
+        firstPart = false;
+        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
+            outstanding.remove(reply.getXid());
+            sendQueued();
+        }
+        boolean last = outstanding.isEmpty() && queued.isEmpty() && !roundFailed;
+        List<OFFlowStatsEntry> entries = reply.getEntries();
+        executor.execute(() -> consumer.accept(entries, first, last));
+        return true;
+    }
+
+    /**
+     * Returns whether a flow statistics reply answers a request of the
+     * current or the previous round, whose parts this collector handles.
+     *
+     * @param xid transaction identifier of the reply
+     * @return true if the reply answers a request of this collector
+     */
+    synchronized boolean isOwnReply(long xid) {
+        return roundRequests.contains(xid) || previousRoundRequests.contains(xid);
+    }
+
+    /**
+     * Handles an error answering a flow statistics request, releasing the
+     * request so that the rest of the round is sent.
+     *
+     * @param error error message
+     * @return true if the error answers a request of this collector
+     */
+    synchronized boolean handleError(OFErrorMsg error) {
+        if (!outstanding.remove(error.getXid())) {
+            return false;
+        }
+        log.debug("Flow stats request {} failed for {}: {}", error.getXid(), sw.getStringId(), error);
+        roundFailed = true;
+        sendQueued();
+        return true;
+    }
+
+    private class InternalTimerTask extends TimerTask {
+        @Override
+        public void run() {
+            if (sw.getRole() == RoleState.MASTER) {
+                startRound();
+            }
+        }
+    }
+
+    // package-private for unit testing
+    synchronized void startRound() {
+        long now = System.currentTimeMillis();
+        if (!outstanding.isEmpty() || !queued.isEmpty()) {
+            if (now - roundStart < ROUND_TIMEOUT_INTERVALS * pollInterval * SECONDS) {
+                log.debug("Flow stats round for {} still in progress", sw.getStringId());
+                return;
+            }
+            log.debug("Abandoning flow stats round for {} after {} ms", sw.getStringId(), now - roundStart);
+            outstanding.clear();
+            queued.clear();
+        }
+        log.trace("Collecting stats for {}", sw.getStringId());
+        roundStart = now;
+        previousRoundRequests = ImmutableSet.copyOf(roundRequests);
+        roundRequests.clear();
+        firstPart = true;
+        roundFailed = false;
+        queued.addAll(buildRequests());
+        sendQueued();
+    }
+
+    private void sendQueued() {
+        while (outstanding.size() < maxOutstanding && !queued.isEmpty()) {
+            OFFlowStatsRequest request = queued.poll();
+            outstanding.add(request.getXid());
+            roundRequests.add(request.getXid());
+            sw.sendMsg(request);
+        }
+    }
+
+    // Splits the flow table according to the last known table sizes
+    private List<OFFlowStatsRequest> buildRequests() {
+        Map<TableId, Long> sizes = tableSizes;
+        long total = sizes.values().stream().mapToLong(Long::longValue).sum();
+        if (total <= splitThreshold) {
+            return Lists.newArrayList(request(TableId.ALL, 0, 0));
+        }
+        boolean cookieMask = sw.factory().getVersion().compareTo(OFVersion.OF_13) >= 0;
+        List<OFFlowStatsRequest> requests = Lists.newArrayList();
+        sizes.forEach((tableId, size) -> {
+            // tables last seen empty may have been filled since
+            int slices = cookieMask && size > splitThreshold ?
+                    Integer.highestOneBit((int) Math.min(size / Math.max(splitThreshold, 1), 1 << 16)) * 2 : 1;
+            for (int slice = 0; slice < slices; slice++) {
+                requests.add(request(tableId, slice, slices - 1));
+            }
+        });
+        return requests;
+    }
+
+    private OFFlowStatsRequest request(TableId tableId, long cookie, long mask) {
+        OFFlowStatsRequest.Builder builder = sw.factory().buildFlowStatsRequest()
+                .setMatch(sw.factory().matchWildcardAll())
+                .setTableId(tableId)
+                .setOutPort(OFPort.NO_MASK);
+        if (mask != 0) {
+            builder.setCookie(U64.of(cookie)).setCookieMask(U64.of(mask));
+        }
+        return builder.build();
+    }
+
+    private void schedule() {
+        task = new InternalTimerTask();
+        long period = pollInterval * SECONDS;
+        // start at a random phase to spread the polls of different switches
+        timer.scheduleAtFixedRate(task, SECONDS + ThreadLocalRandom.current().nextLong(period), period);
+    }
+
+    @Override
+    public synchronized void start() {
+        log.debug("Starting pipelined stats collection for {}", sw.getStringId());
+        schedule();
+    }
+
+    @Override
+    public synchronized void stop() {
+        log.debug("Stopping pipelined stats collection for {}", sw.getStringId());
+        task.cancel();
+        task = null;
+        outstanding.clear();
+        queued.clear();
+        roundRequests.clear();
+        previousRoundRequests = ImmutableSet.of();
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.openflow.controller.OpenFlowSwitchAdapter;
+import org.projectfloodlight.openflow.protocol.OFBadRequestCode;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsEntry;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFStatsReplyFlags;
+import org.projectfloodlight.openflow.protocol.OFTableStatsEntry;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.OFErrorCauseData;
+import org.projectfloodlight.openflow.types.TableId;
+import org.projectfloodlight.openflow.types.U64;
+
+import java.util.List;
+import java.util.Set;
+import java.util.Timer;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the pipelined flow statistics collector.
+ */
+public class PipelinedFlowStatsCollectorTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+    private static final int MAX_OUTSTANDING = 2;
+    private static final long SPLIT_THRESHOLD = 100;
+
+    private final TestSwitch sw = new TestSwitch();
+    private final List<Part> parts = Lists.newArrayList();
+    private PipelinedFlowStatsCollector collector;
+
+    @Before
+    public void setUp() {
+        collector = new PipelinedFlowStatsCollector(new Timer(true), sw, 5, MAX_OUTSTANDING,
+                                                    SPLIT_THRESHOLD, MoreExecutors.directExecutor(),
+                                                    (entries, first, last) ->
+                                                            parts.add(new Part(entries.size(), first, last)));
+    }
+
+    private static OFTableStatsEntry table(int tableId, long activeCount) {
+        return FACTORY.buildTableStatsEntry()
+                .setTableId(TableId.of(tableId))
+                .setActiveCount(activeCount)
+                .setLookupCount(U64.ZERO)
+                .setMatchedCount(U64.ZERO)
+                .build();
+    }
+
+    private static OFFlowStatsReply reply(OFMessage request, int entries, boolean more) {
+        List<OFFlowStatsEntry> flows = Lists.newArrayList();
+        for (int i = 0; i < entries; i++) {
+            flows.add(FACTORY.buildFlowStatsEntry().setCookie(U64.of(i)).build());
+        }
+        return FACTORY.buildFlowStatsReply()
+                .setXid(request.getXid())
+                .setFlags(more ? ImmutableSet.of(OFStatsReplyFlags.REPLY_MORE) : ImmutableSet.of())
+                .setEntries(flows)
+                .build();
+    }
+
+    /**
+     * Tests that small flow tables are requested at once.
+     */
+    @Test
+    public void testSingleRequest() {
+        collector.updateTableSizes(ImmutableList.of(table(0, 10), table(1, 20)));
+        collector.startRound();
+
+        assertThat(sw.sent.size(), is(1));
+        OFFlowStatsRequest request = sw.sent.get(0);
+        assertThat(request.getTableId(), is(TableId.ALL));
+        assertThat(request.getCookieMask(), is(U64.ZERO));
+
+        assertTrue(collector.handleReply(reply(request, 3, true)));
+        assertTrue(collector.handleReply(reply(request, 2, false)));
+        assertThat(parts, contains(new Part(3, true, false), new Part(2, false, true)));
+    }
+
+    /**
+     * Tests that large flow tables are requested per table, including the
+     * empty ones, and sliced by cookie when above the threshold.
+     */
+    @Test
+    public void testSplitting() {
+        collector.updateTableSizes(ImmutableList.of(table(0, 0), table(1, 50), table(2, 400)));
+        collector.startRound();
+        drain();
+
+        Set<String> requested = ImmutableSet.copyOf(Lists.transform(sw.sent, r ->
+                r.getTableId().getValue() + "/" + r.getCookie().getValue() + "/" + r.getCookieMask().getValue()));
+        assertThat(requested, containsInAnyOrder("0/0/0", "1/0/0",
+                                                 "2/0/7", "2/1/7", "2/2/7", "2/3/7",
+                                                 "2/4/7", "2/5/7", "2/6/7", "2/7/7"));
+        assertThat(sw.sent.size(), is(10));
+    }
+
+    /**
+     * Tests that no more than the configured number of requests are
+     * outstanding, and that the next one is sent once a reply is complete.
+     */
+    @Test
+    public void testOutstandingWindow() {
+        collector.updateTableSizes(ImmutableList.of(table(0, 90), table(1, 90), table(2, 90)));
+        collector.startRound();
+        assertThat(sw.sent.size(), is(MAX_OUTSTANDING));
+
+        // a partial reply does not release the request
+        assertTrue(collector.handleReply(reply(sw.sent.get(1), 5, true)));
+        assertThat(sw.sent.size(), is(MAX_OUTSTANDING));
+
+        assertTrue(collector.handleReply(reply(sw.sent.get(1), 5, false)));
+        assertThat(sw.sent.size(), is(3));
+        assertTrue(collector.handleReply(reply(sw.sent.get(0), 1, false)));
+        assertTrue(collector.handleReply(reply(sw.sent.get(2), 1, false)));
+        assertThat(sw.sent.size(), is(3));
+
+        assertThat(parts, contains(new Part(5, true, false), new Part(5, false, false),
+                                   new Part(1, false, false), new Part(1, false, true)));
+
+        // replies of other requests are not claimed
+        assertFalse(collector.handleReply(reply(sw.sent.get(0), 1, false)));
+    }
+
+    /**
+     * Tests that an error releases its request without completing the round.
+     */
+    @Test
+    public void testError() {
+        collector.updateTableSizes(ImmutableList.of(table(0, 90), table(1, 90), table(2, 90)));
+        collector.startRound();
+
+        assertTrue(collector.handleError(FACTORY.errorMsgs().buildBadRequestErrorMsg()
+                                                 .setXid(sw.sent.get(0).getXid())
+                                                 .setCode(OFBadRequestCode.EPERM)
+                                                 .setData(OFErrorCauseData.NONE)
+                                                 .build()));
+        assertThat(sw.sent.size(), is(3));
+        assertTrue(collector.handleReply(reply(sw.sent.get(1), 1, false)));
+        assertTrue(collector.handleReply(reply(sw.sent.get(2), 1, false)));
+        assertThat(parts, contains(new Part(1, true, false), new Part(1, false, false)));
+
+        // the next round starts afresh
+        parts.clear();
+        collector.startRound();
+        drain();
+        assertThat(parts.get(0).first, is(true));
+        assertThat(parts.get(parts.size() - 1).last, is(true));
+    }
+
+    /**
+     * Tests that the replies of the requests of the current and the previous
+     * round are recognized as the collector's own, and no other replies.
+     */
+    @Test
+    public void testOwnReplies() {
+        collector.startRound();
+        long first = sw.sent.get(0).getXid();
+        drain();
+        assertTrue(collector.isOwnReply(first));
+        assertFalse(collector.isOwnReply(first + 1000));
+
+        collector.startRound();
+        drain();
+        assertTrue(collector.isOwnReply(first));
+        assertTrue(collector.isOwnReply(sw.sent.get(1).getXid()));
+
+        collector.startRound();
+        assertFalse(collector.isOwnReply(first));
+    }
+
+    // Answers every outstanding request with a single part until the round ends
+    private void drain() {
+        for (int i = 0; i < sw.sent.size(); i++) {
+            collector.handleReply(reply(sw.sent.get(i), 1, false));
+        }
+    }
+
+    private static final class Part {
+        private final int entries;
+        private final boolean first;
+        private final boolean last;
+
+        private Part(int entries, boolean first, boolean last) {
+            this.entries = entries;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Part)) {
+                return false;
+            }
+            Part that = (Part) obj;
+            return entries == that.entries && first == that.first && last == that.last;
+        }
+
+        @Override
+        public int hashCode() {
+            return entries * 4 + (first ? 2 : 0) + (last ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return entries + (first ? " first" : "") + (last ? " last" : "");
+        }
+    }
+
+    private static final class TestSwitch extends OpenFlowSwitchAdapter {
+        private final List<OFFlowStatsRequest> sent = Lists.newArrayList();
+
+        @Override
+        public void sendMsg(OFMessage msg) {
+            sent.add((OFFlowStatsRequest) msg);
+        }
+
+        @Override
+        public OFFactory factory() {
+            return FACTORY;
+        }
+
+        @Override
+        public String getStringId() {
+            return "of:0000000000000001";
+        }
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import org.onlab.packet.ipv6.IExtensionHeader;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Read-only view of an Ethernet frame that decodes the headers it is asked
+ * for straight from the frame bytes, without copying them.
+ * <p>
+ * The view is backed either by the bytes of a frame, in which case the full
+ * {@link Ethernet} object graph is only deserialized the first time
+ * {@link #ethernet()} is called, or by an already parsed {@link Ethernet}
+ * frame, whose headers it then reads. The bytes backing a view must not be
+ * modified while the view is in use.
+ * </p>
+ */
+public final class EthernetView {
+
+    private static final int ETHERNET_HEADER_LENGTH = 14;
+    private static final int VLAN_HEADER_LENGTH = 4;
+    private static final int IPV4_MIN_HEADER_LENGTH = 20;
+    private static final int IPV6_HEADER_LENGTH = 40;
+    private static final int IPV6_EXTENSION_MIN_LENGTH = 8;
+    private static final int L4_PORTS_LENGTH = 4;
+
+    /**
+     * Value of the header fields absent from the frame.
+     */
+    public static final int NONE = -1;
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    // link layer headers, decoded upon creation of views over frame bytes
+    private final int etherType;
+    private final short vlanId;
+    private final int l3Offset;
+
+    private volatile Ethernet ethernet;
+    private volatile boolean malformed;
+
+    private EthernetView(byte[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+
+        int end = offset + length;
+        int typeOffset = offset + 2 * Ethernet.DATALAYER_ADDRESS_LENGTH;
+        if (length < ETHERNET_HEADER_LENGTH) {
+            etherType = NONE;
+            vlanId = Ethernet.VLAN_UNTAGGED;
+            l3Offset = end;
+            return;
+        }
+        int type = readShort(typeOffset);
+        short vlan = Ethernet.VLAN_UNTAGGED;
+        // the VLAN of a double tagged frame is the inner one, as in Ethernet
+        while ((type == (Ethernet.TYPE_QINQ & 0xffff) || type == (Ethernet.TYPE_VLAN & 0xffff)) &&
+                typeOffset + VLAN_HEADER_LENGTH + 2 <= end) {
+            vlan = (short) (readShort(typeOffset + 2) & 0x0fff);
+            typeOffset += VLAN_HEADER_LENGTH;
+            type = readShort(typeOffset);
+        }
+        etherType = type;
+        vlanId = vlan;
+        l3Offset = typeOffset + 2;
+    }
+
+    private EthernetView(Ethernet ethernet) {
+        this.data = null;
+        this.offset = 0;
+        this.length = 0;
+        this.etherType = ethernet.getEtherType() & 0xffff;
+        this.vlanId = ethernet.getVlanID();
+        this.l3Offset = 0;
+        this.ethernet = ethernet;
+    }
+
+    /**
+     * Creates a view over the bytes of a frame.
+     *
+     * @param data   frame bytes; not copied
+     * @param offset offset of the frame in the array
+     * @param length length of the frame
+     * @return frame view
+     */
+    public static EthernetView of(byte[] data, int offset, int length) {
+        checkNotNull(data, "Data cannot be null");
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IllegalArgumentException("Invalid offset or length");
+        }
+        return new EthernetView(data, offset, length);
+    }
+
+    /**
+     * Creates a view over the bytes of a frame.
+     *
+     * @param data frame bytes; not copied
+     * @return frame view
+     */
+    public static EthernetView of(byte[] data) {
+        return of(data, 0, data.length);
+    }
+
+    /**
+     * Creates a view over an already parsed frame.
+     *
+     * @param ethernet parsed frame
+     * @return frame view
+     */
+    public static EthernetView of(Ethernet ethernet) {
+        return new EthernetView(checkNotNull(ethernet, "Frame cannot be null"));
+    }
+
+    /**
+     * Returns the Ethernet type of the payload, following any VLAN tags.
+     *
+     * @return unsigned Ethernet type, or {@link #NONE} if the frame is truncated
+     */
+    public int etherType() {
+        return etherType;
+    }
+
+    /**
+     * Returns the VLAN identifier of the frame; the inner one for double
+     * tagged frames.
+     *
+     * @return VLAN identifier, or {@link Ethernet#VLAN_UNTAGGED}
+     */
+    public short vlanId() {
+        return vlanId;
+    }
+
+    /**
+     * Returns the destination MAC address.
+     *
+     * @return destination MAC address, or null if the frame is truncated
+     */
+    public MacAddress destinationMac() {
+        if (data == null) {
+            return ethernet.getDestinationMAC();
+        }
+        return etherType == NONE ? null : MacAddress.valueOf(
+                Arrays.copyOfRange(data, offset, offset + Ethernet.DATALAYER_ADDRESS_LENGTH));
+    }
+
+    /**
+     * Returns the source MAC address.
+     *
+     * @return source MAC address, or null if the frame is truncated
+     */
+    public MacAddress sourceMac() {
+        if (data == null) {
+            return ethernet.getSourceMAC();
+        }
+        int start = offset + Ethernet.DATALAYER_ADDRESS_LENGTH;
+        return etherType == NONE ? null : MacAddress.valueOf(
+                Arrays.copyOfRange(data, start, start + Ethernet.DATALAYER_ADDRESS_LENGTH));
+    }
+
+    /**
+     * Returns the IP protocol of an IPv4 packet, or the upper-layer protocol
+     * of an IPv6 packet, found by following its extension headers as an
+     * OpenFlow IP protocol match does. The walk stops at an encrypted
+     * payload, and at a header cut off by the end of the frame, whose type
+     * is then returned.
+     *
+     * @return unsigned IP protocol, or {@link #NONE} if not an IP packet
+     */
+    public int ipProtocol() {
+        if (data == null) {
+            IPacket payload = ethernet.getPayload();
+            if (payload instanceof IPv4) {
+                return ((IPv4) payload).getProtocol() & 0xff;
+            } else if (payload instanceof IPv6) {
+                return ((IExtensionHeader) lastIpv6Header((IPv6) payload)).getNextHeader() & 0xff;
+            }
+            return NONE;
+        }
+        if (isIpv4()) {
+            return data[l3Offset + 9] & 0xff;
+        } else if (isIpv6()) {
+            return ipv6UpperLayer(false);
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the source IP address.
+     *
+     * @return source IP address, or null if not an IP packet
+     */
+    public IpAddress sourceIp() {
+        if (data == null) {
+            IPacket payload = ethernet.getPayload();
+            if (payload instanceof IPv4) {
+                return Ip4Address.valueOf(((IPv4) payload).getSourceAddress());
+            } else if (payload instanceof IPv6) {
+                return Ip6Address.valueOf(((IPv6) payload).getSourceAddress());
+            }
+            return null;
+        }
+        if (isIpv4()) {
+            return Ip4Address.valueOf(data, l3Offset + 12);
+        } else if (isIpv6()) {
+            return Ip6Address.valueOf(data, l3Offset + 8);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the destination IP address.
+     *
+     * @return destination IP address, or null if not an IP packet
+     */
+    public IpAddress destinationIp() {
+        if (data == null) {
+            IPacket payload = ethernet.getPayload();
+            if (payload instanceof IPv4) {
+                return Ip4Address.valueOf(((IPv4) payload).getDestinationAddress());
+            } else if (payload instanceof IPv6) {
+                return Ip6Address.valueOf(((IPv6) payload).getDestinationAddress());
+            }
+            return null;
+        }
+        if (isIpv4()) {
+            return Ip4Address.valueOf(data, l3Offset + 16);
+        } else if (isIpv6()) {
+            return Ip6Address.valueOf(data, l3Offset + 24);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the TCP or UDP source port.
+     *
+     * @return source port, or {@link #NONE} if not a TCP or UDP packet
+     */
+    public int sourcePort() {
+        if (data == null) {
+            IPacket l4 = l4Payload();
+            if (l4 instanceof TCP) {
+                return ((TCP) l4).getSourcePort();
+            } else if (l4 instanceof UDP) {
+                return ((UDP) l4).getSourcePort();
+            }
+            return NONE;
+        }
+        int l4Offset = l4Offset();
+        return l4Offset == NONE ? NONE : readShort(l4Offset);
+    }
+
+    /**
+     * Returns the TCP or UDP destination port.
+     *
+     * @return destination port, or {@link #NONE} if not a TCP or UDP packet
+     */
+    public int destinationPort() {
+        if (data == null) {
+            IPacket l4 = l4Payload();
+            if (l4 instanceof TCP) {
+                return ((TCP) l4).getDestinationPort();
+            } else if (l4 instanceof UDP) {
+                return ((UDP) l4).getDestinationPort();
+            }
+            return NONE;
+        }
+        int l4Offset = l4Offset();
+        return l4Offset == NONE ? NONE : readShort(l4Offset + 2);
+    }
+
+    /**
+     * Returns the frame as a fully parsed {@link Ethernet} object graph,
+     * deserializing it on first use.
+     *
+     * @return parsed frame, or null if the frame is malformed
+     */
+    public Ethernet ethernet() {
+        Ethernet parsed = ethernet;
+        if (parsed != null || malformed) {
+            return parsed;
+        }
+        synchronized (this) {
+            if (ethernet == null && !malformed) {
+                try {
+                    ethernet = Ethernet.deserializer().deserialize(data, offset, length);
+                } catch (DeserializationException | RuntimeException e) {
+                    malformed = true;
+                }
+            }
+            return ethernet;
+        }
+    }
+
+    /**
+     * Returns a buffer over the frame bytes. Views over a parsed frame
+     * serialize it into a new buffer.
+     *
+     * @return frame buffer, positioned at the start of the frame
+     */
+    public ByteBuffer buffer() {
+        if (data == null) {
+            return ByteBuffer.wrap(ethernet.serialize());
+        }
+        return ByteBuffer.wrap(data, offset, length).slice();
+    }
+
+    private boolean isIpv4() {
+        return etherType == (Ethernet.TYPE_IPV4 & 0xffff) &&
+                l3Offset + IPV4_MIN_HEADER_LENGTH <= offset + length &&
+                (data[l3Offset] & 0xf0) == 0x40;
+    }
+
+    private boolean isIpv6() {
+        return etherType == (Ethernet.TYPE_IPV6 & 0xffff) &&
+                l3Offset + IPV6_HEADER_LENGTH <= offset + length;
+    }
+
+    // Returns the offset of the TCP or UDP header, or NONE
+    private int l4Offset() {
+        int l4Offset;
+        if (isIpv4()) {
+            // only the first fragment carries the transport header
+            if ((readShort(l3Offset + 6) & 0x1fff) != 0) {
+                return NONE;
+            }
+            l4Offset = l3Offset + (data[l3Offset] & 0x0f) * 4;
+        } else if (isIpv6()) {
+            l4Offset = ipv6UpperLayer(true);
+            if (l4Offset == NONE) {
+                return NONE;
+            }
+        } else {
+            return NONE;
+        }
+        int protocol = ipProtocol();
+        if ((protocol != IPv4.PROTOCOL_TCP && protocol != IPv4.PROTOCOL_UDP) ||
+                l4Offset + L4_PORTS_LENGTH > offset + length) {
+            return NONE;
+        }
+        return l4Offset;
+    }
+
+    // Follows the IPv6 extension headers; returns the upper-layer protocol,
+    // or the offset of its header. Only the first fragment of a packet
+    // carries the upper-layer header, so other fragments have no offset.
+    private int ipv6UpperLayer(boolean headerOffset) {
+        int end = offset + length;
+        int nextHeader = data[l3Offset + 6] & 0xff;
+        int index = l3Offset + IPV6_HEADER_LENGTH;
+        boolean firstFragment = true;
+        while (isIpv6Extension(nextHeader) && index + IPV6_EXTENSION_MIN_LENGTH <= end) {
+            int headerLength;
+            if (nextHeader == IPv6.PROTOCOL_FRAG) {
+                firstFragment = (readShort(index + 2) & 0xfff8) == 0;
+                headerLength = IPV6_EXTENSION_MIN_LENGTH;
+            } else if (nextHeader == IPv6.PROTOCOL_AH) {
+                headerLength = ((data[index + 1] & 0xff) + 2) * 4;
+            } else {
+                headerLength = ((data[index + 1] & 0xff) + 1) * IPV6_EXTENSION_MIN_LENGTH;
+            }
+            nextHeader = data[index] & 0xff;
+            index += headerLength;
+        }
+        if (!headerOffset) {
+            return nextHeader;
+        }
+        return firstFragment && !isIpv6Extension(nextHeader) ? index : NONE;
+    }
+
+    private static boolean isIpv6Extension(int nextHeader) {
+        return nextHeader == IPv6.PROTOCOL_HOPOPT || nextHeader == IPv6.PROTOCOL_ROUTING ||
+                nextHeader == IPv6.PROTOCOL_FRAG || nextHeader == IPv6.PROTOCOL_AH ||
+                nextHeader == IPv6.PROTOCOL_DSTOPT;
+    }
+
+    // Returns the last of the IPv6 header and its parsed extension headers
+    private static IPacket lastIpv6Header(IPv6 ipv6) {
+        IPacket header = ipv6;
+        while (header.getPayload() instanceof IExtensionHeader) {
+            header = header.getPayload();
+        }
+        return header;
+    }
+
+    private IPacket l4Payload() {
+        IPacket payload = ethernet.getPayload();
+        if (payload instanceof IPv4) {
+            return payload.getPayload();
+        } else if (payload instanceof IPv6) {
+            return lastIpv6Header((IPv6) payload).getPayload();
+        }
+        return null;
+    }
+
+    private int readShort(int index) {
+        return (data[index] & 0xff) << 8 | (data[index + 1] & 0xff);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("etherType", String.format("0x%04x", etherType))
+                .add("vlanId", vlanId)
+                .add("length", data == null ? NONE : length)
+                .toString();
+    }
+}
@@ -81,6 +81,13 @@ public class ONOSLLDP extends LLDP {
 
     private static final byte TTL_TLV_TYPE = 3;
 
+    /**
+     * Offset of the port number within a serialized probe, following the
+     * chassis TLV and the port TLV header and subtype. Allows probes built for
+     * one port to be patched for another.
+     */
+    public static final int PORT_NUMBER_OFFSET = 2 + CHASSIS_TLV_SIZE + 2 + 1;
+
     private final byte[] ttlValue = new byte[] {0, 0x78};
 
     // Only needs to be accessed from LinkProbeFactory.
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import org.junit.Test;
+import org.onlab.packet.ipv6.Fragment;
+import org.onlab.packet.ipv6.HopByHopOptions;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the EthernetView class.
+ */
+public class EthernetViewTest {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final Ip4Address SRC_IP4 = Ip4Address.valueOf("10.0.0.1");
+    private static final Ip4Address DST_IP4 = Ip4Address.valueOf("10.0.0.2");
+    private static final Ip6Address SRC_IP6 = Ip6Address.valueOf("2001::1");
+    private static final Ip6Address DST_IP6 = Ip6Address.valueOf("2001::2");
+
+    private static Ethernet ethernet(short etherType, IPacket payload) {
+        Ethernet eth = new Ethernet()
+                .setSourceMACAddress(SRC_MAC)
+                .setDestinationMACAddress(DST_MAC)
+                .setEtherType(etherType);
+        eth.setPayload(payload);
+        return eth;
+    }
+
+    private static Ethernet udp4() {
+        IPv4 ip = new IPv4()
+                .setSourceAddress(SRC_IP4.toInt())
+                .setDestinationAddress(DST_IP4.toInt())
+                .setProtocol(IPv4.PROTOCOL_UDP);
+        ip.setPayload(new UDP().setSourcePort(5000).setDestinationPort(6000)
+                              .setPayload(new Data(new byte[8])));
+        return ethernet(Ethernet.TYPE_IPV4, ip);
+    }
+
+    private static Ethernet tcp6() {
+        IPv6 ip = new IPv6()
+                .setSourceAddress(SRC_IP6.toOctets())
+                .setDestinationAddress(DST_IP6.toOctets())
+                .setNextHeader(IPv6.PROTOCOL_TCP)
+                .setHopLimit((byte) 64);
+        ip.setPayload(new TCP().setSourcePort(5001).setDestinationPort(80));
+        return ethernet(Ethernet.TYPE_IPV6, ip);
+    }
+
+    private static void assertHeaders(EthernetView view, int etherType, short vlanId, int ipProtocol,
+                                      IpAddress srcIp, IpAddress dstIp, int srcPort, int dstPort) {
+        assertEquals(etherType, view.etherType());
+        assertEquals(vlanId, view.vlanId());
+        assertEquals(SRC_MAC, view.sourceMac());
+        assertEquals(DST_MAC, view.destinationMac());
+        assertEquals(ipProtocol, view.ipProtocol());
+        assertEquals(srcIp, view.sourceIp());
+        assertEquals(dstIp, view.destinationIp());
+        assertEquals(srcPort, view.sourcePort());
+        assertEquals(dstPort, view.destinationPort());
+    }
+
+    /**
+     * Tests the headers of an IPv4 UDP frame, read from bytes and from the
+     * parsed frame.
+     */
+    @Test
+    public void testUdp4() {
+        Ethernet eth = udp4();
+        byte[] frame = eth.serialize();
+        assertHeaders(EthernetView.of(frame), Ethernet.TYPE_IPV4, Ethernet.VLAN_UNTAGGED,
+                      IPv4.PROTOCOL_UDP, SRC_IP4, DST_IP4, 5000, 6000);
+        assertHeaders(EthernetView.of(eth), Ethernet.TYPE_IPV4, Ethernet.VLAN_UNTAGGED,
+                      IPv4.PROTOCOL_UDP, SRC_IP4, DST_IP4, 5000, 6000);
+    }
+
+    /**
+     * Tests the headers of a VLAN tagged IPv6 TCP frame.
+     */
+    @Test
+    public void testTaggedTcp6() {
+        Ethernet eth = tcp6().setVlanID((short) 100);
+        byte[] frame = eth.serialize();
+        assertHeaders(EthernetView.of(frame), Ethernet.TYPE_IPV6 & 0xffff, (short) 100,
+                      IPv6.PROTOCOL_TCP, SRC_IP6, DST_IP6, 5001, 80);
+        assertHeaders(EthernetView.of(eth), Ethernet.TYPE_IPV6 & 0xffff, (short) 100,
+                      IPv6.PROTOCOL_TCP, SRC_IP6, DST_IP6, 5001, 80);
+    }
+
+    /**
+     * Tests that double tagged frames report their inner VLAN.
+     */
+    @Test
+    public void testDoubleTagged() {
+        Ethernet eth = udp4().setVlanID((short) 20).setQinQVID((short) 10);
+        EthernetView view = EthernetView.of(eth.serialize());
+        assertEquals(Ethernet.TYPE_IPV4, view.etherType());
+        assertEquals(20, view.vlanId());
+        assertEquals(6000, view.destinationPort());
+    }
+
+    /**
+     * Tests the headers of a non-IP frame.
+     */
+    @Test
+    public void testArp() {
+        Ethernet eth = ethernet(Ethernet.TYPE_ARP, new ARP()
+                .setHardwareType(ARP.HW_TYPE_ETHERNET)
+                .setProtocolType(ARP.PROTO_TYPE_IP)
+                .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                .setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH)
+                .setOpCode(ARP.OP_REQUEST)
+                .setSenderHardwareAddress(SRC_MAC.toBytes())
+                .setSenderProtocolAddress(SRC_IP4.toOctets())
+                .setTargetHardwareAddress(MacAddress.ZERO.toBytes())
+                .setTargetProtocolAddress(DST_IP4.toOctets()));
+        assertHeaders(EthernetView.of(eth.serialize()), Ethernet.TYPE_ARP, Ethernet.VLAN_UNTAGGED,
+                      EthernetView.NONE, null, null, EthernetView.NONE, EthernetView.NONE);
+    }
+
+    /**
+     * Tests that only the first fragment of an IPv4 packet has ports.
+     */
+    @Test
+    public void testFragment() {
+        Ethernet eth = udp4();
+        ((IPv4) eth.getPayload()).setFragmentOffset((short) 100);
+        EthernetView view = EthernetView.of(eth.serialize());
+        assertEquals(IPv4.PROTOCOL_UDP, view.ipProtocol());
+        assertEquals(EthernetView.NONE, view.sourcePort());
+        assertEquals(EthernetView.NONE, view.destinationPort());
+    }
+
+    // IPv6 UDP frame behind hop-by-hop options and a fragment header
+    private static Ethernet fragmentedUdp6(short fragmentOffset) {
+        Fragment fragment = new Fragment()
+                .setNextHeader(IPv6.PROTOCOL_UDP)
+                .setFragmentOffset(fragmentOffset)
+                .setIdentification(1);
+        fragment.setPayload(new UDP().setSourcePort(5002).setDestinationPort(53)
+                                    .setPayload(new Data(new byte[8])));
+        HopByHopOptions options = new HopByHopOptions();
+        options.setOptions(new byte[6]);
+        options.setPayload(fragment);
+        IPv6 ip = new IPv6()
+                .setSourceAddress(SRC_IP6.toOctets())
+                .setDestinationAddress(DST_IP6.toOctets())
+                .setHopLimit((byte) 64);
+        ip.setPayload(options);
+        return ethernet(Ethernet.TYPE_IPV6, ip);
+    }
+
+    /**
+     * Tests that the protocol and ports of IPv6 packets are found past their
+     * extension headers.
+     */
+    @Test
+    public void testIpv6ExtensionHeaders() throws DeserializationException {
+        byte[] frame = fragmentedUdp6((short) 0).serialize();
+        assertEquals(IPv6.PROTOCOL_HOPOPT, frame[14 + 6]);
+        assertHeaders(EthernetView.of(frame), Ethernet.TYPE_IPV6 & 0xffff, Ethernet.VLAN_UNTAGGED,
+                      IPv6.PROTOCOL_UDP, SRC_IP6, DST_IP6, 5002, 53);
+        Ethernet parsed = Ethernet.deserializer().deserialize(frame, 0, frame.length);
+        assertHeaders(EthernetView.of(parsed), Ethernet.TYPE_IPV6 & 0xffff, Ethernet.VLAN_UNTAGGED,
+                      IPv6.PROTOCOL_UDP, SRC_IP6, DST_IP6, 5002, 53);
+    }
+
+    /**
+     * Tests that only the first fragment of an IPv6 packet has ports, and
+     * that extension headers cut off by the end of the frame end the walk.
+     */
+    @Test
+    public void testIpv6FragmentAndTruncated() {
+        EthernetView view = EthernetView.of(fragmentedUdp6((short) 100).serialize());
+        assertEquals(IPv6.PROTOCOL_UDP, view.ipProtocol());
+        assertEquals(EthernetView.NONE, view.sourcePort());
+        assertEquals(EthernetView.NONE, view.destinationPort());
+
+        // ends within the fragment header
+        byte[] frame = fragmentedUdp6((short) 0).serialize();
+        view = EthernetView.of(Arrays.copyOf(frame, 14 + 40 + 8 + 4));
+        assertEquals(IPv6.PROTOCOL_FRAG, view.ipProtocol());
+        assertEquals(EthernetView.NONE, view.destinationPort());
+    }
+
+    /**
+     * Tests that the full frame is deserialized once, on demand.
+     */
+    @Test
+    public void testEthernet() throws DeserializationException {
+        byte[] frame = udp4().serialize();
+        EthernetView view = EthernetView.of(frame);
+        Ethernet parsed = view.ethernet();
+        assertEquals(Ethernet.deserializer().deserialize(frame, 0, frame.length), parsed);
+        assertSame(parsed, view.ethernet());
+    }
+
+    /**
+     * Tests views over part of an array and their buffers.
+     */
+    @Test
+    public void testOffsetAndBuffer() {
+        byte[] frame = udp4().serialize();
+        byte[] data = new byte[frame.length + 10];
+        System.arraycopy(frame, 0, data, 5, frame.length);
+        EthernetView view = EthernetView.of(data, 5, frame.length);
+        assertEquals(DST_IP4, view.destinationIp());
+        assertEquals(6000, view.destinationPort());
+
+        ByteBuffer buffer = view.buffer();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertArrayEquals(frame, bytes);
+    }
+
+    /**
+     * Tests that truncated frames report absent headers.
+     */
+    @Test
+    public void testTruncated() {
+        byte[] frame = udp4().serialize();
+        EthernetView view = EthernetView.of(Arrays.copyOf(frame, 10));
+        assertEquals(EthernetView.NONE, view.etherType());
+        assertNull(view.sourceMac());
+        assertNull(view.ethernet());
+
+        view = EthernetView.of(Arrays.copyOf(frame, 30));
+        assertEquals(Ethernet.TYPE_IPV4, view.etherType());
+        assertEquals(EthernetView.NONE, view.ipProtocol());
+        assertNull(view.sourceIp());
+        assertEquals(EthernetView.NONE, view.sourcePort());
+    }
+}
@@ -116,6 +116,19 @@ public class LLDPTest {
         assertTrue(Arrays.equals(optionalTlvValue, optionalTlv.getValue()));
     }
 
+    /**
+     * Tests that patching the port number of an ONOS probe yields the probe
+     * built for that port.
+     */
+    @Test
+    public void testPatchOnosProbePort() throws Exception {
+        byte[] probe = ONOSLLDP.onosLLDP("of:0000000000000001", new ChassisId(1), 1).serialize();
+        ByteBuffer.wrap(probe).putInt(ONOSLLDP.PORT_NUMBER_OFFSET, 7);
+
+        byte[] expected = ONOSLLDP.onosLLDP("of:0000000000000001", new ChassisId(1), 7).serialize();
+        assertTrue(Arrays.equals(expected, probe));
+    }
+
     /**
      * Tests toString.
      */
@@ -23,7 +23,6 @@ import com.google.common.collect.ListMultimap;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.app.ApplicationService;
 import org.onosproject.core.ApplicationId;
-import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.FlowEntry;
@@ -33,6 +32,7 @@ import org.onosproject.rest.AbstractWebResource;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -47,7 +47,9 @@ import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.onlab.util.Tools.nullIsIllegal;
@@ -70,31 +72,42 @@ public class FlowsWebResource extends AbstractWebResource {
     private static final String FLOWS = "flows";
     private static final String DEVICE_ID = "deviceId";
     private static final String FLOW_ID = "flowId";
+    // precedes any character of a device identifier
+    private static final String KEY_SEPARATOR = " ";
 
     private final FlowRuleService service = get(FlowRuleService.class);
     private final ObjectNode root = mapper().createObjectNode();
     private final ArrayNode flowsNode = root.putArray(FLOWS);
 
     /**
-     * Gets all flow entries. Returns array of all flow rules in the system.
+     * Gets all flow entries. Returns array of all flow rules in the system,
+     * ordered by device and flow rule id.
+     * Large collections may be fetched in pages of at most the given number
+     * of flows; each page returns the cursor of the next page, if any.
      *
+     * @param cursor cursor of the page to get; first page if not specified
+     * @param limit  maximum number of flows in the page; all flows if not specified
+     * @param fields comma-separated names of the flow fields to return; all if not specified
      * @return 200 OK with a collection of flows
      * @onos.rsModel FlowEntries
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getFlows() {
-        final Iterable<Device> devices = get(DeviceService.class).getDevices();
-        for (final Device device : devices) {
-            final Iterable<FlowEntry> flowEntries = service.getFlowEntries(device.id());
-            if (flowEntries != null) {
-                for (final FlowEntry entry : flowEntries) {
-                    flowsNode.add(codec(FlowEntry.class).encode(entry, this));
-                }
-            }
-        }
-
-        return ok(root).build();
+    public Response getFlows(@QueryParam("cursor") String cursor,
+                             @DefaultValue("0") @QueryParam("limit") int limit,
+                             @QueryParam("fields") String fields) {
+        // skip the devices whose flows all precede the cursor
+        final String after = decodeCursor(cursor);
+        final Stream<FlowEntry> flowEntries =
+                StreamSupport.stream(get(DeviceService.class).getDevices().spliterator(), false)
+                        .map(device -> device.id().toString())
+                        .filter(deviceId -> after == null || after.startsWith(deviceId + KEY_SEPARATOR)
+                                || (deviceId + KEY_SEPARATOR).compareTo(after) > 0)
+                        .sorted()
+                        .flatMap(deviceId -> sorted(service.getFlowEntries(DeviceId.deviceId(deviceId))));
+
+        return ok(encodeArrayStream(FlowEntry.class, FLOWS, flowEntries, FlowsWebResource::key,
+                                    cursor, limit, fields)).build();
     }
 
     /**
@@ -138,9 +151,12 @@ public class FlowsWebResource extends AbstractWebResource {
 
     /**
      * Gets flow entries of a device. Returns array of all flow rules for the
-     * specified device.
+     * specified device, ordered by flow rule id.
      *
      * @param deviceId device identifier
+     * @param cursor   cursor of the page to get; first page if not specified
+     * @param limit    maximum number of flows in the page; all flows if not specified
+     * @param fields   comma-separated names of the flow fields to return; all if not specified
      * @return 200 OK with a collection of flows of given device
      * @onos.rsModel FlowEntries
      */
@@ -148,17 +164,32 @@ public class FlowsWebResource extends AbstractWebResource {
     @Produces(MediaType.APPLICATION_JSON)
     // TODO: we need to add "/device" suffix to the path to differentiate with appId
     @Path("{deviceId}")
-    public Response getFlowByDeviceId(@PathParam("deviceId") String deviceId) {
+    public Response getFlowByDeviceId(@PathParam("deviceId") String deviceId,
+                                      @QueryParam("cursor") String cursor,
+                                      @DefaultValue("0") @QueryParam("limit") int limit,
+                                      @QueryParam("fields") String fields) {
         final Iterable<FlowEntry> flowEntries =
                 service.getFlowEntries(DeviceId.deviceId(deviceId));
 
         if (flowEntries == null || !flowEntries.iterator().hasNext()) {
             throw new ItemNotFoundException(DEVICE_NOT_FOUND);
         }
-        for (final FlowEntry entry : flowEntries) {
-            flowsNode.add(codec(FlowEntry.class).encode(entry, this));
+        return ok(encodeArrayStream(FlowEntry.class, FLOWS, sorted(flowEntries), FlowsWebResource::key,
+                                    cursor, limit, fields)).build();
+    }
+
+    // Orders the flow entries of a device by flow rule id
+    private static Stream<FlowEntry> sorted(Iterable<FlowEntry> flowEntries) {
+        if (flowEntries == null) {
+            return Stream.empty();
         }
-        return ok(root).build();
+        return StreamSupport.stream(flowEntries.spliterator(), false)
+                .sorted(Comparator.comparing(entry -> entry.id().value(), Long::compareUnsigned));
+    }
+
+    // Returns the paging key of a flow entry, ordering flows by device and flow rule id
+    private static String key(FlowEntry flowEntry) {
+        return flowEntry.deviceId() + KEY_SEPARATOR + String.format("%016x", flowEntry.id().value());
     }
 
     /**
@@ -38,11 +38,13 @@ import org.onosproject.rest.AbstractWebResource;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -51,10 +53,13 @@ import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.onlab.util.Tools.nullIsNotFound;
 import static org.onosproject.net.HostId.hostId;
@@ -72,17 +77,26 @@ public class HostsWebResource extends AbstractWebResource {
 
     /**
      * Get all end-station hosts.
-     * Returns array of all known end-station hosts.
+     * Returns array of all known end-station hosts, ordered by id.
+     * Large collections may be fetched in pages of at most the given number
+     * of hosts; each page returns the cursor of the next page, if any.
      *
+     * @param cursor cursor of the page to get; first page if not specified
+     * @param limit  maximum number of hosts in the page; all hosts if not specified
+     * @param fields comma-separated names of the host fields to return; all if not specified
      * @return 200 OK with array of all known end-station hosts.
      * @onos.rsModel Hosts
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getHosts() {
-        final Iterable<Host> hosts = get(HostService.class).getHosts();
-        final ObjectNode root = encodeArray(Host.class, "hosts", hosts);
-        return ok(root).build();
+    public Response getHosts(@QueryParam("cursor") String cursor,
+                             @DefaultValue("0") @QueryParam("limit") int limit,
+                             @QueryParam("fields") String fields) {
+        final Stream<Host> hosts =
+                StreamSupport.stream(get(HostService.class).getHosts().spliterator(), false)
+                        .sorted(Comparator.comparing(host -> host.id().toString()));
+        return ok(encodeArrayStream(Host.class, "hosts", hosts, host -> host.id().toString(),
+                                    cursor, limit, fields)).build();
     }
 
     /**
@@ -36,11 +36,13 @@ import org.slf4j.Logger;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -48,10 +50,13 @@ import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.onlab.util.Tools.nullIsNotFound;
 import static org.onosproject.net.intent.IntentState.FAILED;
@@ -84,17 +89,27 @@ public class IntentsWebResource extends AbstractWebResource {
 
     /**
      * Gets all intents.
-     * Returns array containing all the intents in the system.
+     * Returns array containing all the intents in the system, ordered by id.
+     * Large collections may be fetched in pages of at most the given number
+     * of intents; each page returns the cursor of the next page, if any.
      *
+     * @param cursor cursor of the page to get; first page if not specified
+     * @param limit  maximum number of intents in the page; all intents if not specified
+     * @param fields comma-separated names of the intent fields to return; all if not specified
      * @return 200 OK with array of all the intents in the system
      * @onos.rsModel Intents
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getIntents() {
-        final Iterable<Intent> intents = get(IntentService.class).getIntents();
-        final ObjectNode root = encodeArray(Intent.class, "intents", intents);
-        return ok(root).build();
+    public Response getIntents(@QueryParam("cursor") String cursor,
+                               @DefaultValue("0") @QueryParam("limit") int limit,
+                               @QueryParam("fields") String fields) {
+        final Stream<Intent> intents =
+                StreamSupport.stream(get(IntentService.class).getIntents().spliterator(), false)
+                        .sorted(Comparator.comparing(intent -> intent.id().fingerprint(), Long::compareUnsigned));
+        return ok(encodeArrayStream(Intent.class, "intents", intents,
+                                    intent -> String.format("%016x", intent.id().fingerprint()),
+                                    cursor, limit, fields)).build();
     }
 
     /**
@@ -75,6 +75,7 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -659,6 +660,34 @@ public class FlowsResourceTest extends ResourceTest {
         assertThat(jsonFlows, hasFlow(flow4));
     }
 
+    /**
+     * Tests paging through the flows of a device, projected on some of their
+     * fields.
+     */
+    @Test
+    public void testFlowsSingleDevicePages() {
+        setupMockFlows();
+        replay(mockFlowService);
+        replay(mockDeviceService);
+        final WebTarget wt = target();
+        String response = wt.path("flows/" + deviceId1).queryParam("limit", 1)
+                .queryParam("fields", "id,state").request().get(String.class);
+        JsonObject result = Json.parse(response).asObject();
+        assertThat(result.names(), contains("flows", "nextCursor"));
+        JsonArray jsonFlows = result.get("flows").asArray();
+        assertThat(jsonFlows.size(), is(1));
+        assertThat(jsonFlows.get(0).asObject().names(), contains("id", "state"));
+        assertThat(jsonFlows.get(0).asObject().get("id").asString(), is(Long.toString(flow1.id().value())));
+
+        response = wt.path("flows/" + deviceId1).queryParam("limit", 1)
+                .queryParam("cursor", result.get("nextCursor").asString()).request().get(String.class);
+        result = Json.parse(response).asObject();
+        assertThat(result.names(), contains("flows"));
+        jsonFlows = result.get("flows").asArray();
+        assertThat(jsonFlows, hasFlow(flow2));
+        assertThat(jsonFlows.size(), is(1));
+    }
+
     /**
      * Tests the result of a rest api GET for a device.
      */
@@ -61,6 +61,8 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -294,6 +296,43 @@ public class HostResourceTest extends ResourceTest {
         assertThat(hosts, hasHost(host2));
     }
 
+    /**
+     * Tests paging through the hosts, projected on some of their fields.
+     */
+    @Test
+    public void testHostsPages() {
+        replay(mockHostService);
+        final ProviderId pid = new ProviderId("of", "foo");
+        for (int i = 1; i <= 5; i++) {
+            final MacAddress mac = MacAddress.valueOf(String.format("00:00:11:00:00:%02x", i));
+            hosts.add(new DefaultHost(pid, HostId.hostId(mac, vlanId((short) 1)), mac, vlanId((short) 1),
+                                      new HostLocation(DeviceId.deviceId("1"), portNumber(i), 1),
+                                      ImmutableSet.of()));
+        }
+
+        WebTarget wt = target();
+        String response = wt.path("hosts").queryParam("limit", 2).queryParam("fields", "id,mac")
+                .request().get(String.class);
+        JsonObject result = Json.parse(response).asObject();
+        JsonArray page = result.get("hosts").asArray();
+        assertThat(page.size(), is(2));
+        assertThat(page.get(0).asObject().names(), contains("id", "mac"));
+        assertThat(page.get(0).asObject().get("id").asString(), is("00:00:11:00:00:01/1"));
+        assertThat(page.get(1).asObject().get("id").asString(), is("00:00:11:00:00:02/1"));
+
+        final Set<String> ids = new HashSet<>();
+        String cursor = result.get("nextCursor").asString();
+        while (cursor != null) {
+            response = wt.path("hosts").queryParam("limit", 2).queryParam("cursor", cursor)
+                    .request().get(String.class);
+            result = Json.parse(response).asObject();
+            result.get("hosts").asArray().forEach(host -> ids.add(host.asObject().get("id").asString()));
+            cursor = result.get("nextCursor") == null ? null : result.get("nextCursor").asString();
+        }
+        assertThat(ids, containsInAnyOrder("00:00:11:00:00:03/1", "00:00:11:00:00:04/1",
+                                           "00:00:11:00:00:05/1"));
+    }
+
     /**
      * Tests fetch of one host by Id.
      */